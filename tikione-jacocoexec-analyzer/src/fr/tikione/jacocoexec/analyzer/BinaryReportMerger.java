@@ -0,0 +1,251 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.data.CRC64;
+
+/**
+ * Incremental merge of JaCoCo binary reports, e.g. the reports of test shards run in parallel: each report is loaded and merged as
+ * soon as it is available, so only the last one is merged once every report is written. Probes of a class found in several reports
+ * are merged as in {@link JaCoCoReportAnalyzer#mergeBinaryReports(java.io.File, java.io.File...)}. Thread-safe.
+ * <br/>Large batches of reports (e.g. dumps collected from many JVMs) are merged by {@link #addAll(java.util.List, int)}: memory
+ * is bounded by the number of distinct classes, not by the number or size of the reports.
+ *
+ * @author Jonathan Lermitage
+ */
+public class BinaryReportMerger {
+
+    /** Read buffer size of JaCoCo binary reports. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ExecutionDataStore executionDataStore = new ExecutionDataStore();
+
+    private final SessionInfoStore sessionInfoStore = new SessionInfoStore();
+
+    private int nbReports = 0;
+
+    /**
+     * Merge a JaCoCo binary report.
+     *
+     * @param jacocoexec the JaCoCo binary report. Ignored if missing.
+     * @return {@code true} if the report was merged, {@code false} if it is missing.
+     * @throws IOException if the report can't be read.
+     */
+    public synchronized boolean add(File jacocoexec)
+            throws IOException {
+        if (!jacocoexec.isFile()) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(jacocoexec), BUFFER_SIZE)) {
+            ExecutionDataReader executionDataReader = new ExecutionDataReader(in);
+            executionDataReader.setExecutionDataVisitor(executionDataStore);
+            executionDataReader.setSessionInfoVisitor(sessionInfoStore);
+            while (executionDataReader.read()) {
+            }
+        }
+        nbReports++;
+        return true;
+    }
+
+    /**
+     * Merge a batch of JaCoCo binary reports with parallel readers. Each reader streams reports into its own store, where the probes
+     * of a class are merged as they are read, so a reader only holds one copy of each distinct class; the readers' stores are merged
+     * at the end. Session information of the batch is summarized as a single session.
+     * <br/>Reports that can't be read or are corrupted are skipped (execution data read before the error is kept).
+     *
+     * @param jacocoexecs the JaCoCo binary reports to merge.
+     * @param nbThreads the number of parallel readers.
+     * @return the reports that couldn't be read (empty if none).
+     * @throws IOException if interrupted.
+     */
+    public List<File> addAll(final List<File> jacocoexecs, int nbThreads)
+            throws IOException {
+        if (jacocoexecs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final AtomicInteger nextReport = new AtomicInteger(0);
+        final List<File> failed = Collections.synchronizedList(new ArrayList<File>(4));
+        ExecutorService readers = Executors.newFixedThreadPool(Math.max(1, Math.min(nbThreads, jacocoexecs.size())));
+        List<Future<BatchReader>> results = new ArrayList<>(nbThreads);
+        for (int thread = 0; thread < Math.max(1, Math.min(nbThreads, jacocoexecs.size())); thread++) {
+            results.add(readers.submit(new Callable<BatchReader>() {
+                @Override
+                public BatchReader call() {
+                    BatchReader reader = new BatchReader();
+                    int reportIdx;
+                    while ((reportIdx = nextReport.getAndIncrement()) < jacocoexecs.size()
+                            && !Thread.currentThread().isInterrupted()) {
+                        File report = jacocoexecs.get(reportIdx);
+                        try (InputStream in = new BufferedInputStream(new FileInputStream(report), BUFFER_SIZE)) {
+                            ExecutionDataReader executionDataReader = new ExecutionDataReader(in);
+                            executionDataReader.setExecutionDataVisitor(reader.executionDataStore);
+                            executionDataReader.setSessionInfoVisitor(reader);
+                            while (executionDataReader.read()) {
+                            }
+                            reader.nbReports++;
+                        } catch (IOException | RuntimeException ex) {
+                            failed.add(report);
+                        }
+                    }
+                    return reader;
+                }
+            }));
+        }
+        readers.shutdown();
+        long start = Long.MAX_VALUE;
+        long dump = Long.MIN_VALUE;
+        int nbMerged = 0;
+        try {
+            for (Future<BatchReader> result : results) {
+                BatchReader reader = result.get();
+                synchronized (this) {
+                    for (ExecutionData data : reader.executionDataStore.getContents()) {
+                        executionDataStore.put(data);
+                    }
+                }
+                nbMerged += reader.nbReports;
+                start = Math.min(start, reader.start);
+                dump = Math.max(dump, reader.dump);
+            }
+        } catch (InterruptedException ex) {
+            readers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while merging JaCoCo binary reports", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+        synchronized (this) {
+            if (nbMerged > 0) {
+                sessionInfoStore.visitSessionInfo(new SessionInfo("merged-" + nbMerged + "-reports",
+                        start == Long.MAX_VALUE ? 0 : start, dump == Long.MIN_VALUE ? 0 : dump));
+            }
+            nbReports += nbMerged;
+        }
+        return new ArrayList<>(failed);
+    }
+
+    /**
+     * Find the JaCoCo binary reports (<code>*.exec</code> files) of a folder and its sub-folders.
+     *
+     * @param dir the folder.
+     * @return the JaCoCo binary reports.
+     */
+    public static List<File> findBinaryReports(File dir) {
+        List<File> reports = new ArrayList<>(64);
+        findBinaryReports(dir, reports);
+        return reports;
+    }
+
+    private static void findBinaryReports(File dir, List<File> reports) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findBinaryReports(file, reports);
+            } else if (file.getName().endsWith(".exec")) {
+                reports.add(file);
+            }
+        }
+    }
+
+    /**
+     * Evict the execution data that doesn't match the compiled classes any more: classes that were deleted, or recompiled since
+     * their execution data was recorded (their JaCoCo class id, the CRC64 checksum of the class file, changed).
+     *
+     * @param prjClassesDir the directory containing project's compiled classes.
+     * @return the number of evicted classes.
+     * @throws IOException if a class file can't be read.
+     */
+    public synchronized int retainCompiledClasses(File prjClassesDir)
+            throws IOException {
+        ExecutionDataStore retained = new ExecutionDataStore();
+        Map<String, Long> classIds = new HashMap<>(256);
+        int nbEvicted = 0;
+        for (ExecutionData data : executionDataStore.getContents()) {
+            Long classId = classIds.get(data.getName());
+            if (classId == null) {
+                File classFile = new File(prjClassesDir, data.getName() + ".class");
+                classId = classFile.isFile() ? CRC64.checksum(Files.readAllBytes(classFile.toPath())) : 0L;
+                classIds.put(data.getName(), classId);
+            }
+            if (classId == data.getId()) {
+                retained.put(data);
+            } else {
+                nbEvicted++;
+            }
+        }
+        executionDataStore = retained;
+        return nbEvicted;
+    }
+
+    /**
+     * Write the merged JaCoCo binary report.
+     *
+     * @param jacocoexec the merged JaCoCo binary report to write.
+     * @throws IOException if the report can't be written.
+     */
+    public synchronized void write(File jacocoexec)
+            throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(jacocoexec))) {
+            ExecutionDataWriter writer = new ExecutionDataWriter(out);
+            sessionInfoStore.accept(writer);
+            executionDataStore.accept(writer);
+        }
+    }
+
+    /**
+     * Get the number of merged reports.
+     *
+     * @return the number of reports merged so far.
+     */
+    public synchronized int getNbReports() {
+        return nbReports;
+    }
+
+    /**
+     * A reader of {@link #addAll(java.util.List, int)}: its merged execution data, and a summary of the sessions it read.
+     */
+    private static class BatchReader implements ISessionInfoVisitor {
+
+        private final ExecutionDataStore executionDataStore = new ExecutionDataStore();
+
+        private long start = Long.MAX_VALUE;
+
+        private long dump = Long.MIN_VALUE;
+
+        private int nbReports = 0;
+
+        @Override
+        public void visitSessionInfo(SessionInfo info) {
+            start = Math.min(start, info.getStartTimeStamp());
+            dump = Math.max(dump, info.getDumpTimeStamp());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.Arrays;
+
+/**
+ * The lines of a Java source file whose coverage changed between two coverage runs, see {@link CoverageDelta}.
+ * <br/>If the compiled classes changed between the two runs (see {@link #isRecompiled()}), lines may have moved: line numbers of
+ * the two runs can't be compared, so there are no changed lines, only the numbers of covered, partially covered and not covered
+ * lines of both runs.
+ *
+ * @author Jonathan Lermitage
+ */
+public class ClassCoverageDelta {
+
+    /** The class, as covered by the latest run. */
+    private final JavaClass javaClass;
+
+    /** {@code true} if the compiled classes changed between the two runs: line numbers may have shifted. */
+    private final boolean recompiled;
+
+    /** Lines that gained coverage (0-based, sorted). */
+    private final int[] gainedLines;
+
+    /** Lines that lost coverage (0-based, sorted). */
+    private final int[] lostLines;
+
+    /** Lines that became partially covered (0-based, sorted). */
+    private final int[] newlyPartialLines;
+
+    /** Number of covered lines in the previous run. */
+    private final int previousNbCoveredLines;
+
+    /** Number of partially covered lines in the previous run. */
+    private final int previousNbPartiallyCoveredLines;
+
+    /** Number of not covered lines in the previous run. */
+    private final int previousNbNotCoveredLines;
+
+    ClassCoverageDelta(JavaClass javaClass, JavaClass previous, int[] gainedLines, int[] lostLines, int[] newlyPartialLines) {
+        this.javaClass = javaClass;
+        this.recompiled = false;
+        this.gainedLines = gainedLines;
+        this.lostLines = lostLines;
+        this.newlyPartialLines = newlyPartialLines;
+        this.previousNbCoveredLines = previous.getNbCoveredLines();
+        this.previousNbPartiallyCoveredLines = previous.getNbPartiallyCoveredLines();
+        this.previousNbNotCoveredLines = previous.getNbNotCoveredLines();
+    }
+
+    /**
+     * Create the changes of a recompiled class: no changed lines, only the numbers of lines of both runs.
+     *
+     * @param javaClass the class in the latest run.
+     * @param previous the class in the previous run.
+     */
+    ClassCoverageDelta(JavaClass javaClass, JavaClass previous) {
+        this.javaClass = javaClass;
+        this.recompiled = true;
+        this.gainedLines = new int[0];
+        this.lostLines = this.gainedLines;
+        this.newlyPartialLines = this.gainedLines;
+        this.previousNbCoveredLines = previous.getNbCoveredLines();
+        this.previousNbPartiallyCoveredLines = previous.getNbPartiallyCoveredLines();
+        this.previousNbNotCoveredLines = previous.getNbNotCoveredLines();
+    }
+
+    public JavaClass getJavaClass() {
+        return javaClass;
+    }
+
+    /**
+     * Get the Java source file, relative to a source root (e.g. <code>/fr/tikione/Foo.java</code>).
+     *
+     * @return the Java source file.
+     */
+    public String getClassResource() {
+        return javaClass.getPackageName() + javaClass.getClassName();
+    }
+
+    /**
+     * Check if the compiled classes changed between the two runs. If so, lines may have moved and no changed line is reported: see
+     * {@link #getPreviousNbCoveredLines()} and the other numbers of lines of the previous run.
+     *
+     * @return {@code true} if the class was recompiled.
+     */
+    public boolean isRecompiled() {
+        return recompiled;
+    }
+
+    public int getPreviousNbCoveredLines() {
+        return previousNbCoveredLines;
+    }
+
+    public int getPreviousNbPartiallyCoveredLines() {
+        return previousNbPartiallyCoveredLines;
+    }
+
+    public int getPreviousNbNotCoveredLines() {
+        return previousNbNotCoveredLines;
+    }
+
+    /**
+     * Get the change of coverage of a line. Logarithmic time in the number of changed lines.
+     *
+     * @param line the line (0-based).
+     * @return the change of coverage, or {@code null} if the coverage of the line didn't change.
+     */
+    public LineDeltaEnum getLineDelta(int line) {
+        if (Arrays.binarySearch(gainedLines, line) >= 0) {
+            return LineDeltaEnum.GAINED;
+        }
+        if (Arrays.binarySearch(lostLines, line) >= 0) {
+            return LineDeltaEnum.LOST;
+        }
+        if (Arrays.binarySearch(newlyPartialLines, line) >= 0) {
+            return LineDeltaEnum.NEWLY_PARTIAL;
+        }
+        return null;
+    }
+
+    /**
+     * Get the lines of a kind of change.
+     *
+     * @param delta the kind of change.
+     * @return the lines (0-based, sorted). Do not modify.
+     */
+    public int[] getLines(LineDeltaEnum delta) {
+        switch (delta) {
+            case GAINED:
+                return gainedLines;
+            case LOST:
+                return lostLines;
+            case NEWLY_PARTIAL:
+                return newlyPartialLines;
+            default:
+                return new int[0];
+        }
+    }
+
+    public int getNbGainedLines() {
+        return gainedLines.length;
+    }
+
+    public int getNbLostLines() {
+        return lostLines.length;
+    }
+
+    public int getNbNewlyPartialLines() {
+        return newlyPartialLines.length;
+    }
+}
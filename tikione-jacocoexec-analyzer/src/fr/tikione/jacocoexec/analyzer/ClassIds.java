@@ -0,0 +1,52 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.jacoco.core.internal.data.CRC64;
+
+/**
+ * Class ids of Java source files: a fingerprint of the classes compiled from a Java source file, built from the JaCoCo class ids
+ * (CRC64 checksum of the class files) of the top-level class and of its inner and anonymous classes.
+ * <br/>When the class id of a Java source file differs from the class id recorded with its coverage data, the source file was
+ * modified and recompiled since the coverage task: its coverage data is stale.
+ *
+ * @author Jonathan Lermitage
+ */
+public class ClassIds {
+
+    /**
+     * Compute the class id of a Java source file from its compiled classes.
+     *
+     * @param classesDir the folder containing the project's compiled classes.
+     * @param packageName the package name (with "/" instead of ".", e.g. <code>/fr/tikione/</code>).
+     * @param className the Java source file name (e.g. <code>Foo.java</code>).
+     * @return the class id, or {@code 0} if no compiled class is found.
+     * @throws IOException if a class file can't be read.
+     */
+    public static long compute(File classesDir, String packageName, String className)
+            throws IOException {
+        final String baseName = className.endsWith(".java") ? className.substring(0, className.length() - 5) : className;
+        File[] classFiles = new File(classesDir, packageName).listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".class") && (name.equals(baseName + ".class") || name.startsWith(baseName + '$'));
+            }
+        });
+        if (classFiles == null || classFiles.length == 0) {
+            return 0;
+        }
+        // Same order on every file system.
+        Arrays.sort(classFiles);
+        long classId = 0;
+        for (File classFile : classFiles) {
+            classId = classId * 31 + CRC64.checksum(Files.readAllBytes(classFile.toPath()));
+        }
+        return classId;
+    }
+
+    private ClassIds() {
+    }
+}
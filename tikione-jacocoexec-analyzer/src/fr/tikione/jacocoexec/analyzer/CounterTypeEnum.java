@@ -0,0 +1,37 @@
+package fr.tikione.jacocoexec.analyzer;
+
+/**
+ * Types of JaCoCo coverage counters, as found in JaCoCo XML reports.
+ *
+ * @author Jonathan Lermitage
+ */
+public enum CounterTypeEnum {
+
+    /** Java bytecode instructions. */
+    INSTRUCTION,
+    /** Branches of conditional statements. */
+    BRANCH,
+    /** Source lines. */
+    LINE,
+    /** Cyclomatic complexity. */
+    COMPLEXITY,
+    /** Methods (and constructors). */
+    METHOD,
+    /** Classes. */
+    CLASS;
+
+    /**
+     * Get a counter type from its name in JaCoCo XML reports.
+     *
+     * @param type the counter type name (case insensitive).
+     * @return the counter type, or {@code null} if unknown.
+     */
+    public static CounterTypeEnum parse(String type) {
+        for (CounterTypeEnum counterType : values()) {
+            if (counterType.name().equalsIgnoreCase(type)) {
+                return counterType;
+            }
+        }
+        return null;
+    }
+}
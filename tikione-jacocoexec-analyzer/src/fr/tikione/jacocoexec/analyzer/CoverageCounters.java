@@ -0,0 +1,190 @@
+package fr.tikione.jacocoexec.analyzer;
+
+/**
+ * JaCoCo coverage counters of a Java element (class, package, module or project): instructions, branches, lines, methods,
+ * cyclomatic complexity and classes, plus the number of lines by coverage state.
+ * <br/>Counters are only updated while coverage data is loaded, they are read-only for other classes.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageCounters {
+
+    private int instructionsMissed = 0;
+
+    private int instructionsCovered = 0;
+
+    private int branchesMissed = 0;
+
+    private int branchesCovered = 0;
+
+    private int linesMissed = 0;
+
+    private int linesCovered = 0;
+
+    private int methodsMissed = 0;
+
+    private int methodsCovered = 0;
+
+    private int complexityMissed = 0;
+
+    private int complexityCovered = 0;
+
+    private int classesMissed = 0;
+
+    private int classesCovered = 0;
+
+    /** Number of covered lines. */
+    private int nbCoveredLines = 0;
+
+    /** Number of partially covered lines. */
+    private int nbPartiallyCoveredLines = 0;
+
+    /** Number of not covered lines. */
+    private int nbNotCoveredLines = 0;
+
+    CoverageCounters() {
+    }
+
+    /**
+     * Add a JaCoCo counter.
+     *
+     * @param type the counter type.
+     * @param missed the number of missed items.
+     * @param covered the number of covered items.
+     */
+    void increment(CounterTypeEnum type, int missed, int covered) {
+        switch (type) {
+            case INSTRUCTION:
+                instructionsMissed += missed;
+                instructionsCovered += covered;
+                break;
+            case BRANCH:
+                branchesMissed += missed;
+                branchesCovered += covered;
+                break;
+            case LINE:
+                linesMissed += missed;
+                linesCovered += covered;
+                break;
+            case COMPLEXITY:
+                complexityMissed += missed;
+                complexityCovered += covered;
+                break;
+            case METHOD:
+                methodsMissed += missed;
+                methodsCovered += covered;
+                break;
+            case CLASS:
+                classesMissed += missed;
+                classesCovered += covered;
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Add the number of lines by coverage state.
+     *
+     * @param covered the number of covered lines.
+     * @param partiallyCovered the number of partially covered lines.
+     * @param notCovered the number of not covered lines.
+     */
+    void incrementLineStates(int covered, int partiallyCovered, int notCovered) {
+        nbCoveredLines += covered;
+        nbPartiallyCoveredLines += partiallyCovered;
+        nbNotCoveredLines += notCovered;
+    }
+
+    /**
+     * Add all the counters of another element.
+     *
+     * @param other the counters to add.
+     */
+    void increment(CoverageCounters other) {
+        instructionsMissed += other.instructionsMissed;
+        instructionsCovered += other.instructionsCovered;
+        branchesMissed += other.branchesMissed;
+        branchesCovered += other.branchesCovered;
+        linesMissed += other.linesMissed;
+        linesCovered += other.linesCovered;
+        methodsMissed += other.methodsMissed;
+        methodsCovered += other.methodsCovered;
+        complexityMissed += other.complexityMissed;
+        complexityCovered += other.complexityCovered;
+        classesMissed += other.classesMissed;
+        classesCovered += other.classesCovered;
+        nbCoveredLines += other.nbCoveredLines;
+        nbPartiallyCoveredLines += other.nbPartiallyCoveredLines;
+        nbNotCoveredLines += other.nbNotCoveredLines;
+    }
+
+    /**
+     * Get the ratio of covered lines (partially covered lines count as half covered).
+     *
+     * @return the coverage ratio, from 0 to 1, or 1 if there is no line.
+     */
+    public double getLineCoverageRatio() {
+        int nbLines = nbCoveredLines + nbPartiallyCoveredLines + nbNotCoveredLines;
+        return nbLines == 0 ? 1 : (nbCoveredLines + nbPartiallyCoveredLines / 2.0) / nbLines;
+    }
+
+    public int getInstructionsMissed() {
+        return instructionsMissed;
+    }
+
+    public int getInstructionsCovered() {
+        return instructionsCovered;
+    }
+
+    public int getBranchesMissed() {
+        return branchesMissed;
+    }
+
+    public int getBranchesCovered() {
+        return branchesCovered;
+    }
+
+    public int getLinesMissed() {
+        return linesMissed;
+    }
+
+    public int getLinesCovered() {
+        return linesCovered;
+    }
+
+    public int getMethodsMissed() {
+        return methodsMissed;
+    }
+
+    public int getMethodsCovered() {
+        return methodsCovered;
+    }
+
+    public int getComplexityMissed() {
+        return complexityMissed;
+    }
+
+    public int getComplexityCovered() {
+        return complexityCovered;
+    }
+
+    public int getClassesMissed() {
+        return classesMissed;
+    }
+
+    public int getClassesCovered() {
+        return classesCovered;
+    }
+
+    public int getNbCoveredLines() {
+        return nbCoveredLines;
+    }
+
+    public int getNbPartiallyCoveredLines() {
+        return nbPartiallyCoveredLines;
+    }
+
+    public int getNbNotCoveredLines() {
+        return nbNotCoveredLines;
+    }
+}
@@ -0,0 +1,243 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lines whose coverage changed between two coverage runs: lines that gained coverage, lines that lost coverage, and lines that
+ * became partially covered.
+ * <br/>Classes are compared one by one. A class whose line coverage fingerprint didn't change (see
+ * {@link JavaClass#getLineCoverageFingerprint()}) is skipped; when the previous run is a {@link CoverageSnapshot}, skipped classes
+ * are not even decoded. Lines that only exist in one of the runs (new or removed code), new classes and classes removed since the
+ * previous run are ignored, whatever their coverage: new code is neither a gain nor a loss. Recompiled classes (see
+ * {@link ClassCoverageDelta#isRecompiled()}) only report their numbers of lines, and don't count in the numbers of changed lines.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageDelta {
+
+    /** Changed classes, sorted by Java source file. */
+    private final List<ClassCoverageDelta> classDeltas;
+
+    /** Changed classes, by Java source file (e.g. <code>/fr/tikione/Foo.java</code>). */
+    private final Map<String, ClassCoverageDelta> classDeltasByResource;
+
+    /** Number of classes skipped because their fingerprint didn't change. */
+    private final int nbSkippedClasses;
+
+    private int nbGainedLines = 0;
+
+    private int nbLostLines = 0;
+
+    private int nbNewlyPartialLines = 0;
+
+    private CoverageDelta(List<ClassCoverageDelta> classDeltas, int nbSkippedClasses) {
+        Collections.sort(classDeltas, new Comparator<ClassCoverageDelta>() {
+            @Override
+            public int compare(ClassCoverageDelta o1, ClassCoverageDelta o2) {
+                return o1.getClassResource().compareTo(o2.getClassResource());
+            }
+        });
+        this.classDeltas = Collections.unmodifiableList(classDeltas);
+        this.classDeltasByResource = new HashMap<>(classDeltas.size() * 2);
+        this.nbSkippedClasses = nbSkippedClasses;
+        for (ClassCoverageDelta classDelta : classDeltas) {
+            classDeltasByResource.put(JavaClass.toResourceKey(classDelta.getClassResource()), classDelta);
+            nbGainedLines += classDelta.getNbGainedLines();
+            nbLostLines += classDelta.getNbLostLines();
+            nbNewlyPartialLines += classDelta.getNbNewlyPartialLines();
+        }
+    }
+
+    /**
+     * Compare two coverage runs.
+     *
+     * @param previous the coverage data of the previous run.
+     * @param current the coverage data of the latest run.
+     * @return the changes of coverage.
+     */
+    public static CoverageDelta compute(Collection<JavaClass> previous, Collection<JavaClass> current) {
+        Map<String, JavaClass> previousByResource = new HashMap<>(previous.size() * 2);
+        for (JavaClass jclass : previous) {
+            previousByResource.put(jclass.getPackageName() + jclass.getClassName(), jclass);
+        }
+        List<ClassCoverageDelta> classDeltas = new ArrayList<>(64);
+        int nbSkipped = 0;
+        for (JavaClass jclass : current) {
+            JavaClass previousClass = previousByResource.get(jclass.getPackageName() + jclass.getClassName());
+            if (previousClass != null
+                    && previousClass.getLineCoverageFingerprint() == jclass.getLineCoverageFingerprint()) {
+                nbSkipped++;
+                continue;
+            }
+            ClassCoverageDelta classDelta = compare(previousClass, jclass);
+            if (classDelta != null) {
+                classDeltas.add(classDelta);
+            }
+        }
+        return new CoverageDelta(classDeltas, nbSkipped);
+    }
+
+    /**
+     * Compare a coverage run to a coverage snapshot. Only the classes whose fingerprint changed are decoded from the snapshot.
+     *
+     * @param previous the coverage snapshot of the previous run.
+     * @param current the coverage data of the latest run.
+     * @return the changes of coverage.
+     * @throws IOException if the snapshot is corrupted.
+     */
+    public static CoverageDelta compute(CoverageSnapshot previous, Collection<JavaClass> current)
+            throws IOException {
+        List<ClassCoverageDelta> classDeltas = new ArrayList<>(64);
+        int nbSkipped = 0;
+        for (JavaClass jclass : current) {
+            String classResource = jclass.getPackageName() + jclass.getClassName();
+            long previousFingerprint = previous.getLineCoverageFingerprint(classResource);
+            if (previousFingerprint != 0 && previousFingerprint == jclass.getLineCoverageFingerprint()) {
+                nbSkipped++;
+                continue;
+            }
+            ClassCoverageDelta classDelta = compare(previous.getJavaClass(classResource), jclass);
+            if (classDelta != null) {
+                classDeltas.add(classDelta);
+            }
+        }
+        return new CoverageDelta(classDeltas, nbSkipped);
+    }
+
+    /**
+     * Compare a coverage run to a coverage snapshot file.
+     *
+     * @param previousSnapshot the coverage snapshot file of the previous run.
+     * @param current the coverage data of the latest run.
+     * @return the changes of coverage.
+     * @throws IOException if the snapshot can't be read, or is not a valid coverage snapshot.
+     */
+    public static CoverageDelta compute(File previousSnapshot, Collection<JavaClass> current)
+            throws IOException {
+        try (CoverageSnapshot snapshot = CoverageSnapshot.open(previousSnapshot)) {
+            return compute(snapshot, current);
+        }
+    }
+
+    /**
+     * Compare the line coverage of a class.
+     *
+     * @param previous the class in the previous run, {@code null} if absent.
+     * @param current the class in the latest run.
+     * @return the changes of coverage, or {@code null} if no line changed.
+     */
+    private static ClassCoverageDelta compare(JavaClass previous, JavaClass current) {
+        if (previous != null && previous.getClassId() != 0 && current.getClassId() != 0
+                && previous.getClassId() != current.getClassId()) {
+            if (previous.getNbCoveredLines() == current.getNbCoveredLines()
+                    && previous.getNbPartiallyCoveredLines() == current.getNbPartiallyCoveredLines()
+                    && previous.getNbNotCoveredLines() == current.getNbNotCoveredLines()) {
+                return null;
+            }
+            return new ClassCoverageDelta(current, previous);
+        }
+        Map<Integer, CoverageStateEnum> previousCoverage = previous == null
+                ? Collections.<Integer, CoverageStateEnum>emptyMap() : previous.getCoverage();
+        Map<Integer, CoverageStateEnum> currentCoverage = current.getCoverage();
+        int[] gained = new int[currentCoverage.size()];
+        int[] lost = new int[currentCoverage.size()];
+        int[] newlyPartial = new int[currentCoverage.size()];
+        int nbGained = 0;
+        int nbLost = 0;
+        int nbNewlyPartial = 0;
+        for (Map.Entry<Integer, CoverageStateEnum> lineState : currentCoverage.entrySet()) {
+            CoverageStateEnum previousState = previousCoverage.get(lineState.getKey());
+            CoverageStateEnum state = lineState.getValue();
+            if (previousState == null || state == previousState) {
+                continue;
+            }
+            switch (state) {
+                case COVERED:
+                    gained[nbGained++] = lineState.getKey();
+                    break;
+                case PARTIALLY_COVERED:
+                    newlyPartial[nbNewlyPartial++] = lineState.getKey();
+                    break;
+                case NOT_COVERED:
+                    lost[nbLost++] = lineState.getKey();
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (nbGained + nbLost + nbNewlyPartial == 0) {
+            return null;
+        }
+        return new ClassCoverageDelta(current, previous, sortedCopy(gained, nbGained), sortedCopy(lost, nbLost),
+                sortedCopy(newlyPartial, nbNewlyPartial));
+    }
+
+    private static int[] sortedCopy(int[] lines, int length) {
+        int[] sorted = Arrays.copyOf(lines, length);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Get the changed classes.
+     *
+     * @return the changed classes, sorted by Java source file.
+     */
+    public List<ClassCoverageDelta> getClassDeltas() {
+        return classDeltas;
+    }
+
+    /**
+     * Get the changes of a Java source file.
+     *
+     * @param classResource the Java source file, with or without leading "/" (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @return the changes, or {@code null} if the coverage of the file didn't change.
+     */
+    public ClassCoverageDelta getClassDelta(String classResource) {
+        return classDeltasByResource.get(JavaClass.toResourceKey(classResource));
+    }
+
+    /**
+     * Get the changes of a Java source file.
+     *
+     * @param jclass the coverage data of the Java source file.
+     * @return the changes, or {@code null} if the coverage of the file didn't change.
+     */
+    public ClassCoverageDelta getClassDelta(JavaClass jclass) {
+        return getClassDelta(jclass.getPackageName() + jclass.getClassName());
+    }
+
+    /**
+     * Check if the coverage changed.
+     *
+     * @return {@code true} if no line gained, lost or partially lost coverage.
+     */
+    public boolean isEmpty() {
+        return classDeltas.isEmpty();
+    }
+
+    public int getNbSkippedClasses() {
+        return nbSkippedClasses;
+    }
+
+    public int getNbGainedLines() {
+        return nbGainedLines;
+    }
+
+    public int getNbLostLines() {
+        return nbLostLines;
+    }
+
+    public int getNbNewlyPartialLines() {
+        return nbNewlyPartialLines;
+    }
+}
@@ -0,0 +1,475 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coverage history of a project: the per-class rollups of the latest coverage tasks, to follow the coverage trend of any package or
+ * class without keeping full reports.
+ * <br/>The history is stored in a folder, in two append-only files:
+ * <ul>
+ * <li><code>names.dict</code>: the dictionary of Java source files (e.g. <code>/fr/tikione/Foo.java</code>). A name is stored once,
+ * when it is first recorded, and is then referenced by its position in the dictionary;</li>
+ * <li><code>runs.log</code>: one record per coverage task: record length (4 bytes), timestamp (8 bytes), number of classes, then for
+ * each class: name id, instructions, branches and lines counters (missed, covered), and number of covered, partially covered and
+ * not covered lines. Integers are unsigned LEB128 varints.</li>
+ * </ul>
+ * Records are length-prefixed, so a query skips the classes it doesn't need without building them, and an incomplete record (IDE
+ * crash while writing) is ignored. When the log holds {@code retention + retention / 2} runs, it is compacted: the oldest runs are
+ * dropped, down to {@code retention} runs, and the names no kept run references are dropped from the dictionary (the kept runs are
+ * rewritten with the new name ids). Both files are rewritten to temporary files first; the log is replaced, then the dictionary, and
+ * an interrupted replacement is completed by the next access.
+ * <br/>Instances on the same folder share a lock: the history can be recorded and queried from different threads.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageHistory {
+
+    /** Dictionary of Java source files. */
+    public static final String DICTIONARY_FILE = "names.dict";
+
+    /** Log of coverage tasks. */
+    public static final String RUNS_FILE = "runs.log";
+
+    /** Locks of the history folders, by absolute path. */
+    private static final Map<File, Object> locks = new HashMap<>(8);
+
+    /** Counters recorded for each class, in record order. */
+    private static final CounterTypeEnum[] RECORDED_COUNTERS = {
+        CounterTypeEnum.INSTRUCTION, CounterTypeEnum.BRANCH, CounterTypeEnum.LINE
+    };
+
+    private final File dictionaryFile;
+
+    private final File runsFile;
+
+    /** The lock of the history folder. */
+    private final Object lock;
+
+    /** Maximum number of runs to keep. */
+    private final int retention;
+
+    /** Dictionary of Java source files, loaded on first use. */
+    private List<String> names = null;
+
+    /** Positions of Java source files in the dictionary. */
+    private Map<String, Integer> nameIds = null;
+
+    /** Length of the complete names of the dictionary, as loaded. */
+    private long dictionaryLength = 0;
+
+    /**
+     * Open the coverage history of a project. Files are created on first recording.
+     *
+     * @param historyDir the folder of coverage history.
+     * @param retention the maximum number of runs to keep (at least 1).
+     */
+    public CoverageHistory(File historyDir, int retention) {
+        this.dictionaryFile = new File(historyDir, DICTIONARY_FILE);
+        this.runsFile = new File(historyDir, RUNS_FILE);
+        this.retention = Math.max(1, retention);
+        synchronized (locks) {
+            Object folderLock = locks.get(historyDir.getAbsoluteFile());
+            if (folderLock == null) {
+                folderLock = new Object();
+                locks.put(historyDir.getAbsoluteFile(), folderLock);
+            }
+            this.lock = folderLock;
+        }
+    }
+
+    /**
+     * Record a coverage task. The log is compacted when it holds too many runs.
+     *
+     * @param timestamp the time of the coverage task, in milliseconds since the epoch.
+     * @param classes the coverage data of the project's Java classes.
+     * @throws IOException if the history can't be written.
+     */
+    public void append(long timestamp, Collection<JavaClass> classes)
+            throws IOException {
+        synchronized (lock) {
+            completeCompaction();
+            loadDictionary();
+            doAppend(timestamp, classes);
+        }
+    }
+
+    private void doAppend(long timestamp, Collection<JavaClass> classes)
+            throws IOException {
+        runsFile.getParentFile().mkdirs();
+        List<Long> offsets = readRunOffsets();
+        truncate(dictionaryFile, dictionaryLength);
+        truncate(runsFile, offsets.get(offsets.size() - 1));
+        ByteArrayOutputStream newNames = new ByteArrayOutputStream(256);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(classes.size() * 16);
+        CoverageSnapshot.writeVarInt(record, classes.size());
+        for (JavaClass jclass : classes) {
+            String name = jclass.getPackageName() + jclass.getClassName();
+            Integer nameId = nameIds.get(name);
+            if (nameId == null) {
+                nameId = names.size();
+                names.add(name);
+                nameIds.put(name, nameId);
+                byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+                CoverageSnapshot.writeVarInt(newNames, utf8.length);
+                newNames.write(utf8, 0, utf8.length);
+            }
+            CoverageCounters counters = jclass.getCounters();
+            CoverageSnapshot.writeVarInt(record, nameId);
+            CoverageSnapshot.writeVarInt(record, counters.getInstructionsMissed());
+            CoverageSnapshot.writeVarInt(record, counters.getInstructionsCovered());
+            CoverageSnapshot.writeVarInt(record, counters.getBranchesMissed());
+            CoverageSnapshot.writeVarInt(record, counters.getBranchesCovered());
+            CoverageSnapshot.writeVarInt(record, counters.getLinesMissed());
+            CoverageSnapshot.writeVarInt(record, counters.getLinesCovered());
+            CoverageSnapshot.writeVarInt(record, counters.getNbCoveredLines());
+            CoverageSnapshot.writeVarInt(record, counters.getNbPartiallyCoveredLines());
+            CoverageSnapshot.writeVarInt(record, counters.getNbNotCoveredLines());
+        }
+        // New names first: a run never references a name that is not stored.
+        if (newNames.size() > 0) {
+            try (OutputStream out = new FileOutputStream(dictionaryFile, true)) {
+                newNames.writeTo(out);
+            }
+            dictionaryLength += newNames.size();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runsFile, true)))) {
+            out.writeInt(8 + record.size());
+            out.writeLong(timestamp);
+            record.writeTo(out);
+        }
+        if (readRunOffsets().size() - 1 >= retention + retention / 2) {
+            doCompact();
+        }
+    }
+
+    /**
+     * Get the number of recorded runs.
+     *
+     * @return the number of runs.
+     * @throws IOException if the history can't be read.
+     */
+    public int getNbRuns()
+            throws IOException {
+        synchronized (lock) {
+            completeCompaction();
+            return readRunOffsets().size() - 1;
+        }
+    }
+
+    /**
+     * Drop the oldest runs, down to the retention limit, and the names they alone reference. See the class documentation.
+     *
+     * @throws IOException if the history can't be rewritten.
+     */
+    public void compact()
+            throws IOException {
+        synchronized (lock) {
+            completeCompaction();
+            loadDictionary();
+            doCompact();
+        }
+    }
+
+    private void doCompact()
+            throws IOException {
+        List<Long> offsets = readRunOffsets();
+        int nbRuns = offsets.size() - 1;
+        if (nbRuns <= retention) {
+            return;
+        }
+        long keptOffset = offsets.get(nbRuns - retention);
+        byte[] keptRuns = new byte[(int) (offsets.get(nbRuns) - keptOffset)];
+        try (RandomAccessFile raf = new RandomAccessFile(runsFile, "r")) {
+            raf.seek(keptOffset);
+            raf.readFully(keptRuns);
+        }
+        ByteBuffer runs = ByteBuffer.wrap(keptRuns);
+
+        // New name ids: the names referenced by the kept runs, in dictionary order.
+        int[] newIds = new int[names.size()];
+        Arrays.fill(newIds, -1);
+        try {
+            while (runs.hasRemaining()) {
+                int end = runs.getInt() + runs.position();
+                runs.getLong();
+                int nbClasses = CoverageSnapshot.readVarInt(runs);
+                for (int classIdx = 0; classIdx < nbClasses; classIdx++) {
+                    newIds[CoverageSnapshot.readVarInt(runs)] = 0;
+                    for (int field = 0; field < 2 * RECORDED_COUNTERS.length + 3; field++) {
+                        CoverageSnapshot.readVarInt(runs);
+                    }
+                }
+                runs.position(end);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw new IOException("Corrupted coverage history", ex);
+        }
+        List<String> keptNames = new ArrayList<>(names.size());
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream((int) dictionaryLength);
+        for (int nameId = 0; nameId < names.size(); nameId++) {
+            if (newIds[nameId] == 0) {
+                newIds[nameId] = keptNames.size();
+                keptNames.add(names.get(nameId));
+                byte[] utf8 = names.get(nameId).getBytes(StandardCharsets.UTF_8);
+                CoverageSnapshot.writeVarInt(dictionary, utf8.length);
+                dictionary.write(utf8, 0, utf8.length);
+            }
+        }
+
+        // Kept runs, with the new name ids.
+        ByteArrayOutputStream log = new ByteArrayOutputStream(keptRuns.length);
+        DataOutputStream logOut = new DataOutputStream(log);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(4096);
+        runs.rewind();
+        while (runs.hasRemaining()) {
+            int end = runs.getInt() + runs.position();
+            long timestamp = runs.getLong();
+            record.reset();
+            int nbClasses = CoverageSnapshot.readVarInt(runs);
+            CoverageSnapshot.writeVarInt(record, nbClasses);
+            for (int classIdx = 0; classIdx < nbClasses; classIdx++) {
+                CoverageSnapshot.writeVarInt(record, newIds[CoverageSnapshot.readVarInt(runs)]);
+                for (int field = 0; field < 2 * RECORDED_COUNTERS.length + 3; field++) {
+                    CoverageSnapshot.writeVarInt(record, CoverageSnapshot.readVarInt(runs));
+                }
+            }
+            runs.position(end);
+            logOut.writeInt(8 + record.size());
+            logOut.writeLong(timestamp);
+            record.writeTo(logOut);
+        }
+
+        File compactedRuns = new File(runsFile.getPath() + ".tmp");
+        File compactedDictionary = new File(dictionaryFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(compactedRuns)) {
+            log.writeTo(out);
+        }
+        try (OutputStream out = new FileOutputStream(compactedDictionary)) {
+            dictionary.writeTo(out);
+        }
+        // From here, the compacted dictionary is the valid one: see completeCompaction().
+        Files.move(compactedRuns.toPath(), runsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(compactedDictionary.toPath(), dictionaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        names = keptNames;
+        nameIds = new HashMap<>(keptNames.size() * 2);
+        for (int nameId = 0; nameId < keptNames.size(); nameId++) {
+            nameIds.put(keptNames.get(nameId), nameId);
+        }
+        dictionaryLength = dictionary.size();
+    }
+
+    /**
+     * Complete or roll back a compaction interrupted by an IDE crash. If the compacted log replaced the log, the compacted dictionary
+     * has to replace the dictionary; otherwise the temporary files are dropped.
+     *
+     * @throws IOException if the dictionary can't be replaced.
+     */
+    private void completeCompaction()
+            throws IOException {
+        File compactedRuns = new File(runsFile.getPath() + ".tmp");
+        File compactedDictionary = new File(dictionaryFile.getPath() + ".tmp");
+        if (compactedDictionary.isFile() && !compactedRuns.exists()) {
+            Files.move(compactedDictionary.toPath(), dictionaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            names = null;
+        } else {
+            compactedRuns.delete();
+            compactedDictionary.delete();
+        }
+    }
+
+    /**
+     * Get the coverage trend of the project, of a package or of a class, oldest run first.
+     *
+     * @param name {@code null} or an empty string for the whole project, a package name (with "/" instead of ".", e.g.
+     * <code>/fr/tikione/</code>) or a Java source file (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @return the coverage at each recorded run.
+     * @throws IOException if the history can't be read.
+     */
+    public List<TrendPoint> getTrend(String name)
+            throws IOException {
+        synchronized (lock) {
+            completeCompaction();
+            loadDictionary();
+            return readTrend(name);
+        }
+    }
+
+    private List<TrendPoint> readTrend(String name)
+            throws IOException {
+        // Names of the dictionary that match the query: the trend is computed without decoding class names.
+        boolean[] matches = new boolean[names.size()];
+        for (int nameId = 0; nameId < names.size(); nameId++) {
+            String className = names.get(nameId);
+            if (name == null || name.isEmpty()) {
+                matches[nameId] = true;
+            } else if (name.endsWith(".java")) {
+                matches[nameId] = className.equals(name);
+            } else {
+                matches[nameId] = className.startsWith(name) && className.indexOf('/', name.length()) < 0;
+            }
+        }
+        List<TrendPoint> trend = new ArrayList<>(retention);
+        if (!runsFile.isFile()) {
+            return trend;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(runsFile)))) {
+            while (true) {
+                int length;
+                long timestamp;
+                byte[] record;
+                try {
+                    length = in.readInt();
+                    if (length < 8) {
+                        break;
+                    }
+                    timestamp = in.readLong();
+                    record = new byte[length - 8];
+                    in.readFully(record);
+                } catch (EOFException ex) {
+                    // End of log, or incomplete last record.
+                    break;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                int nbMatching = 0;
+                CoverageCounters counters = new CoverageCounters();
+                try {
+                    int nbClasses = CoverageSnapshot.readVarInt(buffer);
+                    for (int classIdx = 0; classIdx < nbClasses; classIdx++) {
+                        int nameId = CoverageSnapshot.readVarInt(buffer);
+                        if (nameId < matches.length && matches[nameId]) {
+                            nbMatching++;
+                            for (CounterTypeEnum type : RECORDED_COUNTERS) {
+                                counters.increment(type, CoverageSnapshot.readVarInt(buffer), CoverageSnapshot.readVarInt(buffer));
+                            }
+                            counters.incrementLineStates(CoverageSnapshot.readVarInt(buffer), CoverageSnapshot.readVarInt(buffer),
+                                    CoverageSnapshot.readVarInt(buffer));
+                        } else {
+                            for (int field = 0; field < 2 * RECORDED_COUNTERS.length + 3; field++) {
+                                CoverageSnapshot.readVarInt(buffer);
+                            }
+                        }
+                    }
+                } catch (BufferUnderflowException | IllegalArgumentException ex) {
+                    throw new IOException("Corrupted coverage history", ex);
+                }
+                trend.add(new TrendPoint(timestamp, counters, nbMatching));
+            }
+        }
+        return trend;
+    }
+
+    /**
+     * Load the dictionary, unless loaded and not changed since (another instance may have appended names or compacted it).
+     *
+     * @throws IOException if the dictionary can't be read.
+     */
+    private void loadDictionary()
+            throws IOException {
+        if (names != null && dictionaryFile.length() == dictionaryLength) {
+            return;
+        }
+        names = new ArrayList<>(256);
+        nameIds = new HashMap<>(512);
+        dictionaryLength = 0;
+        if (dictionaryFile.isFile()) {
+            ByteBuffer dictionary = ByteBuffer.wrap(Files.readAllBytes(dictionaryFile.toPath()));
+            int validLength = 0;
+            try {
+                while (dictionary.hasRemaining()) {
+                    int length = CoverageSnapshot.readVarInt(dictionary);
+                    if (length > dictionary.remaining()) {
+                        break;
+                    }
+                    String name = new String(dictionary.array(), dictionary.position(), length, StandardCharsets.UTF_8);
+                    dictionary.position(dictionary.position() + length);
+                    validLength = dictionary.position();
+                    nameIds.put(name, names.size());
+                    names.add(name);
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException ex) {
+                // Incomplete last name, see below.
+            }
+            // An incomplete last name (IDE crash while writing) is referenced by no run: it is dropped before appending new names.
+            dictionaryLength = validLength;
+        }
+    }
+
+    /**
+     * Get the offset of each complete run in the log, by reading record lengths only.
+     *
+     * @return the offsets of runs, followed by the end offset of the last complete run.
+     */
+    private List<Long> readRunOffsets()
+            throws IOException {
+        List<Long> offsets = new ArrayList<>(retention * 2);
+        if (!runsFile.isFile()) {
+            offsets.add(0L);
+            return offsets;
+        }
+        long fileLength = runsFile.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(runsFile)))) {
+            long offset = 0;
+            while (offset + 4 <= fileLength) {
+                int length = in.readInt();
+                if (length < 8 || offset + 4 + length > fileLength) {
+                    break;
+                }
+                offsets.add(offset);
+                skipFully(in, length);
+                offset += 4 + length;
+            }
+            offsets.add(offset);
+        }
+        return offsets;
+    }
+
+    /**
+     * Drop the incomplete data at the end of a file, if any.
+     */
+    private static void truncate(File file, long validLength)
+            throws IOException {
+        if (file.isFile() && file.length() > validLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+    }
+
+    private static void skipFully(InputStream in, long nbBytes)
+            throws IOException {
+        long remaining = nbBytes;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node of the coverage rollup tree: project &gt; module &gt; package &gt; class. Each node holds the sum of the counters of its
+ * children.
+ * <br/>The tree is computed once per coverage task, in a single pass over the coverage data, and is immutable: it can be shared by
+ * every consumer (console report, UI, exports). Classes that don't belong to a JaCoCo report group are attached to a module named
+ * after the project.
+ *
+ * @author Jonathan Lermitage
+ */
+public final class CoverageRollup {
+
+    /** Level of a node in the rollup tree. */
+    public enum Level {
+
+        PROJECT, MODULE, PACKAGE, CLASS
+    }
+
+    private final Level level;
+
+    /** Name of the node: project name, module name, package name (with "/" instead of ".") or class name. */
+    private final String name;
+
+    /** The sum of the counters of the children nodes, or the counters of the class. */
+    private final CoverageCounters counters;
+
+    /** Children nodes, in coverage data order. */
+    private final List<CoverageRollup> children;
+
+    /** The class of a {@link Level#CLASS} node, {@code null} for other nodes. */
+    private final JavaClass javaClass;
+
+    private CoverageRollup(Level level, String name, CoverageCounters counters, List<CoverageRollup> children, JavaClass javaClass) {
+        this.level = level;
+        this.name = name;
+        this.counters = counters;
+        this.children = Collections.unmodifiableList(children);
+        this.javaClass = javaClass;
+    }
+
+    /**
+     * Build the rollup tree of a project.
+     *
+     * @param projectName the project name.
+     * @param classes the coverage data of the project's Java classes.
+     * @return the root node of the rollup tree.
+     */
+    public static CoverageRollup build(String projectName, Collection<JavaClass> classes) {
+        Builder project = new Builder();
+        for (JavaClass jclass : classes) {
+            Builder module = project.child(jclass.getModuleName() == null ? projectName : jclass.getModuleName());
+            Builder pkg = module.child(jclass.getPackageName());
+            pkg.classes.add(new CoverageRollup(Level.CLASS, jclass.getClassName(), jclass.getCounters(),
+                    Collections.<CoverageRollup>emptyList(), jclass));
+            pkg.counters.increment(jclass.getCounters());
+            module.counters.increment(jclass.getCounters());
+            project.counters.increment(jclass.getCounters());
+        }
+        List<CoverageRollup> modules = new ArrayList<>(project.children.size());
+        for (Map.Entry<String, Builder> module : project.children.entrySet()) {
+            List<CoverageRollup> packages = new ArrayList<>(module.getValue().children.size());
+            for (Map.Entry<String, Builder> pkg : module.getValue().children.entrySet()) {
+                packages.add(new CoverageRollup(Level.PACKAGE, pkg.getKey(), pkg.getValue().counters, pkg.getValue().classes, null));
+            }
+            modules.add(new CoverageRollup(Level.MODULE, module.getKey(), module.getValue().counters, packages, null));
+        }
+        return new CoverageRollup(Level.PROJECT, projectName, project.counters, modules, null);
+    }
+
+    /**
+     * Get the nodes of a given level in this subtree.
+     *
+     * @param nodesLevel the level of nodes to get; must not be higher than the level of this node.
+     * @return the nodes of the given level, in coverage data order.
+     */
+    public List<CoverageRollup> getNodes(Level nodesLevel) {
+        List<CoverageRollup> nodes = new ArrayList<>(64);
+        collect(nodesLevel, nodes);
+        return nodes;
+    }
+
+    private void collect(Level nodesLevel, List<CoverageRollup> nodes) {
+        if (level == nodesLevel) {
+            nodes.add(this);
+        } else if (level.ordinal() < nodesLevel.ordinal()) {
+            for (CoverageRollup child : children) {
+                child.collect(nodesLevel, nodes);
+            }
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CoverageCounters getCounters() {
+        return counters;
+    }
+
+    public List<CoverageRollup> getChildren() {
+        return children;
+    }
+
+    public JavaClass getJavaClass() {
+        return javaClass;
+    }
+
+    /**
+     * A project, module or package node under construction.
+     */
+    private static class Builder {
+
+        private final CoverageCounters counters = new CoverageCounters();
+
+        private final Map<String, Builder> children = new LinkedHashMap<>(16);
+
+        private final List<CoverageRollup> classes = new ArrayList<>(16);
+
+        Builder child(String childName) {
+            Builder child = children.get(childName);
+            if (child == null) {
+                child = new Builder();
+                children.put(childName, child);
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary coverage snapshot (<code>.jcvsnap</code> files): the analyzed coverage data of a project, as loaded from a JaCoCo XML report.
+ * <br/>Snapshots are a fraction of the size of XML reports and are read without parsing: the file is read at once, and the coverage
+ * data of a class is decoded only when it is requested. The file is not kept open (nor mapped), so it can be replaced while a
+ * snapshot is in use, on every platform.
+ * <br/>Format (version 1), big-endian, integers written as unsigned LEB128 varints unless stated otherwise:
+ * <ul>
+ * <li>header: magic <code>JCVS</code> (4 bytes), format version (2 bytes), reserved (2 bytes), number of strings (4 bytes), number of
+ * classes (4 bytes), offset of the first class block (4 bytes);</li>
+ * <li>string table: package, class, module and method names, each stored once (UTF-8 length, then UTF-8 bytes);</li>
+ * <li>class directory: package name, class name, module name (string index + 1, 0 if none), class id (8 bytes, see
+ * {@link ClassIds}), line coverage fingerprint (8 bytes, see {@link JavaClass#getLineCoverageFingerprint()}), block offset and
+ * block length, by class;</li>
+ * <li>class blocks: class counters (missed, covered) of every {@link CounterTypeEnum}; lines with coverage data (delta-encoded line
+ * numbers, then line states packed 2 bits per line); lines with branches (delta-encoded line numbers, missed and covered branches);
+ * methods (name, zigzag delta-encoded declaration line, then missed and covered items of every method level counter).</li>
+ * </ul>
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageSnapshot implements Closeable {
+
+    /** File extension of coverage snapshots. */
+    public static final String FILE_EXT = ".jcvsnap";
+
+    /** Snapshot files start with "JCVS". */
+    private static final int MAGIC = 0x4A435653;
+
+    /** Current version of the snapshot format. */
+    private static final short VERSION = 1;
+
+    /** Size of the header, in bytes. */
+    private static final int HEADER_SIZE = 20;
+
+    /** 2-bit line states, by {@link CoverageStateEnum} ordinal. */
+    private static final int[] STATE_BITS = {1, 2, 3};
+
+    /** The content of the snapshot file. */
+    private final ByteBuffer buffer;
+
+    private final String[] strings;
+
+    /** Index of each class in the directory, by Java source file (e.g. <code>/fr/tikione/Foo.java</code>). */
+    private final Map<String, Integer> classIndexes;
+
+    private final int[] packageNames;
+
+    private final int[] classNames;
+
+    /** String index + 1 of module names, 0 if none. */
+    private final int[] moduleNames;
+
+    /** Class ids, {@code 0} if unknown. */
+    private final long[] classIds;
+
+    /** Line coverage fingerprints, {@code 0} if unknown. */
+    private final long[] fingerprints;
+
+    /** Offsets of class blocks, from the start of the file. */
+    private final int[] blockOffsets;
+
+    private CoverageSnapshot(ByteBuffer buffer)
+            throws IOException {
+        this.buffer = buffer;
+        ByteBuffer in = buffer.duplicate();
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+            throw new IOException("Not a coverage snapshot");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported coverage snapshot version: " + version);
+        }
+        in.getShort();
+        int nbStrings = in.getInt();
+        int nbClasses = in.getInt();
+        int blocksOffset = in.getInt();
+        try {
+            strings = new String[nbStrings];
+            for (int idx = 0; idx < nbStrings; idx++) {
+                byte[] utf8 = new byte[readVarInt(in)];
+                in.get(utf8);
+                strings[idx] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            classIndexes = new HashMap<>(nbClasses * 2);
+            packageNames = new int[nbClasses];
+            classNames = new int[nbClasses];
+            moduleNames = new int[nbClasses];
+            classIds = new long[nbClasses];
+            fingerprints = new long[nbClasses];
+            blockOffsets = new int[nbClasses];
+            for (int idx = 0; idx < nbClasses; idx++) {
+                packageNames[idx] = readVarInt(in);
+                classNames[idx] = readVarInt(in);
+                moduleNames[idx] = readVarInt(in);
+                classIds[idx] = in.getLong();
+                fingerprints[idx] = in.getLong();
+                blockOffsets[idx] = blocksOffset + readVarInt(in);
+                readVarInt(in); // Block length: lets future readers skip blocks.
+                classIndexes.put(strings[packageNames[idx]] + strings[classNames[idx]], idx);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IOException("Corrupted coverage snapshot", ex);
+        }
+    }
+
+    /**
+     * Open a coverage snapshot. Only the string table and the class directory are read; class blocks are decoded on request.
+     *
+     * @param snapshot the snapshot file.
+     * @return the opened snapshot. The file is already closed.
+     * @throws IOException if the file can't be read, or is not a valid coverage snapshot.
+     */
+    public static CoverageSnapshot open(File snapshot)
+            throws IOException {
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Coverage snapshot too large: " + snapshot);
+            }
+            content = ByteBuffer.allocate((int) size);
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // Read the whole file.
+            }
+        }
+        content.flip();
+        return new CoverageSnapshot(content);
+    }
+
+    /**
+     * Read all the coverage data of a coverage snapshot.
+     *
+     * @param snapshot the snapshot file.
+     * @return the coverage data, by Java source file (same as {@link JaCoCoXmlReportParser#getCoverageData(java.io.File)}).
+     * @throws IOException if the file can't be read, or is not a valid coverage snapshot.
+     */
+    public static Map<String, JavaClass> getCoverageData(File snapshot)
+            throws IOException {
+        try (CoverageSnapshot reader = open(snapshot)) {
+            Map<String, JavaClass> coverageData = new LinkedHashMap<>(reader.classNames.length * 2);
+            for (String classResource : reader.getClassResources()) {
+                coverageData.put(classResource, reader.getJavaClass(classResource));
+            }
+            return coverageData;
+        }
+    }
+
+    /**
+     * Get the Java source files of the snapshot.
+     *
+     * @return the Java source files (e.g. <code>/fr/tikione/Foo.java</code>), in snapshot order.
+     */
+    public List<String> getClassResources() {
+        List<String> classResources = new ArrayList<>(classNames.length);
+        for (int idx = 0; idx < classNames.length; idx++) {
+            classResources.add(strings[packageNames[idx]] + strings[classNames[idx]]);
+        }
+        return classResources;
+    }
+
+    /**
+     * Get the class id of a Java source file, without decoding its coverage data.
+     *
+     * @param classResource the Java source file (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @return the class id, or {@code 0} if unknown or if the snapshot doesn't contain this file.
+     */
+    public long getClassId(String classResource) {
+        Integer idx = classIndexes.get(classResource);
+        return idx == null ? 0 : classIds[idx];
+    }
+
+    /**
+     * Get the line coverage fingerprint of a Java source file, without decoding its coverage data.
+     *
+     * @param classResource the Java source file (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @return the fingerprint (see {@link JavaClass#getLineCoverageFingerprint()}), or {@code 0} if unknown or if the snapshot
+     *         doesn't contain this file.
+     */
+    public long getLineCoverageFingerprint(String classResource) {
+        Integer idx = classIndexes.get(classResource);
+        return idx == null ? 0 : fingerprints[idx];
+    }
+
+    /**
+     * Decode the coverage data of a Java source file.
+     *
+     * @param classResource the Java source file (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @return the coverage data, or {@code null} if the snapshot doesn't contain this file.
+     * @throws IOException if the class block is corrupted.
+     */
+    public JavaClass getJavaClass(String classResource)
+            throws IOException {
+        Integer idx = classIndexes.get(classResource);
+        if (idx == null) {
+            return null;
+        }
+        JavaClass jclass = new JavaClass(strings[packageNames[idx]], strings[classNames[idx]],
+                moduleNames[idx] == 0 ? null : strings[moduleNames[idx] - 1]);
+        jclass.setClassId(classIds[idx]);
+        ByteBuffer in = buffer.duplicate();
+        try {
+            in.position(blockOffsets[idx]);
+            for (CounterTypeEnum type : CounterTypeEnum.values()) {
+                jclass.addCounter(type, readVarInt(in), readVarInt(in));
+            }
+            int nbLines = readVarInt(in);
+            int[] lines = new int[nbLines];
+            int line = -1;
+            for (int lineIdx = 0; lineIdx < nbLines; lineIdx++) {
+                line += readVarInt(in) + 1;
+                lines[lineIdx] = line;
+            }
+            int packed = 0;
+            for (int lineIdx = 0; lineIdx < nbLines; lineIdx++) {
+                if ((lineIdx & 3) == 0) {
+                    packed = in.get() & 0xFF;
+                }
+                switch ((packed >>> ((lineIdx & 3) * 2)) & 3) {
+                    case 1:
+                        jclass.addCoveredLine(lines[lineIdx]);
+                        break;
+                    case 2:
+                        jclass.addPartiallyCoveredLine(lines[lineIdx]);
+                        break;
+                    case 3:
+                        jclass.addNotCoveredLine(lines[lineIdx]);
+                        break;
+                    default:
+                        throw new IOException("Corrupted coverage snapshot: invalid line state");
+                }
+            }
+            int nbBranchLines = readVarInt(in);
+            line = -1;
+            for (int lineIdx = 0; lineIdx < nbBranchLines; lineIdx++) {
+                line += readVarInt(in) + 1;
+                jclass.setLineBranches(line, readVarInt(in), readVarInt(in));
+            }
+            int nbMethods = readVarInt(in);
+            int startLine = 0;
+            for (int methodIdx = 0; methodIdx < nbMethods; methodIdx++) {
+                String name = strings[readVarInt(in)];
+                startLine += readZigZag(in);
+                int newIdx = jclass.addMethod(name, startLine);
+                for (CounterTypeEnum type : JavaClass.METHOD_COUNTER_TYPES) {
+                    jclass.setMethodCounter(newIdx, type, readVarInt(in), readVarInt(in));
+                }
+                if (!name.equals("<init>")) {
+                    jclass.addMethodCoverage(startLine, jclass.getMethod(newIdx).getCoverageState());
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw new IOException("Corrupted coverage snapshot", ex);
+        }
+        jclass.buildMethodIndex();
+        return jclass;
+    }
+
+    /**
+     * Nothing to release: the snapshot file is closed once read. Kept so callers can use try-with-resources.
+     */
+    @Override
+    public void close()
+            throws IOException {
+    }
+
+    /**
+     * Write a coverage snapshot. The snapshot is written to a temporary file of the same folder, then moved over the snapshot file,
+     * so that readers never see a partially written snapshot.
+     *
+     * @param coverageData the coverage data of the project's Java classes.
+     * @param snapshot the snapshot file to write (replaced if it exists).
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(Collection<JavaClass> coverageData, File snapshot)
+            throws IOException {
+        StringTable stringTable = new StringTable();
+        ByteArrayOutputStream directory = new ByteArrayOutputStream(coverageData.size() * 16);
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream(coverageData.size() * 256);
+        for (JavaClass jclass : coverageData) {
+            writeVarInt(directory, stringTable.indexOf(jclass.getPackageName()));
+            writeVarInt(directory, stringTable.indexOf(jclass.getClassName()));
+            writeVarInt(directory, jclass.getModuleName() == null ? 0 : stringTable.indexOf(jclass.getModuleName()) + 1);
+            writeLong(directory, jclass.getClassId());
+            writeLong(directory, jclass.getLineCoverageFingerprint());
+            int blockOffset = blocks.size();
+            writeClassBlock(jclass, stringTable, blocks);
+            writeVarInt(directory, blockOffset);
+            writeVarInt(directory, blocks.size() - blockOffset);
+        }
+        ByteArrayOutputStream strings = new ByteArrayOutputStream(stringTable.strings.size() * 16);
+        for (String string : stringTable.strings) {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(strings, utf8.length);
+            strings.write(utf8, 0, utf8.length);
+        }
+        File tmpSnapshot = new File(snapshot.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmpSnapshot))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeShort(0);
+                out.writeInt(stringTable.strings.size());
+                out.writeInt(coverageData.size());
+                out.writeInt(HEADER_SIZE + strings.size() + directory.size());
+                strings.writeTo(out);
+                directory.writeTo(out);
+                blocks.writeTo(out);
+            }
+            Files.move(tmpSnapshot.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmpSnapshot.delete();
+        }
+    }
+
+    private static void writeClassBlock(JavaClass jclass, StringTable stringTable, ByteArrayOutputStream out) {
+        CoverageCounters counters = jclass.getCounters();
+        for (CounterTypeEnum type : CounterTypeEnum.values()) {
+            writeVarInt(out, getMissed(counters, type));
+            writeVarInt(out, getCovered(counters, type));
+        }
+        Map<Integer, CoverageStateEnum> coverage = jclass.getCoverage();
+        int[] lines = sortedLines(coverage.keySet());
+        writeVarInt(out, lines.length);
+        int previousLine = -1;
+        for (int line : lines) {
+            writeVarInt(out, line - previousLine - 1);
+            previousLine = line;
+        }
+        int packed = 0;
+        for (int lineIdx = 0; lineIdx < lines.length; lineIdx++) {
+            packed |= STATE_BITS[coverage.get(lines[lineIdx]).ordinal()] << ((lineIdx & 3) * 2);
+            if ((lineIdx & 3) == 3 || lineIdx == lines.length - 1) {
+                out.write(packed);
+                packed = 0;
+            }
+        }
+        Map<Integer, Long> lineBranches = jclass.getLineBranches();
+        int[] branchLines = sortedLines(lineBranches.keySet());
+        writeVarInt(out, branchLines.length);
+        previousLine = -1;
+        for (int line : branchLines) {
+            long branches = lineBranches.get(line);
+            writeVarInt(out, line - previousLine - 1);
+            writeVarInt(out, (int) (branches >>> 32));
+            writeVarInt(out, (int) branches);
+            previousLine = line;
+        }
+        writeVarInt(out, jclass.getNbMethods());
+        int previousStartLine = 0;
+        for (int methodIdx = 0; methodIdx < jclass.getNbMethods(); methodIdx++) {
+            int startLine = jclass.getMethodRecord(methodIdx, JavaClass.REC_START_LINE);
+            writeVarInt(out, stringTable.indexOf(jclass.getMethodName(methodIdx)));
+            writeZigZag(out, startLine - previousStartLine);
+            for (CounterTypeEnum type : JavaClass.METHOD_COUNTER_TYPES) {
+                int slot = JavaClass.counterSlot(type);
+                writeVarInt(out, jclass.getMethodRecord(methodIdx, slot));
+                writeVarInt(out, jclass.getMethodRecord(methodIdx, slot + 1));
+            }
+            previousStartLine = startLine;
+        }
+    }
+
+    private static int[] sortedLines(Collection<Integer> lines) {
+        int[] sorted = new int[lines.size()];
+        int idx = 0;
+        for (int line : lines) {
+            sorted[idx++] = line;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int getMissed(CoverageCounters counters, CounterTypeEnum type) {
+        switch (type) {
+            case INSTRUCTION:
+                return counters.getInstructionsMissed();
+            case BRANCH:
+                return counters.getBranchesMissed();
+            case LINE:
+                return counters.getLinesMissed();
+            case COMPLEXITY:
+                return counters.getComplexityMissed();
+            case METHOD:
+                return counters.getMethodsMissed();
+            case CLASS:
+                return counters.getClassesMissed();
+            default:
+                return 0;
+        }
+    }
+
+    private static int getCovered(CoverageCounters counters, CounterTypeEnum type) {
+        switch (type) {
+            case INSTRUCTION:
+                return counters.getInstructionsCovered();
+            case BRANCH:
+                return counters.getBranchesCovered();
+            case LINE:
+                return counters.getLinesCovered();
+            case COMPLEXITY:
+                return counters.getComplexityCovered();
+            case METHOD:
+                return counters.getMethodsCovered();
+            case CLASS:
+                return counters.getClassesCovered();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Write a non-negative integer as an unsigned LEB128 varint: 7 bits per byte, low bits first. Also used by
+     * {@link CoverageHistory}.
+     *
+     * @param out a byte array stream (other streams' I/O errors are rethrown unchecked).
+     * @param value the integer.
+     */
+    static void writeVarInt(OutputStream out, int value) {
+        try {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        } catch (IOException ex) {
+            // Never thrown by byte array streams.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * Write a signed integer as a zigzag varint: small negative values take few bytes too.
+     */
+    private static void writeZigZag(OutputStream out, int value) {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Read an unsigned LEB128 varint. Also used by {@link CoverageHistory}.
+     *
+     * @param in the buffer, positioned on the varint.
+     * @return the integer.
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the varint.
+     * @throws IllegalArgumentException if the varint is longer than 5 bytes.
+     */
+    static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static int readZigZag(ByteBuffer in) {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Deduplicated strings, in order of first use.
+     */
+    private static class StringTable {
+
+        private final List<String> strings = new ArrayList<>(256);
+
+        private final Map<String, Integer> indexes = new HashMap<>(512);
+
+        int indexOf(String string) {
+            Integer idx = indexes.get(string);
+            if (idx == null) {
+                idx = strings.size();
+                strings.add(string);
+                indexes.put(string, idx);
+            }
+            return idx;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.Arrays;
+
+/**
+ * The coverage of the changed lines of a Java source file, see {@link PatchCoverage}. Only changed lines with coverage data (lines
+ * of code) are kept.
+ *
+ * @author Jonathan Lermitage
+ */
+public class FilePatchCoverage {
+
+    /** The class, as covered by the latest run. */
+    private final JavaClass javaClass;
+
+    /** Changed covered lines (0-based, sorted). */
+    private final int[] coveredLines;
+
+    /** Changed partially covered lines (0-based, sorted). */
+    private final int[] partiallyCoveredLines;
+
+    /** Changed not covered lines (0-based, sorted). */
+    private final int[] notCoveredLines;
+
+    FilePatchCoverage(JavaClass javaClass, int[] coveredLines, int[] partiallyCoveredLines, int[] notCoveredLines) {
+        this.javaClass = javaClass;
+        this.coveredLines = coveredLines;
+        this.partiallyCoveredLines = partiallyCoveredLines;
+        this.notCoveredLines = notCoveredLines;
+    }
+
+    public JavaClass getJavaClass() {
+        return javaClass;
+    }
+
+    /**
+     * Get the Java source file, relative to a source root (e.g. <code>/fr/tikione/Foo.java</code>).
+     *
+     * @return the Java source file.
+     */
+    public String getClassResource() {
+        return javaClass.getPackageName() + javaClass.getClassName();
+    }
+
+    /**
+     * Get the changed lines of a coverage state.
+     *
+     * @param state the coverage state.
+     * @return the lines (0-based, sorted). Do not modify.
+     */
+    public int[] getLines(CoverageStateEnum state) {
+        switch (state) {
+            case COVERED:
+                return coveredLines;
+            case PARTIALLY_COVERED:
+                return partiallyCoveredLines;
+            case NOT_COVERED:
+                return notCoveredLines;
+            default:
+                return new int[0];
+        }
+    }
+
+    /**
+     * Check if a line is a changed line of code. Logarithmic time in the number of changed lines.
+     *
+     * @param line the line (0-based).
+     * @return {@code true} if the line changed and has coverage data.
+     */
+    public boolean isChanged(int line) {
+        return Arrays.binarySearch(coveredLines, line) >= 0
+                || Arrays.binarySearch(partiallyCoveredLines, line) >= 0
+                || Arrays.binarySearch(notCoveredLines, line) >= 0;
+    }
+
+    public int getNbCoveredLines() {
+        return coveredLines.length;
+    }
+
+    public int getNbPartiallyCoveredLines() {
+        return partiallyCoveredLines.length;
+    }
+
+    public int getNbNotCoveredLines() {
+        return notCoveredLines.length;
+    }
+}
@@ -0,0 +1,342 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.internal.ReportOutputFolder;
+import org.jacoco.report.internal.html.resources.Resources;
+
+/**
+ * Serve a JaCoCo HTML report from an embedded HTTP server bound to the loopback interface.
+ * <br/>Nothing is written to disk: pages are rendered on request from the in-memory coverage data. The report index is rendered
+ * from package counters only, and pages of a package (package, class and source pages) are rendered when one of them is first
+ * requested. Rendered packages are kept in a LRU cache.
+ * <br/>Requests are answered concurrently: pages are rendered out of the cache lock, so cached pages are served while a package
+ * renders. Two requests of a package that is not cached yet may both render it; the last one is kept.
+ *
+ * @author Jonathan Lermitage
+ */
+public class HtmlReportServer {
+
+    /** Maximum number of packages whose rendered pages are kept in memory. */
+    private static final int DEF_CACHE_SIZE = 32;
+
+    /** The folder of static resources (CSS, JavaScript, images) in JaCoCo HTML reports (e.g. ".resources/" with JaCoCo 0.7). */
+    private static final String RESOURCES_DIR = getResourcesDir();
+
+    /** Sessions information. */
+    private final List<SessionInfo> sessionInfos;
+
+    /** Execution data. */
+    private final Collection<ExecutionData> executionData;
+
+    /** The coverage data to render. */
+    private final IBundleCoverage bundleCoverage;
+
+    /** The Java source files locator. */
+    private final ISourceFileLocator locator;
+
+    /** Report's packages, by name of the folder that contains their pages. */
+    private final Map<String, IPackageCoverage> packagesByFolder = new HashMap<>(64);
+
+    /** Pages of the report index and static resources, rendered on first request. Guarded by {@code this}. */
+    private Map<String, byte[]> rootPages = null;
+
+    /** Rendered pages of the recently requested packages, by package folder. Guarded by {@code this}. */
+    private final Map<String, Map<String, byte[]>> packagePages = new LinkedHashMap<String, Map<String, byte[]>>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, byte[]>> eldest) {
+            return size() > DEF_CACHE_SIZE;
+        }
+    };
+
+    /** The embedded HTTP server. */
+    private HttpServer server = null;
+
+    /**
+     * Create a report server. Call {@link #start()} to start serving the report.
+     *
+     * @param sessionInfos sessions information.
+     * @param executionData execution data.
+     * @param bundleCoverage the coverage data to render.
+     * @param locator the Java source files locator.
+     */
+    public HtmlReportServer(List<SessionInfo> sessionInfos, Collection<ExecutionData> executionData, IBundleCoverage bundleCoverage,
+            ISourceFileLocator locator) {
+        this.sessionInfos = sessionInfos;
+        this.executionData = executionData;
+        this.bundleCoverage = bundleCoverage;
+        this.locator = locator;
+        for (IPackageCoverage pkg : bundleCoverage.getPackages()) {
+            packagesByFolder.put(pkg.getName().isEmpty() ? "default" : pkg.getName().replace('/', '.'), pkg);
+        }
+    }
+
+    /**
+     * Start the HTTP server on a free port of the loopback interface.
+     *
+     * @throws IOException if the HTTP server can't be started.
+     */
+    public synchronized void start()
+            throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange)
+                    throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stop the HTTP server and release rendered pages.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        rootPages = null;
+        packagePages.clear();
+    }
+
+    /**
+     * Get the URL of the report index.
+     *
+     * @return the URL of the report index.
+     * @throws IOException if the server is not started.
+     */
+    public synchronized URL getIndexURL()
+            throws IOException {
+        if (server == null) {
+            throw new IOException("JaCoCo HTML report server is not started");
+        }
+        InetSocketAddress address = server.getAddress();
+        return new URL("http", address.getAddress().getHostAddress(), address.getPort(), "/index.html");
+    }
+
+    /**
+     * Answer a HTTP request.
+     *
+     * @param exchange the HTTP request and response.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void serve(HttpExchange exchange)
+            throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            path = path.startsWith("/") ? path.substring(1) : path;
+            if (path.isEmpty()) {
+                path = "index.html";
+            }
+            byte[] page = getPage(path);
+            if (page == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", getContentType(path));
+                exchange.sendResponseHeaders(200, page.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(page);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Get a page of the report, render it if needed. Rendering is done out of the cache lock.
+     *
+     * @param path the path of the page, relative to the report root.
+     * @return the page content, or {@code null} if the page doesn't exist.
+     * @throws IOException if an I/O error occurs while rendering.
+     */
+    private byte[] getPage(String path)
+            throws IOException {
+        int slash = path.indexOf('/');
+        String folder = slash < 0 ? null : path.substring(0, slash + 1);
+        Map<String, byte[]> pages;
+        if (folder == null || folder.equals(RESOURCES_DIR)) {
+            synchronized (this) {
+                pages = rootPages;
+            }
+            if (pages == null) {
+                pages = renderRoot();
+                synchronized (this) {
+                    rootPages = pages;
+                }
+            }
+            return pages.get(path);
+        }
+        String pkgFolder = path.substring(0, slash);
+        synchronized (this) {
+            pages = packagePages.get(pkgFolder);
+        }
+        if (pages == null) {
+            IPackageCoverage pkg = packagesByFolder.get(pkgFolder);
+            if (pkg == null) {
+                return null;
+            }
+            pages = renderPackage(pkg, folder);
+            synchronized (this) {
+                packagePages.put(pkgFolder, pages);
+            }
+        }
+        return pages.get(path);
+    }
+
+    /**
+     * Render the report index and static resources. Packages are replaced by copies that hold counters only, so classes and
+     * Java source files are not rendered.
+     *
+     * @return the rendered pages.
+     * @throws IOException if an I/O error occurs while rendering.
+     */
+    private Map<String, byte[]> renderRoot()
+            throws IOException {
+        List<IPackageCoverage> plainPackages = new ArrayList<>(bundleCoverage.getPackages().size());
+        for (IPackageCoverage pkg : bundleCoverage.getPackages()) {
+            PackageCoverageImpl plainPackage = new PackageCoverageImpl(pkg.getName(),
+                    Collections.<IClassCoverage>emptyList(),
+                    Collections.<ISourceFileCoverage>emptyList());
+            plainPackage.increment(pkg);
+            plainPackages.add(plainPackage);
+        }
+        MemoryReportOutput output = new MemoryReportOutput(null);
+        render(new BundleCoverageImpl(bundleCoverage.getName(), plainPackages), output);
+        return output.pages;
+    }
+
+    /**
+     * Render the pages of a package.
+     *
+     * @param pkg the package to render.
+     * @param folder the folder that contains the package pages.
+     * @return the rendered pages.
+     * @throws IOException if an I/O error occurs while rendering.
+     */
+    private Map<String, byte[]> renderPackage(IPackageCoverage pkg, String folder)
+            throws IOException {
+        MemoryReportOutput output = new MemoryReportOutput(folder);
+        render(new BundleCoverageImpl(bundleCoverage.getName(), Collections.singletonList(pkg)), output);
+        return output.pages;
+    }
+
+    private void render(IBundleCoverage bundle, IMultiReportOutput output)
+            throws IOException {
+        HTMLFormatter htmlformatter = new HTMLFormatter();
+        IReportVisitor visitor = htmlformatter.createVisitor(output);
+        visitor.visitInfo(sessionInfos, executionData);
+        visitor.visitBundle(bundle, locator);
+        visitor.visitEnd();
+    }
+
+    /**
+     * Get the folder of static resources of JaCoCo HTML reports, as located by the JaCoCo HTML formatter. Its name depends on the
+     * JaCoCo version.
+     *
+     * @return the folder, relative to the report root, followed by "/".
+     */
+    private static String getResourcesDir() {
+        // Only links are computed, nothing is written to the report output.
+        ReportOutputFolder root = new ReportOutputFolder(null);
+        String stylesheet = new Resources(root).getLink(root, Resources.STYLESHEET);
+        return stylesheet.substring(0, stylesheet.lastIndexOf('/') + 1);
+    }
+
+    private static String getContentType(String path) {
+        String contentType;
+        if (path.endsWith(".html")) {
+            contentType = "text/html; charset=UTF-8";
+        } else if (path.endsWith(".css")) {
+            contentType = "text/css";
+        } else if (path.endsWith(".js")) {
+            contentType = "text/javascript";
+        } else if (path.endsWith(".gif")) {
+            contentType = "image/gif";
+        } else {
+            contentType = "application/octet-stream";
+        }
+        return contentType;
+    }
+
+    /**
+     * A report output that keeps pages in memory. Pages that are out of the selected folder are discarded.
+     */
+    private static class MemoryReportOutput implements IMultiReportOutput {
+
+        /** The rendered pages. */
+        private final Map<String, byte[]> pages = new HashMap<>(64);
+
+        /** The folder to keep pages from, or {@code null} to keep root pages and static resources only. */
+        private final String folder;
+
+        MemoryReportOutput(String folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        public OutputStream createFile(final String path)
+                throws IOException {
+            final boolean keep = folder == null
+                    ? path.indexOf('/') < 0 || path.startsWith(RESOURCES_DIR)
+                    : path.startsWith(folder);
+            return new ByteArrayOutputStream(keep ? 8192 : 0) {
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    if (keep) {
+                        super.write(b, off, len);
+                    }
+                }
+
+                @Override
+                public void write(int b) {
+                    if (keep) {
+                        super.write(b);
+                    }
+                }
+
+                @Override
+                public void close() {
+                    if (keep) {
+                        pages.put(path, toByteArray());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close()
+                throws IOException {
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32;
+import org.apache.commons.io.output.NullOutputStream;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.ISourceFileLocator;
+
+/**
+ * A JaCoCo HTML report output that only rewrites pages whose content changed since the previous run.
+ * <br/>A manifest stored in the report folder remembers a fingerprint of each Java source file (line coverage data and source
+ * file timestamp) and a checksum of each generated page. Source pages of unchanged Java source files are not highlighted again,
+ * other pages (index, package and class rollups) are rendered in memory and written to disk only if their checksum changed.
+ *
+ * @author Jonathan Lermitage
+ */
+public class IncrementalReportOutput implements IMultiReportOutput {
+
+    /** The name of the manifest file stored in the report folder. */
+    public static final String MANIFEST = ".jacocoverage.manifest";
+
+    /** Manifest key prefix: checksum of a generated page. */
+    private static final String KEY_PAGE = "page.";
+
+    /** Manifest key prefix: fingerprint of a Java source file. */
+    private static final String KEY_SOURCE = "source.";
+
+    /** Characters JaCoCo keeps in report file names, others are replaced by "_" (see JaCoCo's NormalizedFileNames). */
+    private static final String LEGAL_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789$-._";
+
+    /** The folder to store HTML report. */
+    private final File reportdir;
+
+    /** The manifest of the previous run. */
+    private final Properties previous = new Properties();
+
+    /** The manifest of the current run. */
+    private final Properties current = new Properties();
+
+    /** Java source files (package name + "/" + file name) whose fingerprint didn't change since the previous run. */
+    private final Set<String> unchangedSources = new HashSet<>(256);
+
+    /** Report pages that don't need to be generated again (source pages of unchanged Java source files). */
+    private final Set<String> frozenPages = new HashSet<>(256);
+
+    /** Number of pages written to disk. */
+    private int nbWrittenPages = 0;
+
+    /** Number of pages left untouched. */
+    private int nbSkippedPages = 0;
+
+    /**
+     * Create an incremental HTML report output and load the manifest of the previous run, if any.
+     *
+     * @param reportdir the folder to store HTML report.
+     * @throws IOException if the manifest of the previous run can't be loaded.
+     */
+    public IncrementalReportOutput(File reportdir)
+            throws IOException {
+        this.reportdir = reportdir;
+        File manifest = new File(reportdir, MANIFEST);
+        if (manifest.isFile()) {
+            try (InputStream is = new FileInputStream(manifest)) {
+                previous.load(is);
+            }
+        }
+    }
+
+    /**
+     * Compute the fingerprint of each Java source file and compare it to the previous run.
+     * Has to be called before the bundle is visited by the HTML formatter.
+     * <br/>Page paths are normalized as JaCoCo does. JaCoCo also appends a suffix to names that are equal once normalized (ignoring
+     * case), depending on the rendering order: the source pages of such packages or Java source files are never frozen.
+     *
+     * @param bundleCoverage the coverage data to render.
+     * @param prjSourcesDir the directory containing project's Java source files.
+     */
+    public void computeFingerprints(IBundleCoverage bundleCoverage, File prjSourcesDir) {
+        List<String> pkgFolders = new ArrayList<>(bundleCoverage.getPackages().size());
+        for (IPackageCoverage pkg : bundleCoverage.getPackages()) {
+            pkgFolders.add(toPackageFolder(pkg));
+        }
+        Set<String> clashingPkgFolders = getClashingNames(pkgFolders);
+        for (IPackageCoverage pkg : bundleCoverage.getPackages()) {
+            String pkgFolder = toPackageFolder(pkg);
+            boolean pkgFolderClash = clashingPkgFolders.contains(pkgFolder.toLowerCase(Locale.ENGLISH));
+            List<String> pageNames = new ArrayList<>(pkg.getSourceFiles().size());
+            for (ISourceFileCoverage src : pkg.getSourceFiles()) {
+                pageNames.add(toSourcePage(src));
+            }
+            Set<String> clashingPages = getClashingNames(pageNames);
+            for (ISourceFileCoverage src : pkg.getSourceFiles()) {
+                String srcKey = pkg.getName() + '/' + src.getName();
+                String fingerprint = Long.toHexString(fingerprint(src, new File(prjSourcesDir, srcKey)));
+                current.setProperty(KEY_SOURCE + srcKey, fingerprint);
+                String pageName = toSourcePage(src);
+                String page = pkgFolder + '/' + pageName;
+                if (!pkgFolderClash && !clashingPages.contains(pageName.toLowerCase(Locale.ENGLISH))
+                        && fingerprint.equals(previous.getProperty(KEY_SOURCE + srcKey)) && new File(reportdir, page).isFile()) {
+                    unchangedSources.add(srcKey);
+                    frozenPages.add(page);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the report folder of a package, as named by JaCoCo.
+     *
+     * @param pkg the package.
+     * @return the normalized folder name.
+     */
+    private static String toPackageFolder(IPackageCoverage pkg) {
+        return normalize(pkg.getName().isEmpty() ? "default" : pkg.getName().replace('/', '.'));
+    }
+
+    /**
+     * Get the source page of a Java source file, as named by JaCoCo.
+     *
+     * @param src the Java source file.
+     * @return the normalized page name.
+     */
+    private static String toSourcePage(ISourceFileCoverage src) {
+        return normalize(src.getName() + ".html");
+    }
+
+    /**
+     * Find the names of a report folder that are equal, ignoring case.
+     *
+     * @param names normalized file names of a same report folder.
+     * @return the lower case names used more than once.
+     */
+    private static Set<String> getClashingNames(Collection<String> names) {
+        Set<String> used = new HashSet<>(names.size() * 2);
+        Set<String> clashing = new HashSet<>(4);
+        for (String name : names) {
+            if (!used.add(name.toLowerCase(Locale.ENGLISH))) {
+                clashing.add(name.toLowerCase(Locale.ENGLISH));
+            }
+        }
+        return clashing;
+    }
+
+    /**
+     * Normalize a report file name as JaCoCo does: characters that are not letters, digits, "$", "-", "." or "_" are replaced by
+     * "_".
+     *
+     * @param name the file name.
+     * @return the normalized file name.
+     */
+    static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int idx = 0; idx < name.length(); idx++) {
+            char c = name.charAt(idx);
+            normalized.append(LEGAL_CHARS.indexOf(c) >= 0 ? c : '_');
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Wrap a source file locator: unchanged Java source files are not read, their (already generated) page is kept as is.
+     *
+     * @param locator the source file locator to wrap.
+     * @return a source file locator that skips unchanged Java source files.
+     */
+    public ISourceFileLocator wrap(final ISourceFileLocator locator) {
+        return new ISourceFileLocator() {
+            @Override
+            public Reader getSourceFile(String packageName, String fileName)
+                    throws IOException {
+                Reader reader = locator.getSourceFile(packageName, fileName);
+                if (reader != null && unchangedSources.contains(packageName + '/' + fileName)) {
+                    reader.close();
+                    reader = new StringReader("");
+                }
+                return reader;
+            }
+
+            @Override
+            public int getTabWidth() {
+                return locator.getTabWidth();
+            }
+        };
+    }
+
+    @Override
+    public OutputStream createFile(final String path)
+            throws IOException {
+        if (frozenPages.contains(path)) {
+            current.setProperty(KEY_PAGE + path, previous.getProperty(KEY_PAGE + path, ""));
+            nbSkippedPages++;
+            return new NullOutputStream();
+        }
+        return new ByteArrayOutputStream(4096) {
+            private boolean closed = false;
+
+            @Override
+            public void close()
+                    throws IOException {
+                if (!closed) {
+                    closed = true;
+                    CRC32 crc = new CRC32();
+                    crc.update(buf, 0, count);
+                    String checksum = Long.toHexString(crc.getValue());
+                    current.setProperty(KEY_PAGE + path, checksum);
+                    File page = new File(reportdir, path);
+                    if (checksum.equals(previous.getProperty(KEY_PAGE + path)) && page.isFile()) {
+                        nbSkippedPages++;
+                    } else {
+                        page.getParentFile().mkdirs();
+                        try (OutputStream os = new FileOutputStream(page)) {
+                            writeTo(os);
+                        }
+                        nbWrittenPages++;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Remove pages that belong to the previous run only (e.g. removed classes) and store the manifest of the current run.
+     *
+     * @throws IOException if the manifest can't be stored.
+     */
+    @Override
+    public void close()
+            throws IOException {
+        for (String key : previous.stringPropertyNames()) {
+            if (key.startsWith(KEY_PAGE) && !current.containsKey(key)) {
+                new File(reportdir, key.substring(KEY_PAGE.length())).delete();
+            }
+        }
+        try (OutputStream os = new FileOutputStream(new File(reportdir, MANIFEST))) {
+            current.store(os, "JaCoCoverage incremental HTML report manifest");
+        }
+    }
+
+    public int getNbWrittenPages() {
+        return nbWrittenPages;
+    }
+
+    public int getNbSkippedPages() {
+        return nbSkippedPages;
+    }
+
+    /**
+     * Compute the fingerprint of a Java source file: coverage data of each line and source file timestamp and size.
+     *
+     * @param src the Java source file coverage data.
+     * @param srcFile the Java source file.
+     * @return the fingerprint.
+     */
+    private static long fingerprint(ISourceFileCoverage src, File srcFile) {
+        CRC32 crc = new CRC32();
+        update(crc, srcFile.lastModified());
+        update(crc, srcFile.length());
+        int firstLine = src.getFirstLine();
+        int lastLine = src.getLastLine();
+        update(crc, firstLine);
+        update(crc, lastLine);
+        if (firstLine != ISourceFileCoverage.UNKNOWN_LINE) {
+            for (int nr = firstLine; nr <= lastLine; nr++) {
+                ILine line = src.getLine(nr);
+                ICounter instructions = line.getInstructionCounter();
+                ICounter branches = line.getBranchCounter();
+                update(crc, instructions.getMissedCount());
+                update(crc, instructions.getCoveredCount());
+                update(crc, branches.getMissedCount());
+                update(crc, branches.getCoveredCount());
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void update(CRC32 crc, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            crc.update((int) (value >>> shift));
+        }
+    }
+}
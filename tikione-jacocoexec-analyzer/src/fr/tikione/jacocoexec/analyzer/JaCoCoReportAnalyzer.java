@@ -7,18 +7,27 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.report.DirectorySourceFileLocator;
 import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IMultiReportOutput;
 import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.html.HTMLFormatter;
 import org.jacoco.report.xml.XMLFormatter;
 import org.openide.windows.IOColorPrint;
@@ -80,19 +89,32 @@ public class JaCoCoReportAnalyzer {
     public static String toHtmlReport(File jacocoexec, File reportdir, File prjClassesDir, File prjSourcesDir, String projectName)
             throws FileNotFoundException,
                    IOException {
+        return toHtmlReport(jacocoexec, reportdir, prjClassesDir, prjSourcesDir, projectName, false);
+    }
+
+    /**
+     * Load a JaCoCo binary report and convert it to HTML.
+     * <br/>See <a href="http://www.eclemma.org/jacoco/trunk/doc/examples/java/ReportGenerator.java">report generator example code</a>.
+     *
+     * @param jacocoexec the JaCoCo binary report.
+     * @param reportdir the folder to store HTML report.
+     * @param prjClassesDir the directory containing project's compiled classes.
+     * @param prjSourcesDir the directory containing project's Java source files.
+     * @param projectName the project's name.
+     * @param incremental if {@code true}, keep the HTML report of the previous run and rewrite only pages whose content changed
+     * (see {@link IncrementalReportOutput}), otherwise write every page.
+     * @return the absolute path of HTML report's {@code index.html} file.
+     * @throws FileNotFoundException if the JaCoCo binary report, compiled classes or Java sources files directory can't be found.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static String toHtmlReport(File jacocoexec, File reportdir, File prjClassesDir, File prjSourcesDir, String projectName,
+            boolean incremental)
+            throws FileNotFoundException,
+                   IOException {
         // Load the JaCoCo binary report.
-        FileInputStream fis = new FileInputStream(jacocoexec);
         ExecutionDataStore executionDataStore = new ExecutionDataStore();
         SessionInfoStore sessionInfoStore = new SessionInfoStore();
-        try {
-            ExecutionDataReader executionDataReader = new ExecutionDataReader(fis);
-            executionDataReader.setExecutionDataVisitor(executionDataStore);
-            executionDataReader.setSessionInfoVisitor(sessionInfoStore);
-            while (executionDataReader.read()) {
-            }
-        } finally {
-            fis.close();
-        }
+        loadExecutionData(jacocoexec, executionDataStore, sessionInfoStore);
 
         // Convert the binary report to HTML.
         CoverageBuilder coverageBuilder = new CoverageBuilder();
@@ -101,13 +123,55 @@ public class JaCoCoReportAnalyzer {
         IBundleCoverage bundleCoverage = coverageBuilder.getBundle("JaCoCoverage analysis of project \"" + projectName
                 + "\" (powered by JaCoCo from EclEmma)");
         HTMLFormatter htmlformatter = new HTMLFormatter();
-        IReportVisitor visitor = htmlformatter.createVisitor(new FileMultiReportOutput(reportdir));
+        ISourceFileLocator locator = new DirectorySourceFileLocator(prjSourcesDir, DEF_ENCODING, 4);
+        IMultiReportOutput output;
+        if (incremental) {
+            IncrementalReportOutput incrOutput = new IncrementalReportOutput(reportdir);
+            incrOutput.computeFingerprints(bundleCoverage, prjSourcesDir);
+            locator = incrOutput.wrap(locator);
+            output = incrOutput;
+        } else {
+            output = new FileMultiReportOutput(reportdir);
+        }
+        IReportVisitor visitor = htmlformatter.createVisitor(output);
         visitor.visitInfo(sessionInfoStore.getInfos(), executionDataStore.getContents());
-        visitor.visitBundle(bundleCoverage, new DirectorySourceFileLocator(prjSourcesDir, DEF_ENCODING, 4));
+        visitor.visitBundle(bundleCoverage, locator);
         visitor.visitEnd();
         return new File(reportdir, "index.html").getAbsolutePath();
     }
 
+    /**
+     * Load a JaCoCo binary report and serve it as HTML from an embedded HTTP server bound to the loopback interface.
+     * Nothing is written to disk, pages are rendered on request (see {@link HtmlReportServer}).
+     *
+     * @param jacocoexec the JaCoCo binary report.
+     * @param prjClassesDir the directory containing project's compiled classes.
+     * @param prjSourcesDir the directory containing project's Java source files.
+     * @param projectName the project's name.
+     * @return the started report server.
+     * @throws FileNotFoundException if the JaCoCo binary report, compiled classes or Java sources files directory can't be found.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static HtmlReportServer toHtmlReportServer(File jacocoexec, File prjClassesDir, File prjSourcesDir, String projectName)
+            throws FileNotFoundException,
+                   IOException {
+        // Load the JaCoCo binary report.
+        ExecutionDataStore executionDataStore = new ExecutionDataStore();
+        SessionInfoStore sessionInfoStore = new SessionInfoStore();
+        loadExecutionData(jacocoexec, executionDataStore, sessionInfoStore);
+
+        // Analyze the binary report, HTML pages will be rendered on request.
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        Analyzer analyzer = new Analyzer(executionDataStore, coverageBuilder);
+        analyzer.analyzeAll(prjClassesDir);
+        IBundleCoverage bundleCoverage = coverageBuilder.getBundle("JaCoCoverage analysis of project \"" + projectName
+                + "\" (powered by JaCoCo from EclEmma)");
+        HtmlReportServer server = new HtmlReportServer(sessionInfoStore.getInfos(), executionDataStore.getContents(), bundleCoverage,
+                new DirectorySourceFileLocator(prjSourcesDir, DEF_ENCODING, 4));
+        server.start();
+        return server;
+    }
+
     /**
      * Load a JaCoCo binary report and convert it to XML.
      * <br/>See <a href="http://www.eclemma.org/jacoco/trunk/doc/examples/java/ReportGenerator.java">report generator example code</a>.
@@ -123,18 +187,9 @@ public class JaCoCoReportAnalyzer {
             throws FileNotFoundException,
                    IOException {
         // Load the JaCoCo binary report.
-        FileInputStream fis = new FileInputStream(jacocoexec);
         ExecutionDataStore executionDataStore = new ExecutionDataStore();
         SessionInfoStore sessionInfoStore = new SessionInfoStore();
-        try {
-            ExecutionDataReader executionDataReader = new ExecutionDataReader(fis);
-            executionDataReader.setExecutionDataVisitor(executionDataStore);
-            executionDataReader.setSessionInfoVisitor(sessionInfoStore);
-            while (executionDataReader.read()) {
-            }
-        } finally {
-            fis.close();
-        }
+        loadExecutionData(jacocoexec, executionDataStore, sessionInfoStore);
 
         // Convert the binary report to XML.
         CoverageBuilder coverageBuilder = new CoverageBuilder();
@@ -150,7 +205,115 @@ public class JaCoCoReportAnalyzer {
     }
 
     /**
-     * Load JaCoCo coverage data and show it to a NetBeans console tab.
+     * Load a JaCoCo binary report.
+     *
+     * @param jacocoexec the JaCoCo binary report.
+     * @param executionDataStore the store to fill with execution data.
+     * @param sessionInfoStore the store to fill with session information.
+     * @throws FileNotFoundException if the JaCoCo binary report can't be found.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void loadExecutionData(File jacocoexec, ExecutionDataStore executionDataStore, SessionInfoStore sessionInfoStore)
+            throws FileNotFoundException,
+                   IOException {
+        FileInputStream fis = new FileInputStream(jacocoexec);
+        try {
+            ExecutionDataReader executionDataReader = new ExecutionDataReader(fis);
+            executionDataReader.setExecutionDataVisitor(executionDataStore);
+            executionDataReader.setSessionInfoVisitor(sessionInfoStore);
+            while (executionDataReader.read()) {
+            }
+        } finally {
+            fis.close();
+        }
+    }
+
+    /**
+     * Merge JaCoCo binary reports. The probes of a class found in several reports are merged: a probe is hit if it is hit in any
+     * report. The execution data of different versions of a class (recompiled class) is kept apart, and the analysis of the merged
+     * report only uses the version that matches the compiled classes.
+     *
+     * @param jacocoexec the merged JaCoCo binary report to write (can be one of the merged reports).
+     * @param jacocoexecs the JaCoCo binary reports to merge. Missing files are ignored.
+     * @throws IOException if a report can't be read or written.
+     */
+    public static void mergeBinaryReports(File jacocoexec, File... jacocoexecs)
+            throws IOException {
+        BinaryReportMerger merger = new BinaryReportMerger();
+        for (File report : jacocoexecs) {
+            merger.add(report);
+        }
+        merger.write(jacocoexec);
+    }
+
+    /**
+     * Get the classes executed during a coverage session, e.g. by a test class.
+     *
+     * @param jacocoexec the JaCoCo binary report.
+     * @return the VM names of the executed top level classes (e.g. <code>fr/tikione/Foo</code> for <code>fr/tikione/Foo$Bar</code>).
+     * @throws IOException if the report can't be read.
+     */
+    public static Set<String> getExecutedClasses(File jacocoexec)
+            throws IOException {
+        ExecutionDataStore executionDataStore = new ExecutionDataStore();
+        loadExecutionData(jacocoexec, executionDataStore, new SessionInfoStore());
+        Set<String> classes = new HashSet<>(256);
+        for (ExecutionData data : executionDataStore.getContents()) {
+            for (boolean probe : data.getProbes()) {
+                if (probe) {
+                    String name = data.getName();
+                    int innerIdx = name.indexOf('$');
+                    classes.add(innerIdx < 0 ? name : name.substring(0, innerIdx));
+                    break;
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Get the lines covered during a coverage session, e.g. by a test class. Only the compiled classes executed during the session
+     * are analyzed.
+     *
+     * @param jacocoexec the JaCoCo binary report.
+     * @param prjClassesDir the directory containing project's compiled classes.
+     * @return the lines (0-based, sorted) with at least one covered instruction, by Java source file (e.g.
+     * <code>/fr/tikione/Foo.java</code>).
+     * @throws IOException if the report or the compiled classes can't be read.
+     */
+    public static Map<String, int[]> getCoveredLines(File jacocoexec, File prjClassesDir)
+            throws IOException {
+        ExecutionDataStore executionDataStore = new ExecutionDataStore();
+        loadExecutionData(jacocoexec, executionDataStore, new SessionInfoStore());
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        Analyzer analyzer = new Analyzer(executionDataStore, coverageBuilder);
+        for (ExecutionData data : executionDataStore.getContents()) {
+            File classFile = new File(prjClassesDir, data.getName() + ".class");
+            if (classFile.isFile()) {
+                analyzer.analyzeAll(classFile);
+            }
+        }
+        Map<String, int[]> coveredLines = new HashMap<>(coverageBuilder.getSourceFiles().size() * 2);
+        for (ISourceFileCoverage sourceFile : coverageBuilder.getSourceFiles()) {
+            if (sourceFile.getFirstLine() == ISourceNode.UNKNOWN_LINE) {
+                continue;
+            }
+            int[] lines = new int[sourceFile.getLastLine() - sourceFile.getFirstLine() + 1];
+            int nbLines = 0;
+            for (int nr = sourceFile.getFirstLine(); nr <= sourceFile.getLastLine(); nr++) {
+                if (sourceFile.getLine(nr).getInstructionCounter().getCoveredCount() > 0) {
+                    lines[nbLines++] = nr - 1; // NetBeans Editor starting index is 0, not 1.
+                }
+            }
+            if (nbLines > 0) {
+                coveredLines.put('/' + sourceFile.getPackageName() + '/' + sourceFile.getName(), Arrays.copyOf(lines, nbLines));
+            }
+        }
+        return coveredLines;
+    }
+
+    /**
+     * Load JaCoCo coverage data and show it to a NetBeans console tab. Every class is listed.
      *
      * @param coverageData the JaCoCo coverage data to show.
      * @param tabName the name of the NetBeans console tab to open.
@@ -158,43 +321,178 @@ public class JaCoCoReportAnalyzer {
      */
     public static void toConsoleReport(Map<String, JavaClass> coverageData, String tabName)
             throws IOException {
-        InputOutput io = IOProvider.getDefault().getIO(tabName, false);
-        try {
-            io.getOut().reset();
-            IOColorPrint.print(io, "=== JaCoCoverage report (powered by JaCoCo from EclEmma) ===\n", Color.GRAY);
-            IOColorPrint.print(io, "Covered | Partially covered | Not covered | Java Class\n\n", Color.GRAY);
-            List<JavaClass> sortedClasses = new ArrayList<>(coverageData.values());
-            Collections.sort(sortedClasses);
-            for (JavaClass jclass : sortedClasses) {
-                IOColorPrint.print(io, String.format("%5s", jclass.getNbCoveredLines()), CONSOLE_COVERED);
-                IOColorPrint.print(io, " " + String.format("%5s", jclass.getNbPartiallyCoveredLines()), CONSOLE_PARTIALLY_COVERED);
-                IOColorPrint.print(io, " " + String.format("%5s", jclass.getNbNotCoveredLines()), CONSOLE_NOT_COVERED);
-                Color classCovColor;
-                io.getOut().print("    " + jclass.getPackageName());
-                boolean existCL = jclass.getNbCoveredLines() > 0;
-                boolean existPCL = jclass.getNbPartiallyCoveredLines() > 0;
-                boolean existNCL = jclass.getNbNotCoveredLines() > 0;
-                if (existCL) {
-                    if (existNCL || existPCL) {
-                        classCovColor = CONSOLE_PARTIALLY_COVERED;
-                    } else {
-                        classCovColor = CONSOLE_COVERED;
-                    }
+        toConsoleReport(CoverageRollup.build(tabName, coverageData.values()), tabName, 0, false);
+    }
+
+    /**
+     * Show the coverage rollup of a project to a NetBeans console tab.
+     * <br/>Rows are colored by coverage state, and sorted by color (not covered, partially covered, then covered), then worst
+     * covered first: rows of the same color are contiguous. Rows without lines are colored as not covered, so they come after the
+     * other not covered rows. Rows are printed by large chunks of the same color: the cost of the NetBeans console depends on the
+     * number of chunks, not on the number of classes.
+     *
+     * @param rollup the coverage rollup of the project to show.
+     * @param tabName the name of the NetBeans console tab to open.
+     * @param top the maximum number of rows to show, worst covered first. 0 means no limit.
+     * @param packageSummary show one row per package instead of one row per class.
+     * @throws IOException if a NetBeans console related error occurs.
+     */
+    public static void toConsoleReport(CoverageRollup rollup, String tabName, int top, boolean packageSummary)
+            throws IOException {
+        List<ConsoleRow> rows = new ArrayList<>(256);
+        boolean multiModule = rollup.getChildren().size() > 1;
+        for (CoverageRollup module : rollup.getChildren()) {
+            String modulePrefix = multiModule ? module.getName() + ": " : "";
+            for (CoverageRollup pkg : module.getChildren()) {
+                if (packageSummary) {
+                    rows.add(new ConsoleRow(modulePrefix + pkg.getName(), pkg.getCounters()));
                 } else {
-                    if (existPCL) {
-                        classCovColor = CONSOLE_PARTIALLY_COVERED;
-                    } else {
-                        classCovColor = CONSOLE_NOT_COVERED;
+                    for (CoverageRollup jclass : pkg.getChildren()) {
+                        rows.add(new ConsoleRow(modulePrefix + pkg.getName() + jclass.getName(), jclass.getCounters()));
                     }
                 }
-                IOColorPrint.print(io, jclass.getClassName() + '\n', classCovColor);
             }
-            IOColorPrint.print(io, "\nEnd of report\n", Color.GRAY);
-            IOColorPrint.print(io, "You can ask questions and report bugs by visiting: ", Color.GRAY);
-            IOColorPrint.print(io, "https://github.com/jonathanlermitage/tikione-jacocoverage", Color.BLUE);
-            io.getOut().println();
+        }
+        Collections.sort(rows);
+        int nbRows = top > 0 ? Math.min(top, rows.size()) : rows.size();
+
+        InputOutput io = IOProvider.getDefault().getIO(tabName, false);
+        try {
+            io.getOut().reset();
+            ColoredChunks out = new ColoredChunks(io);
+            out.append("=== JaCoCoverage report (powered by JaCoCo from EclEmma) ===\n", Color.GRAY);
+            out.append(packageSummary
+                    ? "Covered | Partially covered | Not covered | Java Package (worst covered first)\n\n"
+                    : "Covered | Partially covered | Not covered | Java Class (worst covered first)\n\n", Color.GRAY);
+            StringBuilder line = new StringBuilder(128);
+            for (int idx = 0; idx < nbRows; idx++) {
+                ConsoleRow row = rows.get(idx);
+                line.setLength(0);
+                pad(line, row.counters.getNbCoveredLines()).append(' ');
+                pad(line, row.counters.getNbPartiallyCoveredLines()).append(' ');
+                pad(line, row.counters.getNbNotCoveredLines()).append("    ").append(row.name).append('\n');
+                out.append(line, row.getColor());
+            }
+            if (nbRows < rows.size()) {
+                out.append("\n" + (rows.size() - nbRows) + (packageSummary ? " more packages" : " more classes")
+                        + " not listed (only the " + nbRows + " worst covered are shown)\n", Color.GRAY);
+            }
+            out.append("\nEnd of report\n", Color.GRAY);
+            out.append("You can ask questions and report bugs by visiting: ", Color.GRAY);
+            out.append("https://github.com/jonathanlermitage/tikione-jacocoverage\n", Color.BLUE);
+            out.flush();
         } finally {
             io.getOut().close();
         }
     }
+
+    /**
+     * Append a number right-aligned on 5 characters.
+     *
+     * @param sb the target string builder.
+     * @param value the number.
+     * @return the target string builder.
+     */
+    private static StringBuilder pad(StringBuilder sb, int value) {
+        String str = Integer.toString(value);
+        for (int idx = str.length(); idx < 5; idx++) {
+            sb.append(' ');
+        }
+        return sb.append(str);
+    }
+
+    /**
+     * A row of the console report: line counters of a class or a package.
+     */
+    private static class ConsoleRow implements Comparable<ConsoleRow> {
+
+        private final String name;
+
+        private final CoverageCounters counters;
+
+        ConsoleRow(String name, CoverageCounters counters) {
+            this.name = name;
+            this.counters = counters;
+        }
+
+        /**
+         * Get the coverage state of the row.
+         *
+         * @return 0 if not covered (or without lines), 1 if partially covered, 2 if covered.
+         */
+        int getState() {
+            int state;
+            if (counters.getNbCoveredLines() > 0) {
+                if (counters.getNbNotCoveredLines() > 0 || counters.getNbPartiallyCoveredLines() > 0) {
+                    state = 1;
+                } else {
+                    state = 2;
+                }
+            } else {
+                if (counters.getNbPartiallyCoveredLines() > 0) {
+                    state = 1;
+                } else {
+                    state = 0;
+                }
+            }
+            return state;
+        }
+
+        Color getColor() {
+            switch (getState()) {
+                case 2:
+                    return CONSOLE_COVERED;
+                case 1:
+                    return CONSOLE_PARTIALLY_COVERED;
+                default:
+                    return CONSOLE_NOT_COVERED;
+            }
+        }
+
+        @Override
+        public int compareTo(ConsoleRow o) {
+            int cmp = Integer.compare(getState(), o.getState());
+            if (cmp == 0) {
+                cmp = Double.compare(counters.getLineCoverageRatio(), o.counters.getLineCoverageRatio());
+            }
+            return cmp == 0 ? name.compareTo(o.name) : cmp;
+        }
+    }
+
+    /**
+     * Print colored text to a NetBeans console by large chunks: consecutive texts of the same color are buffered and printed with
+     * a single call.
+     */
+    private static class ColoredChunks {
+
+        /** Maximum size of a chunk, in characters. */
+        private static final int MAX_CHUNK_SIZE = 32768;
+
+        private final InputOutput io;
+
+        private final StringBuilder chunk = new StringBuilder(MAX_CHUNK_SIZE + 256);
+
+        private Color color = null;
+
+        ColoredChunks(InputOutput io) {
+            this.io = io;
+        }
+
+        void append(CharSequence text, Color textColor)
+                throws IOException {
+            if (!textColor.equals(color) || chunk.length() >= MAX_CHUNK_SIZE) {
+                flush();
+                color = textColor;
+            }
+            chunk.append(text);
+        }
+
+        void flush()
+                throws IOException {
+            if (chunk.length() > 0) {
+                IOColorPrint.print(io, chunk.toString(), color);
+                chunk.setLength(0);
+            }
+        }
+    }
 }
@@ -1,10 +1,25 @@
 package fr.tikione.jacocoexec.analyzer;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
@@ -19,23 +34,62 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class JaCoCoXmlReportParser extends DefaultHandler {
 
+    /** Minimum size of a JaCoCo XML report file (plain or compressed) to parse it in parallel, in bytes. */
+    public static final long PARALLEL_MIN_SIZE = 1024 * 1024;
+
+    /** A SAX parser per parallel parsing thread. */
+    private static final ThreadLocal<SAXParser> SAX_PARSERS = new ThreadLocal<SAXParser>() {
+        @Override
+        protected SAXParser initialValue() {
+            try {
+                return newSAXParser();
+            } catch (ParserConfigurationException | SAXException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    };
+
     /** The coverage data of each Java class. */
     private final Map<String, JavaClass> classes = new LinkedHashMap<>(32);
 
+    /** Used to remember current report groups (modules) while XML parsing. */
+    private final Deque<String> groups = new ArrayDeque<>(4);
+
+    /** Used to remember current module name (groups separated by "/") while XML parsing. */
+    private String currentModule = null;
+
     /** Used to remember current Java package while XML parsing. */
     private String currentPackage = null;
 
-    /** Used to remember current Java method while XML parsing. */
-    private JavaMethod currentJavaMethod = null;
+    /** Used to remember the index of current Java method (in current Java class) while XML parsing. */
+    private int currentMethodIdx = -1;
 
     /** Used to remember if we are in a Java method description while XML parsing. */
     private boolean inMethod = false;
 
+    /** Used to remember if we are in a Java class description while XML parsing. */
+    private boolean inClass = false;
+
     /** Used to remember current Java class while XML parsing. */
     private JavaClass currentJavaClass = null;
 
     /**
-     * Extract coverage data from a JaCoCo XML report file.
+     * Create a JaCoCo XML reports parser.
+     *
+     * @param module the report groups (modules) of the parsed XML, separated by "/", or {@code null} if there is no group. Used to
+     * parse a package element of a JaCoCo XML report on its own.
+     */
+    private JaCoCoXmlReportParser(String module) {
+        this.currentModule = module;
+    }
+
+    public JaCoCoXmlReportParser() {
+        this(null);
+    }
+
+    /**
+     * Extract coverage data from a JaCoCo XML report file, plain or gzip compressed. Large reports are parsed in parallel, see
+     * {@link #getCoverageData(java.io.File, int)}.
      *
      * @param xml the JaCoCo XML report file.
      * @return the coverage data of each Java class registered in the JaCoCo XML report.
@@ -47,16 +101,136 @@ public class JaCoCoXmlReportParser extends DefaultHandler {
             throws ParserConfigurationException,
                    SAXException,
                    IOException {
+        return getCoverageData(xml, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Extract coverage data from a JaCoCo XML report file, plain or gzip compressed (e.g. <code>jacoco.xml.gz</code> published by a
+     * CI server). The report is streamed, and decompressed on the fly.
+     * <br/>Reports larger than {@link #PARALLEL_MIN_SIZE} bytes are split at package boundaries, and packages are parsed in parallel.
+     * Coverage data is the same as with a sequential parsing, Java classes are in document order.
+     *
+     * @param xml the JaCoCo XML report file.
+     * @param nbThreads the number of parallel parsers.
+     * @return the coverage data of each Java class registered in the JaCoCo XML report.
+     * @throws ParserConfigurationException if an error occurs during the parsing of the JaCoCo XML report.
+     * @throws SAXException if an error occurs during the parsing of the JaCoCo XML report.
+     * @throws IOException if an error occurs during the parsing of the JaCoCo XML report.
+     */
+    public static Map<String, JavaClass> getCoverageData(File xml, int nbThreads)
+            throws ParserConfigurationException,
+                   SAXException,
+                   IOException {
+        if (nbThreads > 1 && xml.length() >= PARALLEL_MIN_SIZE) {
+            Map<String, JavaClass> classes = getCoverageDataInParallel(xml, nbThreads);
+            if (classes != null) {
+                return classes;
+            }
+        }
+        JaCoCoXmlReportParser handler = new JaCoCoXmlReportParser();
+        try (InputStream in = openReport(xml)) {
+            newSAXParser().parse(in, handler);
+        }
+        return handler.getClasses();
+    }
+
+    /**
+     * Parse the package elements of a JaCoCo XML report in parallel. The report is read by the calling thread, the number of package
+     * elements waiting to be parsed is bounded.
+     *
+     * @param xml the JaCoCo XML report file.
+     * @param nbThreads the number of parallel parsers.
+     * @return the coverage data of each Java class registered in the JaCoCo XML report, or {@code null} if a Java source file is
+     * found in several package elements (e.g. a package split across report groups): its coverage data has to be gathered by a
+     * sequential parsing.
+     * @throws SAXException if an error occurs during the parsing of the JaCoCo XML report.
+     * @throws IOException if an error occurs during the parsing of the JaCoCo XML report.
+     */
+    private static Map<String, JavaClass> getCoverageDataInParallel(File xml, int nbThreads)
+            throws SAXException,
+                   IOException {
+        ExecutorService parsers = Executors.newFixedThreadPool(nbThreads);
+        final Semaphore waiting = new Semaphore(nbThreads * 2);
+        List<Future<Map<String, JavaClass>>> results = new ArrayList<>(256);
+        try {
+            try (InputStream in = openReport(xml)) {
+                PackageChunkReader reader = new PackageChunkReader(in);
+                PackageChunkReader.Chunk chunk;
+                while ((chunk = reader.next()) != null) {
+                    waiting.acquire();
+                    final PackageChunkReader.Chunk pkg = chunk;
+                    results.add(parsers.submit(new Callable<Map<String, JavaClass>>() {
+                        @Override
+                        public Map<String, JavaClass> call()
+                                throws Exception {
+                            try {
+                                JaCoCoXmlReportParser handler = new JaCoCoXmlReportParser(pkg.module);
+                                SAXParser saxParser = SAX_PARSERS.get();
+                                saxParser.reset();
+                                saxParser.parse(new ByteArrayInputStream(pkg.xml), handler);
+                                return handler.classes;
+                            } finally {
+                                waiting.release();
+                            }
+                        }
+                    }));
+                }
+            }
+            Map<String, JavaClass> classes = new LinkedHashMap<>(results.size() * 8);
+            for (Future<Map<String, JavaClass>> result : results) {
+                for (Map.Entry<String, JavaClass> jclass : result.get().entrySet()) {
+                    if (classes.put(jclass.getKey(), jclass.getValue()) != null) {
+                        return null;
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(classes);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing JaCoCo XML report", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SAXException) {
+                throw (SAXException) ex.getCause();
+            } else if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    /**
+     * Open a JaCoCo XML report file, plain or gzip compressed (detected from its content, not its name).
+     *
+     * @param xml the JaCoCo XML report file.
+     * @return the uncompressed, buffered report.
+     * @throws IOException if the report can't be read.
+     */
+    private static InputStream openReport(File xml)
+            throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(xml), 65536);
+        try {
+            in.mark(2);
+            boolean gzip = in.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF) && in.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+            in.reset();
+            return gzip ? new GZIPInputStream(in, 65536) : in;
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    private static SAXParser newSAXParser()
+            throws ParserConfigurationException,
+                   SAXException {
         SAXParserFactory factory = SAXParserFactory.newInstance();
         factory.setFeature("http://xml.org/sax/features/validation", false);
         factory.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
         factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
         factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
         factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        SAXParser saxParser = factory.newSAXParser();
-        JaCoCoXmlReportParser handler = new JaCoCoXmlReportParser();
-        saxParser.parse(xml, handler);
-        return handler.getClasses();
+        return factory.newSAXParser();
     }
 
     /**
@@ -76,149 +250,221 @@ public class JaCoCoXmlReportParser extends DefaultHandler {
     @Override
     public void endDocument()
             throws SAXException {
+        for (JavaClass jclass : classes.values()) {
+            jclass.buildMethodIndex();
+        }
     }
 
     @Override
     public void startElement(String uri, String localName, String qName, Attributes attributes)
             throws SAXException {
-        if (qName.equalsIgnoreCase("PACKAGE")) {
-            for (int idx = 0; idx < attributes.getLength(); idx++) {
-                if (attributes.getQName(idx).equalsIgnoreCase("NAME")) {
-                    currentPackage = '/' + attributes.getValue(idx) + '/';
-                    break;
+        // Element and attribute names are lower case (see JaCoCo report DTD). Lines are by far the most frequent elements: they are
+        // tested first, and only the needed attribute values are read.
+        switch (qName) {
+            case "line": {
+                // Get line's coverage data.
+                int lineNumber = 0;
+                int missedInstructions = 0;
+                int coveredInstructions = 0;
+                int missedBranches = 0;
+                int coveredBranches = 0;
+                for (int idx = 0; idx < attributes.getLength(); idx++) {
+                    String attribute = attributes.getQName(idx);
+                    if (attribute.length() == 2) {
+                        char c0 = attribute.charAt(0);
+                        char c1 = attribute.charAt(1);
+                        if (c0 == 'n' && c1 == 'r') {
+                            lineNumber = parseInt(attributes.getValue(idx)) - 1; // NetBeans Editor starting index is 0, not 1.
+                        } else if (c1 == 'i') {
+                            if (c0 == 'm') {
+                                missedInstructions = parseInt(attributes.getValue(idx));
+                            } else if (c0 == 'c') {
+                                coveredInstructions = parseInt(attributes.getValue(idx));
+                            }
+                        } else if (c1 == 'b') {
+                            if (c0 == 'm') {
+                                missedBranches = parseInt(attributes.getValue(idx));
+                            } else if (c0 == 'c') {
+                                coveredBranches = parseInt(attributes.getValue(idx));
+                            }
+                        }
+                    }
                 }
-            }
-        } else if (qName.equalsIgnoreCase("SOURCEFILE")) {
-            for (int idx = 0; idx < attributes.getLength(); idx++) {
-                if (attributes.getQName(idx).equalsIgnoreCase("NAME")) {
-                    String classname = attributes.getValue(idx);
-                    if (classes.containsKey(currentPackage + classname)) {
-                        currentJavaClass = classes.get(currentPackage + classname);
+                boolean someMissed = missedInstructions > 0 || missedBranches > 0;
+                boolean someCovered = coveredInstructions > 0 || coveredBranches > 0;
+                // Set coverage state. Will indicate the color of code highlighting.
+                if (someCovered) {
+                    if (someMissed) {
+                        currentJavaClass.addPartiallyCoveredLine(lineNumber);
                     } else {
-                        currentJavaClass = new JavaClass(currentPackage, classname);
-                        classes.put(currentPackage + classname, currentJavaClass);
+                        currentJavaClass.addCoveredLine(lineNumber);
                     }
-                    break;
+                } else {
+                    currentJavaClass.addNotCoveredLine(lineNumber);
+                }
+                // Set coverage description when possible (currently: branches coverage). Will enable glyphed annotations.
+                if (missedBranches > 0 || coveredBranches > 0) {
+                    currentJavaClass.setLineBranches(lineNumber, missedBranches, coveredBranches);
                 }
+                break;
             }
-        } else if (qName.equalsIgnoreCase("CLASS")) {
-            for (int idx = 0; idx < attributes.getLength(); idx++) {
-                if (attributes.getQName(idx).equalsIgnoreCase("NAME")) {
-                    String classname = attributes.getValue(idx);
-                    classname = classname.substring(classname.lastIndexOf('/') + 1);
-                    if (classname.contains("$")) {
-                        classname = classname.substring(0, classname.indexOf('$'));
+            case "counter": {
+                if (!inMethod && !inClass) {
+                    break;
+                }
+                CounterTypeEnum type = null;
+                int missed = 0;
+                int covered = 0;
+                for (int idx = 0; idx < attributes.getLength(); idx++) {
+                    String attribute = attributes.getQName(idx);
+                    if (attribute.equals("type")) {
+                        type = CounterTypeEnum.parse(attributes.getValue(idx));
+                    } else if (attribute.equals("missed")) {
+                        missed = parseInt(attributes.getValue(idx));
+                    } else if (attribute.equals("covered")) {
+                        covered = parseInt(attributes.getValue(idx));
                     }
-                    classname += ".java";
-                    if (classes.containsKey(currentPackage + classname)) {
-                        currentJavaClass = classes.get(currentPackage + classname);
+                }
+                if (type != null) {
+                    if (inMethod) {
+                        currentJavaClass.setMethodCounter(currentMethodIdx, type, missed, covered);
                     } else {
-                        currentJavaClass = new JavaClass(currentPackage, classname);
-                        classes.put(currentPackage + classname, currentJavaClass);
+                        currentJavaClass.addCounter(type, missed, covered);
                     }
-                    break;
                 }
+                break;
             }
-        } else if (qName.equalsIgnoreCase("METHOD")) {
-            inMethod = true;
-            currentJavaMethod = new JavaMethod();
-            for (int idx = 0; idx < attributes.getLength(); idx++) {
-                if (attributes.getQName(idx).equalsIgnoreCase("LINE")) {
-                    currentJavaMethod.setLineNumber(Integer.parseInt(attributes.getValue(idx)) - 1);
-                } else if (attributes.getQName(idx).equalsIgnoreCase("NAME")) {
-                    currentJavaMethod.setName(attributes.getValue(idx));
+            case "method": {
+                inMethod = true;
+                String name = null;
+                int lineNumber = 0;
+                for (int idx = 0; idx < attributes.getLength(); idx++) {
+                    String attribute = attributes.getQName(idx);
+                    if (attribute.equals("line")) {
+                        lineNumber = parseInt(attributes.getValue(idx)) - 1;
+                    } else if (attribute.equals("name")) {
+                        name = attributes.getValue(idx);
+                    }
                 }
+                currentMethodIdx = currentJavaClass.addMethod(name, lineNumber);
+                break;
             }
-        } else if (qName.equalsIgnoreCase("COUNTER") && inMethod) {
-            String type = null;
-            int missed = 0;
-            int covered = 0;
-            for (int idx = 0; idx < attributes.getLength(); idx++) {
-                if (attributes.getQName(idx).equalsIgnoreCase("TYPE")) {
-                    type = attributes.getValue(idx);
-                } else if (attributes.getQName(idx).equalsIgnoreCase("MISSED")) {
-                    missed = Integer.parseInt(attributes.getValue(idx));
-                } else if (attributes.getQName(idx).equalsIgnoreCase("COVERED")) {
-                    covered = Integer.parseInt(attributes.getValue(idx));
+            case "class": {
+                inClass = true;
+                String classname = attributes.getValue("name");
+                if (classname != null) {
+                    int start = classname.lastIndexOf('/') + 1;
+                    int end = classname.indexOf('$', start);
+                    classname = classname.substring(start, end < 0 ? classname.length() : end) + ".java";
+                    setCurrentJavaClass(classname);
                 }
+                break;
             }
-            if (type != null) {
-                if (type.equalsIgnoreCase("INSTRUCTION")) {
-                    currentJavaMethod.setInstructionsCovered(covered);
-                    currentJavaMethod.setInstructionsMissed(missed);
-                } else if (type.equalsIgnoreCase("LINE")) {
-                    currentJavaMethod.setLinesCovered(covered);
-                    currentJavaMethod.setLinesMissed(missed);
+            case "sourcefile": {
+                String classname = attributes.getValue("name");
+                if (classname != null) {
+                    setCurrentJavaClass(classname);
                 }
+                break;
             }
-        } else if (qName.equalsIgnoreCase("LINE")) {
-            // Get line's coverage data.
-            int lineNumber = 0;
-            int missedInstructions = 0;
-            int coveredInstructions = 0;
-            int missedBranches = 0;
-            int coveredBranches = 0;
-            for (int idx = 0; idx < attributes.getLength(); idx++) {
-                if (attributes.getQName(idx).equalsIgnoreCase("NR")) {
-                    lineNumber = Integer.parseInt(attributes.getValue(idx)) - 1; // NetBeans Editor starting index is 0, not 1.
-                } else if (attributes.getQName(idx).equalsIgnoreCase("MI")) {
-                    missedInstructions = Integer.parseInt(attributes.getValue(idx));
-                } else if (attributes.getQName(idx).equalsIgnoreCase("CI")) {
-                    coveredInstructions = Integer.parseInt(attributes.getValue(idx));
-                } else if (attributes.getQName(idx).equalsIgnoreCase("MB")) {
-                    missedBranches = Integer.parseInt(attributes.getValue(idx));
-                } else if (attributes.getQName(idx).equalsIgnoreCase("CB")) {
-                    coveredBranches = Integer.parseInt(attributes.getValue(idx));
+            case "package": {
+                String name = attributes.getValue("name");
+                if (name != null) {
+                    currentPackage = '/' + name + '/';
                 }
+                break;
             }
-            boolean someMissed = missedInstructions > 0 || missedBranches > 0;
-            boolean someCovered = coveredInstructions > 0 || coveredBranches > 0;
-            // Set coverage state. Will indicate the color of code highlighting.
-            if (someCovered) {
-                if (someMissed) {
-                    currentJavaClass.addPartiallyCoveredLine(lineNumber);
-                } else {
-                    currentJavaClass.addCoveredLine(lineNumber);
-                }
-            } else {
-                currentJavaClass.addNotCoveredLine(lineNumber);
-            }
-            // Set coverage description when possible (currently: branches coverage). Will enable glyphed annotations.
-            if (missedBranches > 0) {
-                if (coveredBranches > 0) {
-                    currentJavaClass.getCoverageDesc().put(lineNumber, missedBranches + " of " + (missedBranches + coveredBranches)
-                            + " branches missed.");
-                } else {
-                    currentJavaClass.getCoverageDesc().put(lineNumber, "All " + missedBranches + " branches missed.");
+            case "group": {
+                String name = attributes.getValue("name");
+                if (name != null) {
+                    groups.addLast(name);
                 }
-            } else if (coveredBranches > 0) {
-                currentJavaClass.getCoverageDesc().put(lineNumber, "All " + coveredBranches + " branches covered.");
+                currentModule = toModuleName(groups);
+                break;
             }
+            default:
+                break;
         }
     }
 
+    /**
+     * Set the current Java class, created if needed.
+     *
+     * @param classname the Java source file name (e.g. "Foo.java") in the current package.
+     */
+    private void setCurrentJavaClass(String classname) {
+        String key = currentPackage + classname;
+        currentJavaClass = classes.get(key);
+        if (currentJavaClass == null) {
+            currentJavaClass = new JavaClass(currentPackage, classname, currentModule);
+            classes.put(key, currentJavaClass);
+        }
+    }
+
+    /**
+     * Parse a non-negative decimal integer attribute value, as written by JaCoCo. Faster than {@link Integer#parseInt(java.lang.String)}
+     * for the short values of JaCoCo reports.
+     *
+     * @param value the attribute value.
+     * @return the integer value.
+     * @throws SAXException if the value is not a non-negative decimal integer.
+     */
+    private static int parseInt(String value)
+            throws SAXException {
+        int length = value.length();
+        if (length == 0 || length > 9) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                throw new SAXException("Invalid number in JaCoCo XML report: " + value, ex);
+            }
+        }
+        int result = 0;
+        for (int idx = 0; idx < length; idx++) {
+            int digit = value.charAt(idx) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new SAXException("Invalid number in JaCoCo XML report: " + value);
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
     @Override
     public void endElement(String uri, String localName, String qName)
             throws SAXException {
-        if (qName.equalsIgnoreCase("COUNTER")) {
-            if (!currentJavaMethod.getName().equals("<init>")) {
-                currentJavaMethod.setCoverageDesc(""); // TODO anno desc if needed
-                int totalMissed = currentJavaMethod.getInstructionsMissed() + currentJavaMethod.getLinesMissed();
-                int totalCovered = currentJavaMethod.getInstructionsCovered() + currentJavaMethod.getLinesCovered();
-                if (totalMissed > 0) {
-                    if (totalCovered > 0) {
-                        currentJavaMethod.setCoverageState(CoverageStateEnum.PARTIALLY_COVERED);
-                    } else {
-                        currentJavaMethod.setCoverageState(CoverageStateEnum.NOT_COVERED);
-                    }
-                } else {
-                    currentJavaMethod.setCoverageState(CoverageStateEnum.COVERED);
-                }
-                currentJavaClass.addMethodCoverage(currentJavaMethod.getLineNumber(), currentJavaMethod.getCoverageState());
+        if (qName.equals("method")) {
+            JavaMethod method = currentJavaClass.getMethod(currentMethodIdx);
+            if (!method.getName().equals("<init>")) {
+                currentJavaClass.addMethodCoverage(method.getLineNumber(), method.getCoverageState());
             }
-        } else if (qName.equalsIgnoreCase("METHOD")) {
             inMethod = false;
+        } else if (qName.equals("class")) {
+            inClass = false;
+        } else if (qName.equals("group")) {
+            groups.pollLast();
+            currentModule = toModuleName(groups);
+        }
+    }
+
+    /**
+     * Get the module name of the current report groups.
+     *
+     * @param groups the current report groups, from outermost to innermost.
+     * @return the group names separated by "/", or {@code null} if there is no group.
+     */
+    static String toModuleName(Deque<String> groups) {
+        if (groups.isEmpty()) {
+            return null;
+        }
+        StringBuilder module = new StringBuilder(64);
+        for (String group : groups) {
+            if (module.length() > 0) {
+                module.append('/');
+            }
+            module.append(group);
         }
+        return module.toString();
     }
 
     @Override
@@ -1,6 +1,10 @@
 package fr.tikione.jacocoexec.analyzer;
 
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -10,21 +14,68 @@ import java.util.Map;
  */
 public class JavaClass implements Comparable<JavaClass> {
 
+    /** Method record: line of method's declaration (0-based). */
+    static final int REC_START_LINE = 0;
+
+    /** Method record: last line of method's body (0-based). */
+    static final int REC_END_LINE = 1;
+
+    /** Method record: first counter. Each counter type takes two slots: missed, then covered items. */
+    static final int REC_COUNTERS = 2;
+
+    /** Counter types reported by JaCoCo at method level. */
+    static final CounterTypeEnum[] METHOD_COUNTER_TYPES = {
+        CounterTypeEnum.INSTRUCTION, CounterTypeEnum.BRANCH, CounterTypeEnum.LINE, CounterTypeEnum.COMPLEXITY, CounterTypeEnum.METHOD
+    };
+
+    /** Size of a method record. */
+    static final int RECORD_SIZE = REC_COUNTERS + 2 * METHOD_COUNTER_TYPES.length;
+
     /** The package name (with "/" instead of "."). */
     private final String packageName;
 
     /** The class name (with ".java" extension). */
     private final String className;
 
+    /** The name of the module (JaCoCo report group) that contains the class, or {@code null} if there is no module. */
+    private final String moduleName;
+
+    /** Identifier of the compiled classes of the Java source file, see {@link ClassIds}; {@code 0} if unknown. */
+    private long classId = 0;
+
+    /** JaCoCo counters of the class (and of its inner classes). */
+    private final CoverageCounters counters = new CoverageCounters();
+
     /** Indicate the coverage state of class instructions. */
     private final Map<Integer, CoverageStateEnum> coverage = new HashMap<>(256);
 
     /** Indicate the coverage description of class instructions. */
     private final Map<Integer, String> coverageDesc = new HashMap<>(128);
 
+    /** Branches of class instructions: missed branches in the high 32 bits, covered branches in the low 32 bits. */
+    private final Map<Integer, Long> lineBranches = new HashMap<>(128);
+
     /** Indicate the coverage state of class methods declarations. */
     private final Map<Integer, CoverageStateEnum> methodCoverage = new HashMap<>(32);
 
+    /** Names of class methods, in declaration order. */
+    private String[] methodNames = new String[8];
+
+    /** Packed records of class methods (lines and counters), {@link #RECORD_SIZE} ints per method, in declaration order. */
+    private int[] methodRecords = new int[8 * RECORD_SIZE];
+
+    /** Number of class methods. */
+    private int nbMethods = 0;
+
+    /** Line-to-method interval index: start lines of methods, in ascending order. */
+    private int[] indexStartLines = new int[0];
+
+    /** Line-to-method interval index: end lines of methods, in start lines order. */
+    private int[] indexEndLines = new int[0];
+
+    /** Line-to-method interval index: indexes of methods, in start lines order. */
+    private int[] indexMethods = new int[0];
+
     /** Number of covered lines. */
     private int nbCoveredLines = 0;
 
@@ -35,29 +86,240 @@ public class JavaClass implements Comparable<JavaClass> {
     private int nbNotCoveredLines = 0;
 
     public JavaClass(String packageName, String className) {
+        this(packageName, className, null);
+    }
+
+    public JavaClass(String packageName, String className, String moduleName) {
         this.packageName = packageName;
         this.className = className;
+        this.moduleName = moduleName;
+    }
+
+    /**
+     * Get the lookup key of a Java source file: its path relative to a source root, without any leading "/". Coverage data paths
+     * start with "/", and with "//" in the default package (see {@link #getPackageName()}), while NetBeans resource names have no
+     * leading "/": both give the same key.
+     *
+     * @param classResource the Java source file, relative to a source root, with or without leading "/" (e.g.
+     * <code>/fr/tikione/Foo.java</code>, <code>//Foo.java</code> or <code>fr/tikione/Foo.java</code>).
+     * @return the key (e.g. <code>fr/tikione/Foo.java</code> or <code>Foo.java</code>).
+     */
+    public static String toResourceKey(String classResource) {
+        int start = 0;
+        while (start < classResource.length() && classResource.charAt(start) == '/') {
+            start++;
+        }
+        return classResource.substring(start);
     }
 
     public void addCoveredLine(int lineNumber) {
         coverage.put(lineNumber, CoverageStateEnum.COVERED);
         nbCoveredLines++;
+        counters.incrementLineStates(1, 0, 0);
     }
 
     public void addPartiallyCoveredLine(int lineNumber) {
         coverage.put(lineNumber, CoverageStateEnum.PARTIALLY_COVERED);
         nbPartiallyCoveredLines++;
+        counters.incrementLineStates(0, 1, 0);
     }
 
     public void addNotCoveredLine(int lineNumber) {
         coverage.put(lineNumber, CoverageStateEnum.NOT_COVERED);
         nbNotCoveredLines++;
+        counters.incrementLineStates(0, 0, 1);
     }
 
     public void addMethodCoverage(int lineNumber, CoverageStateEnum coverageState) {
         methodCoverage.put(lineNumber, coverageState);
     }
 
+    /**
+     * Set the branches of a line, and its coverage description (enables glyphed annotations).
+     *
+     * @param lineNumber the line (0-based).
+     * @param missed the number of missed branches.
+     * @param covered the number of covered branches.
+     */
+    void setLineBranches(int lineNumber, int missed, int covered) {
+        lineBranches.put(lineNumber, ((long) missed << 32) | (covered & 0xFFFFFFFFL));
+        if (missed > 0) {
+            if (covered > 0) {
+                coverageDesc.put(lineNumber, missed + " of " + (missed + covered) + " branches missed.");
+            } else {
+                coverageDesc.put(lineNumber, "All " + missed + " branches missed.");
+            }
+        } else if (covered > 0) {
+            coverageDesc.put(lineNumber, "All " + covered + " branches covered.");
+        }
+    }
+
+    /**
+     * Get the branches of class instructions.
+     *
+     * @return missed branches (high 32 bits) and covered branches (low 32 bits), by line.
+     */
+    Map<Integer, Long> getLineBranches() {
+        return lineBranches;
+    }
+
+    /**
+     * Add a JaCoCo counter of the class, as found in JaCoCo XML reports.
+     *
+     * @param type the counter type.
+     * @param missed the number of missed items.
+     * @param covered the number of covered items.
+     */
+    void addCounter(CounterTypeEnum type, int missed, int covered) {
+        counters.increment(type, missed, covered);
+    }
+
+    /**
+     * Add a method. Its end line is computed by {@link #buildMethodIndex()}.
+     *
+     * @param name the method name.
+     * @param startLine the line of method's declaration (0-based).
+     * @return the index of the method.
+     */
+    int addMethod(String name, int startLine) {
+        if (nbMethods == methodNames.length) {
+            methodNames = Arrays.copyOf(methodNames, nbMethods * 2);
+            methodRecords = Arrays.copyOf(methodRecords, nbMethods * 2 * RECORD_SIZE);
+        }
+        methodNames[nbMethods] = name;
+        methodRecords[nbMethods * RECORD_SIZE + REC_START_LINE] = startLine;
+        methodRecords[nbMethods * RECORD_SIZE + REC_END_LINE] = startLine;
+        return nbMethods++;
+    }
+
+    /**
+     * Set a JaCoCo counter of a method.
+     *
+     * @param methodIdx the index of the method.
+     * @param type the counter type; counter types that are not reported at method level are ignored.
+     * @param missed the number of missed items.
+     * @param covered the number of covered items.
+     */
+    void setMethodCounter(int methodIdx, CounterTypeEnum type, int missed, int covered) {
+        int slot = counterSlot(type);
+        if (slot >= 0) {
+            methodRecords[methodIdx * RECORD_SIZE + slot] = missed;
+            methodRecords[methodIdx * RECORD_SIZE + slot + 1] = covered;
+        }
+    }
+
+    /**
+     * Compute the end line of each method and build the line-to-method interval index. Has to be called once all methods are added.
+     * <br/>The end line of a method is the last line with coverage data before the declaration of the next method (in line order),
+     * or before the end of the class. Methods of inner and anonymous classes are declared inside the body of another method: this
+     * method ends where they start. This way, line ranges of methods don't overlap (except methods declared on the same line) and
+     * a line belongs to at most one method range.
+     */
+    void buildMethodIndex() {
+        int maxLine = -1;
+        for (int line : coverage.keySet()) {
+            maxLine = Math.max(maxLine, line);
+        }
+        Integer[] byStartLine = new Integer[nbMethods];
+        for (int idx = 0; idx < nbMethods; idx++) {
+            byStartLine[idx] = idx;
+        }
+        Arrays.sort(byStartLine, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Integer.compare(getMethodRecord(o1, REC_START_LINE), getMethodRecord(o2, REC_START_LINE));
+            }
+        });
+        indexStartLines = new int[nbMethods];
+        indexEndLines = new int[nbMethods];
+        indexMethods = new int[nbMethods];
+        for (int pos = 0; pos < nbMethods; pos++) {
+            int startLine = getMethodRecord(byStartLine[pos], REC_START_LINE);
+            int endLine = pos + 1 < nbMethods ? getMethodRecord(byStartLine[pos + 1], REC_START_LINE) - 1 : maxLine;
+            while (endLine > startLine && !coverage.containsKey(endLine)) {
+                endLine--;
+            }
+            endLine = Math.max(startLine, endLine);
+            methodRecords[byStartLine[pos] * RECORD_SIZE + REC_END_LINE] = endLine;
+            indexStartLines[pos] = startLine;
+            indexEndLines[pos] = endLine;
+            indexMethods[pos] = byStartLine[pos];
+        }
+    }
+
+    /**
+     * Find the method that contains a line, in logarithmic time.
+     * <br/>When several methods are declared on the same line (e.g. lambdas), the last declared one is returned.
+     *
+     * @param line the line (0-based).
+     * @return the index of the method that contains the line, or {@code -1} if the line is out of every method.
+     */
+    public int getMethodIndexAt(int line) {
+        int pos = Arrays.binarySearch(indexStartLines, line);
+        if (pos >= 0) {
+            // Several methods may start on this line: the last one holds the whole range.
+            while (pos + 1 < indexStartLines.length && indexStartLines[pos + 1] == line) {
+                pos++;
+            }
+        } else {
+            // Insertion point - 1: the last method that starts before the line.
+            pos = -pos - 2;
+        }
+        return pos >= 0 && indexEndLines[pos] >= line ? indexMethods[pos] : -1;
+    }
+
+    /**
+     * Find the method that contains a line, in logarithmic time.
+     *
+     * @param line the line (0-based).
+     * @return the method that contains the line, or {@code null} if the line is out of every method.
+     */
+    public JavaMethod getMethodAt(int line) {
+        int methodIdx = getMethodIndexAt(line);
+        return methodIdx < 0 ? null : new JavaMethod(this, methodIdx);
+    }
+
+    /**
+     * Get the slot of a counter type in method records.
+     *
+     * @param type the counter type.
+     * @return the slot of missed items (covered items are in the next slot), or {@code -1} if the counter type is not reported at
+     * method level.
+     */
+    static int counterSlot(CounterTypeEnum type) {
+        for (int idx = 0; idx < METHOD_COUNTER_TYPES.length; idx++) {
+            if (METHOD_COUNTER_TYPES[idx] == type) {
+                return REC_COUNTERS + 2 * idx;
+            }
+        }
+        return -1;
+    }
+
+    int getMethodRecord(int methodIdx, int slot) {
+        return methodRecords[methodIdx * RECORD_SIZE + slot];
+    }
+
+    String getMethodName(int methodIdx) {
+        return methodNames[methodIdx];
+    }
+
+    public int getNbMethods() {
+        return nbMethods;
+    }
+
+    /**
+     * Get the coverage of a method.
+     *
+     * @param methodIdx the index of the method, from 0 to {@link #getNbMethods()} - 1.
+     * @return a view of the method coverage.
+     */
+    public JavaMethod getMethod(int methodIdx) {
+        if (methodIdx < 0 || methodIdx >= nbMethods) {
+            throw new IndexOutOfBoundsException("Method index: " + methodIdx + ", number of methods: " + nbMethods);
+        }
+        return new JavaMethod(this, methodIdx);
+    }
+
     public String getPackageName() {
         return packageName;
     }
@@ -66,10 +328,54 @@ public class JavaClass implements Comparable<JavaClass> {
         return className;
     }
 
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    public CoverageCounters getCounters() {
+        return counters;
+    }
+
+    public long getClassId() {
+        return classId;
+    }
+
+    public void setClassId(long classId) {
+        this.classId = classId;
+    }
+
     public Map<Integer, CoverageStateEnum> getCoverage() {
         return coverage;
     }
 
+    /**
+     * Get the fingerprint of the line coverage of the class: two classes with the same line states and branches have the same
+     * fingerprint. Used to skip unchanged classes when comparing coverage runs, see {@link CoverageDelta}.
+     * <br/>Computed on each call, in linear time in the number of lines, without sorting them.
+     *
+     * @return the fingerprint, never {@code 0}.
+     */
+    public long getLineCoverageFingerprint() {
+        long fingerprint = 0;
+        // Sum of mixed values: independent of the iteration order of the maps.
+        for (Map.Entry<Integer, CoverageStateEnum> lineState : coverage.entrySet()) {
+            fingerprint += mix(((long) lineState.getKey() << 2) | lineState.getValue().ordinal());
+        }
+        for (Map.Entry<Integer, Long> branches : lineBranches.entrySet()) {
+            fingerprint += mix(mix(branches.getKey() | 0x100000000L) ^ branches.getValue());
+        }
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads every input bit over the 64 output bits.
+     */
+    private static long mix(long value) {
+        long mixed = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return mixed ^ (mixed >>> 31);
+    }
+
     public Map<Integer, String> getCoverageDesc() {
         return coverageDesc;
     }
@@ -78,6 +384,25 @@ public class JavaClass implements Comparable<JavaClass> {
         return methodCoverage;
     }
 
+    /**
+     * Get the coverage of class methods.
+     *
+     * @return views of the methods coverage, in declaration order.
+     */
+    public List<JavaMethod> getMethods() {
+        return new AbstractList<JavaMethod>() {
+            @Override
+            public JavaMethod get(int index) {
+                return getMethod(index);
+            }
+
+            @Override
+            public int size() {
+                return nbMethods;
+            }
+        };
+    }
+
     public int getNbCoveredLines() {
         return nbCoveredLines;
     }
@@ -2,101 +2,123 @@ package fr.tikione.jacocoexec.analyzer;
 
 /**
  * Representation of a Java method coverage.
+ * <br/>A method is a read-only view over the packed method records of its {@link JavaClass}.
  *
  * @author Jonathan Lermitage
  */
 public class JavaMethod {
 
-    /** Method's name. */
-    private String name;
+    /** The class that contains the method. */
+    private final JavaClass owner;
 
-    /** Method's coverage state. */
-    private CoverageStateEnum coverageState;
+    /** The index of the method in its class. */
+    private final int index;
 
-    /** Number of covered instructions. */
-    private int instructionsCovered = 0;
-
-    /** Number of not covered instructions. */
-    private int instructionsMissed = 0;
-
-    /** Number of covered lines. */
-    private int linesCovered = 0;
-
-    /** Number of not covered lines. */
-    private int linesMissed = 0;
-
-    /** Description of method's coverage state. */
-    private String coverageDesc;
-
-    /** 
-     * Line number of method's declaration in NetBeans source code editor.
-     * Warning: in NetBeans editor starting index is 0, not 1. */
-    private int lineNumber;
-
-    public JavaMethod() {
+    JavaMethod(JavaClass owner, int index) {
+        this.owner = owner;
+        this.index = index;
     }
 
     public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
+        return owner.getMethodName(index);
     }
 
+    /**
+     * Get the method's coverage state, computed from instructions and lines counters.
+     *
+     * @return the coverage state.
+     */
     public CoverageStateEnum getCoverageState() {
+        int totalMissed = getInstructionsMissed() + getLinesMissed();
+        int totalCovered = getInstructionsCovered() + getLinesCovered();
+        CoverageStateEnum coverageState;
+        if (totalMissed > 0) {
+            if (totalCovered > 0) {
+                coverageState = CoverageStateEnum.PARTIALLY_COVERED;
+            } else {
+                coverageState = CoverageStateEnum.NOT_COVERED;
+            }
+        } else {
+            coverageState = CoverageStateEnum.COVERED;
+        }
         return coverageState;
     }
 
-    public void setCoverageState(CoverageStateEnum coverageState) {
-        this.coverageState = coverageState;
+    /**
+     * Get the number of missed items of a counter.
+     *
+     * @param type the counter type.
+     * @return the number of missed items, or 0 if the counter type is not reported at method level.
+     */
+    public int getMissed(CounterTypeEnum type) {
+        int slot = JavaClass.counterSlot(type);
+        return slot < 0 ? 0 : owner.getMethodRecord(index, slot);
     }
 
-    public int getInstructionsCovered() {
-        return instructionsCovered;
+    /**
+     * Get the number of covered items of a counter.
+     *
+     * @param type the counter type.
+     * @return the number of covered items, or 0 if the counter type is not reported at method level.
+     */
+    public int getCovered(CounterTypeEnum type) {
+        int slot = JavaClass.counterSlot(type);
+        return slot < 0 ? 0 : owner.getMethodRecord(index, slot + 1);
     }
 
-    public void setInstructionsCovered(int instructionsCovered) {
-        this.instructionsCovered = instructionsCovered;
+    public int getInstructionsCovered() {
+        return getCovered(CounterTypeEnum.INSTRUCTION);
     }
 
     public int getInstructionsMissed() {
-        return instructionsMissed;
+        return getMissed(CounterTypeEnum.INSTRUCTION);
     }
 
-    public void setInstructionsMissed(int instructionsMissed) {
-        this.instructionsMissed = instructionsMissed;
+    public int getBranchesCovered() {
+        return getCovered(CounterTypeEnum.BRANCH);
     }
 
-    public int getLinesCovered() {
-        return linesCovered;
+    public int getBranchesMissed() {
+        return getMissed(CounterTypeEnum.BRANCH);
     }
 
-    public void setLinesCovered(int linesCovered) {
-        this.linesCovered = linesCovered;
+    public int getLinesCovered() {
+        return getCovered(CounterTypeEnum.LINE);
     }
 
     public int getLinesMissed() {
-        return linesMissed;
+        return getMissed(CounterTypeEnum.LINE);
     }
 
-    public void setLinesMissed(int linesMissed) {
-        this.linesMissed = linesMissed;
+    public int getComplexityCovered() {
+        return getCovered(CounterTypeEnum.COMPLEXITY);
     }
 
-    public String getCoverageDesc() {
-        return coverageDesc;
+    public int getComplexityMissed() {
+        return getMissed(CounterTypeEnum.COMPLEXITY);
     }
 
-    public void setCoverageDesc(String coverageDesc) {
-        this.coverageDesc = coverageDesc;
+    /**
+     * Line number of method's declaration in NetBeans source code editor.
+     * Warning: in NetBeans editor starting index is 0, not 1.
+     *
+     * @return the line of method's declaration.
+     */
+    public int getLineNumber() {
+        return owner.getMethodRecord(index, JavaClass.REC_START_LINE);
     }
 
-    public int getLineNumber() {
-        return lineNumber;
+    /**
+     * Last line of method's body in NetBeans source code editor (0-based). Approximated from the lines that have coverage data,
+     * see {@link JavaClass#getMethodAt(int)}.
+     *
+     * @return the last line of method's body.
+     */
+    public int getEndLineNumber() {
+        return owner.getMethodRecord(index, JavaClass.REC_END_LINE);
     }
 
-    public void setLineNumber(int lineNumber) {
-        this.lineNumber = lineNumber;
+    public JavaClass getJavaClass() {
+        return owner;
     }
 }
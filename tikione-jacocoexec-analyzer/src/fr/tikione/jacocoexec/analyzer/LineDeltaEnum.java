@@ -0,0 +1,17 @@
+package fr.tikione.jacocoexec.analyzer;
+
+/**
+ * Change of the coverage of a line between two coverage runs, see {@link CoverageDelta}.
+ *
+ * @author Jonathan Lermitage
+ */
+public enum LineDeltaEnum {
+
+    /** Covered, was not covered or partially covered. */
+    GAINED,
+    /** Not covered, was covered or partially covered. */
+    LOST,
+    /** Partially covered, was covered or not covered. */
+    NEWLY_PARTIAL;
+
+}
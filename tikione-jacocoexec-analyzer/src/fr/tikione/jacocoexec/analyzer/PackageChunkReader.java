@@ -0,0 +1,388 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Split a JaCoCo XML report into its <code>&lt;package&gt;</code> elements, so they can be parsed independently. Each chunk is a
+ * standalone XML document (the report's XML declaration followed by the package element) and knows the report groups (modules) it
+ * belongs to. The report is streamed: only the current package element is held in memory.
+ * <br/>The scanner only looks for markup boundaries, it relies on "&lt;" never appearing in character data or attribute values of a
+ * well-formed document. Not thread-safe.
+ *
+ * @author Jonathan Lermitage
+ */
+class PackageChunkReader {
+
+    private static final byte[] PACKAGE = "package".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] GROUP = "group".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream in;
+
+    private final byte[] buffer = new byte[65536];
+
+    private int pos = 0;
+
+    private int limit = 0;
+
+    /** The report's XML declaration (empty if none), prepended to each chunk. */
+    private byte[] prolog = null;
+
+    /** Encoding of the report, used to decode group names. */
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /** Current report groups (modules), from outermost to innermost. */
+    private final Deque<String> groups = new ArrayDeque<>(4);
+
+    /** Bytes of the tag being scanned. */
+    private final ByteArrayOutputStream tag = new ByteArrayOutputStream(256);
+
+    /**
+     * @param in the JaCoCo XML report, uncompressed. Not closed by this reader.
+     */
+    PackageChunkReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Read the next package element of the JaCoCo XML report.
+     *
+     * @return the package element, or {@code null} if the end of the report is reached.
+     * @throws IOException if the report can't be read, or is truncated.
+     */
+    Chunk next()
+            throws IOException {
+        if (prolog == null) {
+            readProlog();
+        }
+        int b;
+        while ((b = read()) != -1) {
+            if (b != '<') {
+                continue;
+            }
+            tag.reset();
+            tag.write('<');
+            b = read();
+            if (b == '!') {
+                skipDeclaration();
+            } else if (b == '?') {
+                skipUntil('?', '>');
+            } else if (b == '/') {
+                tag.write(b);
+                readTag();
+                if (isNamed(tag.toByteArray(), 2, GROUP)) {
+                    groups.pollLast();
+                }
+            } else if (b != -1) {
+                tag.write(b);
+                boolean selfClosing = readTag();
+                byte[] startTag = tag.toByteArray();
+                if (isNamed(startTag, 1, PACKAGE)) {
+                    ByteArrayOutputStream xml = new ByteArrayOutputStream(startTag.length * 64);
+                    xml.write(prolog);
+                    xml.write(startTag);
+                    if (!selfClosing) {
+                        copyUntilPackageEnd(xml);
+                    }
+                    return new Chunk(xml.toByteArray(), JaCoCoXmlReportParser.toModuleName(groups));
+                } else if (isNamed(startTag, 1, GROUP) && !selfClosing) {
+                    groups.addLast(getNameAttribute(new String(startTag, charset)));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the XML declaration of the report, if any, and the encoding it declares.
+     *
+     * @throws IOException if the report can't be read.
+     */
+    private void readProlog()
+            throws IOException {
+        prolog = new byte[0];
+        if (fill(5) && buffer[pos] == '<' && buffer[pos + 1] == '?' && buffer[pos + 2] == 'x' && buffer[pos + 3] == 'm'
+                && buffer[pos + 4] == 'l') {
+            tag.reset();
+            pos += 5;
+            tag.write(new byte[]{'<', '?', 'x', 'm', 'l'});
+            skipUntil('?', '>');
+            prolog = tag.toByteArray();
+            String encoding = getAttribute(new String(prolog, StandardCharsets.US_ASCII), "encoding");
+            if (encoding != null) {
+                charset = Charset.forName(encoding);
+            }
+        }
+    }
+
+    /**
+     * Read the rest of a tag into {@link #tag}, up to its closing "&gt;". Quoted attribute values may contain "&gt;".
+     *
+     * @return {@code true} if the tag is self-closing.
+     * @throws IOException if the report can't be read, or is truncated.
+     */
+    private boolean readTag()
+            throws IOException {
+        int quote = 0;
+        int last = 0;
+        int b;
+        while ((b = read()) != -1) {
+            tag.write(b);
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return last == '/';
+            }
+            last = b;
+        }
+        throw new IOException("Truncated JaCoCo XML report");
+    }
+
+    /**
+     * Skip a DOCTYPE declaration or a comment.
+     *
+     * @throws IOException if the report can't be read, or is truncated.
+     */
+    private void skipDeclaration()
+            throws IOException {
+        int b = read();
+        if (b == '-') {
+            read();
+            int dashes = 0;
+            while ((b = read()) != -1) {
+                if (b == '>' && dashes >= 2) {
+                    return;
+                }
+                dashes = b == '-' ? dashes + 1 : 0;
+            }
+            throw new IOException("Truncated JaCoCo XML report");
+        }
+        readTag();
+    }
+
+    /**
+     * Copy the bytes of the report into {@link #tag} until the given two-bytes sequence (included).
+     *
+     * @throws IOException if the report can't be read, or is truncated.
+     */
+    private void skipUntil(int first, int second)
+            throws IOException {
+        int last = 0;
+        int b;
+        while ((b = read()) != -1) {
+            tag.write(b);
+            if (last == first && b == second) {
+                return;
+            }
+            last = b;
+        }
+        throw new IOException("Truncated JaCoCo XML report");
+    }
+
+    /**
+     * Copy the content of a package element, up to its end tag (included). Package elements are not nested, and "&lt;" only starts
+     * markup: the content is copied by blocks, each "&lt;" is only checked for the package end tag.
+     *
+     * @param xml where to copy the package element.
+     * @throws IOException if the report can't be read, or is truncated.
+     */
+    private void copyUntilPackageEnd(ByteArrayOutputStream xml)
+            throws IOException {
+        while (true) {
+            int start = pos;
+            while (pos < limit && buffer[pos] != '<') {
+                pos++;
+            }
+            xml.write(buffer, start, pos - start);
+            if (pos == limit) {
+                if (!fill(1)) {
+                    throw new IOException("Truncated JaCoCo XML report");
+                }
+                continue;
+            }
+            if (fill(PACKAGE.length + 3) && buffer[pos + 1] == '/' && isNamed(buffer, pos + 2, PACKAGE)) {
+                pos += 2 + PACKAGE.length;
+                tag.reset();
+                tag.write('<');
+                tag.write('/');
+                tag.write(PACKAGE);
+                readTag();
+                tag.writeTo(xml);
+                return;
+            }
+            xml.write('<');
+            pos++;
+        }
+    }
+
+    private int read()
+            throws IOException {
+        if (pos == limit && !fill(1)) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    /**
+     * Make sure the buffer holds at least the given number of unread bytes, if the report is long enough.
+     *
+     * @param needed the number of bytes needed.
+     * @return {@code true} if the buffer holds the needed bytes.
+     * @throws IOException if the report can't be read.
+     */
+    private boolean fill(int needed)
+            throws IOException {
+        if (limit - pos >= needed) {
+            return true;
+        }
+        System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < needed) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    /**
+     * Check the name of a tag.
+     *
+     * @param tag the tag, starting with "&lt;" or "&lt;/".
+     * @param offset the offset of the tag name.
+     * @param name the expected name.
+     * @return {@code true} if the tag has the expected name.
+     */
+    private static boolean isNamed(byte[] tag, int offset, byte[] name) {
+        if (tag.length <= offset + name.length) {
+            return false;
+        }
+        for (int idx = 0; idx < name.length; idx++) {
+            if (tag[offset + idx] != name[idx]) {
+                return false;
+            }
+        }
+        byte next = tag[offset + name.length];
+        return next == '>' || next == '/' || Character.isWhitespace(next);
+    }
+
+    private static String getNameAttribute(String tag) {
+        String name = getAttribute(tag, "name");
+        return name == null ? "" : name;
+    }
+
+    /**
+     * Get the value of an attribute of a tag.
+     *
+     * @param tag the tag.
+     * @param attribute the attribute name.
+     * @return the unescaped attribute value, or {@code null} if not found.
+     */
+    static String getAttribute(String tag, String attribute) {
+        int idx = 0;
+        while ((idx = tag.indexOf(attribute, idx)) > 0) {
+            int end = idx + attribute.length();
+            if (Character.isWhitespace(tag.charAt(idx - 1))) {
+                while (end < tag.length() && Character.isWhitespace(tag.charAt(end))) {
+                    end++;
+                }
+                if (end < tag.length() && tag.charAt(end) == '=') {
+                    end++;
+                    while (end < tag.length() && Character.isWhitespace(tag.charAt(end))) {
+                        end++;
+                    }
+                    if (end < tag.length()) {
+                        char quote = tag.charAt(end);
+                        int close = tag.indexOf(quote, end + 1);
+                        if (close > 0) {
+                            return unescape(tag.substring(end + 1, close));
+                        }
+                    }
+                }
+            }
+            idx = end;
+        }
+        return null;
+    }
+
+    /**
+     * Replace the predefined entities and character references of an attribute value.
+     *
+     * @param value the attribute value.
+     * @return the unescaped value.
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        int idx = 0;
+        while (idx < value.length()) {
+            char c = value.charAt(idx);
+            int end = c == '&' ? value.indexOf(';', idx) : -1;
+            if (end < 0) {
+                sb.append(c);
+                idx++;
+                continue;
+            }
+            String entity = value.substring(idx + 1, end);
+            switch (entity) {
+                case "lt":
+                    sb.append('<');
+                    break;
+                case "gt":
+                    sb.append('>');
+                    break;
+                case "amp":
+                    sb.append('&');
+                    break;
+                case "quot":
+                    sb.append('"');
+                    break;
+                case "apos":
+                    sb.append('\'');
+                    break;
+                default:
+                    if (entity.startsWith("#x")) {
+                        sb.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+                    } else if (entity.startsWith("#")) {
+                        sb.appendCodePoint(Integer.parseInt(entity.substring(1)));
+                    } else {
+                        sb.append(value, idx, end + 1);
+                    }
+            }
+            idx = end + 1;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A package element of a JaCoCo XML report.
+     */
+    static class Chunk {
+
+        /** The package element, as a standalone XML document. */
+        final byte[] xml;
+
+        /** The report groups (modules) of the package element, separated by "/", or {@code null} if there is no group. */
+        final String module;
+
+        Chunk(byte[] xml, String module) {
+            this.xml = xml;
+            this.module = module;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Patch coverage: the coverage of the changed lines only (e.g. lines changed since the latest commit, see {@link UnifiedDiff}).
+ * <br/>For each changed file, the sorted changed line ranges are merged with the sorted lines of code of the class: linear time in
+ * the number of ranges and lines of the changed files. Unchanged files are never read.
+ *
+ * @author Jonathan Lermitage
+ */
+public class PatchCoverage {
+
+    /** Changed files with changed lines of code, sorted by Java source file. */
+    private final List<FilePatchCoverage> files;
+
+    /** Number of changed files without coverage data, or without changed lines of code. */
+    private final int nbSkippedFiles;
+
+    private int nbCoveredLines = 0;
+
+    private int nbPartiallyCoveredLines = 0;
+
+    private int nbNotCoveredLines = 0;
+
+    private PatchCoverage(List<FilePatchCoverage> files, int nbSkippedFiles) {
+        Collections.sort(files, new Comparator<FilePatchCoverage>() {
+            @Override
+            public int compare(FilePatchCoverage o1, FilePatchCoverage o2) {
+                return o1.getClassResource().compareTo(o2.getClassResource());
+            }
+        });
+        this.files = Collections.unmodifiableList(files);
+        this.nbSkippedFiles = nbSkippedFiles;
+        for (FilePatchCoverage file : files) {
+            nbCoveredLines += file.getNbCoveredLines();
+            nbPartiallyCoveredLines += file.getNbPartiallyCoveredLines();
+            nbNotCoveredLines += file.getNbNotCoveredLines();
+        }
+    }
+
+    /**
+     * Compute the coverage of changed lines.
+     *
+     * @param changedLines the changed line ranges (see {@link UnifiedDiff}), by Java source file (e.g.
+     *        <code>/fr/tikione/Foo.java</code>).
+     * @param coverageData the coverage data of the changed files, by Java source file. Changed files without coverage data are
+     *        skipped.
+     * @return the coverage of changed lines.
+     */
+    public static PatchCoverage compute(Map<String, int[]> changedLines, Map<String, JavaClass> coverageData) {
+        List<FilePatchCoverage> files = new ArrayList<>(changedLines.size());
+        int nbSkipped = 0;
+        for (Map.Entry<String, int[]> changedFile : changedLines.entrySet()) {
+            JavaClass jclass = coverageData.get(changedFile.getKey());
+            FilePatchCoverage file = jclass == null ? null : intersect(jclass, changedFile.getValue());
+            if (file == null) {
+                nbSkipped++;
+            } else {
+                files.add(file);
+            }
+        }
+        return new PatchCoverage(files, nbSkipped);
+    }
+
+    /**
+     * Intersect changed line ranges with the lines of code of a class.
+     *
+     * @param jclass the class.
+     * @param ranges the sorted and merged changed line ranges.
+     * @return the coverage of the changed lines, or {@code null} if no line of code changed.
+     */
+    private static FilePatchCoverage intersect(JavaClass jclass, int[] ranges) {
+        Map<Integer, CoverageStateEnum> coverage = jclass.getCoverage();
+        int[] lines = new int[coverage.size()];
+        int nbLines = 0;
+        for (int line : coverage.keySet()) {
+            lines[nbLines++] = line;
+        }
+        Arrays.sort(lines);
+        int[] covered = new int[nbLines];
+        int[] partiallyCovered = new int[nbLines];
+        int[] notCovered = new int[nbLines];
+        int nbCovered = 0;
+        int nbPartiallyCovered = 0;
+        int nbNotCovered = 0;
+        int lineIdx = 0;
+        for (int rangeIdx = 0; rangeIdx < ranges.length && lineIdx < nbLines; rangeIdx += 2) {
+            while (lineIdx < nbLines && lines[lineIdx] < ranges[rangeIdx]) {
+                lineIdx++;
+            }
+            while (lineIdx < nbLines && lines[lineIdx] <= ranges[rangeIdx + 1]) {
+                int line = lines[lineIdx++];
+                switch (coverage.get(line)) {
+                    case COVERED:
+                        covered[nbCovered++] = line;
+                        break;
+                    case PARTIALLY_COVERED:
+                        partiallyCovered[nbPartiallyCovered++] = line;
+                        break;
+                    case NOT_COVERED:
+                        notCovered[nbNotCovered++] = line;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (nbCovered + nbPartiallyCovered + nbNotCovered == 0) {
+            return null;
+        }
+        return new FilePatchCoverage(jclass, Arrays.copyOf(covered, nbCovered), Arrays.copyOf(partiallyCovered, nbPartiallyCovered),
+                Arrays.copyOf(notCovered, nbNotCovered));
+    }
+
+    /**
+     * Get the changed files with changed lines of code.
+     *
+     * @return the changed files, sorted by Java source file.
+     */
+    public List<FilePatchCoverage> getFiles() {
+        return files;
+    }
+
+    public int getNbSkippedFiles() {
+        return nbSkippedFiles;
+    }
+
+    public int getNbCoveredLines() {
+        return nbCoveredLines;
+    }
+
+    public int getNbPartiallyCoveredLines() {
+        return nbPartiallyCoveredLines;
+    }
+
+    public int getNbNotCoveredLines() {
+        return nbNotCoveredLines;
+    }
+
+    /**
+     * Get the ratio of covered changed lines (partially covered lines count as half covered).
+     *
+     * @return the coverage ratio, from 0 to 1, or 1 if no line of code changed.
+     */
+    public double getCoverageRatio() {
+        int nbLines = nbCoveredLines + nbPartiallyCoveredLines + nbNotCoveredLines;
+        return nbLines == 0 ? 1 : (nbCoveredLines + nbPartiallyCoveredLines / 2.0) / nbLines;
+    }
+}
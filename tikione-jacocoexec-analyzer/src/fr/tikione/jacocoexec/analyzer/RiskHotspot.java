@@ -0,0 +1,45 @@
+package fr.tikione.jacocoexec.analyzer;
+
+/**
+ * A method ranked by {@link RiskHotspotRanker}: the method coverage and its risk score.
+ *
+ * @author Jonathan Lermitage
+ */
+public class RiskHotspot {
+
+    /** The method coverage. */
+    private final JavaMethod method;
+
+    /** The risk score, see {@link RiskHotspotRanker#riskScore(int, double)}. */
+    private final double score;
+
+    /** The ratio of covered lines and branches, from 0 to 1. */
+    private final double coverage;
+
+    RiskHotspot(JavaMethod method, double score, double coverage) {
+        this.method = method;
+        this.score = score;
+        this.coverage = coverage;
+    }
+
+    public JavaMethod getMethod() {
+        return method;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public double getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Get the cyclomatic complexity of the method.
+     *
+     * @return the cyclomatic complexity.
+     */
+    public int getComplexity() {
+        return method.getComplexityMissed() + method.getComplexityCovered();
+    }
+}
@@ -0,0 +1,109 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Rank methods by risk: complex methods with missed lines and branches first.
+ * <br/>The risk score is a CRAP (Change Risk Anti-Patterns) score: {@code complexity^2 * (1 - coverage)^3 + complexity}, where
+ * coverage is the ratio of covered lines and branches. A fully covered method scores its complexity, a method that is not covered
+ * at all scores {@code complexity^2 + complexity}.
+ * <br/>Methods are ranked in a single streaming pass: only the K highest scores are kept in a bounded heap, so memory usage
+ * doesn't depend on the number of ranked methods.
+ *
+ * @author Jonathan Lermitage
+ */
+public class RiskHotspotRanker {
+
+    /** Order hotspots by ascending score: the head of the heap is the lowest kept score. */
+    private static final Comparator<RiskHotspot> BY_SCORE = new Comparator<RiskHotspot>() {
+        @Override
+        public int compare(RiskHotspot o1, RiskHotspot o2) {
+            return Double.compare(o1.getScore(), o2.getScore());
+        }
+    };
+
+    /** The maximum number of hotspots to keep. */
+    private final int maxHotspots;
+
+    /** The highest scores found so far. */
+    private final PriorityQueue<RiskHotspot> heap;
+
+    /** Number of ranked methods. */
+    private int nbRankedMethods = 0;
+
+    /**
+     * Create a ranker.
+     *
+     * @param maxHotspots the maximum number of hotspots to keep (K).
+     */
+    public RiskHotspotRanker(int maxHotspots) {
+        if (maxHotspots < 1) {
+            throw new IllegalArgumentException("The number of hotspots to keep must be positive: " + maxHotspots);
+        }
+        this.maxHotspots = maxHotspots;
+        this.heap = new PriorityQueue<>(maxHotspots + 1, BY_SCORE);
+    }
+
+    /**
+     * Compute the CRAP score of a method.
+     *
+     * @param complexity the cyclomatic complexity of the method.
+     * @param coverage the ratio of covered lines and branches, from 0 to 1.
+     * @return the risk score.
+     */
+    public static double riskScore(int complexity, double coverage) {
+        double uncovered = 1 - coverage;
+        return (double) complexity * complexity * uncovered * uncovered * uncovered + complexity;
+    }
+
+    /**
+     * Rank a method.
+     *
+     * @param method the method coverage.
+     */
+    public void add(JavaMethod method) {
+        nbRankedMethods++;
+        int total = method.getLinesMissed() + method.getLinesCovered() + method.getBranchesMissed() + method.getBranchesCovered();
+        double coverage = total == 0 ? 1 : (double) (method.getLinesCovered() + method.getBranchesCovered()) / total;
+        double score = riskScore(method.getComplexityMissed() + method.getComplexityCovered(), coverage);
+        if (heap.size() < maxHotspots) {
+            heap.add(new RiskHotspot(method, score, coverage));
+        } else if (score > heap.peek().getScore()) {
+            heap.poll();
+            heap.add(new RiskHotspot(method, score, coverage));
+        }
+    }
+
+    /**
+     * Rank every method of some classes.
+     *
+     * @param classes the coverage data of Java classes.
+     */
+    public void addAll(Collection<JavaClass> classes) {
+        for (JavaClass jclass : classes) {
+            for (int idx = 0; idx < jclass.getNbMethods(); idx++) {
+                add(jclass.getMethod(idx));
+            }
+        }
+    }
+
+    /**
+     * Get the hotspots: the ranked methods with the highest risk scores.
+     *
+     * @return at most K hotspots, highest score first.
+     */
+    public List<RiskHotspot> getHotspots() {
+        List<RiskHotspot> hotspots = new ArrayList<>(heap);
+        Collections.sort(hotspots, Collections.reverseOrder(BY_SCORE));
+        return hotspots;
+    }
+
+    public int getNbRankedMethods() {
+        return nbRankedMethods;
+    }
+}
@@ -0,0 +1,344 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of the tests covering each line of a project: answers "which tests cover this line" without loading any coverage data.
+ * <br/>Built from per-test coverage sessions (see {@link JaCoCoReportAnalyzer#getCoveredLines(java.io.File, java.io.File)}). The tests
+ * covering a line are stored as a run-length compressed bitset of test ids: the runs of consecutive test ids (tests are added in
+ * name order, so tests of a same package that cover the same code are usually consecutive). Lines of a same block are usually
+ * covered by the same tests, so identical bitsets are stored once and lines only hold the index of their bitset. Finding the tests
+ * of a line is a binary search on Java source files, then an array lookup.
+ * <br/>Format (version 1), big-endian, integers written as unsigned LEB128 varints unless stated otherwise: magic <code>JCVT</code>
+ * (4 bytes), format version (2 bytes), reserved (2 bytes); test names (count, then UTF strings); bitsets (count, then for each: number
+ * of runs, then gap between the end of the previous run (or 0) and the first test id of the run, and run length - 1 of each run);
+ * Java source files (count, then for each: name (UTF string), first line, number of lines, and bitset index + 1 of each line, 0 if not
+ * covered).
+ * <br/>Java source files are compared without their leading "/", so both coverage data paths (<code>/fr/tikione/Foo.java</code>) and
+ * NetBeans resource names (<code>fr/tikione/Foo.java</code>) can be used to query the index. Lines are 0-based, as in
+ * {@link JavaClass}.
+ *
+ * @author Jonathan Lermitage
+ */
+public final class TestLineIndex {
+
+    /** Test line index files start with "JCVT". */
+    private static final int MAGIC = 0x4A435654;
+
+    /** Current version of the index format. */
+    private static final short VERSION = 1;
+
+    /** Test names, by test id. */
+    private final String[] tests;
+
+    /** Java source files without their leading "/", sorted. */
+    private final String[] classResources;
+
+    /** First line of each Java source file. */
+    private final int[] classFirstLine;
+
+    /** Offset of the first line of each Java source file in {@link #lineBitsets}, plus a final end offset. */
+    private final int[] classLineOffset;
+
+    /** Bitset index + 1 of each line, 0 if not covered. */
+    private final int[] lineBitsets;
+
+    /** Offset of the first run of each bitset in {@link #bitsetRuns}, plus a final end offset. */
+    private final int[] bitsetOffset;
+
+    /** Runs of every bitset: first test id and length of each run. */
+    private final int[] bitsetRuns;
+
+    private TestLineIndex(String[] tests, String[] classResources, int[] classFirstLine, int[] classLineOffset, int[] lineBitsets,
+            int[] bitsetOffset, int[] bitsetRuns) {
+        this.tests = tests;
+        this.classResources = classResources;
+        this.classFirstLine = classFirstLine;
+        this.classLineOffset = classLineOffset;
+        this.lineBitsets = lineBitsets;
+        this.bitsetOffset = bitsetOffset;
+        this.bitsetRuns = bitsetRuns;
+    }
+
+    /**
+     * Get the tests covering a line.
+     *
+     * @param classResource the Java source file, with or without its leading "/" (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @param line the line (0-based).
+     * @return the names of the tests covering the line, in test id order (empty if none).
+     */
+    public List<String> getTests(String classResource, int line) {
+        int classIdx = Arrays.binarySearch(classResources, JavaClass.toResourceKey(classResource));
+        if (classIdx < 0) {
+            return Collections.emptyList();
+        }
+        int lineIdx = classLineOffset[classIdx] + line - classFirstLine[classIdx];
+        if (line < classFirstLine[classIdx] || lineIdx >= classLineOffset[classIdx + 1] || lineBitsets[lineIdx] == 0) {
+            return Collections.emptyList();
+        }
+        int bitsetIdx = lineBitsets[lineIdx] - 1;
+        List<String> lineTests = new ArrayList<>(8);
+        for (int runIdx = bitsetOffset[bitsetIdx]; runIdx < bitsetOffset[bitsetIdx + 1]; runIdx += 2) {
+            lineTests.addAll(Arrays.asList(tests).subList(bitsetRuns[runIdx], bitsetRuns[runIdx] + bitsetRuns[runIdx + 1]));
+        }
+        return lineTests;
+    }
+
+    public int getNbTests() {
+        return tests.length;
+    }
+
+    public int getNbClasses() {
+        return classResources.length;
+    }
+
+    /**
+     * Get the number of distinct sets of tests covering lines.
+     *
+     * @return the number of stored bitsets.
+     */
+    public int getNbBitsets() {
+        return bitsetOffset.length - 1;
+    }
+
+    /**
+     * Write the index to a file.
+     *
+     * @param indexFile the index file (replaced if it exists).
+     * @throws IOException if the file can't be written.
+     */
+    public void write(File indexFile)
+            throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            writeVarInt(out, tests.length);
+            for (String test : tests) {
+                out.writeUTF(test);
+            }
+            writeVarInt(out, getNbBitsets());
+            for (int bitsetIdx = 0; bitsetIdx < getNbBitsets(); bitsetIdx++) {
+                writeVarInt(out, (bitsetOffset[bitsetIdx + 1] - bitsetOffset[bitsetIdx]) / 2);
+                int previousEnd = 0;
+                for (int runIdx = bitsetOffset[bitsetIdx]; runIdx < bitsetOffset[bitsetIdx + 1]; runIdx += 2) {
+                    writeVarInt(out, bitsetRuns[runIdx] - previousEnd);
+                    writeVarInt(out, bitsetRuns[runIdx + 1] - 1);
+                    previousEnd = bitsetRuns[runIdx] + bitsetRuns[runIdx + 1];
+                }
+            }
+            writeVarInt(out, classResources.length);
+            for (int classIdx = 0; classIdx < classResources.length; classIdx++) {
+                out.writeUTF(classResources[classIdx]);
+                writeVarInt(out, classFirstLine[classIdx]);
+                writeVarInt(out, classLineOffset[classIdx + 1] - classLineOffset[classIdx]);
+                for (int lineIdx = classLineOffset[classIdx]; lineIdx < classLineOffset[classIdx + 1]; lineIdx++) {
+                    writeVarInt(out, lineBitsets[lineIdx]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read an index from a file.
+     *
+     * @param indexFile the index file.
+     * @return the index.
+     * @throws IOException if the file can't be read, or is not a valid test line index.
+     */
+    public static TestLineIndex read(File indexFile)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a test line index");
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported test line index version: " + version);
+            }
+            in.readShort();
+            String[] tests = new String[readVarInt(in)];
+            for (int testIdx = 0; testIdx < tests.length; testIdx++) {
+                tests[testIdx] = in.readUTF();
+            }
+            int[] bitsetOffset = new int[readVarInt(in) + 1];
+            int[] bitsetRuns = new int[256];
+            for (int bitsetIdx = 0; bitsetIdx < bitsetOffset.length - 1; bitsetIdx++) {
+                bitsetOffset[bitsetIdx + 1] = bitsetOffset[bitsetIdx] + readVarInt(in) * 2;
+                if (bitsetOffset[bitsetIdx + 1] > bitsetRuns.length) {
+                    bitsetRuns = Arrays.copyOf(bitsetRuns, Math.max(bitsetRuns.length * 2, bitsetOffset[bitsetIdx + 1]));
+                }
+                int previousEnd = 0;
+                for (int runIdx = bitsetOffset[bitsetIdx]; runIdx < bitsetOffset[bitsetIdx + 1]; runIdx += 2) {
+                    bitsetRuns[runIdx] = previousEnd + readVarInt(in);
+                    bitsetRuns[runIdx + 1] = readVarInt(in) + 1;
+                    previousEnd = bitsetRuns[runIdx] + bitsetRuns[runIdx + 1];
+                    if (previousEnd > tests.length) {
+                        throw new IOException("Corrupted test line index: unknown test id");
+                    }
+                }
+            }
+            String[] classResources = new String[readVarInt(in)];
+            int[] classFirstLine = new int[classResources.length];
+            int[] classLineOffset = new int[classResources.length + 1];
+            int[] lineBitsets = new int[256];
+            for (int classIdx = 0; classIdx < classResources.length; classIdx++) {
+                classResources[classIdx] = in.readUTF();
+                classFirstLine[classIdx] = readVarInt(in);
+                classLineOffset[classIdx + 1] = classLineOffset[classIdx] + readVarInt(in);
+                if (classLineOffset[classIdx + 1] > lineBitsets.length) {
+                    lineBitsets = Arrays.copyOf(lineBitsets, Math.max(lineBitsets.length * 2, classLineOffset[classIdx + 1]));
+                }
+                for (int lineIdx = classLineOffset[classIdx]; lineIdx < classLineOffset[classIdx + 1]; lineIdx++) {
+                    lineBitsets[lineIdx] = readVarInt(in);
+                }
+            }
+            return new TestLineIndex(tests, classResources, classFirstLine, classLineOffset, lineBitsets, bitsetOffset, bitsetRuns);
+        } catch (EOFException ex) {
+            throw new IOException("Corrupted test line index", ex);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value)
+            throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in)
+            throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted test line index: malformed varint");
+    }
+
+    /**
+     * Compress a bitset of test ids to runs of consecutive test ids.
+     *
+     * @param lineTests the bitset.
+     * @return the first test id and length of each run.
+     */
+    private static int[] toRuns(BitSet lineTests) {
+        int[] runs = new int[16];
+        int nbRuns = 0;
+        for (int start = lineTests.nextSetBit(0); start >= 0; start = lineTests.nextSetBit(start)) {
+            int end = lineTests.nextClearBit(start);
+            if (nbRuns * 2 == runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[nbRuns * 2] = start;
+            runs[nbRuns * 2 + 1] = end - start;
+            nbRuns++;
+            start = end;
+        }
+        return Arrays.copyOf(runs, nbRuns * 2);
+    }
+
+    /**
+     * Builder of test line indexes: add the coverage of each test, then build the index.
+     */
+    public static final class Builder {
+
+        private final List<String> tests = new ArrayList<>(64);
+
+        /** Tests covering each line, by Java source file (without its leading "/") then line. */
+        private final Map<String, TreeMap<Integer, BitSet>> lines = new HashMap<>(256);
+
+        /**
+         * Add the coverage of a test.
+         *
+         * @param test the test name.
+         * @param coveredLines the lines (0-based) covered by the test, by Java source file (e.g. <code>/fr/tikione/Foo.java</code>).
+         * @return this builder.
+         */
+        public Builder addTest(String test, Map<String, int[]> coveredLines) {
+            int testId = tests.size();
+            tests.add(test);
+            for (Map.Entry<String, int[]> classLines : coveredLines.entrySet()) {
+                String classResource = JavaClass.toResourceKey(classLines.getKey());
+                TreeMap<Integer, BitSet> classTests = lines.get(classResource);
+                if (classTests == null) {
+                    classTests = new TreeMap<>();
+                    lines.put(classResource, classTests);
+                }
+                for (int line : classLines.getValue()) {
+                    BitSet lineTests = classTests.get(line);
+                    if (lineTests == null) {
+                        lineTests = new BitSet();
+                        classTests.put(line, lineTests);
+                    }
+                    lineTests.set(testId);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Build the index. Identical sets of tests are stored once, as runs of consecutive test ids.
+         *
+         * @return the index.
+         */
+        public TestLineIndex build() {
+            String[] classResources = lines.keySet().toArray(new String[lines.size()]);
+            Arrays.sort(classResources);
+            int[] classFirstLine = new int[classResources.length];
+            int[] classLineOffset = new int[classResources.length + 1];
+            for (int classIdx = 0; classIdx < classResources.length; classIdx++) {
+                TreeMap<Integer, BitSet> classTests = lines.get(classResources[classIdx]);
+                classFirstLine[classIdx] = classTests.firstKey();
+                classLineOffset[classIdx + 1] = classLineOffset[classIdx] + classTests.lastKey() - classTests.firstKey() + 1;
+            }
+            int[] lineBitsets = new int[classLineOffset[classResources.length]];
+            Map<BitSet, Integer> bitsetIndexes = new HashMap<>(1024);
+            List<int[]> bitsets = new ArrayList<>(1024);
+            int nbRuns = 0;
+            for (int classIdx = 0; classIdx < classResources.length; classIdx++) {
+                for (Map.Entry<Integer, BitSet> lineTests : lines.get(classResources[classIdx]).entrySet()) {
+                    Integer bitsetIdx = bitsetIndexes.get(lineTests.getValue());
+                    if (bitsetIdx == null) {
+                        bitsetIdx = bitsets.size();
+                        bitsetIndexes.put(lineTests.getValue(), bitsetIdx);
+                        int[] runs = toRuns(lineTests.getValue());
+                        bitsets.add(runs);
+                        nbRuns += runs.length;
+                    }
+                    lineBitsets[classLineOffset[classIdx] + lineTests.getKey() - classFirstLine[classIdx]] = bitsetIdx + 1;
+                }
+            }
+            int[] bitsetOffset = new int[bitsets.size() + 1];
+            int[] bitsetRuns = new int[nbRuns];
+            for (int bitsetIdx = 0; bitsetIdx < bitsets.size(); bitsetIdx++) {
+                int[] runs = bitsets.get(bitsetIdx);
+                System.arraycopy(runs, 0, bitsetRuns, bitsetOffset[bitsetIdx], runs.length);
+                bitsetOffset[bitsetIdx + 1] = bitsetOffset[bitsetIdx] + runs.length;
+            }
+            return new TestLineIndex(tests.toArray(new String[tests.size()]), classResources, classFirstLine, classLineOffset,
+                    lineBitsets, bitsetOffset, bitsetRuns);
+        }
+    }
+}
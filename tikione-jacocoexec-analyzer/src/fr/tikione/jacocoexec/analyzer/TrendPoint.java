@@ -0,0 +1,42 @@
+package fr.tikione.jacocoexec.analyzer;
+
+/**
+ * The coverage of a project, package or class at a given coverage task, see {@link CoverageHistory#getTrend(java.lang.String)}.
+ *
+ * @author Jonathan Lermitage
+ */
+public class TrendPoint {
+
+    /** Time of the coverage task, in milliseconds since the epoch. */
+    private final long timestamp;
+
+    /** Instructions, branches and lines counters, and number of lines by coverage state. */
+    private final CoverageCounters counters;
+
+    /** Number of classes of the project, package or class found in the coverage task (0 if absent). */
+    private final int nbClasses;
+
+    TrendPoint(long timestamp, CoverageCounters counters, int nbClasses) {
+        this.timestamp = timestamp;
+        this.counters = counters;
+        this.nbClasses = nbClasses;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Get the counters of the project, package or class. Only instructions, branches and lines counters, and the number of lines by
+     * coverage state, are recorded in coverage history.
+     *
+     * @return the counters.
+     */
+    public CoverageCounters getCounters() {
+        return counters;
+    }
+
+    public int getNbClasses() {
+        return nbClasses;
+    }
+}
@@ -0,0 +1,54 @@
+package fr.tikione.jacocoexec.analyzer;
+
+/**
+ * A block of not covered or partially covered lines of a Java source file, see {@link UncoveredRangeIndex}.
+ *
+ * @author Jonathan Lermitage
+ */
+public class UncoveredRange {
+
+    /** The class that contains the lines. */
+    private final JavaClass javaClass;
+
+    /** First line of the block (0-based). */
+    private final int startLine;
+
+    /** Last line of the block (0-based, inclusive). */
+    private final int endLine;
+
+    /** {@link CoverageStateEnum#NOT_COVERED} if no line of the block is partially covered, otherwise
+     * {@link CoverageStateEnum#PARTIALLY_COVERED}. */
+    private final CoverageStateEnum coverageState;
+
+    UncoveredRange(JavaClass javaClass, int startLine, int endLine, CoverageStateEnum coverageState) {
+        this.javaClass = javaClass;
+        this.startLine = startLine;
+        this.endLine = endLine;
+        this.coverageState = coverageState;
+    }
+
+    public JavaClass getJavaClass() {
+        return javaClass;
+    }
+
+    /**
+     * Get the Java source file of the block, relative to a source root (e.g. <code>/fr/tikione/Foo.java</code>).
+     *
+     * @return the Java source file.
+     */
+    public String getClassResource() {
+        return javaClass.getPackageName() + javaClass.getClassName();
+    }
+
+    public int getStartLine() {
+        return startLine;
+    }
+
+    public int getEndLine() {
+        return endLine;
+    }
+
+    public CoverageStateEnum getCoverageState() {
+        return coverageState;
+    }
+}
@@ -0,0 +1,212 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the not covered and partially covered blocks of a project, ordered by Java source file then by line.
+ * <br/>A block is a run of lines with coverage data that are not fully covered; lines without coverage data (blank lines, comments)
+ * don't split a block, a covered line does. The index is built once per coverage task and stored in primitive arrays: finding the
+ * next block from any position is a binary search.
+ * <br/>Java source files are compared without their leading "/", so both coverage data paths (<code>/fr/tikione/Foo.java</code>) and
+ * NetBeans resource names (<code>fr/tikione/Foo.java</code>) can be used to query the index.
+ *
+ * @author Jonathan Lermitage
+ */
+public final class UncoveredRangeIndex {
+
+    /** Classes that have at least one block, sorted by Java source file. */
+    private final JavaClass[] classes;
+
+    /** Java source files of the indexed classes, without leading "/", sorted. */
+    private final String[] classResources;
+
+    /** Index of the first block of each class; the last element is the number of blocks. */
+    private final int[] classFirstRange;
+
+    /** First line of each block (0-based). */
+    private final int[] rangeStartLines;
+
+    /** Last line of each block (0-based, inclusive). */
+    private final int[] rangeEndLines;
+
+    /** Blocks that contain partially covered lines. */
+    private final boolean[] rangePartial;
+
+    private final int nbRanges;
+
+    private UncoveredRangeIndex(JavaClass[] classes, String[] classResources, int[] classFirstRange,
+            int[] rangeStartLines, int[] rangeEndLines, boolean[] rangePartial, int nbRanges) {
+        this.classes = classes;
+        this.classResources = classResources;
+        this.classFirstRange = classFirstRange;
+        this.rangeStartLines = rangeStartLines;
+        this.rangeEndLines = rangeEndLines;
+        this.rangePartial = rangePartial;
+        this.nbRanges = nbRanges;
+    }
+
+    /**
+     * Build the index of the not covered and partially covered blocks of a project.
+     *
+     * @param classesCoverage the coverage data of the project's Java classes.
+     * @return the index.
+     */
+    public static UncoveredRangeIndex build(Collection<JavaClass> classesCoverage) {
+        List<JavaClass> sortedClasses = new ArrayList<>(classesCoverage);
+        Collections.sort(sortedClasses, new Comparator<JavaClass>() {
+            @Override
+            public int compare(JavaClass o1, JavaClass o2) {
+                return toResourceKey(o1).compareTo(toResourceKey(o2));
+            }
+        });
+        List<JavaClass> indexedClasses = new ArrayList<>(sortedClasses.size());
+        int[] classFirstRange = new int[sortedClasses.size() + 1];
+        int[] startLines = new int[256];
+        int[] endLines = new int[256];
+        boolean[] partial = new boolean[256];
+        int nbRanges = 0;
+        for (JavaClass jclass : sortedClasses) {
+            Map<Integer, CoverageStateEnum> coverage = jclass.getCoverage();
+            int[] lines = new int[coverage.size()];
+            int nbLines = 0;
+            for (int line : coverage.keySet()) {
+                lines[nbLines++] = line;
+            }
+            Arrays.sort(lines);
+            int classRanges = nbRanges;
+            boolean inRange = false;
+            for (int line : lines) {
+                CoverageStateEnum state = coverage.get(line);
+                if (state == CoverageStateEnum.COVERED) {
+                    inRange = false;
+                    continue;
+                }
+                if (!inRange) {
+                    if (nbRanges == startLines.length) {
+                        startLines = Arrays.copyOf(startLines, nbRanges * 2);
+                        endLines = Arrays.copyOf(endLines, nbRanges * 2);
+                        partial = Arrays.copyOf(partial, nbRanges * 2);
+                    }
+                    startLines[nbRanges] = line;
+                    nbRanges++;
+                    inRange = true;
+                }
+                endLines[nbRanges - 1] = line;
+                partial[nbRanges - 1] |= state == CoverageStateEnum.PARTIALLY_COVERED;
+            }
+            if (nbRanges > classRanges) {
+                classFirstRange[indexedClasses.size()] = classRanges;
+                indexedClasses.add(jclass);
+            }
+        }
+        classFirstRange[indexedClasses.size()] = nbRanges;
+        String[] classResources = new String[indexedClasses.size()];
+        for (int idx = 0; idx < classResources.length; idx++) {
+            classResources[idx] = toResourceKey(indexedClasses.get(idx));
+        }
+        return new UncoveredRangeIndex(indexedClasses.toArray(new JavaClass[indexedClasses.size()]), classResources,
+                Arrays.copyOf(classFirstRange, indexedClasses.size() + 1), startLines, endLines, partial, nbRanges);
+    }
+
+    private static String toResourceKey(JavaClass jclass) {
+        return JavaClass.toResourceKey(jclass.getPackageName() + jclass.getClassName());
+    }
+
+    /**
+     * Find the next block after a position, in file then line order. Wraps around to the first block of the project.
+     *
+     * @param classResource the Java source file of the position, relative to a source root. The file doesn't need to have blocks.
+     * @param line the line of the position (0-based); blocks that start on this line or before are skipped.
+     * @return the index of the next block, or {@code -1} if the project has no block.
+     */
+    public int nextRangeIndex(String classResource, int line) {
+        if (nbRanges == 0) {
+            return -1;
+        }
+        int classIdx = Arrays.binarySearch(classResources, JavaClass.toResourceKey(classResource));
+        int rangeIdx;
+        if (classIdx >= 0) {
+            // First block of the file that starts after the line, or the first block of the next file.
+            int low = classFirstRange[classIdx];
+            int high = classFirstRange[classIdx + 1];
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (rangeStartLines[mid] <= line) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            rangeIdx = low;
+        } else {
+            rangeIdx = classFirstRange[-classIdx - 1];
+        }
+        return rangeIdx < nbRanges ? rangeIdx : 0;
+    }
+
+    /**
+     * Find the next block after a position, in file then line order. Wraps around to the first block of the project.
+     *
+     * @param classResource the Java source file of the position, relative to a source root.
+     * @param line the line of the position (0-based).
+     * @return the next block, or {@code null} if the project has no block.
+     */
+    public UncoveredRange next(String classResource, int line) {
+        int rangeIdx = nextRangeIndex(classResource, line);
+        return rangeIdx < 0 ? null : getRange(rangeIdx);
+    }
+
+    /**
+     * Get a block.
+     *
+     * @param rangeIdx the index of the block, from 0 to {@link #getNbRanges()} excluded.
+     * @return the block.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public UncoveredRange getRange(int rangeIdx) {
+        if (rangeIdx < 0 || rangeIdx >= nbRanges) {
+            throw new IndexOutOfBoundsException("Range index: " + rangeIdx + ", number of ranges: " + nbRanges);
+        }
+        int classIdx = Arrays.binarySearch(classFirstRange, 0, classes.length, rangeIdx);
+        if (classIdx < 0) {
+            classIdx = -classIdx - 2;
+        }
+        return new UncoveredRange(classes[classIdx], rangeStartLines[rangeIdx], rangeEndLines[rangeIdx],
+                rangePartial[rangeIdx] ? CoverageStateEnum.PARTIALLY_COVERED : CoverageStateEnum.NOT_COVERED);
+    }
+
+    /**
+     * Get every block, in file then line order.
+     *
+     * @return the blocks.
+     */
+    public List<UncoveredRange> getRanges() {
+        List<UncoveredRange> ranges = new ArrayList<>(nbRanges);
+        for (int classIdx = 0; classIdx < classes.length; classIdx++) {
+            for (int rangeIdx = classFirstRange[classIdx]; rangeIdx < classFirstRange[classIdx + 1]; rangeIdx++) {
+                ranges.add(new UncoveredRange(classes[classIdx], rangeStartLines[rangeIdx], rangeEndLines[rangeIdx],
+                        rangePartial[rangeIdx] ? CoverageStateEnum.PARTIALLY_COVERED : CoverageStateEnum.NOT_COVERED));
+            }
+        }
+        return ranges;
+    }
+
+    public int getNbRanges() {
+        return nbRanges;
+    }
+
+    /**
+     * Get the number of Java source files that have at least one block.
+     *
+     * @return the number of Java source files.
+     */
+    public int getNbClasses() {
+        return classes.length;
+    }
+}
@@ -0,0 +1,138 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Changed lines of a unified diff (e.g. <code>git diff -U0</code> output). Only the lines of the new version of the files are
+ * kept: removed lines have no coverage data. File headers (<code>+++</code> lines) are only looked for outside hunks, as hunks are
+ * skipped using their line counts: a removed line starting with <code>++ </code> is not a file header.
+ * <br/>Line ranges are stored as sorted and merged arrays of {@code [start, end]} pairs (0-based, inclusive).
+ *
+ * @author Jonathan Lermitage
+ */
+public class UnifiedDiff {
+
+    /** Hunk header: <code>@@ -oldStart[,oldCount] +newStart[,newCount] @@</code>. */
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -\\d+(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+
+    /** Range of a whole file, for new files. */
+    public static final int[] WHOLE_FILE = {0, Integer.MAX_VALUE - 1};
+
+    /**
+     * Read the changed lines of a unified diff.
+     *
+     * @param diff the unified diff.
+     * @return the changed line ranges (see {@link UnifiedDiff}), by file of the new version (as written in the diff, without the
+     *         <code>b/</code> prefix). Deleted files are ignored.
+     * @throws IOException if the diff can't be read.
+     */
+    public static Map<String, int[]> getChangedLines(BufferedReader diff)
+            throws IOException {
+        Map<String, int[]> changedLines = new LinkedHashMap<>(32);
+        String file = null;
+        int[] ranges = new int[16];
+        int nbRanges = 0;
+        // Lines of the current hunk still to read, of the old and of the new version of the file.
+        int oldRemaining = 0;
+        int newRemaining = 0;
+        String line;
+        while ((line = diff.readLine()) != null) {
+            if (oldRemaining > 0 || newRemaining > 0) {
+                if (line.startsWith("-")) {
+                    oldRemaining--;
+                } else if (line.startsWith("+")) {
+                    newRemaining--;
+                } else if (line.startsWith(" ") || line.isEmpty()) {
+                    oldRemaining--;
+                    newRemaining--;
+                }
+                // Other lines (e.g. "\ No newline at end of file") are not lines of the file.
+            } else if (line.startsWith("+++ ")) {
+                if (file != null && nbRanges > 0) {
+                    changedLines.put(file, mergeRanges(ranges, nbRanges));
+                }
+                file = getPath(line.substring(4));
+                nbRanges = 0;
+            } else if (file != null && line.startsWith("@@ ")) {
+                Matcher hunk = HUNK_HEADER.matcher(line);
+                if (hunk.find()) {
+                    int start = Integer.parseInt(hunk.group(2)) - 1;
+                    int count = hunk.group(3) == null ? 1 : Integer.parseInt(hunk.group(3));
+                    oldRemaining = hunk.group(1) == null ? 1 : Integer.parseInt(hunk.group(1));
+                    newRemaining = count;
+                    // A hunk with no new line only removes lines.
+                    if (count > 0) {
+                        if (nbRanges * 2 == ranges.length) {
+                            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                        }
+                        ranges[nbRanges * 2] = start;
+                        ranges[nbRanges * 2 + 1] = start + count - 1;
+                        nbRanges++;
+                    }
+                }
+            }
+        }
+        if (file != null && nbRanges > 0) {
+            changedLines.put(file, mergeRanges(ranges, nbRanges));
+        }
+        return changedLines;
+    }
+
+    /**
+     * Get the path of a file of the new version, from a <code>+++</code> line.
+     *
+     * @param path the path, as written in the diff.
+     * @return the path, or {@code null} if the file was deleted.
+     */
+    private static String getPath(String path) {
+        int tab = path.indexOf('\t');
+        if (tab >= 0) {
+            path = path.substring(0, tab);
+        }
+        if (path.length() > 1 && path.startsWith("\"") && path.endsWith("\"")) {
+            path = path.substring(1, path.length() - 1);
+        }
+        if (path.equals("/dev/null")) {
+            return null;
+        }
+        return path.startsWith("b/") ? path.substring(2) : path;
+    }
+
+    /**
+     * Sort and merge line ranges. Overlapping and adjacent ranges are merged.
+     *
+     * @param ranges {@code [start, end]} pairs.
+     * @param nbRanges the number of pairs.
+     * @return the sorted and merged pairs.
+     */
+    static int[] mergeRanges(int[] ranges, int nbRanges) {
+        long[] sorted = new long[nbRanges];
+        for (int idx = 0; idx < nbRanges; idx++) {
+            sorted[idx] = ((long) ranges[idx * 2] << 32) | (ranges[idx * 2 + 1] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(sorted);
+        int[] merged = new int[nbRanges * 2];
+        int nbMerged = 0;
+        for (long range : sorted) {
+            int start = (int) (range >>> 32);
+            int end = (int) range;
+            if (nbMerged > 0 && start <= merged[nbMerged * 2 - 1] + 1) {
+                merged[nbMerged * 2 - 1] = Math.max(merged[nbMerged * 2 - 1], end);
+            } else {
+                merged[nbMerged * 2] = start;
+                merged[nbMerged * 2 + 1] = end;
+                nbMerged++;
+            }
+        }
+        return Arrays.copyOf(merged, nbMerged * 2);
+    }
+
+    private UnifiedDiff() {
+    }
+}
@@ -0,0 +1,158 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link CoverageHistory}: compaction, and recovery of incomplete writes.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageHistoryTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static JavaClass newClass(String packageName, String className, int nbCoveredLines) {
+        JavaClass jclass = new JavaClass(packageName, className);
+        for (int line = 0; line < nbCoveredLines; line++) {
+            jclass.addCoveredLine(line);
+        }
+        jclass.addNotCoveredLine(nbCoveredLines);
+        return jclass;
+    }
+
+    private static List<Long> getTimestamps(List<TrendPoint> trend) {
+        List<Long> timestamps = new ArrayList<>(trend.size());
+        for (TrendPoint point : trend) {
+            timestamps.add(point.getTimestamp());
+        }
+        return timestamps;
+    }
+
+    private String readDictionary(File historyDir)
+            throws IOException {
+        return new String(Files.readAllBytes(new File(historyDir, CoverageHistory.DICTIONARY_FILE).toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void trendOfProjectPackageAndClass()
+            throws IOException {
+        CoverageHistory history = new CoverageHistory(tmp.getRoot(), 10);
+        history.append(1, Arrays.asList(newClass("/fr/", "A.java", 1), newClass("/fr/tikione/", "B.java", 2)));
+        history.append(2, Arrays.asList(newClass("/fr/", "A.java", 3), newClass("/fr/tikione/", "B.java", 4)));
+
+        List<TrendPoint> project = history.getTrend(null);
+        assertEquals(Arrays.asList(1L, 2L), getTimestamps(project));
+        assertEquals(2, project.get(0).getNbClasses());
+        assertEquals(7, project.get(1).getCounters().getNbCoveredLines());
+        assertEquals(2, project.get(1).getCounters().getNbNotCoveredLines());
+
+        // A package doesn't include its sub-packages.
+        List<TrendPoint> fr = history.getTrend("/fr/");
+        assertEquals(1, fr.get(0).getNbClasses());
+        assertEquals(3, fr.get(1).getCounters().getNbCoveredLines());
+
+        List<TrendPoint> b = history.getTrend("/fr/tikione/B.java");
+        assertEquals(4, b.get(1).getCounters().getNbCoveredLines());
+        assertEquals(0, history.getTrend("/fr/tikione/Unknown.java").get(0).getNbClasses());
+    }
+
+    @Test
+    public void compactsOldestRunsAndUnusedNames()
+            throws IOException {
+        File historyDir = tmp.getRoot();
+        CoverageHistory history = new CoverageHistory(historyDir, 4);
+        history.append(1, Arrays.asList(newClass("/fr/", "Old.java", 1), newClass("/fr/", "A.java", 1)));
+        for (long run = 2; run <= 5; run++) {
+            history.append(run, Collections.singletonList(newClass("/fr/", "A.java", (int) run)));
+        }
+        assertEquals(5, history.getNbRuns());
+        assertTrue(readDictionary(historyDir).contains("/fr/Old.java"));
+
+        // retention + retention / 2 runs: compacted down to retention runs.
+        history.append(6, Collections.singletonList(newClass("/fr/", "A.java", 6)));
+        assertEquals(4, history.getNbRuns());
+        assertEquals(Arrays.asList(3L, 4L, 5L, 6L), getTimestamps(history.getTrend(null)));
+        assertFalse(readDictionary(historyDir).contains("/fr/Old.java"));
+        assertEquals(6, history.getTrend("/fr/A.java").get(3).getCounters().getNbCoveredLines());
+        assertFalse(new File(historyDir, CoverageHistory.RUNS_FILE + ".tmp").exists());
+        assertFalse(new File(historyDir, CoverageHistory.DICTIONARY_FILE + ".tmp").exists());
+
+        // Another instance on the same folder reads the rewritten name ids.
+        history.append(7, Collections.singletonList(newClass("/fr/", "B.java", 7)));
+        List<TrendPoint> trend = new CoverageHistory(historyDir, 4).getTrend("/fr/B.java");
+        assertEquals(7, trend.get(trend.size() - 1).getCounters().getNbCoveredLines());
+    }
+
+    @Test
+    public void explicitCompactionKeepsRetention()
+            throws IOException {
+        CoverageHistory history = new CoverageHistory(tmp.getRoot(), 3);
+        for (long run = 1; run <= 4; run++) {
+            history.append(run, Collections.singletonList(newClass("/fr/", "A.java", 1)));
+        }
+        history.compact();
+        assertEquals(Arrays.asList(2L, 3L, 4L), getTimestamps(history.getTrend(null)));
+    }
+
+    @Test
+    public void ignoresIncompleteLastRecord()
+            throws IOException {
+        File historyDir = tmp.getRoot();
+        CoverageHistory history = new CoverageHistory(historyDir, 10);
+        history.append(1, Collections.singletonList(newClass("/fr/", "A.java", 1)));
+        history.append(2, Collections.singletonList(newClass("/fr/", "A.java", 2)));
+        // A record cut by an IDE crash: its length announces more bytes than written.
+        try (OutputStream out = new FileOutputStream(new File(historyDir, CoverageHistory.RUNS_FILE), true)) {
+            out.write(new byte[]{0, 0, 0, 100, 0, 0, 0});
+        }
+        assertEquals(2, history.getNbRuns());
+        assertEquals(Arrays.asList(1L, 2L), getTimestamps(history.getTrend(null)));
+
+        // The incomplete record is dropped before appending.
+        history.append(3, Collections.singletonList(newClass("/fr/", "A.java", 3)));
+        assertEquals(Arrays.asList(1L, 2L, 3L), getTimestamps(history.getTrend(null)));
+    }
+
+    @Test
+    public void completesInterruptedCompaction()
+            throws IOException {
+        File historyDir = tmp.getRoot();
+        CoverageHistory history = new CoverageHistory(historyDir, 10);
+        history.append(1, Collections.singletonList(newClass("/fr/", "A.java", 1)));
+        File dictionary = new File(historyDir, CoverageHistory.DICTIONARY_FILE);
+        File compactedDictionary = new File(historyDir, CoverageHistory.DICTIONARY_FILE + ".tmp");
+        // Interrupted after the log was replaced: the compacted dictionary has to replace the old one.
+        Files.move(dictionary.toPath(), compactedDictionary.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.write(dictionary.toPath(), new byte[0]);
+        CoverageHistory reopened = new CoverageHistory(historyDir, 10);
+        assertEquals(1, reopened.getTrend("/fr/A.java").get(0).getNbClasses());
+        assertFalse(compactedDictionary.exists());
+
+        // Interrupted before the log was replaced: the temporary files are dropped.
+        File compactedRuns = new File(historyDir, CoverageHistory.RUNS_FILE + ".tmp");
+        Files.write(compactedRuns.toPath(), new byte[]{1, 2, 3});
+        Files.write(compactedDictionary.toPath(), new byte[]{1, 2, 3});
+        assertEquals(1, reopened.getNbRuns());
+        assertFalse(compactedRuns.exists());
+        assertFalse(compactedDictionary.exists());
+        assertEquals(1, reopened.getTrend("/fr/A.java").get(0).getNbClasses());
+    }
+}
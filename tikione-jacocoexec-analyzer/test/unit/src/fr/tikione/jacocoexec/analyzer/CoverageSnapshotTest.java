@@ -0,0 +1,129 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of {@link CoverageSnapshot}: snapshot round-trip and varint encoding.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageSnapshotTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static JavaClass newFoo() {
+        JavaClass jclass = new JavaClass("/fr/tikione/", "Foo.java", "core");
+        jclass.setClassId(0x123456789ABCDEFL);
+        jclass.addCounter(CounterTypeEnum.INSTRUCTION, 4, 10);
+        jclass.addCounter(CounterTypeEnum.BRANCH, 1, 1);
+        jclass.addCoveredLine(3);
+        jclass.addPartiallyCoveredLine(5);
+        jclass.addNotCoveredLine(9);
+        jclass.addCoveredLine(300);
+        jclass.setLineBranches(5, 1, 1);
+        int methodIdx = jclass.addMethod("bar", 2);
+        jclass.setMethodCounter(methodIdx, CounterTypeEnum.INSTRUCTION, 4, 6);
+        methodIdx = jclass.addMethod("baz", 299);
+        jclass.setMethodCounter(methodIdx, CounterTypeEnum.INSTRUCTION, 0, 4);
+        jclass.buildMethodIndex();
+        return jclass;
+    }
+
+    @Test
+    public void roundTrip()
+            throws IOException {
+        JavaClass foo = newFoo();
+        JavaClass bar = new JavaClass("/fr/", "Bar.java");
+        bar.addNotCoveredLine(0);
+        File snapshot = tmp.newFile("coverage" + CoverageSnapshot.FILE_EXT);
+        CoverageSnapshot.write(Arrays.asList(foo, bar), snapshot);
+        assertFalse(new File(snapshot.getPath() + ".tmp").exists());
+
+        try (CoverageSnapshot reader = CoverageSnapshot.open(snapshot)) {
+            assertEquals(Arrays.asList("/fr/tikione/Foo.java", "/fr/Bar.java"), reader.getClassResources());
+            assertEquals(foo.getClassId(), reader.getClassId("/fr/tikione/Foo.java"));
+            assertEquals(foo.getLineCoverageFingerprint(), reader.getLineCoverageFingerprint("/fr/tikione/Foo.java"));
+
+            JavaClass read = reader.getJavaClass("/fr/tikione/Foo.java");
+            assertEquals("/fr/tikione/", read.getPackageName());
+            assertEquals("Foo.java", read.getClassName());
+            assertEquals("core", read.getModuleName());
+            assertEquals(foo.getClassId(), read.getClassId());
+            assertEquals(foo.getCoverage(), read.getCoverage());
+            assertEquals(foo.getCoverageDesc(), read.getCoverageDesc());
+            assertEquals(foo.getLineCoverageFingerprint(), read.getLineCoverageFingerprint());
+            assertEquals(10, read.getCounters().getInstructionsCovered());
+            assertEquals(4, read.getCounters().getInstructionsMissed());
+            assertEquals(1, read.getNbPartiallyCoveredLines());
+            assertEquals(2, read.getNbMethods());
+            assertEquals("bar", read.getMethodAt(9).getName());
+            assertEquals(6, read.getMethodAt(9).getInstructionsCovered());
+            assertEquals("baz", read.getMethodAt(300).getName());
+
+            assertNull(reader.getJavaClass("/fr/tikione/Unknown.java"));
+            assertEquals(0, reader.getClassId("/fr/tikione/Unknown.java"));
+            assertNull(reader.getJavaClass("/fr/Bar.java").getModuleName());
+        }
+    }
+
+    @Test
+    public void coverageDataIsKeyedBySourceFile()
+            throws IOException {
+        File snapshot = tmp.newFile("coverage" + CoverageSnapshot.FILE_EXT);
+        CoverageSnapshot.write(Arrays.asList(newFoo()), snapshot);
+        Map<String, JavaClass> coverageData = CoverageSnapshot.getCoverageData(snapshot);
+        assertEquals(1, coverageData.size());
+        assertEquals(4, coverageData.get("/fr/tikione/Foo.java").getCoverage().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles()
+            throws IOException {
+        File snapshot = tmp.newFile("coverage" + CoverageSnapshot.FILE_EXT);
+        Files.write(snapshot.toPath(), "<report name=\"foo\"/>".getBytes("UTF-8"));
+        CoverageSnapshot.open(snapshot);
+    }
+
+    @Test
+    public void varIntRoundTrip() {
+        int[] values = {0, 1, 127, 128, 300, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE, -1};
+        int[] sizes = {1, 1, 1, 2, 2, 2, 3, 3, 4, 5, 5};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int idx = 0; idx < values.length; idx++) {
+            int before = out.size();
+            CoverageSnapshot.writeVarInt(out, values[idx]);
+            assertEquals("size of " + values[idx], sizes[idx], out.size() - before);
+        }
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+        for (int value : values) {
+            assertEquals(value, CoverageSnapshot.readVarInt(in));
+        }
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    public void rejectsMalformedVarInt() {
+        ByteBuffer in = ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01});
+        try {
+            CoverageSnapshot.readVarInt(in);
+            fail("A varint longer than 5 bytes has to be rejected");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Malformed varint", ex.getMessage());
+        }
+    }
+}
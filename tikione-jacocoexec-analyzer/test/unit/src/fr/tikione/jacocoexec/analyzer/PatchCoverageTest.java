@@ -0,0 +1,73 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PatchCoverage}.
+ *
+ * @author Jonathan Lermitage
+ */
+public class PatchCoverageTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void intersectsChangedLinesWithLinesOfCode() {
+        JavaClass foo = new JavaClass("/fr/tikione/", "Foo.java");
+        foo.addCoveredLine(2);
+        foo.addCoveredLine(3);
+        foo.addPartiallyCoveredLine(5);
+        foo.addNotCoveredLine(8);
+        foo.addNotCoveredLine(20);
+        JavaClass bar = new JavaClass("/fr/", "Bar.java");
+        bar.addNotCoveredLine(1);
+        Map<String, JavaClass> coverageData = new HashMap<>();
+        coverageData.put("/fr/tikione/Foo.java", foo);
+        coverageData.put("/fr/Bar.java", bar);
+
+        Map<String, int[]> changedLines = new LinkedHashMap<>();
+        // Lines 0, 1, 4, 6, 7 and 9 have no coverage data (blank lines, comments).
+        changedLines.put("/fr/tikione/Foo.java", new int[]{0, 3, 5, 9});
+        changedLines.put("/fr/Bar.java", UnifiedDiff.WHOLE_FILE);
+        changedLines.put("/fr/NotCompiled.java", new int[]{0, 10});
+        PatchCoverage patch = PatchCoverage.compute(changedLines, coverageData);
+
+        assertEquals(2, patch.getFiles().size());
+        assertEquals("/fr/Bar.java", patch.getFiles().get(0).getClassResource());
+        FilePatchCoverage fooPatch = patch.getFiles().get(1);
+        assertArrayEquals(new int[]{2, 3}, fooPatch.getLines(CoverageStateEnum.COVERED));
+        assertArrayEquals(new int[]{5}, fooPatch.getLines(CoverageStateEnum.PARTIALLY_COVERED));
+        assertArrayEquals(new int[]{8}, fooPatch.getLines(CoverageStateEnum.NOT_COVERED));
+        assertTrue(fooPatch.isChanged(5));
+        assertFalse(fooPatch.isChanged(20));
+
+        assertEquals(1, patch.getNbSkippedFiles());
+        assertEquals(2, patch.getNbCoveredLines());
+        assertEquals(1, patch.getNbPartiallyCoveredLines());
+        assertEquals(2, patch.getNbNotCoveredLines());
+        assertEquals(2.5 / 5, patch.getCoverageRatio(), DELTA);
+    }
+
+    @Test
+    public void changesWithoutLinesOfCodeAreSkipped() {
+        JavaClass foo = new JavaClass("/fr/", "Foo.java");
+        foo.addNotCoveredLine(10);
+        Map<String, JavaClass> coverageData = new HashMap<>();
+        coverageData.put("/fr/Foo.java", foo);
+        Map<String, int[]> changedLines = new HashMap<>();
+        changedLines.put("/fr/Foo.java", new int[]{0, 9, 11, 15});
+        PatchCoverage patch = PatchCoverage.compute(changedLines, coverageData);
+
+        assertTrue(patch.getFiles().isEmpty());
+        assertEquals(1, patch.getNbSkippedFiles());
+        assertEquals(1, patch.getCoverageRatio(), DELTA);
+    }
+}
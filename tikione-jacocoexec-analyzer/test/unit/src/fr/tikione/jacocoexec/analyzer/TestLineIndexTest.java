@@ -0,0 +1,118 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link TestLineIndex}: queries, and index file round-trip.
+ *
+ * @author Jonathan Lermitage
+ */
+public class TestLineIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static Map<String, int[]> lines(String classResource, int... lines) {
+        Map<String, int[]> coveredLines = new HashMap<>();
+        coveredLines.put(classResource, lines);
+        return coveredLines;
+    }
+
+    private static TestLineIndex newIndex() {
+        Map<String, int[]> bothClasses = lines("/fr/A.java", 1, 2, 3);
+        bothClasses.put("/fr/B.java", new int[]{10});
+        return new TestLineIndex.Builder()
+                .addTest("fr.ATest", lines("/fr/A.java", 1, 2, 3, 7))
+                .addTest("fr.BTest", lines("/fr/B.java", 10, 11))
+                .addTest("fr.IntegrationTest", bothClasses)
+                .build();
+    }
+
+    private static void assertQueries(TestLineIndex index) {
+        assertEquals(3, index.getNbTests());
+        assertEquals(2, index.getNbClasses());
+        assertEquals(Arrays.asList("fr.ATest", "fr.IntegrationTest"), index.getTests("/fr/A.java", 2));
+        assertEquals(Arrays.asList("fr.ATest", "fr.IntegrationTest"), index.getTests("fr/A.java", 3));
+        assertEquals(Collections.singletonList("fr.ATest"), index.getTests("/fr/A.java", 7));
+        assertEquals(Arrays.asList("fr.BTest", "fr.IntegrationTest"), index.getTests("/fr/B.java", 10));
+        assertEquals(Collections.singletonList("fr.BTest"), index.getTests("/fr/B.java", 11));
+        // Lines out of the covered lines, and unknown files.
+        assertEquals(Collections.<String>emptyList(), index.getTests("/fr/A.java", 0));
+        assertEquals(Collections.<String>emptyList(), index.getTests("/fr/A.java", 5));
+        assertEquals(Collections.<String>emptyList(), index.getTests("/fr/A.java", 8));
+        assertEquals(Collections.<String>emptyList(), index.getTests("/fr/C.java", 1));
+    }
+
+    @Test
+    public void testsCoveringLines() {
+        TestLineIndex index = newIndex();
+        assertQueries(index);
+        // {ATest, IntegrationTest}, {ATest}, {BTest, IntegrationTest} and {BTest}: identical sets are stored once.
+        assertEquals(4, index.getNbBitsets());
+    }
+
+    @Test
+    public void indexFileRoundTrip()
+            throws IOException {
+        File indexFile = tmp.newFile("tests.idx");
+        newIndex().write(indexFile);
+        TestLineIndex read = TestLineIndex.read(indexFile);
+        assertQueries(read);
+        assertEquals(4, read.getNbBitsets());
+    }
+
+    @Test
+    public void runsOfManyTests()
+            throws IOException {
+        // 200 tests: every test covers line 0, even tests cover line 1, tests 50 to 149 cover line 2.
+        TestLineIndex.Builder builder = new TestLineIndex.Builder();
+        List<String> all = new ArrayList<>();
+        List<String> even = new ArrayList<>();
+        List<String> middle = new ArrayList<>();
+        for (int testId = 0; testId < 200; testId++) {
+            String test = String.format("fr.Test%03d", testId);
+            List<Integer> covered = new ArrayList<>(Collections.singletonList(0));
+            all.add(test);
+            if (testId % 2 == 0) {
+                even.add(test);
+                covered.add(1);
+            }
+            if (testId >= 50 && testId < 150) {
+                middle.add(test);
+                covered.add(2);
+            }
+            int[] coveredLines = new int[covered.size()];
+            for (int idx = 0; idx < coveredLines.length; idx++) {
+                coveredLines[idx] = covered.get(idx);
+            }
+            builder.addTest(test, lines("/fr/Foo.java", coveredLines));
+        }
+        File indexFile = tmp.newFile("tests.idx");
+        builder.build().write(indexFile);
+        TestLineIndex read = TestLineIndex.read(indexFile);
+        assertEquals(all, read.getTests("/fr/Foo.java", 0));
+        assertEquals(even, read.getTests("/fr/Foo.java", 1));
+        assertEquals(middle, read.getTests("/fr/Foo.java", 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles()
+            throws IOException {
+        File indexFile = tmp.newFile("tests.idx");
+        Files.write(indexFile.toPath(), new byte[]{'J', 'C', 'V', 'S', 0, 1, 0, 0});
+        TestLineIndex.read(indexFile);
+    }
+}
@@ -0,0 +1,90 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests of {@link UncoveredRangeIndex}.
+ *
+ * @author Jonathan Lermitage
+ */
+public class UncoveredRangeIndexTest {
+
+    private static UncoveredRangeIndex newIndex() {
+        JavaClass a = new JavaClass("/fr/", "A.java");
+        a.addNotCoveredLine(1);
+        a.addNotCoveredLine(2);
+        // Line 3 has no coverage data: it doesn't split the block.
+        a.addNotCoveredLine(4);
+        a.addCoveredLine(5);
+        a.addPartiallyCoveredLine(7);
+        a.addNotCoveredLine(8);
+        a.addCoveredLine(10);
+        JavaClass b = new JavaClass("/fr/", "B.java");
+        b.addCoveredLine(1);
+        JavaClass c = new JavaClass("/fr/", "C.java");
+        c.addNotCoveredLine(3);
+        return UncoveredRangeIndex.build(Arrays.asList(c, b, a));
+    }
+
+    private static void assertRange(String classResource, int startLine, int endLine, CoverageStateEnum state, UncoveredRange range) {
+        assertEquals(classResource, range.getClassResource());
+        assertEquals(startLine, range.getStartLine());
+        assertEquals(endLine, range.getEndLine());
+        assertEquals(state, range.getCoverageState());
+    }
+
+    @Test
+    public void buildsBlocksInFileThenLineOrder() {
+        UncoveredRangeIndex index = newIndex();
+        assertEquals(3, index.getNbRanges());
+        assertEquals(2, index.getNbClasses());
+        assertRange("/fr/A.java", 1, 4, CoverageStateEnum.NOT_COVERED, index.getRanges().get(0));
+        assertRange("/fr/A.java", 7, 8, CoverageStateEnum.PARTIALLY_COVERED, index.getRanges().get(1));
+        assertRange("/fr/C.java", 3, 3, CoverageStateEnum.NOT_COVERED, index.getRange(2));
+    }
+
+    @Test
+    public void nextBlockInSameFile() {
+        UncoveredRangeIndex index = newIndex();
+        assertRange("/fr/A.java", 1, 4, CoverageStateEnum.NOT_COVERED, index.next("/fr/A.java", 0));
+        // Blocks that start on the line are skipped, even if the line is inside the block.
+        assertRange("/fr/A.java", 7, 8, CoverageStateEnum.PARTIALLY_COVERED, index.next("/fr/A.java", 1));
+        assertRange("/fr/A.java", 7, 8, CoverageStateEnum.PARTIALLY_COVERED, index.next("fr/A.java", 3));
+    }
+
+    @Test
+    public void nextBlockInNextFiles() {
+        UncoveredRangeIndex index = newIndex();
+        assertRange("/fr/C.java", 3, 3, CoverageStateEnum.NOT_COVERED, index.next("/fr/A.java", 7));
+        // B.java is fully covered: not indexed, but still a position.
+        assertRange("/fr/C.java", 3, 3, CoverageStateEnum.NOT_COVERED, index.next("fr/B.java", 100));
+        assertRange("/fr/A.java", 1, 4, CoverageStateEnum.NOT_COVERED, index.next("/fr/0.java", 50));
+    }
+
+    @Test
+    public void nextBlockWrapsAround() {
+        UncoveredRangeIndex index = newIndex();
+        assertEquals(0, index.nextRangeIndex("/fr/C.java", 3));
+        assertEquals(0, index.nextRangeIndex("/fr/Z.java", 0));
+    }
+
+    @Test
+    public void emptyIndex() {
+        JavaClass covered = new JavaClass("/fr/", "A.java");
+        covered.addCoveredLine(0);
+        UncoveredRangeIndex index = UncoveredRangeIndex.build(Collections.singletonList(covered));
+        assertEquals(0, index.getNbRanges());
+        assertEquals(-1, index.nextRangeIndex("/fr/A.java", 0));
+        assertNull(index.next("/fr/A.java", 0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rangeIndexOutOfBounds() {
+        newIndex().getRange(3);
+    }
+}
@@ -0,0 +1,108 @@
+package fr.tikione.jacocoexec.analyzer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link UnifiedDiff}.
+ *
+ * @author Jonathan Lermitage
+ */
+public class UnifiedDiffTest {
+
+    private static Map<String, int[]> parse(String... lines)
+            throws IOException {
+        StringBuilder diff = new StringBuilder(256);
+        for (String line : lines) {
+            diff.append(line).append('\n');
+        }
+        return UnifiedDiff.getChangedLines(new BufferedReader(new StringReader(diff.toString())));
+    }
+
+    @Test
+    public void changedLinesOfNewVersion()
+            throws IOException {
+        Map<String, int[]> changedLines = parse(
+                "diff --git a/src/fr/A.java b/src/fr/A.java",
+                "index 83db48f..bf269f4 100644",
+                "--- a/src/fr/A.java",
+                "+++ b/src/fr/A.java",
+                "@@ -1,0 +2 @@",
+                "+added",
+                "@@ -10,2 +10,0 @@ public class A {",
+                "-removed",
+                "-removed",
+                "@@ -20 +19,2 @@",
+                "-old",
+                "+new",
+                "+new",
+                "\\ No newline at end of file",
+                "diff --git a/src/fr/B.java b/src/fr/B.java",
+                "--- a/src/fr/B.java",
+                "+++ b/src/fr/B.java",
+                "@@ -5,3 +5,3 @@",
+                "-old",
+                "-old",
+                "-old",
+                "+new",
+                "+new",
+                "+new");
+        assertEquals(Arrays.asList("src/fr/A.java", "src/fr/B.java"), Arrays.asList(changedLines.keySet().toArray()));
+        // Hunks that only remove lines have no changed line.
+        assertArrayEquals(new int[]{1, 1, 18, 19}, changedLines.get("src/fr/A.java"));
+        assertArrayEquals(new int[]{4, 6}, changedLines.get("src/fr/B.java"));
+    }
+
+    @Test
+    public void hunkLinesAreNotFileHeaders()
+            throws IOException {
+        Map<String, int[]> changedLines = parse(
+                "--- /dev/null",
+                "+++ b/src/fr/New.java",
+                "@@ -0,0 +1,3 @@",
+                "+++ b/src/fr/Fake.java",
+                "+@@ -1 +1,100 @@",
+                "+--- a/src/fr/Fake.java",
+                "--- a/src/fr/C.java",
+                "+++ b/src/fr/C.java",
+                "@@ -3 +3 @@",
+                "--- not a header",
+                "+++ not a header");
+        assertEquals(2, changedLines.size());
+        assertArrayEquals(new int[]{0, 2}, changedLines.get("src/fr/New.java"));
+        assertArrayEquals(new int[]{2, 2}, changedLines.get("src/fr/C.java"));
+    }
+
+    @Test
+    public void deletedAndQuotedFiles()
+            throws IOException {
+        Map<String, int[]> changedLines = parse(
+                "--- a/src/fr/Deleted.java",
+                "+++ /dev/null",
+                "@@ -1,2 +0,0 @@",
+                "-gone",
+                "-gone",
+                "--- a/src/fr/My File.java",
+                "+++ \"b/src/fr/My File.java\"\t2026-10-18 22:00:00",
+                "@@ -1 +1 @@",
+                "-old",
+                "+new");
+        assertEquals(1, changedLines.size());
+        assertArrayEquals(new int[]{0, 0}, changedLines.get("src/fr/My File.java"));
+    }
+
+    @Test
+    public void mergesOverlappingAndAdjacentRanges() {
+        int[] ranges = {10, 12, 0, 2, 3, 4, 11, 20, 30, 30, 0, 0};
+        assertArrayEquals(new int[]{0, 4, 10, 20, 30, 30}, UnifiedDiff.mergeRanges(ranges, 5));
+        assertArrayEquals(new int[]{0, 2}, UnifiedDiff.mergeRanges(new int[]{0, 2, 99, 99}, 1));
+        assertEquals(0, UnifiedDiff.mergeRanges(new int[0], 0).length);
+    }
+}
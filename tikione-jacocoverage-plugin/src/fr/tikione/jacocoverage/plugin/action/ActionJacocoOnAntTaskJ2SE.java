@@ -1,20 +1,36 @@
 package fr.tikione.jacocoverage.plugin.action;
 
+import fr.tikione.jacocoexec.analyzer.BinaryReportMerger;
+import fr.tikione.jacocoexec.analyzer.ClassIds;
+import fr.tikione.jacocoexec.analyzer.CoverageDelta;
+import fr.tikione.jacocoexec.analyzer.CoverageHistory;
+import fr.tikione.jacocoexec.analyzer.CoverageRollup;
+import fr.tikione.jacocoexec.analyzer.CoverageSnapshot;
+import fr.tikione.jacocoexec.analyzer.HtmlReportServer;
 import fr.tikione.jacocoexec.analyzer.JaCoCoReportAnalyzer;
 import fr.tikione.jacocoexec.analyzer.JaCoCoXmlReportParser;
 import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.RiskHotspotRanker;
 import fr.tikione.jacocoverage.plugin.anno.AbstractCoverageAnnotation;
 import fr.tikione.jacocoverage.plugin.config.Globals;
 import fr.tikione.jacocoverage.plugin.config.ProjectConfig;
+import fr.tikione.jacocoverage.plugin.util.CoverageDeltaReport;
+import fr.tikione.jacocoverage.plugin.util.CoverageRestorer;
+import fr.tikione.jacocoverage.plugin.util.CoveringTests;
 import fr.tikione.jacocoverage.plugin.util.NBProjectTypeEnum;
 import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.ReportServers;
+import fr.tikione.jacocoverage.plugin.util.RiskHotspotsReport;
+import fr.tikione.jacocoverage.plugin.util.StaleCoverageMonitor;
 import fr.tikione.jacocoverage.plugin.util.Utils;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -56,6 +72,9 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 
 	private static final Logger LOGGER = Logger.getLogger(ActionJacocoOnAntTaskJ2SE.class.getName());
 
+	/** Result of {@link #collect} when there is nothing to analyze and the current coverage data is kept, as already reported. */
+	protected static final int NOTHING_COLLECTED = -1;
+
 	// Will be used in a future release
 	//private static final String DEFAULT_EXCLUDES = "com.sun.*:org.apache.*:org.netbeans.*:junit.*:sun.*:org.openide.*:org.junit.*";
 	/** The Ant task to launch. */
@@ -98,11 +117,17 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 		// Retrieve JaCoCoverage preferences.
 		final ProjectConfig cfg = ProjectConfig.forFile(new File(NBUtils.getProjectDir(project), Globals.PRJ_CFG));
 		final boolean enblHighlight = cfg.isEnblHighlighting();
+		final boolean enblMethodGlyphs = cfg.isEnblMethodGlyphs();
 		final boolean enblConsoleReport = cfg.isEnblConsoleReport();
+		final int consoleReportTop = cfg.getConsoleReportTop();
+		final boolean consoleReportPackages = cfg.isConsoleReportPackages();
+		final int riskHotspots = cfg.getRiskHotspots();
 		final boolean enblHtmlReport = cfg.isEnblHtmlReport();
 		final boolean openHtmlReport = cfg.isOpenHtmlReport();
+		final boolean incrementalHtmlReport = cfg.isIncrementalHtmlReport();
+		final boolean serveHtmlReport = cfg.isServeHtmlReport();
 
-		if (enblHighlight || enblConsoleReport || enblHtmlReport) {
+		if (enblHighlight || enblMethodGlyphs || enblConsoleReport || enblHtmlReport) {
 			// Retrieve project properties.
 			final String prjDir = NBUtils.getProjectDir(project) + File.separator;
 			FileObject prjPropsFo = project.getProjectDirectory().getFileObject("nbproject/project.properties");
@@ -120,78 +145,8 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 				NotifyDescriptor nd = new NotifyDescriptor.Message(msg, NotifyDescriptor.ERROR_MESSAGE);
 				DialogDisplayer.getDefault().notify(nd);
 			} else {
-				// Apply JaCoCo JavaAgent customization.
-				final String antTaskJavaagentParam;
-				List<String> excludeList = cfg.getPkgclssExclude();
-				StringBuilder exclude = new StringBuilder((excludeList.size() + 1) * 20);
-				if (cfg.isOverrideGlobals() && !excludeList.isEmpty()) {
-					exclude.append(",excludes=");
-					boolean first = true;
-					for (String pkg : excludeList) {
-						if (!first) {
-							exclude.append(':');
-						}
-						exclude.append(pkg).append(".*");
-						first = false;
-					}
-				}
-
 				// GWI patch: If NetBeans Module Project - use different JavaAgent settings
 				final boolean isNBModule = Utils.isProjectSupported(NBUtils.getSelectedProject(), NBProjectTypeEnum.NBMODULE);
-				String jacocoAgentJarAbsPath = NBUtils.getJacocoAgentJar().getAbsolutePath();
-				
-				
-				
-				if (isNBModule) {
-					String excludes = prjProps.getProperty("jacoco.excludes");
-					antTaskJavaagentParam = "\"" + jacocoAgentJarAbsPath
-							+ "\"=destfile=\"" + binreport.getAbsolutePath() + "\"" + (excludes == null ? "" : ",excludes=" + excludes);
-				} else {
-					String packagesToTest = NBUtils.getProjectJavaPackagesAsStr(project, prjProps, ":", ".*");
-					if (packagesToTest.length() > 1000) { // GitHub#26: JaCoCo seems to fail if the includes list is too long
-						packagesToTest = "*";
-					}
-					antTaskJavaagentParam = "\"" + jacocoAgentJarAbsPath
-							+ "\"=includes=" + packagesToTest
-							+ ",destfile=\"" + binreport.getAbsolutePath() + "\"" + exclude.toString();
-				}
-
-				FileObject scriptToExecute = project.getProjectDirectory().getFileObject("build", "xml");
-				if (scriptToExecute == null) { // Fix for GitHub #16.
-					scriptToExecute = project.getProjectDirectory().getFileObject("nbbuild", "xml");
-				}
-				DataObject dataObj = DataObject.find(scriptToExecute);
-				AntProjectCookie antCookie = dataObj.getLookup().lookup(AntProjectCookie.class);
-
-				AntTargetExecutor.Env env = new AntTargetExecutor.Env();
-				AntTargetExecutor executor = AntTargetExecutor.createTargetExecutor(env);
-
-				// Add the customized JaCoCo JavaAgent to the JVM arguments given to the Ant task. The JaCoCo JavaAgent is
-				// appended to the existing list of JVM arguments that is given to the Ant task.
-				Properties targetProps = env.getProperties();
-				targetProps.putAll(addAntTargetProps);
-
-				// Specify jvm args. Special case for Java Web projects.
-				String prjJvmArgs;
-				final boolean isJ2EE = Utils.isProjectSupported(NBUtils.getSelectedProject(),
-						NBProjectTypeEnum.J2EE, NBProjectTypeEnum.J2EE_EAR, NBProjectTypeEnum.J2EE_EJB, NBProjectTypeEnum.J2EE_WEB);
-
-				// GWI patch: If NetBeans Module Project - use different JavaAgent settings
-				if (isNBModule) {
-					prjJvmArgs = Utils.getProperty(prjProps, "test.run.args");
-					targetProps.put("test.run.args", prjJvmArgs + " -javaagent:" + antTaskJavaagentParam);
-				} else if (isJ2EE) {
-					prjJvmArgs = Utils.getProperty(prjProps, "runmain.jvmargs");
-					targetProps.put("runmain.jvmargs", prjJvmArgs + " -javaagent:" + antTaskJavaagentParam);
-				} else {
-					prjJvmArgs = Utils.getProperty(prjProps, "run.jvmargs");
-					targetProps.put("run.jvmargs", prjJvmArgs + "  -javaagent:" + antTaskJavaagentParam);
-				}
-
-				env.setProperties(targetProps);
-
-				// Launch the Ant task with the JaCoCo JavaAgent.
-				final ExecutorTask execute = executor.execute(antCookie, new String[]{antTask});
 
 				new RequestProcessor("JaCoCoverage Collection Task", 3, true).post(new Runnable() {
 					@Override
@@ -202,19 +157,17 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 							progr.start();
 							progr.switchToIndeterminate();
 
-							// Wait for the end of the Ant task execution. We do it in a new thread otherwise it would
-							// freeze the current one. This is a workaround for a known and old NetBeans bug: the ExecutorTask
-							// object provided by the NetBeans platform is not correctly wrapped.
-							int executeRes = execute.result();
+							int executeRes = collect(project, cfg, prjProps, binreport);
+							if (executeRes == NOTHING_COLLECTED) {
+								return;
+							}
 							if (binreport.exists()) {
 								long st = System.currentTimeMillis();
+								beforeAnalysis(project, binreport, prjDir);
 								// Load the generated JaCoCo coverage report. Special case for Java Web projects.
-								File classDir;
-								if (isJ2EE) {
-									classDir = new File(prjDir + File.separator + "build" + File.separator + "web"
-											+ File.separator + "WEB-INF" + File.separator + "classes" + File.separator);
-								} else {
-									classDir = new File(prjDir + Utils.getProperty(prjProps, "build.classes.dir") + File.separator);
+								File classDir = Utils.getProjectClassesDir(project, prjProps);
+								if (cfg.isAccumulate() && !isNBModule) {
+									accumulate(binreport, classDir, prjDir);
 								}
 								File srcDir = new File(prjDir + Utils.getProperty(prjProps, "src.dir") + File.separator);
 
@@ -226,20 +179,51 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 								}
 
 								final Map<String, JavaClass> coverageData = JaCoCoXmlReportParser.getCoverageData(xmlreport);
+								// Fingerprint the compiled classes, to detect stale coverage data when it is restored later.
+								for (JavaClass jclass : coverageData.values()) {
+									jclass.setClassId(ClassIds.compute(classDir, jclass.getPackageName(), jclass.getClassName()));
+								}
 								new File(prjDir + Globals.JACOCOVERAGE_DATA_DIR).mkdirs();
+								// Compare to the previous coverage task, before its snapshot is replaced.
+								CoverageDelta delta = computeDelta(coverageData.values(), prjDir);
 
 								// Remove existing highlighting (from a previous coverage task), show reports and apply
 								// highlighting on each Java source file.
 								AbstractCoverageAnnotation.removeAll(NBUtils.getProjectId(project));
+								CoverageRestorer.discard(project);
+								StaleCoverageMonitor.track(project, classDir, coverageData.values());
+								CoveringTests.load(project);
 								String prjname = NBUtils.getProjectName(project);
+								CoverageRollup rollup = CoverageRollup.build(prjname, coverageData.values());
 								if (enblConsoleReport) {
-									JaCoCoReportAnalyzer.toConsoleReport(coverageData, prjname + Globals.TXTREPORT_TABNAME);
+									JaCoCoReportAnalyzer.toConsoleReport(rollup, prjname + Globals.TXTREPORT_TABNAME,
+											consoleReportTop, consoleReportPackages);
+								}
+								if (delta != null && !delta.isEmpty()) {
+									CoverageDeltaReport.show(delta, prjname + Globals.DELTA_TABNAME);
 								}
+								if (riskHotspots > 0) {
+									RiskHotspotRanker ranker = new RiskHotspotRanker(riskHotspots);
+									ranker.addAll(coverageData.values());
+									RiskHotspotsReport.show(ranker.getHotspots(), ranker.getNbRankedMethods(),
+											prjname + Globals.HOTSPOTS_TABNAME);
+								}
+								CoverageResults.publish(project, rollup);
 								File reportdir = new File(prjDir + Globals.HTML_REPORT_DIR);
-								if (reportdir.exists()) {
+								// The served HTML report is rendered on request, nothing is written to disk.
+								boolean served = enblHtmlReport && serveHtmlReport && !isNBModule;
+								// The incremental HTML report keeps the previous report and only rewrites changed pages.
+								boolean incremental = enblHtmlReport && incrementalHtmlReport && !isNBModule && !served;
+								if (reportdir.exists() && !incremental) {
 									org.apache.commons.io.FileUtils.deleteDirectory(reportdir);
 								}
-								if (enblHtmlReport) {
+								if (served) {
+									HtmlReportServer server = JaCoCoReportAnalyzer.toHtmlReportServer(binreport, classDir, srcDir, prjname);
+									ReportServers.register(NBUtils.getProjectId(project), server);
+									if (openHtmlReport) {
+										HtmlBrowser.URLDisplayer.getDefault().showURL(server.getIndexURL());
+									}
+								} else if (enblHtmlReport) {
 									reportdir.mkdirs();
 
 									// GWI patch: If NetBeans Module Project - use different HTML Report
@@ -247,20 +231,21 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 									if (isNBModule) {
 										report = NBJaCoCoExtension.toHTMLReport(binreport, reportdir, project);
 									} else {
-										report = JaCoCoReportAnalyzer.toHtmlReport(binreport, reportdir, classDir, srcDir, prjname);
+										report = JaCoCoReportAnalyzer.toHtmlReport(binreport, reportdir, classDir, srcDir, prjname, incremental);
 									}
 
 									if (openHtmlReport) {
 										HtmlBrowser.URLDisplayer.getDefault().showURL(Utilities.toURI(new File(report)).toURL());
 									}
 								}
-								if (enblHighlight) {
+								if (enblHighlight || enblMethodGlyphs) {
 
 									// GWI patch: GWI-Modified: New Coloring Code
 									if (isNBModule) {
 										for (final JavaClass jclass : coverageData.values()) {
 											try {
-												NBUtils.colorDoc(project, jclass, cfg.isEnblHighlightingExtended(), srcDir);
+												NBUtils.colorDoc(project, jclass, enblHighlight, enblMethodGlyphs,
+														cfg.isEnblHighlightingExtended(), srcDir, getDeltaNotes(delta, jclass));
 											} catch (Throwable e) {
 												Logger.getGlobal().log(Level.SEVERE,
 														"Failed to color: {0} {1}",
@@ -269,11 +254,13 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 										}
 									} else {
 										for (final JavaClass jclass : coverageData.values()) {
-											NBUtils.colorDoc(project, jclass, cfg.isEnblHighlightingExtended(), srcDir);
+											NBUtils.colorDoc(project, jclass, enblHighlight, enblMethodGlyphs,
+													cfg.isEnblHighlightingExtended(), srcDir, getDeltaNotes(delta, jclass));
 										}
 									}
 								}
-								keepJaCoCoWorkfiles(binreport, xmlreport, prjDir, cfg.getJaCoCoWorkfilesRule());
+								keepJaCoCoWorkfiles(binreport, xmlreport, coverageData.values(), prjDir, cfg.getJaCoCoWorkfilesRule());
+								recordHistory(coverageData.values(), prjDir, cfg);
 
 								long et = System.currentTimeMillis();
 								LOGGER.log(Level.INFO, "Coverage Collection Task took: {0} ms", et - st);
@@ -305,15 +292,169 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 	}
 
 	/**
-	 * Apply retention policy on JaCoCo workfiles.
+	 * Produce the JaCoCo binary report to analyze: run the Ant task with the JaCoCo JavaAgent (or the test shards), and wait for its
+	 * end. Called from the collection task.
+	 *
+	 * @param project the project.
+	 * @param cfg the project's JaCoCoverage configuration.
+	 * @param prjProps the project's properties.
+	 * @param binreport the JaCoCo binary report to write.
+	 * @return the exit code of the Ant task, or {@link #NOTHING_COLLECTED} to keep the current coverage data.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	protected int collect(Project project, ProjectConfig cfg, Properties prjProps, File binreport)
+			throws IOException {
+		AntProjectCookie antCookie = getAntProjectCookie(project);
+		// Java projects' tests can be run in parallel shards.
+		int shards = "test".equals(antTask) && Utils.isProjectSupported(project, NBProjectTypeEnum.J2SE)
+				? cfg.getTestShards() : 0;
+		if (shards > 1) {
+			return ShardedTestRunner.run(project, cfg, prjProps, antCookie, addAntTargetProps, binreport, shards);
+		}
+
+		AntTargetExecutor.Env env = new AntTargetExecutor.Env();
+		AntTargetExecutor executor = AntTargetExecutor.createTargetExecutor(env);
+
+		// Add the customized JaCoCo JavaAgent to the JVM arguments given to the Ant task. The JaCoCo JavaAgent is
+		// appended to the existing list of JVM arguments that is given to the Ant task.
+		Properties targetProps = env.getProperties();
+		targetProps.putAll(addAntTargetProps);
+		addJavaagent(project, cfg, prjProps, binreport, targetProps);
+		env.setProperties(targetProps);
+
+		// Launch the Ant task with the JaCoCo JavaAgent, and wait for the end of its execution. We do it in the collection task
+		// otherwise it would freeze the current thread. This is a workaround for a known and old NetBeans bug: the ExecutorTask
+		// object provided by the NetBeans platform is not correctly wrapped.
+		ExecutorTask execute = executor.execute(antCookie, new String[]{antTask});
+		return execute.result();
+	}
+
+	/**
+	 * Called when the Ant task is done, before the JaCoCo binary report is analyzed. Does nothing by default.
+	 *
+	 * @param project the project.
+	 * @param binreport the JaCoCo binary report written by the Ant task.
+	 * @param prjDir project directory.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	protected void beforeAnalysis(Project project, File binreport, String prjDir)
+			throws IOException {
+	}
+
+	/**
+	 * Fold the JaCoCo binary report into the project's accumulated coverage data, and replace it with the result. The execution data
+	 * of classes recompiled or deleted since it was recorded is evicted.
+	 *
+	 * @param binreport the JaCoCo binary report written by the Ant task.
+	 * @param classDir the folder of compiled classes.
+	 * @param prjDir project directory.
+	 * @throws IOException if the coverage data can't be read or written.
+	 */
+	private static void accumulate(File binreport, File classDir, String prjDir)
+			throws IOException {
+		File accumulated = new File(prjDir + Globals.ACCUMULATED_REPORT);
+		BinaryReportMerger merger = new BinaryReportMerger();
+		merger.add(accumulated);
+		merger.add(binreport);
+		int nbEvicted = merger.retainCompiledClasses(classDir);
+		accumulated.getParentFile().mkdirs();
+		merger.write(accumulated);
+		merger.write(binreport);
+		LOGGER.log(Level.INFO, "Coverage data accumulated, {0} stale classes evicted", nbEvicted);
+	}
+
+	/**
+	 * Get the Ant script of a project.
+	 *
+	 * @param project the project.
+	 * @return the Ant script of the project.
+	 * @throws IOException if the Ant script can't be loaded.
+	 */
+	static AntProjectCookie getAntProjectCookie(Project project)
+			throws IOException {
+		FileObject scriptToExecute = project.getProjectDirectory().getFileObject("build", "xml");
+		if (scriptToExecute == null) { // Fix for GitHub #16.
+			scriptToExecute = project.getProjectDirectory().getFileObject("nbbuild", "xml");
+		}
+		DataObject dataObj = DataObject.find(scriptToExecute);
+		return dataObj.getLookup().lookup(AntProjectCookie.class);
+	}
+
+	/**
+	 * Add the JaCoCo JavaAgent, customized with the project's settings, to the JVM arguments given to an Ant task. The JaCoCo
+	 * JavaAgent is appended to the existing list of JVM arguments of the project.
+	 *
+	 * @param project the project.
+	 * @param cfg the project's JaCoCoverage configuration.
+	 * @param prjProps the project's properties.
+	 * @param binreport the JaCoCo binary report the JavaAgent writes to.
+	 * @param targetProps the properties given to the Ant task.
+	 */
+	static void addJavaagent(Project project, ProjectConfig cfg, Properties prjProps, File binreport, Properties targetProps) {
+		// Apply JaCoCo JavaAgent customization.
+		final String antTaskJavaagentParam;
+		List<String> excludeList = cfg.getPkgclssExclude();
+		StringBuilder exclude = new StringBuilder((excludeList.size() + 1) * 20);
+		if (cfg.isOverrideGlobals() && !excludeList.isEmpty()) {
+			exclude.append(",excludes=");
+			boolean first = true;
+			for (String pkg : excludeList) {
+				if (!first) {
+					exclude.append(':');
+				}
+				exclude.append(pkg).append(".*");
+				first = false;
+			}
+		}
+
+		// GWI patch: If NetBeans Module Project - use different JavaAgent settings
+		final boolean isNBModule = Utils.isProjectSupported(project, NBProjectTypeEnum.NBMODULE);
+		String jacocoAgentJarAbsPath = NBUtils.getJacocoAgentJar().getAbsolutePath();
+
+		if (isNBModule) {
+			String excludes = prjProps.getProperty("jacoco.excludes");
+			antTaskJavaagentParam = "\"" + jacocoAgentJarAbsPath
+					+ "\"=destfile=\"" + binreport.getAbsolutePath() + "\"" + (excludes == null ? "" : ",excludes=" + excludes);
+		} else {
+			String packagesToTest = NBUtils.getProjectJavaPackagesAsStr(project, prjProps, ":", ".*");
+			if (packagesToTest.length() > 1000) { // GitHub#26: JaCoCo seems to fail if the includes list is too long
+				packagesToTest = "*";
+			}
+			antTaskJavaagentParam = "\"" + jacocoAgentJarAbsPath
+					+ "\"=includes=" + packagesToTest
+					+ ",destfile=\"" + binreport.getAbsolutePath() + "\"" + exclude.toString();
+		}
+
+		// Specify jvm args. Special case for Java Web projects.
+		String prjJvmArgs;
+		final boolean isJ2EE = Utils.isProjectSupported(project,
+				NBProjectTypeEnum.J2EE, NBProjectTypeEnum.J2EE_EAR, NBProjectTypeEnum.J2EE_EJB, NBProjectTypeEnum.J2EE_WEB);
+
+		// GWI patch: If NetBeans Module Project - use different JavaAgent settings
+		if (isNBModule) {
+			prjJvmArgs = Utils.getProperty(prjProps, "test.run.args");
+			targetProps.put("test.run.args", prjJvmArgs + " -javaagent:" + antTaskJavaagentParam);
+		} else if (isJ2EE) {
+			prjJvmArgs = Utils.getProperty(prjProps, "runmain.jvmargs");
+			targetProps.put("runmain.jvmargs", prjJvmArgs + " -javaagent:" + antTaskJavaagentParam);
+		} else {
+			prjJvmArgs = Utils.getProperty(prjProps, "run.jvmargs");
+			targetProps.put("run.jvmargs", prjJvmArgs + "  -javaagent:" + antTaskJavaagentParam);
+		}
+	}
+
+	/**
+	 * Apply retention policy on JaCoCo workfiles. The analyzed coverage data is always kept as a binary snapshot: it replaces the
+	 * copy of the XML report, and is much smaller and faster to load.
 	 *
 	 * @param binreport JaCoCo binary report file.
 	 * @param xmlreport JaCoCo XML report file.
+	 * @param coverageData the analyzed coverage data.
 	 * @param prjDir project directory.
 	 * @param wfrule retention policy.
 	 * @throws IOException if workfiles can't be removed or moved.
 	 */
-	private void keepJaCoCoWorkfiles(File binreport, File xmlreport, String prjDir, int wfrule)
+	private void keepJaCoCoWorkfiles(File binreport, File xmlreport, Collection<JavaClass> coverageData, String prjDir, int wfrule)
 			throws IOException {
 		File xmlreportCpy = new File(prjDir + Globals.XML_BACKUP_REPORT);
 		File xmlreportZip = new File(prjDir + Globals.XMLZIP_BACKUP_REPORT);
@@ -323,14 +464,13 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 		xmlreportZip.delete();
 		binreportCpy.delete();
 		binreportZip.delete();
+		CoverageSnapshot.write(coverageData, new File(prjDir + Globals.SNAPSHOT_REPORT));
 		switch (wfrule) {
 			case 0:
 				org.apache.commons.io.FileUtils.moveFile(binreport, binreportCpy);
-				org.apache.commons.io.FileUtils.moveFile(xmlreport, xmlreportCpy);
 				break;
 			case 1:
 				Utils.zip(binreport, binreportZip, Globals.BINZIP_BACKUP_REPORT_ENTRY, false);
-				Utils.zip(xmlreport, xmlreportZip, Globals.XMLZIP_BACKUP_REPORT_ENTRY, false);
 				break;
 			case 2:
 				break;
@@ -339,6 +479,50 @@ public abstract class ActionJacocoOnAntTaskJ2SE
 		xmlreport.delete();
 	}
 
+	/**
+	 * Compare the coverage data to the snapshot of the previous coverage task. Classes whose line coverage didn't change are not
+	 * decoded from the snapshot.
+	 *
+	 * @param coverageData the analyzed coverage data.
+	 * @param prjDir project directory.
+	 * @return the changes of coverage, or {@code null} if there is no previous coverage task or its snapshot can't be read.
+	 */
+	private CoverageDelta computeDelta(Collection<JavaClass> coverageData, String prjDir) {
+		File snapshot = new File(prjDir + Globals.SNAPSHOT_REPORT);
+		if (!snapshot.isFile()) {
+			return null;
+		}
+		try {
+			return CoverageDelta.compute(snapshot, coverageData);
+		} catch (IOException ex) {
+			LOGGER.log(Level.WARNING, "Cannot compare coverage data to the previous coverage task", ex);
+			return null;
+		}
+	}
+
+	private static Map<Integer, String> getDeltaNotes(CoverageDelta delta, JavaClass jclass) {
+		return delta == null ? null : NBUtils.getLineDeltaNotes(delta.getClassDelta(jclass));
+	}
+
+	/**
+	 * Record the coverage data in the project's coverage history, if enabled. A failure is logged only: coverage history doesn't
+	 * prevent the coverage task from completing.
+	 *
+	 * @param coverageData the analyzed coverage data.
+	 * @param prjDir project directory.
+	 * @param cfg the project's JaCoCoverage configuration.
+	 */
+	private void recordHistory(Collection<JavaClass> coverageData, String prjDir, ProjectConfig cfg) {
+		int retention = cfg.getHistoryRetention();
+		if (retention > 0) {
+			try {
+				new CoverageHistory(new File(prjDir + Globals.HISTORY_DIR), retention).append(System.currentTimeMillis(), coverageData);
+			} catch (IOException ex) {
+				LOGGER.log(Level.WARNING, "Cannot record coverage history", ex);
+			}
+		}
+	}
+
 	@SuppressWarnings("ReturnOfCollectionOrArrayField")
 	public Properties getAddAntTargetProps() {
 		return addAntTargetProps;
@@ -1,9 +1,16 @@
 package fr.tikione.jacocoverage.plugin.action;
 
 import fr.tikione.jacocoverage.plugin.anno.AbstractCoverageAnnotation;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.util.CoverageRestorer;
+import fr.tikione.jacocoverage.plugin.util.CoverageWatch;
 import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.ReportServers;
+import fr.tikione.jacocoverage.plugin.util.StaleCoverageMonitor;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.io.IOException;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
@@ -71,6 +78,12 @@ public abstract class ActionRemoveCoverageData
                         progr.switchToIndeterminate();
                         Project prj = NBUtils.getSelectedProject();
                         AbstractCoverageAnnotation.removeAll(NBUtils.getProjectId(prj));
+                        ReportServers.stop(NBUtils.getProjectId(prj));
+                        CoverageResults.remove(prj);
+                        CoverageRestorer.discard(prj);
+                        CoverageWatch.stop(prj);
+                        StaleCoverageMonitor.untrack(prj);
+                        new File(NBUtils.getProjectDir(prj) + File.separator + Globals.ACCUMULATED_REPORT).delete();
                     } finally {
                         progr.finish();
                     }
@@ -0,0 +1,92 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoexec.analyzer.UncoveredRange;
+import fr.tikione.jacocoexec.analyzer.UncoveredRangeIndex;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.JEditorPane;
+import javax.swing.text.StyledDocument;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionReferences;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.StatusDisplayer;
+import org.openide.cookies.EditorCookie;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataObject;
+import org.openide.text.NbDocument;
+import org.openide.util.NbBundle;
+import org.openide.util.Utilities;
+
+/**
+ * The "Go to next uncovered code" action: jump from the caret to the next not covered or partially covered block of the project,
+ * in the same file or in the next files. Blocks are found with the index of the latest coverage data, no source file is read.
+ * <br/>Without an edited Java file, jump to the first block of the selected project.
+ *
+ * @author Jonathan Lermitage
+ */
+@ActionID(category = "Edit",
+        id = "fr.tikione.jacocoverage.plugin.action.GoToNextUncovered")
+@ActionRegistration(displayName = "#CTL_GoToNextUncovered")
+@ActionReferences({
+    @ActionReference(path = "Menu/GoTo", position = 2900, separatorBefore = 2890),
+    @ActionReference(path = "Editors/text/x-java/Popup", position = 4900)
+})
+@NbBundle.Messages({
+    "CTL_GoToNextUncovered=Go to Next Uncovered Code",
+    "MSG_NoUncoveredCode=No uncovered code in this project"
+})
+public final class GoToNextUncovered implements ActionListener {
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        Project project = null;
+        String classResource = "";
+        int line = -1;
+        DataObject dataObject = Utilities.actionsGlobalContext().lookup(DataObject.class);
+        if (dataObject != null) {
+            FileObject fileObject = dataObject.getPrimaryFile();
+            String fileResource = NBUtils.getClassResource(fileObject);
+            project = FileOwnerQuery.getOwner(fileObject);
+            if (fileResource != null && project != null) {
+                classResource = fileResource;
+                line = getCaretLine(dataObject.getLookup().lookup(EditorCookie.class));
+            }
+        }
+        if (project == null) {
+            project = NBUtils.getSelectedProject();
+        }
+        UncoveredRangeIndex index = project == null ? null : CoverageResults.getUncoveredRanges(project);
+        if (index == null) {
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoCoverageData());
+            return;
+        }
+        UncoveredRange range = index.next(classResource, line);
+        if (range == null) {
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoUncoveredCode());
+        } else {
+            NBUtils.openSource(range.getClassResource(), range.getStartLine());
+        }
+    }
+
+    /**
+     * Get the line of the caret in an opened Java source file.
+     *
+     * @param editorCookie the editor of the Java source file.
+     * @return the line of the caret (0-based), or {@code -1} if the file is not opened.
+     */
+    private static int getCaretLine(EditorCookie editorCookie) {
+        if (editorCookie != null) {
+            JEditorPane[] panes = editorCookie.getOpenedPanes();
+            StyledDocument doc = editorCookie.getDocument();
+            if (panes != null && panes.length > 0 && doc != null) {
+                return NbDocument.findLineNumber(doc, panes[0].getCaretPosition());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,189 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoexec.analyzer.ClassIds;
+import fr.tikione.jacocoexec.analyzer.CoverageSnapshot;
+import fr.tikione.jacocoexec.analyzer.JaCoCoReportAnalyzer;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.util.NBProjectTypeEnum;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.TestImpactIndex;
+import fr.tikione.jacocoverage.plugin.util.Utils;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.swing.Action;
+import javax.swing.JMenuItem;
+import org.netbeans.api.project.Project;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.DynamicMenuContent;
+import org.openide.awt.StatusDisplayer;
+import org.openide.util.ContextAwareAction;
+import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.actions.Presenter;
+
+/**
+ * The "Test affected with JaCoCoverage" contextual action registration for Java projects.
+ * Start the "test-single" Ant task with the JaCoCo JavaAgent on the test classes affected by the Java source files changed since the
+ * latest coverage task (see the test impact index built by "Build test impact index"), and merge their coverage data into the
+ * coverage data of the latest coverage task. Changes are found by class ids (see {@link ClassIds}): the ones recorded by the latest
+ * coverage task for Java source files, the ones recorded by the index for test classes. Test classes changed since they were indexed
+ * are run until the index is built again. Runs the whole "test" Ant task if there is no index or no previous coverage data.
+ *
+ * @author Jonathan Lermitage
+ */
+@ActionID(category = "Project",
+        id = "fr.tikione.jacocoverage.plugin.action.ProjectAntTestAffectedJ2SE")
+@ActionRegistration(displayName = "#CTL_ProjectAntTestAffectedJ2SE",
+        lazy = false,
+        asynchronous = true,
+        surviveFocusChange = true)
+@ActionReference(path = "Projects/Actions",
+        position = 1986)
+@NbBundle.Messages({
+    "CTL_ProjectAntTestAffectedJ2SE=Test affected with JaCoCoverage",
+    "MSG_NoTestIndex=No test impact index or previous coverage data, running all tests",
+    "MSG_NoAffectedTest=No test affected by the changes since the latest coverage task",
+    "# {0} - number of affected test classes",
+    "MSG_AffectedTests=Running {0} affected test classes"
+})
+@SuppressWarnings("CloneableImplementsClone")
+public class ProjectAntTestAffectedJ2SE
+        extends ActionJacocoOnAntTaskJ2SE
+        implements ContextAwareAction, Presenter.Popup {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProjectAntTestAffectedJ2SE() {
+        super("test-single");
+        setEnabled(Utils.isProjectSupported(NBUtils.getSelectedProject(), NBProjectTypeEnum.J2SE));
+        putValue(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        putValue(Action.NAME, Bundle.CTL_ProjectAntTestAffectedJ2SE());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        if (!isEnabled()) {
+            return;
+        }
+        Project project = NBUtils.getSelectedProject();
+        try {
+            String prjDir = NBUtils.getProjectDir(project) + File.separator;
+            File snapshot = new File(prjDir + Globals.SNAPSHOT_REPORT);
+            TestImpactIndex index = TestImpactIndex.load(new File(prjDir + Globals.TEST_INDEX));
+            File baseReport = index == null || !snapshot.isFile() ? null : Utils.copyLatestBinReport(prjDir);
+            if (baseReport == null) {
+                StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoTestIndex());
+                new ProjectAntTestJ2SE().actionPerformed(ev);
+                return;
+            }
+            Properties prjProps = Utils.loadProjectProperties(project);
+            File srcDir = new File(prjDir + Utils.getProperty(prjProps, "src.dir"));
+            File testDir = new File(prjDir + Utils.getProperty(prjProps, "test.src.dir"));
+            File classDir = Utils.getProjectClassesDir(project, prjProps);
+            File testClassDir = new File(prjDir + Utils.getProperty(prjProps, "build.test.classes.dir"));
+
+            // Tests of the changed classes, changed tests, and tests not indexed yet.
+            List<String> changedClasses = new ArrayList<>(32);
+            try (CoverageSnapshot latest = CoverageSnapshot.open(snapshot)) {
+                for (String classResource : latest.getClassResources()) {
+                    long classId = latest.getClassId(classResource);
+                    String source = JavaClass.toResourceKey(classResource);
+                    if (classId != 0 && isChanged(srcDir, classDir, source, classId)) {
+                        changedClasses.add(source.substring(0, source.length() - ".java".length()));
+                    }
+                }
+            }
+            Set<String> tests = new TreeSet<>(index.getAffectedTests(changedClasses));
+            for (String test : TestImpactIndex.listTests(testDir)) {
+                if (!index.contains(test) || isChanged(testDir, testClassDir, test, index.getClassId(test))) {
+                    tests.add(test);
+                }
+            }
+            if (tests.isEmpty()) {
+                baseReport.delete();
+                StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoAffectedTest());
+                return;
+            }
+            // Each run gets its own action, so that concurrent runs don't share their base report and Ant properties.
+            String includes = org.apache.commons.lang3.StringUtils.join(tests, ',');
+            AffectedTestsRun run = new AffectedTestsRun(baseReport);
+            run.getAddAntTargetProps().put("javac.includes", includes);
+            run.getAddAntTargetProps().put("test.includes", includes);
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_AffectedTests(tests.size()));
+            run.actionPerformed(ev);
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    /**
+     * Check if a Java source file changed since its class id was recorded: its classes were recompiled and differ, or it is not
+     * compiled yet (the Ant task compiles it before running the tests).
+     *
+     * @param srcDir the source folder.
+     * @param classesDir the folder containing the compiled classes of the source folder.
+     * @param source the Java source file, relative to the source folder (e.g. <code>fr/tikione/Foo.java</code>).
+     * @param classId the recorded class id (see {@link ClassIds}), or {@code 0} if unknown.
+     * @return {@code true} if the Java source file changed, or its class id is unknown.
+     * @throws IOException if a class file can't be read.
+     */
+    private static boolean isChanged(File srcDir, File classesDir, String source, long classId)
+            throws IOException {
+        String vmName = source.substring(0, source.length() - ".java".length());
+        if (new File(srcDir, source).lastModified() > new File(classesDir, vmName + ".class").lastModified()) {
+            return true;
+        }
+        int sep = source.lastIndexOf('/');
+        return classId != ClassIds.compute(classesDir, '/' + source.substring(0, sep + 1) + (sep < 0 ? "/" : ""),
+                source.substring(sep + 1));
+    }
+
+    /**
+     * A run of the affected tests: the <code>test-single</code> Ant task, whose coverage data is merged into the latest coverage
+     * task's one.
+     */
+    private static class AffectedTestsRun extends ActionJacocoOnAntTaskJ2SE {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The JaCoCo binary report of the latest coverage task, merged into the new one. */
+        private final File baseReport;
+
+        AffectedTestsRun(File baseReport) {
+            super("test-single");
+            this.baseReport = baseReport;
+        }
+
+        @Override
+        protected void beforeAnalysis(Project project, File binreport, String prjDir)
+                throws IOException {
+            try {
+                JaCoCoReportAnalyzer.mergeBinaryReports(binreport, baseReport, binreport);
+            } finally {
+                baseReport.delete();
+            }
+        }
+    }
+
+    @Override
+    public Action createContextAwareInstance(Lookup context) {
+        return new ProjectAntTestAffectedJ2SE();
+    }
+
+    @Override
+    public JMenuItem getPopupPresenter() {
+        JMenuItem menuitem = new JMenuItem(this);
+        menuitem.putClientProperty(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        return menuitem;
+    }
+}
@@ -0,0 +1,184 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoexec.analyzer.ClassIds;
+import fr.tikione.jacocoexec.analyzer.JaCoCoReportAnalyzer;
+import fr.tikione.jacocoexec.analyzer.TestLineIndex;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.util.CoveringTests;
+import fr.tikione.jacocoverage.plugin.util.NBProjectTypeEnum;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.TestImpactIndex;
+import fr.tikione.jacocoverage.plugin.util.Utils;
+import fr.tikione.jacocoverage.plugin.util.WarmTestProcess;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JMenuItem;
+import org.apache.tools.ant.module.api.AntTargetExecutor;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.netbeans.api.project.Project;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.DynamicMenuContent;
+import org.openide.awt.StatusDisplayer;
+import org.openide.execution.ExecutorTask;
+import org.openide.util.Cancellable;
+import org.openide.util.ContextAwareAction;
+import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+import org.openide.util.actions.Presenter;
+
+/**
+ * The "Build test impact index" contextual action registration for Java projects: run every test class alone, in its own coverage
+ * session of a warm JVM started with the JaCoCo JavaAgent (see {@link WarmTestProcess}), and record the classes it executes, so that "Test affected with JaCoCoverage" can
+ * run only the tests affected by changes, and the lines it covers, shown in editor tooltips. The indexes are only rebuilt on
+ * request.
+ *
+ * @author Jonathan Lermitage
+ */
+@ActionID(category = "Project",
+        id = "fr.tikione.jacocoverage.plugin.action.ProjectBuildTestIndex")
+@ActionRegistration(displayName = "#CTL_ProjectBuildTestIndex",
+        lazy = false,
+        asynchronous = true,
+        surviveFocusChange = true)
+@ActionReference(path = "Projects/Actions",
+        position = 1987)
+@NbBundle.Messages({
+    "CTL_ProjectBuildTestIndex=Build test impact index",
+    "MSG_NoTestClass=No test class found in this project",
+    "# {0} - Ant exit code",
+    "MSG_TestIndexCompileFailed=Test impact index not built, compilation failed (AntExitCode={0})",
+    "# {0} - number of indexed test classes",
+    "# {1} - number of test classes",
+    "MSG_TestIndexBuilt=Test impact index built: {0} of {1} test classes indexed"
+})
+@SuppressWarnings("CloneableImplementsClone")
+public class ProjectBuildTestIndex
+        extends AbstractAction
+        implements ContextAwareAction, Presenter.Popup {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectBuildTestIndex.class.getName());
+
+    public ProjectBuildTestIndex() {
+        super();
+        setEnabled(Utils.isProjectSupported(NBUtils.getSelectedProject(), NBProjectTypeEnum.J2SE));
+        putValue(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        putValue(Action.NAME, Bundle.CTL_ProjectBuildTestIndex());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        if (!isEnabled()) {
+            return;
+        }
+        final Project project = NBUtils.getSelectedProject();
+        final RequestProcessor.Task[] task = new RequestProcessor.Task[1];
+        task[0] = new RequestProcessor("JaCoCoverage Test Index Task", 1, true).post(new Runnable() {
+            @Override
+            public void run() {
+                ProgressHandle progr = ProgressHandleFactory.createHandle("JaCoCoverage Test Index Task", new Cancellable() {
+                    @Override
+                    public boolean cancel() {
+                        return task[0].cancel();
+                    }
+                });
+                try {
+                    buildIndex(project, progr);
+                } catch (IOException ex) {
+                    Exceptions.printStackTrace(ex);
+                } finally {
+                    progr.finish();
+                }
+            }
+        });
+    }
+
+    /**
+     * Run every test class of a project alone with the JaCoCo JavaAgent, and store the classes it executes and its class id.
+     *
+     * @param project the project.
+     * @param progr the progress handle (not started yet).
+     * @throws IOException if the index can't be stored.
+     */
+    private static void buildIndex(Project project, ProgressHandle progr)
+            throws IOException {
+        String prjDir = NBUtils.getProjectDir(project) + File.separator;
+        Properties prjProps = Utils.loadProjectProperties(project);
+        List<String> tests = TestImpactIndex.listTests(new File(prjDir + Utils.getProperty(prjProps, "test.src.dir")));
+        if (tests.isEmpty()) {
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoTestClass());
+            return;
+        }
+        // Compile once, then run every test class in its own coverage session of a single warm JVM.
+        AntTargetExecutor.Env env = new AntTargetExecutor.Env();
+        ExecutorTask compile = AntTargetExecutor.createTargetExecutor(env).execute(
+                ActionJacocoOnAntTaskJ2SE.getAntProjectCookie(project), new String[]{"compile-test"});
+        if (compile.result() != 0) {
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_TestIndexCompileFailed(compile.result()));
+            return;
+        }
+        File classDir = Utils.getProjectClassesDir(project, prjProps);
+        File testClassDir = new File(prjDir + Utils.getProperty(prjProps, "build.test.classes.dir"));
+        TestImpactIndex index = new TestImpactIndex();
+        TestLineIndex.Builder lineIndex = new TestLineIndex.Builder();
+        WarmTestProcess runner = new WarmTestProcess(project);
+        File binreport = File.createTempFile("jacocoverage-index", ".exec");
+        progr.start(tests.size());
+        try {
+            for (int i = 0; i < tests.size() && !Thread.currentThread().isInterrupted(); i++) {
+                String test = tests.get(i);
+                progr.progress(test, i);
+                try {
+                    String result = runner.run(binreport, Collections.singletonList(test));
+                    // A failing test class still tells which classes it executes.
+                    if (result.startsWith("OK ")) {
+                        int sep = test.lastIndexOf('/');
+                        index.put(test, JaCoCoReportAnalyzer.getExecutedClasses(binreport),
+                                ClassIds.compute(testClassDir, '/' + test.substring(0, sep + 1) + (sep < 0 ? "/" : ""),
+                                        test.substring(sep + 1)));
+                        lineIndex.addTest(test.substring(0, test.length() - ".java".length()).replace('/', '.'),
+                                JaCoCoReportAnalyzer.getCoveredLines(binreport, classDir));
+                    } else {
+                        LOGGER.log(Level.INFO, "No coverage data for test class {0}, not indexed: {1}", new Object[]{test, result});
+                    }
+                } catch (IOException ex) {
+                    LOGGER.log(Level.INFO, "Cannot index test class " + test, ex);
+                    runner.stop();
+                }
+            }
+        } finally {
+            runner.stop();
+            binreport.delete();
+        }
+        index.store(new File(prjDir + Globals.TEST_INDEX));
+        lineIndex.build().write(new File(prjDir + Globals.TEST_LINES_INDEX));
+        CoveringTests.load(project);
+        StatusDisplayer.getDefault().setStatusText(Bundle.MSG_TestIndexBuilt(index.getNbTests(), tests.size()));
+    }
+
+    @Override
+    public Action createContextAwareInstance(Lookup context) {
+        return new ProjectBuildTestIndex();
+    }
+
+    @Override
+    public JMenuItem getPopupPresenter() {
+        JMenuItem menuitem = new JMenuItem(this);
+        menuitem.putClientProperty(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        return menuitem;
+    }
+}
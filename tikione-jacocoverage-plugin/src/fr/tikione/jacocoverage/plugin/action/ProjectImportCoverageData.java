@@ -0,0 +1,208 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoexec.analyzer.BinaryReportMerger;
+import fr.tikione.jacocoexec.analyzer.CoverageRollup;
+import fr.tikione.jacocoexec.analyzer.JaCoCoXmlReportParser;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoverage.plugin.anno.AbstractCoverageAnnotation;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.config.ProjectConfig;
+import fr.tikione.jacocoverage.plugin.util.CoverageRestorer;
+import fr.tikione.jacocoverage.plugin.util.NBProjectTypeEnum;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.StaleCoverageMonitor;
+import fr.tikione.jacocoverage.plugin.util.Utils;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.Action;
+import javax.swing.JFileChooser;
+import javax.swing.JMenuItem;
+import javax.xml.parsers.ParserConfigurationException;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.netbeans.api.project.Project;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.DynamicMenuContent;
+import org.openide.awt.StatusDisplayer;
+import org.openide.util.ContextAwareAction;
+import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+import org.openide.util.actions.Presenter;
+import org.openide.windows.WindowManager;
+import org.xml.sax.SAXException;
+
+/**
+ * The "Import coverage data" contextual action registration for Ant projects: merge JaCoCo binary reports produced elsewhere (e.g. by
+ * a CI server, or dumped from staging JVMs) and analyze them against the project's compiled classes, as if they had been produced by
+ * a local coverage task: highlighting, reports and coverage data are updated the same way.
+ * <br/>Reports can be selected one by one, or by folder (every <code>*.exec</code> file of the folder and its sub-folders). They are
+ * read in parallel, with a memory footprint bounded by the number of distinct classes.
+ * <br/>A JaCoCo XML report (<code>jacoco.xml</code> or <code>jacoco.xml.gz</code>) can be selected instead: its coverage data is
+ * highlighted and shown in the coverage results window.
+ *
+ * @author Jonathan Lermitage
+ */
+@ActionID(category = "Project",
+        id = "fr.tikione.jacocoverage.plugin.action.ProjectImportCoverageData")
+@ActionRegistration(displayName = "#CTL_ProjectImportCoverageData",
+        lazy = false,
+        asynchronous = false,
+        surviveFocusChange = true)
+@ActionReference(path = "Projects/Actions",
+        position = 1988)
+@NbBundle.Messages({
+    "CTL_ProjectImportCoverageData=Import coverage data...",
+    "CTL_ImportCoverageDataTitle=Import JaCoCo binary reports (files or folders) or a JaCoCo XML report",
+    "MSG_NoBinaryReport=No JaCoCo binary report (*.exec) selected",
+    "# {0} - number of unreadable reports",
+    "MSG_UnreadableBinaryReports={0} JaCoCo binary reports could not be read and were skipped, see the IDE log",
+    "# {0} - number of selected reports",
+    "MSG_NoReadableBinaryReport=None of the {0} selected JaCoCo binary reports could be read, the current coverage data is kept"
+})
+@SuppressWarnings("CloneableImplementsClone")
+public class ProjectImportCoverageData
+        extends ActionJacocoOnAntTaskJ2SE
+        implements ContextAwareAction, Presenter.Popup {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectImportCoverageData.class.getName());
+
+    /** The JaCoCo binary reports to import. */
+    private final List<File> reports = new ArrayList<>(16);
+
+    public ProjectImportCoverageData() {
+        super(null);
+        setEnabled(Utils.isProjectSupported(NBUtils.getSelectedProject(), NBProjectTypeEnum.J2SE,
+                NBProjectTypeEnum.J2EE, NBProjectTypeEnum.J2EE_EAR,
+                NBProjectTypeEnum.J2EE_EJB, NBProjectTypeEnum.J2EE_WEB, NBProjectTypeEnum.NBMODULE));
+        putValue(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        putValue(Action.NAME, Bundle.CTL_ProjectImportCoverageData());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        if (!isEnabled()) {
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(Bundle.CTL_ImportCoverageDataTitle());
+        chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        chooser.setMultiSelectionEnabled(true);
+        if (chooser.showOpenDialog(WindowManager.getDefault().getMainWindow()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File[] selection = chooser.getSelectedFiles();
+        if (selection.length == 1 && isXmlReport(selection[0])) {
+            importXmlReport(NBUtils.getSelectedProject(), selection[0]);
+            return;
+        }
+        reports.clear();
+        for (File selected : selection) {
+            if (selected.isDirectory()) {
+                reports.addAll(BinaryReportMerger.findBinaryReports(selected));
+            } else if (selected.isFile()) {
+                reports.add(selected);
+            }
+        }
+        if (reports.isEmpty()) {
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoBinaryReport());
+            return;
+        }
+        super.actionPerformed(ev);
+    }
+
+    @Override
+    protected int collect(Project project, ProjectConfig cfg, Properties prjProps, File binreport)
+            throws IOException {
+        BinaryReportMerger merger = new BinaryReportMerger();
+        List<File> failed = merger.addAll(reports, Runtime.getRuntime().availableProcessors());
+        if (!failed.isEmpty()) {
+            LOGGER.log(Level.WARNING, "Unreadable JaCoCo binary reports skipped: {0}", failed);
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_UnreadableBinaryReports(failed.size()));
+        }
+        if (merger.getNbReports() == 0) {
+            DialogDisplayer.getDefault().notify(new NotifyDescriptor.Message(
+                    Bundle.MSG_NoReadableBinaryReport(reports.size()), NotifyDescriptor.WARNING_MESSAGE));
+            return NOTHING_COLLECTED;
+        }
+        merger.write(binreport);
+        LOGGER.log(Level.INFO, "{0} JaCoCo binary reports imported", merger.getNbReports());
+        return 0;
+    }
+
+    private static boolean isXmlReport(File file) {
+        String name = file.getName().toLowerCase(Locale.ENGLISH);
+        return file.isFile() && (name.endsWith(".xml") || name.endsWith(".xml.gz"));
+    }
+
+    /**
+     * Show the coverage data of a JaCoCo XML report (plain or gzip compressed) produced elsewhere: highlighting and coverage results.
+     * There is no binary report to analyze, so no HTML report nor coverage snapshot.
+     *
+     * @param project the project.
+     * @param xmlreport the JaCoCo XML report.
+     */
+    private static void importXmlReport(final Project project, final File xmlreport) {
+        new RequestProcessor("JaCoCoverage Import Task", 1, true).post(new Runnable() {
+            @Override
+            public void run() {
+                ProgressHandle progr = ProgressHandleFactory.createHandle("JaCoCoverage Import Task");
+                try {
+                    progr.setInitialDelay(400);
+                    progr.start();
+                    progr.switchToIndeterminate();
+                    long st = System.currentTimeMillis();
+                    Map<String, JavaClass> coverageData = JaCoCoXmlReportParser.getCoverageData(xmlreport);
+                    String prjDir = NBUtils.getProjectDir(project) + File.separator;
+                    Properties prjProps = Utils.loadProjectProperties(project);
+                    ProjectConfig cfg = ProjectConfig.forFile(new File(prjDir + Globals.PRJ_CFG));
+                    File srcDir = new File(prjDir + Utils.getProperty(prjProps, "src.dir") + File.separator);
+                    AbstractCoverageAnnotation.removeAll(NBUtils.getProjectId(project));
+                    CoverageRestorer.discard(project);
+                    StaleCoverageMonitor.untrack(project);
+                    CoverageResults.publish(project, CoverageRollup.build(NBUtils.getProjectName(project), coverageData.values()));
+                    if (cfg.isEnblHighlighting() || cfg.isEnblMethodGlyphs()) {
+                        for (JavaClass jclass : coverageData.values()) {
+                            NBUtils.colorDoc(project, jclass, cfg.isEnblHighlighting(), cfg.isEnblMethodGlyphs(),
+                                    cfg.isEnblHighlightingExtended(), srcDir);
+                        }
+                    }
+                    LOGGER.log(Level.INFO, "JaCoCo XML report {0} imported in {1} ms",
+                            new Object[]{xmlreport.getAbsolutePath(), System.currentTimeMillis() - st});
+                } catch (IOException | ParserConfigurationException | SAXException ex) {
+                    Exceptions.printStackTrace(ex);
+                } finally {
+                    progr.finish();
+                }
+            }
+        });
+    }
+
+    @Override
+    public Action createContextAwareInstance(Lookup context) {
+        return new ProjectImportCoverageData();
+    }
+
+    @Override
+    public JMenuItem getPopupPresenter() {
+        JMenuItem menuitem = new JMenuItem(this);
+        menuitem.putClientProperty(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        return menuitem;
+    }
+}
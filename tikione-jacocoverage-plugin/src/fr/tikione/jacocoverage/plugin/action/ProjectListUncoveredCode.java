@@ -0,0 +1,96 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoexec.analyzer.UncoveredRangeIndex;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.util.NBProjectTypeEnum;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.UncoveredCodeReport;
+import fr.tikione.jacocoverage.plugin.util.Utils;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JMenuItem;
+import org.netbeans.api.project.Project;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.DynamicMenuContent;
+import org.openide.awt.StatusDisplayer;
+import org.openide.util.ContextAwareAction;
+import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+import org.openide.util.actions.Presenter;
+
+/**
+ * The "List uncovered code" contextual action registration for Ant projects: list the not covered and partially covered blocks of
+ * the latest coverage data to a NetBeans console tab.
+ *
+ * @author Jonathan Lermitage
+ */
+@ActionID(category = "Project",
+        id = "fr.tikione.jacocoverage.plugin.action.ProjectListUncoveredCode")
+@ActionRegistration(displayName = "#CTL_ProjectListUncoveredCode",
+        lazy = false,
+        asynchronous = true,
+        surviveFocusChange = true)
+@ActionReference(path = "Projects/Actions",
+        position = 1991)
+@NbBundle.Messages({
+    "CTL_ProjectListUncoveredCode=List uncovered code",
+    "MSG_NoCoverageData=No JaCoCoverage coverage data for this project"
+})
+@SuppressWarnings("CloneableImplementsClone")
+public class ProjectListUncoveredCode
+        extends AbstractAction
+        implements ContextAwareAction, Presenter.Popup {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProjectListUncoveredCode() {
+        super();
+        setEnabled(Utils.isProjectSupported(NBUtils.getSelectedProject(), NBProjectTypeEnum.J2SE,
+                NBProjectTypeEnum.J2EE, NBProjectTypeEnum.J2EE_EAR,
+                NBProjectTypeEnum.J2EE_EJB, NBProjectTypeEnum.J2EE_WEB, NBProjectTypeEnum.NBMODULE));
+        putValue(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        putValue(Action.NAME, Bundle.CTL_ProjectListUncoveredCode());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        if (!isEnabled()) {
+            return;
+        }
+        final Project project = NBUtils.getSelectedProject();
+        new RequestProcessor("JaCoCoverage Uncovered Code Task", 1, true).post(new Runnable() {
+            @Override
+            public void run() {
+                UncoveredRangeIndex index = project == null ? null : CoverageResults.getUncoveredRanges(project);
+                if (index == null) {
+                    StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoCoverageData());
+                } else {
+                    try {
+                        UncoveredCodeReport.show(index, NBUtils.getProjectName(project) + Globals.UNCOVERED_TABNAME);
+                    } catch (IOException ex) {
+                        Exceptions.printStackTrace(ex);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public Action createContextAwareInstance(Lookup context) {
+        return new ProjectListUncoveredCode();
+    }
+
+    @Override
+    public JMenuItem getPopupPresenter() {
+        JMenuItem menuitem = new JMenuItem(this);
+        menuitem.putClientProperty(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        return menuitem;
+    }
+}
@@ -0,0 +1,174 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoexec.analyzer.CoverageStateEnum;
+import fr.tikione.jacocoexec.analyzer.FilePatchCoverage;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.PatchCoverage;
+import fr.tikione.jacocoverage.plugin.anno.AbstractCoverageAnnotation;
+import fr.tikione.jacocoverage.plugin.api.CoverageQueryService;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.config.ProjectConfig;
+import fr.tikione.jacocoverage.plugin.util.GitChanges;
+import fr.tikione.jacocoverage.plugin.util.NBProjectTypeEnum;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.PatchCoverageReport;
+import fr.tikione.jacocoverage.plugin.util.Utils;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JMenuItem;
+import org.netbeans.api.project.Project;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.DynamicMenuContent;
+import org.openide.awt.StatusDisplayer;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.ContextAwareAction;
+import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+import org.openide.util.actions.Presenter;
+
+/**
+ * The "Show patch coverage" contextual action registration for Ant projects: show the coverage of the lines changed since the
+ * latest commit of the project's Git repository, from the latest coverage data. Only the changed files are read; their changed
+ * lines tell it in the editor tooltips.
+ *
+ * @author Jonathan Lermitage
+ */
+@ActionID(category = "Project",
+        id = "fr.tikione.jacocoverage.plugin.action.ProjectPatchCoverage")
+@ActionRegistration(displayName = "#CTL_ProjectPatchCoverage",
+        lazy = false,
+        asynchronous = true,
+        surviveFocusChange = true)
+@ActionReference(path = "Projects/Actions",
+        position = 1992,
+        separatorAfter = 1993)
+@NbBundle.Messages({
+    "CTL_ProjectPatchCoverage=Show patch coverage",
+    "# {0} - error message",
+    "MSG_GitFailed=Cannot read the changes of this project from Git: {0}",
+    "MSG_NoChangedCode=No line of code changed since the latest commit"
+})
+@SuppressWarnings("CloneableImplementsClone")
+public class ProjectPatchCoverage
+        extends AbstractAction
+        implements ContextAwareAction, Presenter.Popup {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectPatchCoverage.class.getName());
+
+    /** Tooltip of changed lines in the editor. */
+    private static final String CHANGED_LINE_NOTE = "changed since HEAD";
+
+    public ProjectPatchCoverage() {
+        super();
+        setEnabled(Utils.isProjectSupported(NBUtils.getSelectedProject(), NBProjectTypeEnum.J2SE,
+                NBProjectTypeEnum.J2EE, NBProjectTypeEnum.J2EE_EAR,
+                NBProjectTypeEnum.J2EE_EJB, NBProjectTypeEnum.J2EE_WEB, NBProjectTypeEnum.NBMODULE));
+        putValue(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        putValue(Action.NAME, Bundle.CTL_ProjectPatchCoverage());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        if (!isEnabled()) {
+            return;
+        }
+        final Project project = NBUtils.getSelectedProject();
+        new RequestProcessor("JaCoCoverage Patch Coverage Task", 1, true).post(new Runnable() {
+            @Override
+            public void run() {
+                if (project == null || CoverageResults.getUncoveredRanges(project) == null) {
+                    StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoCoverageData());
+                    return;
+                }
+                Map<File, int[]> changedFiles;
+                try {
+                    changedFiles = GitChanges.getChangedLines(FileUtil.toFile(project.getProjectDirectory()));
+                } catch (IOException ex) {
+                    LOGGER.log(Level.INFO, "Cannot read Git changes", ex);
+                    StatusDisplayer.getDefault().setStatusText(Bundle.MSG_GitFailed(ex.getMessage()));
+                    return;
+                }
+                // Only the changed files are looked up in the coverage data.
+                CoverageQueryService coverage = Lookup.getDefault().lookup(CoverageQueryService.class);
+                Map<String, int[]> changedLines = new HashMap<>(changedFiles.size() * 2);
+                Map<String, JavaClass> coverageData = new HashMap<>(changedFiles.size() * 2);
+                for (Map.Entry<File, int[]> changedFile : changedFiles.entrySet()) {
+                    FileObject fileObject = FileUtil.toFileObject(FileUtil.normalizeFile(changedFile.getKey()));
+                    JavaClass jclass = fileObject == null ? null : coverage.getClassCoverage(fileObject);
+                    String classResource = jclass == null
+                            ? changedFile.getKey().getPath()
+                            : jclass.getPackageName() + jclass.getClassName();
+                    changedLines.put(classResource, changedFile.getValue());
+                    if (jclass != null) {
+                        coverageData.put(classResource, jclass);
+                    }
+                }
+                PatchCoverage patch = PatchCoverage.compute(changedLines, coverageData);
+                if (patch.getFiles().isEmpty()) {
+                    StatusDisplayer.getDefault().setStatusText(Bundle.MSG_NoChangedCode());
+                    return;
+                }
+                try {
+                    PatchCoverageReport.show(patch, NBUtils.getProjectName(project) + Globals.PATCH_TABNAME);
+                    highlightChangedLines(project, patch);
+                } catch (IOException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Highlight the changed files again, with a tooltip on changed lines.
+     *
+     * @param project the project.
+     * @param patch the coverage of changed lines.
+     * @throws IOException if the project's configuration can't be loaded.
+     */
+    private static void highlightChangedLines(Project project, PatchCoverage patch)
+            throws IOException {
+        ProjectConfig cfg = ProjectConfig.forFile(new File(NBUtils.getProjectDir(project), Globals.PRJ_CFG));
+        if (!cfg.isEnblHighlighting()) {
+            return;
+        }
+        String prjId = NBUtils.getProjectId(project);
+        for (FilePatchCoverage file : patch.getFiles()) {
+            Map<Integer, String> notes = new HashMap<>(64);
+            for (CoverageStateEnum state : CoverageStateEnum.values()) {
+                for (int line : file.getLines(state)) {
+                    notes.put(line, CHANGED_LINE_NOTE);
+                }
+            }
+            AbstractCoverageAnnotation.removeFromClass(prjId, file.getClassResource());
+            NBUtils.colorDoc(project, file.getJavaClass(), true, cfg.isEnblMethodGlyphs(), cfg.isEnblHighlightingExtended(), null,
+                    notes);
+        }
+    }
+
+    @Override
+    public Action createContextAwareInstance(Lookup context) {
+        return new ProjectPatchCoverage();
+    }
+
+    @Override
+    public JMenuItem getPopupPresenter() {
+        JMenuItem menuitem = new JMenuItem(this);
+        menuitem.putClientProperty(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        return menuitem;
+    }
+}
@@ -27,8 +27,7 @@ import org.openide.util.actions.Presenter;
         asynchronous = true,
         surviveFocusChange = true)
 @ActionReference(path = "Projects/Actions",
-        position = 1986,
-        separatorAfter = 1987)
+        position = 1990)
 @NbBundle.Messages("CTL_ProjectRemoveCoverageData=Reset coverage data")
 @SuppressWarnings("CloneableImplementsClone")
 public class ProjectRemoveCoverageData
@@ -0,0 +1,95 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoverage.plugin.util.CoverageWatch;
+import fr.tikione.jacocoverage.plugin.util.NBProjectTypeEnum;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.Utils;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JMenuItem;
+import org.netbeans.api.project.Project;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.DynamicMenuContent;
+import org.openide.awt.StatusDisplayer;
+import org.openide.util.ContextAwareAction;
+import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle;
+import org.openide.util.actions.Presenter;
+
+/**
+ * The "Start coverage watch" / "Stop coverage watch" contextual action registration for Java projects: while watched, the tests
+ * affected by the classes updated by compile-on-save are run again in a warm JVM, and the coverage is updated live.
+ *
+ * @author Jonathan Lermitage
+ */
+@ActionID(category = "Project",
+        id = "fr.tikione.jacocoverage.plugin.action.ProjectWatchCoverage")
+@ActionRegistration(displayName = "#CTL_ProjectWatchCoverage",
+        lazy = false,
+        asynchronous = true,
+        surviveFocusChange = true)
+@ActionReference(path = "Projects/Actions",
+        position = 1989)
+@NbBundle.Messages({
+    "CTL_ProjectWatchCoverage=Start coverage watch",
+    "CTL_ProjectStopWatchCoverage=Stop coverage watch",
+    "MSG_CannotWatch=Build the test impact index and run \"Test with JaCoCoverage\" (keeping JaCoCo workfiles) first",
+    "MSG_WatchStarted=JaCoCoverage watch started: tests run again when compile-on-save updates classes",
+    "MSG_WatchStopped=JaCoCoverage watch stopped"
+})
+@SuppressWarnings("CloneableImplementsClone")
+public class ProjectWatchCoverage
+        extends AbstractAction
+        implements ContextAwareAction, Presenter.Popup {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProjectWatchCoverage() {
+        super();
+        Project project = NBUtils.getSelectedProject();
+        setEnabled(Utils.isProjectSupported(project, NBProjectTypeEnum.J2SE));
+        putValue(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        putValue(Action.NAME, isEnabled() && CoverageWatch.isWatching(project)
+                ? Bundle.CTL_ProjectStopWatchCoverage()
+                : Bundle.CTL_ProjectWatchCoverage());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        if (!isEnabled()) {
+            return;
+        }
+        Project project = NBUtils.getSelectedProject();
+        if (CoverageWatch.isWatching(project)) {
+            CoverageWatch.stop(project);
+            StatusDisplayer.getDefault().setStatusText(Bundle.MSG_WatchStopped());
+            return;
+        }
+        try {
+            if (CoverageWatch.start(project)) {
+                StatusDisplayer.getDefault().setStatusText(Bundle.MSG_WatchStarted());
+            } else {
+                StatusDisplayer.getDefault().setStatusText(Bundle.MSG_CannotWatch());
+            }
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    @Override
+    public Action createContextAwareInstance(Lookup context) {
+        return new ProjectWatchCoverage();
+    }
+
+    @Override
+    public JMenuItem getPopupPresenter() {
+        JMenuItem menuitem = new JMenuItem(this);
+        menuitem.putClientProperty(DynamicMenuContent.HIDE_WHEN_DISABLED, true);
+        return menuitem;
+    }
+}
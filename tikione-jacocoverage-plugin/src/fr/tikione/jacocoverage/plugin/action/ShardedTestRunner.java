@@ -0,0 +1,138 @@
+package fr.tikione.jacocoverage.plugin.action;
+
+import fr.tikione.jacocoexec.analyzer.BinaryReportMerger;
+import fr.tikione.jacocoverage.plugin.config.ProjectConfig;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import fr.tikione.jacocoverage.plugin.util.TestImpactIndex;
+import fr.tikione.jacocoverage.plugin.util.Utils;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.tools.ant.module.api.AntProjectCookie;
+import org.apache.tools.ant.module.api.AntTargetExecutor;
+import org.netbeans.api.project.Project;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.execution.ExecutorTask;
+import org.openide.util.NbBundle;
+import org.openide.util.Task;
+import org.openide.util.TaskListener;
+
+/**
+ * Run the test classes of a Java project in parallel shards: the test classes are split across shards, and each shard runs the
+ * <code>test-single</code> Ant task (so its own forked JVM) with the JaCoCo JavaAgent writing to its own binary report. The report
+ * of a shard is merged as soon as the shard finishes, while the others are still running. The test classes are compiled once before
+ * the shards start, and each shard writes its test results to its own folder (<code>shard-N</code> in the project's test results
+ * folder), so that the shards don't write to the same files.
+ *
+ * @author Jonathan Lermitage
+ */
+@NbBundle.Messages("MSG_NoTestToRun=No test class to run in this project, the current coverage data is kept")
+class ShardedTestRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(ShardedTestRunner.class.getName());
+
+    private ShardedTestRunner() {
+    }
+
+    /**
+     * Run the test classes of a project in parallel shards, and merge the shards' coverage data.
+     *
+     * @param project the project.
+     * @param cfg the project's JaCoCoverage configuration.
+     * @param prjProps the project's properties.
+     * @param antCookie the project's Ant script.
+     * @param addAntTargetProps additional properties passed to the Ant tasks.
+     * @param binreport the merged JaCoCo binary report to write.
+     * @param nbShards the maximum number of shards.
+     * @return the worst exit code of the Ant tasks, or {@link ActionJacocoOnAntTaskJ2SE#NOTHING_COLLECTED} if there is no test class
+     * to run.
+     * @throws IOException if a shard's binary report can't be merged.
+     */
+    static int run(Project project, ProjectConfig cfg, Properties prjProps, AntProjectCookie antCookie,
+            Properties addAntTargetProps, File binreport, int nbShards)
+            throws IOException {
+        String prjDir = NBUtils.getProjectDir(project) + File.separator;
+        List<String> tests = TestImpactIndex.listTests(new File(prjDir + Utils.getProperty(prjProps, "test.src.dir")));
+        if (tests.isEmpty()) {
+            DialogDisplayer.getDefault().notify(
+                    new NotifyDescriptor.Message(Bundle.MSG_NoTestToRun(), NotifyDescriptor.INFORMATION_MESSAGE));
+            return ActionJacocoOnAntTaskJ2SE.NOTHING_COLLECTED;
+        }
+        nbShards = Math.min(nbShards, tests.size());
+        String resultsDir = prjDir + Utils.getProperty(prjProps, "build.test.results.dir") + File.separator;
+
+        // Compile once, so that the shards don't compile the same classes concurrently.
+        AntTargetExecutor.Env compileEnv = new AntTargetExecutor.Env();
+        Properties compileProps = compileEnv.getProperties();
+        compileProps.putAll(addAntTargetProps);
+        compileEnv.setProperties(compileProps);
+        int compileRes = AntTargetExecutor.createTargetExecutor(compileEnv).execute(antCookie, new String[]{"compile-test"}).result();
+        if (compileRes != 0) {
+            return compileRes;
+        }
+
+        // Sorted test classes are dealt round-robin, so that each shard gets tests of every package.
+        List<StringBuilder> shardIncludes = new ArrayList<>(nbShards);
+        for (int shard = 0; shard < nbShards; shard++) {
+            shardIncludes.add(new StringBuilder(256));
+        }
+        for (int testIdx = 0; testIdx < tests.size(); testIdx++) {
+            StringBuilder includes = shardIncludes.get(testIdx % nbShards);
+            if (includes.length() > 0) {
+                includes.append(',');
+            }
+            includes.append(tests.get(testIdx));
+        }
+
+        final BinaryReportMerger merger = new BinaryReportMerger();
+        final CountDownLatch remainingShards = new CountDownLatch(nbShards);
+        final int[] worstRes = {0};
+        for (int shard = 0; shard < nbShards; shard++) {
+            final File shardreport = Utils.getJacocoBinReportFile(project);
+            AntTargetExecutor.Env env = new AntTargetExecutor.Env();
+            Properties targetProps = env.getProperties();
+            targetProps.putAll(addAntTargetProps);
+            targetProps.put("javac.includes", shardIncludes.get(shard).toString());
+            targetProps.put("test.includes", shardIncludes.get(shard).toString());
+            targetProps.put("build.test.results.dir", resultsDir + "shard-" + shard);
+            ActionJacocoOnAntTaskJ2SE.addJavaagent(project, cfg, prjProps, shardreport, targetProps);
+            env.setProperties(targetProps);
+            final ExecutorTask execute = AntTargetExecutor.createTargetExecutor(env).execute(antCookie, new String[]{"test-single"});
+            execute.addTaskListener(new TaskListener() {
+                @Override
+                public void taskFinished(Task task) {
+                    try {
+                        synchronized (worstRes) {
+                            worstRes[0] = Math.max(worstRes[0], execute.result());
+                        }
+                        merger.add(shardreport);
+                    } catch (IOException ex) {
+                        LOGGER.log(Level.WARNING, "Cannot merge the coverage data of a test shard", ex);
+                    } finally {
+                        shardreport.delete();
+                        remainingShards.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            remainingShards.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for test shards", ex);
+        }
+        if (merger.getNbReports() > 0) {
+            merger.write(binreport);
+        }
+        LOGGER.log(Level.INFO, "{0} test shards run, {1} reports merged", new Object[]{nbShards, merger.getNbReports()});
+        synchronized (worstRes) {
+            return worstRes[0];
+        }
+    }
+}
@@ -3,8 +3,10 @@ package fr.tikione.jacocoverage.plugin.anno;
 import fr.tikione.jacocoverage.plugin.config.Globals;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import org.openide.text.Annotatable;
 import org.openide.text.Annotation;
 import org.openide.text.Line;
@@ -22,8 +24,17 @@ public abstract class AbstractCoverageAnnotation extends Annotation implements P
 
     private final int theme;
 
-    /** A list of all registered living annotation. Used to know and clear annotations associated to a project. */
-    private final static HashMap<String, HashMap<Integer, Annotation>> annotations = 
+    /** Indicates if the coverage data of the annotated line is out of date (its class was recompiled since the coverage task). */
+    private volatile boolean stale = false;
+
+    /** Suffix of the annotation types (see "layer.xml") used when coverage data is out of date: dimmed highlighting, no glyph. */
+    protected static final String STALE_TYPE_SUFFIX = "_stale";
+
+    /**
+     * A list of all registered living annotation, by class and line. Used to know and clear annotations associated to a project.
+     * A line may hold several annotations, e.g. line coverage and method coverage.
+     */
+    private final static HashMap<String, HashMap<Integer, List<Annotation>>> annotations = 
             new HashMap<>(8);
 
     /** Utility character. Projects are identified by the concatenation of their path, this utility character and the project's name. */
@@ -42,12 +53,17 @@ public abstract class AbstractCoverageAnnotation extends Annotation implements P
         this.theme = theme;
         synchronized (annotations) {
             String key = combineKey(projectName, classFullName);
-            HashMap<Integer, Annotation> anns = annotations.get(key);
+            HashMap<Integer, List<Annotation>> anns = annotations.get(key);
             if (anns == null) {
                 anns = new HashMap<>(256);
                 annotations.put(key, anns);
             }
-            anns.put(lineNum, this);
+            List<Annotation> lineAnns = anns.get(lineNum);
+            if (lineAnns == null) {
+                lineAnns = new ArrayList<>(2);
+                anns.put(lineNum, lineAnns);
+            }
+            lineAnns.add(this);
         }
     }
 
@@ -78,11 +94,7 @@ public abstract class AbstractCoverageAnnotation extends Annotation implements P
             for (Iterator<String> it = annotations.keySet().iterator(); it.hasNext();) {
                 String key = it.next();
                 if (key.startsWith(projectName + KEY_JOIN_CHAR)) {
-                    HashMap<Integer, Annotation> anns = annotations.get(key);
-                    for (Iterator<Annotation> lit = anns.values().iterator(); lit.hasNext();) {
-                        lit.next().detach();
-                    }
-                    anns.clear();
+                    detachAll(annotations.get(key));
                     it.remove();
                 }
             }
@@ -98,17 +110,67 @@ public abstract class AbstractCoverageAnnotation extends Annotation implements P
     public static void removeFromClass(String projectName, String classFullName) {
         String id = combineKey(projectName, classFullName);
         synchronized (annotations) {
-            HashMap<Integer, Annotation> anns = annotations.get(id);
+            HashMap<Integer, List<Annotation>> anns = annotations.get(id);
             if (anns != null) {
-                for (Iterator<Annotation> lit = anns.values().iterator(); lit.hasNext();) {
-                    lit.next().detach();
-                }
-                anns.clear();
+                detachAll(anns);
                 annotations.remove(id);
             }
         }
     }
 
+    /**
+     * Mark the annotations of a specific class in the specific project as stale, or up to date again. Stale annotations have a
+     * dimmed style.
+     *
+     * @param projectName the project to mark annotations for.
+     * @param classFullName the class (package + name) to mark annotations for.
+     * @param stale {@code true} if the coverage data of the class is out of date.
+     */
+    public static void setStale(String projectName, String classFullName, boolean stale) {
+        List<AbstractCoverageAnnotation> updated = new ArrayList<>(64);
+        synchronized (annotations) {
+            HashMap<Integer, List<Annotation>> anns = annotations.get(combineKey(projectName, classFullName));
+            if (anns != null) {
+                for (List<Annotation> lineAnns : anns.values()) {
+                    for (Annotation ann : lineAnns) {
+                        AbstractCoverageAnnotation coverageAnn = (AbstractCoverageAnnotation) ann;
+                        if (coverageAnn.stale != stale) {
+                            coverageAnn.stale = stale;
+                            updated.add(coverageAnn);
+                        }
+                    }
+                }
+            }
+        }
+        for (AbstractCoverageAnnotation ann : updated) {
+            ann.firePropertyChange(PROP_ANNOTATION_TYPE, null, ann.getAnnotationType());
+            ann.firePropertyChange(PROP_SHORT_DESCRIPTION, null, ann.getShortDescription());
+        }
+    }
+
+    /**
+     * Indicates if the coverage data of the annotated line is out of date.
+     *
+     * @return {@code true} if the coverage data is out of date.
+     */
+    protected boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Detach annotations of a class.
+     *
+     * @param anns the annotations of a class, by line. Cleared.
+     */
+    private static void detachAll(HashMap<Integer, List<Annotation>> anns) {
+        for (List<Annotation> lineAnns : anns.values()) {
+            for (Annotation ann : lineAnns) {
+                ann.detach();
+            }
+        }
+        anns.clear();
+    }
+
     @Override
     public String getAnnotationType() {
         return Globals.THEME_PREFIX.get(theme);
@@ -1,5 +1,7 @@
 package fr.tikione.jacocoverage.plugin.anno;
 
+import fr.tikione.jacocoverage.plugin.util.CoveringTests;
+
 /**
  * Coverage annotation.
  *
@@ -9,18 +11,60 @@ public class CoverageAnnotation extends AbstractCoverageAnnotation {
 
     private final EditorCoverageStateEnum state;
 
+    private final String projectName;
+
+    private final String classFullName;
+
+    private final int lineNum;
+
+    /** Additional information about the line (e.g. change of coverage since the previous coverage task), {@code null} if none. */
+    private String note = null;
+
     public CoverageAnnotation(EditorCoverageStateEnum state, String projectName, String classFullName, Integer lineNum, int theme) {
         super(projectName, classFullName, lineNum, theme);
         this.state = state;
+        this.projectName = projectName;
+        this.classFullName = classFullName;
+        this.lineNum = lineNum;
     }
 
     @Override
     public String getAnnotationType() {
-        return super.getAnnotationType() + state.getType();
+        return super.getAnnotationType() + state.getType() + (isStale() ? STALE_TYPE_SUFFIX : "");
+    }
+
+    /**
+     * Add information about the line to the tooltip (e.g. change of coverage since the previous coverage task). Has to be called
+     * before attaching the annotation.
+     *
+     * @param note the information, or {@code null} if none.
+     */
+    public void setNote(String note) {
+        this.note = note;
     }
 
     @Override
     public String getShortDescription() {
-        return state.getDescription();
+        return withNote(state.getDescription());
+    }
+
+    /**
+     * Append the information about the line to a description, and the tests covering the line if they are known.
+     *
+     * @param desc the description.
+     * @return the description, followed by the information about the line, if any.
+     */
+    protected String withNote(String desc) {
+        String fullDesc = note == null ? desc : desc + " (" + note + ")";
+        if (isStale()) {
+            return fullDesc + ", out of date: recompiled since the coverage task";
+        }
+        if (state != EditorCoverageStateEnum.NOT_COVERED) {
+            String tests = CoveringTests.describe(projectName, classFullName, lineNum);
+            if (tests != null) {
+                fullDesc += ", " + tests;
+            }
+        }
+        return fullDesc;
     }
 }
@@ -17,11 +17,12 @@ public class CoverageGlyphedAnnotation extends CoverageAnnotation {
 
     @Override
     public String getAnnotationType() {
-        return super.getAnnotationType() + "_glyph";
+        // Stale annotations have no glyph: branches coverage is out of date too.
+        return isStale() ? super.getAnnotationType() : super.getAnnotationType() + "_glyph";
     }
 
     @Override
     public String getShortDescription() {
-        return desc;
+        return withNote(desc);
     }
 }
@@ -49,4 +49,22 @@ public enum EditorCoverageStateEnum {
                 return "annotation_unknown";
         }
     }
+
+    /**
+     * Get the method coverage type (id) registered in the "layer.xml" NetBeans module file.
+     *
+     * @return method coverage type.
+     */
+    public String getMethodType() {
+        switch (this) {
+            case COVERED:
+                return "annotation_method_covered";
+            case PARTIALLY_COVERED:
+                return "annotation_method_partiallycovered";
+            case NOT_COVERED:
+                return "annotation_method_notcovered";
+            default:
+                return "annotation_unknown";
+        }
+    }
 }
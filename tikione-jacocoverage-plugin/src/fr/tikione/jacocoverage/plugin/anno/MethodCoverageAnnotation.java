@@ -0,0 +1,30 @@
+package fr.tikione.jacocoverage.plugin.anno;
+
+/**
+ * Method coverage annotation: a glyph on the method's declaration line, without line highlighting.
+ *
+ * @author Jonathan Lermitage
+ */
+public class MethodCoverageAnnotation extends AbstractCoverageAnnotation {
+
+    private final EditorCoverageStateEnum state;
+
+    private final String desc;
+
+    public MethodCoverageAnnotation(EditorCoverageStateEnum state, String projectName, String classFullName, Integer lineNum,
+            String desc, int theme) {
+        super(projectName, classFullName, lineNum, theme);
+        this.state = state;
+        this.desc = desc;
+    }
+
+    @Override
+    public String getAnnotationType() {
+        return super.getAnnotationType() + state.getMethodType() + (isStale() ? STALE_TYPE_SUFFIX : "");
+    }
+
+    @Override
+    public String getShortDescription() {
+        return desc;
+    }
+}
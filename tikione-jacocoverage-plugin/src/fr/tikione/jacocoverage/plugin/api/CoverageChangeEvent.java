@@ -0,0 +1,52 @@
+package fr.tikione.jacocoverage.plugin.api;
+
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import java.util.EventObject;
+import org.netbeans.api.project.Project;
+
+/**
+ * A change of the coverage data of a Java source file.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageChangeEvent extends EventObject {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The project that contains the Java source file. */
+    private final transient Project project;
+
+    /** The Java source file, relative to a source root (e.g. <code>fr/tikione/Foo.java</code>). */
+    private final String classResource;
+
+    /** The new coverage data of the Java source file, {@code null} if the coverage data was removed. */
+    private final transient JavaClass javaClass;
+
+    public CoverageChangeEvent(Object source, Project project, String classResource, JavaClass javaClass) {
+        super(source);
+        this.project = project;
+        this.classResource = classResource;
+        this.javaClass = javaClass;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public String getClassResource() {
+        return classResource;
+    }
+
+    public JavaClass getJavaClass() {
+        return javaClass;
+    }
+
+    /**
+     * Check if the coverage data of the Java source file was removed.
+     *
+     * @return {@code true} if the file has no coverage data anymore.
+     */
+    public boolean isRemoved() {
+        return javaClass == null;
+    }
+}
@@ -0,0 +1,20 @@
+package fr.tikione.jacocoverage.plugin.api;
+
+import java.util.EventListener;
+
+/**
+ * Listener notified when the coverage data of a Java source file changes: a new JaCoCoverage task completed, or the coverage data
+ * of a project was removed.
+ *
+ * @author Jonathan Lermitage
+ */
+public interface CoverageChangeListener extends EventListener {
+
+    /**
+     * Called once per Java source file whose coverage data was added, replaced or removed.
+     * <br/>This method may be called outside the event dispatch thread.
+     *
+     * @param event the coverage change.
+     */
+    void coverageChanged(CoverageChangeEvent event);
+}
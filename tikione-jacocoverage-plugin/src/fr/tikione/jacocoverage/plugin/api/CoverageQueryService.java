@@ -0,0 +1,96 @@
+package fr.tikione.jacocoverage.plugin.api;
+
+import fr.tikione.jacocoexec.analyzer.CoverageStateEnum;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.JavaMethod;
+import fr.tikione.jacocoexec.analyzer.TrendPoint;
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedMap;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Coverage data of the latest JaCoCoverage task of each project, for other modules (editor hints, code review tools...).
+ * <br/>Queries are answered from the in-memory coverage data, no report file is parsed. Get the service from the global lookup:
+ * <pre>
+ * CoverageQueryService coverage = Lookup.getDefault().lookup(CoverageQueryService.class);
+ * </pre>
+ * Lines are 0-based, like in NetBeans source code editor.
+ *
+ * @author Jonathan Lermitage
+ */
+public interface CoverageQueryService {
+
+    /**
+     * Check if a Java source file has coverage data.
+     *
+     * @param sourceFile the Java source file.
+     * @return {@code true} if the latest coverage task of the file's project covered this file.
+     */
+    boolean hasCoverage(FileObject sourceFile);
+
+    /**
+     * Get the coverage state of a line. Constant time.
+     *
+     * @param sourceFile the Java source file.
+     * @param line the line (0-based).
+     * @return the coverage state of the line, or {@code null} if the line has no coverage data (no code, or no coverage data for
+     *         the file).
+     */
+    CoverageStateEnum getLineCoverage(FileObject sourceFile, int line);
+
+    /**
+     * Get the coverage state of the lines of a range. Linear time in the range size.
+     *
+     * @param sourceFile the Java source file.
+     * @param fromLine the first line of the range (0-based, inclusive).
+     * @param toLine the last line of the range (0-based, inclusive).
+     * @return the coverage state of the lines that have coverage data, by line (empty if no line has coverage data).
+     */
+    SortedMap<Integer, CoverageStateEnum> getRangeCoverage(FileObject sourceFile, int fromLine, int toLine);
+
+    /**
+     * Get the coverage data of the method that contains a line. Logarithmic time in the number of methods.
+     *
+     * @param sourceFile the Java source file.
+     * @param line the line (0-based).
+     * @return the coverage data of the method, or {@code null} if the line is out of every method or the file has no coverage data.
+     */
+    JavaMethod getMethodCoverage(FileObject sourceFile, int line);
+
+    /**
+     * Get the coverage data of a Java source file. Constant time.
+     *
+     * @param sourceFile the Java source file.
+     * @return the coverage data of the file, or {@code null} if the file has no coverage data.
+     */
+    JavaClass getClassCoverage(FileObject sourceFile);
+
+    /**
+     * Get the coverage trend of a project, package or Java source file over the latest coverage tasks, from the project's coverage
+     * history. Linear time in the number of recorded coverage tasks.
+     *
+     * @param project the project.
+     * @param name {@code null} or an empty string for the whole project, a package name (with "/" instead of ".", e.g.
+     *        <code>/fr/tikione/</code>) or a Java source file (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @return the coverage at each recorded coverage task, oldest first (empty if there is no coverage history, or if it is disabled).
+     * @throws IOException if the coverage history can't be read.
+     */
+    List<TrendPoint> getCoverageTrend(Project project, String name)
+            throws IOException;
+
+    /**
+     * Add a listener notified when the coverage data of a Java source file changes.
+     *
+     * @param listener the listener.
+     */
+    void addCoverageChangeListener(CoverageChangeListener listener);
+
+    /**
+     * Remove a coverage change listener.
+     *
+     * @param listener the listener.
+     */
+    void removeCoverageChangeListener(CoverageChangeListener listener);
+}
@@ -86,6 +86,97 @@ public class Config {
 		return pref.getBoolean(Globals.PROP_AUTOOPEN_HTML_REPORT, Globals.DEF_AUTOOPEN_HTML_REPORT);
 	}
 
+	/**
+	 * Get configuration value: rewrite only the HTML report pages whose coverage changed since the previous run.
+	 *
+	 * @return configuration value.
+	 */
+	public static boolean isIncrementalHtmlReport() {
+		return pref.getBoolean(Globals.PROP_INCREMENTAL_HTML_REPORT, Globals.DEF_INCREMENTAL_HTML_REPORT);
+	}
+
+	/**
+	 * Get configuration value: serve the HTML report from an embedded HTTP server instead of writing it to disk.
+	 *
+	 * @return configuration value.
+	 */
+	public static boolean isServeHtmlReport() {
+		return pref.getBoolean(Globals.PROP_SERVE_HTML_REPORT, Globals.DEF_SERVE_HTML_REPORT);
+	}
+
+	/**
+	 * Get configuration value: maximum number of classes (or packages) listed in the console report. 0 means no limit.
+	 *
+	 * @return configuration value.
+	 */
+	public static int getConsoleReportTop() {
+		return pref.getInt(Globals.PROP_CONSOLE_REPORT_TOP, Globals.DEF_CONSOLE_REPORT_TOP);
+	}
+
+	/**
+	 * Get configuration value: list packages instead of classes in the console report.
+	 *
+	 * @return configuration value.
+	 */
+	public static boolean isConsoleReportPackages() {
+		return pref.getBoolean(Globals.PROP_CONSOLE_REPORT_PACKAGES, Globals.DEF_CONSOLE_REPORT_PACKAGES);
+	}
+
+	/**
+	 * Get configuration value: number of risk hotspots to list in console. 0 disables the list.
+	 *
+	 * @return configuration value.
+	 */
+	public static int getRiskHotspots() {
+		return pref.getInt(Globals.PROP_RISK_HOTSPOTS, Globals.DEF_RISK_HOTSPOTS);
+	}
+
+	/**
+	 * Get configuration value: show method coverage glyphs on methods declarations.
+	 *
+	 * @return configuration value.
+	 */
+	public static boolean isEnblMethodGlyphs() {
+		return pref.getBoolean(Globals.PROP_ENBL_METHOD_GLYPHS, Globals.DEF_ENBL_METHOD_GLYPHS);
+	}
+
+	/**
+	 * Get configuration value: restore coverage data of the latest coverage task when a project is opened.
+	 *
+	 * @return configuration value.
+	 */
+	public static boolean isRestoreOnOpen() {
+		return pref.getBoolean(Globals.PROP_RESTORE_ON_OPEN, Globals.DEF_RESTORE_ON_OPEN);
+	}
+
+	/**
+	 * Get configuration value: number of coverage tasks kept in coverage history (0 if disabled).
+	 *
+	 * @return configuration value.
+	 */
+	public static int getHistoryRetention() {
+		return pref.getInt(Globals.PROP_HISTORY_RETENTION, Globals.DEF_HISTORY_RETENTION);
+	}
+
+	/**
+	 * Get configuration value: number of test shards run in parallel by "Test with JaCoCoverage" on Java projects (0 or 1 if
+	 * disabled).
+	 *
+	 * @return configuration value.
+	 */
+	public static int getTestShards() {
+		return pref.getInt(Globals.PROP_TEST_SHARDS, Globals.DEF_TEST_SHARDS);
+	}
+
+	/**
+	 * Get configuration value: accumulate the coverage data of every coverage task, until it is reset.
+	 *
+	 * @return configuration value.
+	 */
+	public static boolean isAccumulate() {
+		return pref.getBoolean(Globals.PROP_ACCUMULATE, Globals.DEF_ACCUMULATE);
+	}
+
 	/**
 	 * Get configuration value: use a custom JaCoCo jar instead of the bundled version.
 	 *
@@ -176,6 +267,96 @@ public class Config {
 		pref.putBoolean(Globals.PROP_AUTOOPEN_HTML_REPORT, enbl);
 	}
 
+	/**
+	 * Set configuration value: rewrite only the HTML report pages whose coverage changed since the previous run.
+	 *
+	 * @param enbl configuration value.
+	 */
+	public static void setIncrementalHtmlReport(boolean enbl) {
+		pref.putBoolean(Globals.PROP_INCREMENTAL_HTML_REPORT, enbl);
+	}
+
+	/**
+	 * Set configuration value: serve the HTML report from an embedded HTTP server instead of writing it to disk.
+	 *
+	 * @param enbl configuration value.
+	 */
+	public static void setServeHtmlReport(boolean enbl) {
+		pref.putBoolean(Globals.PROP_SERVE_HTML_REPORT, enbl);
+	}
+
+	/**
+	 * Set configuration value: maximum number of classes (or packages) listed in the console report. 0 means no limit.
+	 *
+	 * @param top configuration value.
+	 */
+	public static void setConsoleReportTop(int top) {
+		pref.putInt(Globals.PROP_CONSOLE_REPORT_TOP, top);
+	}
+
+	/**
+	 * Set configuration value: list packages instead of classes in the console report.
+	 *
+	 * @param enbl configuration value.
+	 */
+	public static void setConsoleReportPackages(boolean enbl) {
+		pref.putBoolean(Globals.PROP_CONSOLE_REPORT_PACKAGES, enbl);
+	}
+
+	/**
+	 * Set configuration value: number of risk hotspots to list in console. 0 disables the list.
+	 *
+	 * @param top configuration value.
+	 */
+	public static void setRiskHotspots(int top) {
+		pref.putInt(Globals.PROP_RISK_HOTSPOTS, top);
+	}
+
+	/**
+	 * Set configuration value: show method coverage glyphs on methods declarations.
+	 *
+	 * @param enbl configuration value.
+	 */
+	public static void setEnblMethodGlyphs(boolean enbl) {
+		pref.putBoolean(Globals.PROP_ENBL_METHOD_GLYPHS, enbl);
+	}
+
+	/**
+	 * Set configuration value: restore coverage data of the latest coverage task when a project is opened.
+	 *
+	 * @param restore configuration value.
+	 */
+	public static void setRestoreOnOpen(boolean restore) {
+		pref.putBoolean(Globals.PROP_RESTORE_ON_OPEN, restore);
+	}
+
+	/**
+	 * Set configuration value: number of coverage tasks kept in coverage history (0 to disable).
+	 *
+	 * @param retention configuration value.
+	 */
+	public static void setHistoryRetention(int retention) {
+		pref.putInt(Globals.PROP_HISTORY_RETENTION, retention);
+	}
+
+	/**
+	 * Set configuration value: number of test shards run in parallel (0 or 1 to disable).
+	 *
+	 * @param shards configuration value.
+	 */
+	public static void setTestShards(int shards) {
+		pref.putInt(Globals.PROP_TEST_SHARDS, shards);
+	}
+
+	/**
+	 * Set configuration value: accumulate the coverage data of every coverage task, until it is reset.
+	 *
+	 * @param accumulate configuration value.
+	 */
+	public static void setAccumulate(boolean accumulate) {
+		pref.putBoolean(Globals.PROP_ACCUMULATE, accumulate);
+	}
+
 	/**
 	 * Set configuration value: JaCoCoverage themePrefix.
 	 *
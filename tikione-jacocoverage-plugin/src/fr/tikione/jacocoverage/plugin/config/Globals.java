@@ -29,6 +29,26 @@ public class Globals {
 	/** The name of the NetBeans console tab where JaCoCo reports are displayed. */
 	public static final String TXTREPORT_TABNAME = " (jacocoverage report)";
 
+	/** The name of the NetBeans console tab where risk hotspots are displayed.
+	 * @since 1.6.0
+	 */
+	public static final String HOTSPOTS_TABNAME = " (jacocoverage risk hotspots)";
+
+	/** The name of the NetBeans console tab where not covered and partially covered blocks are listed.
+	 * @since 1.6.0
+	 */
+	public static final String UNCOVERED_TABNAME = " (jacocoverage uncovered code)";
+
+	/** The name of the NetBeans console tab where the changes of coverage since the previous coverage task are listed.
+	 * @since 1.6.0
+	 */
+	public static final String DELTA_TABNAME = " (jacocoverage coverage delta)";
+
+	/** The name of the NetBeans console tab where the coverage of the lines changed since the latest commit is displayed.
+	 * @since 1.6.0
+	 */
+	public static final String PATCH_TABNAME = " (jacocoverage patch coverage)";
+
 	/** Project preference: override globals. */
 	public static final String PROP_PRJ_OVERRIDE_GLOBALS = "JaCoCoverage.Prj.OverrideGlobals";
 
@@ -95,15 +115,40 @@ public class Globals {
 	/** The file where zipped JaCoCo binary reports are stored. */
 	public static final String BINZIP_BACKUP_REPORT = JACOCOVERAGE_DATA_DIR + "jacoco.latest.exec.zip";
 
-	/** The file where zipped JaCoCo XML reports are stored. */
+	/** The file where zipped JaCoCo XML reports were stored (replaced by {@link #SNAPSHOT_REPORT}, deleted if found). */
 	public static final String XMLZIP_BACKUP_REPORT = JACOCOVERAGE_DATA_DIR + "jacoco.latest.xml.zip";
 
 	/** The file where raw JaCoCo reports are stored. */
 	public static final String BIN_BACKUP_REPORT = JACOCOVERAGE_DATA_DIR + "jacoco.latest.exec";
 
-	/** The file where XML JaCoCo reports are stored. */
+	/** The file where XML JaCoCo reports were stored (replaced by {@link #SNAPSHOT_REPORT}, deleted if found). */
 	public static final String XML_BACKUP_REPORT = JACOCOVERAGE_DATA_DIR + "jacoco.latest.xml";
 
+	/** The file where the analyzed coverage data of the latest coverage task is stored.
+	 * @since 1.6.0
+	 */
+	public static final String SNAPSHOT_REPORT = JACOCOVERAGE_DATA_DIR + "coverage.latest.jcvsnap";
+
+	/** The folder where the coverage history of the latest coverage tasks is stored.
+	 * @since 1.6.0
+	 */
+	public static final String HISTORY_DIR = JACOCOVERAGE_DATA_DIR + "history" + File.separator;
+
+	/** The file where the test impact index (classes executed by each test class) is stored.
+	 * @since 1.6.0
+	 */
+	public static final String TEST_INDEX = JACOCOVERAGE_DATA_DIR + "tests.index.json";
+
+	/** The file where the test line index (tests covering each line) is stored.
+	 * @since 1.6.0
+	 */
+	public static final String TEST_LINES_INDEX = JACOCOVERAGE_DATA_DIR + "tests.lines.idx";
+
+	/** The file where the coverage data of every coverage task is accumulated, in accumulate mode.
+	 * @since 1.6.0
+	 */
+	public static final String ACCUMULATED_REPORT = JACOCOVERAGE_DATA_DIR + "jacoco.accumulated.exec";
+
 	/** Project's JaCoCoverage properties. */
 	public static final String PRJ_CFG = JACOCOVERAGE_DATA_DIR + "project.json";
 
@@ -127,6 +172,106 @@ public class Globals {
 	 */
 	public static final String DEF_CUSTOM_JACOCO_JAR_PATH = "/foo/bar/jacocoagent.jar";
 
+	/** User preference: rewrite only the HTML report pages whose coverage changed since the previous run.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_INCREMENTAL_HTML_REPORT = "JaCoCoverage.Html.IncrementalReport";
+
+	/** Default configuration value: rewrite only the HTML report pages whose coverage changed since the previous run.
+	 * @since 1.6.0
+	 */
+	public static final boolean DEF_INCREMENTAL_HTML_REPORT = true;
+
+	/** User preference: serve the HTML report from an embedded HTTP server instead of writing it to disk.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_SERVE_HTML_REPORT = "JaCoCoverage.Html.ServeReport";
+
+	/** Default configuration value: serve the HTML report from an embedded HTTP server instead of writing it to disk.
+	 * @since 1.6.0
+	 */
+	public static final boolean DEF_SERVE_HTML_REPORT = false;
+
+	/** User preference: maximum number of classes (or packages) listed in the console report, worst covered first. 0 means no limit.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_CONSOLE_REPORT_TOP = "JaCoCoverage.Console.ReportTop";
+
+	/** Default configuration value: maximum number of classes (or packages) listed in the console report.
+	 * @since 1.6.0
+	 */
+	public static final int DEF_CONSOLE_REPORT_TOP = 500;
+
+	/** User preference: list packages instead of classes in the console report.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_CONSOLE_REPORT_PACKAGES = "JaCoCoverage.Console.ReportPackages";
+
+	/** Default configuration value: list packages instead of classes in the console report.
+	 * @since 1.6.0
+	 */
+	public static final boolean DEF_CONSOLE_REPORT_PACKAGES = false;
+
+	/** User preference: number of risk hotspots (complex and poorly covered methods) to list in console. 0 disables the list.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_RISK_HOTSPOTS = "JaCoCoverage.Console.RiskHotspots";
+
+	/** Default configuration value: number of risk hotspots to list in console.
+	 * @since 1.6.0
+	 */
+	public static final int DEF_RISK_HOTSPOTS = 30;
+
+	/** User preference: show method coverage glyphs on methods declarations.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_ENBL_METHOD_GLYPHS = "JaCoCoverage.Editor.EnableMethodGlyphs";
+
+	/** Default configuration value: show method coverage glyphs on methods declarations.
+	 * @since 1.6.0
+	 */
+	public static final boolean DEF_ENBL_METHOD_GLYPHS = true;
+
+	/** User preference: restore coverage data of the latest coverage task when a project is opened.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_RESTORE_ON_OPEN = "JaCoCoverage.Restore.OnProjectOpen";
+
+	/** Default configuration value: restore coverage data of the latest coverage task when a project is opened.
+	 * @since 1.6.0
+	 */
+	public static final boolean DEF_RESTORE_ON_OPEN = true;
+
+	/** User preference: number of coverage tasks kept in coverage history (0 to disable coverage history).
+	 * @since 1.6.0
+	 */
+	public static final String PROP_HISTORY_RETENTION = "JaCoCoverage.History.Retention";
+
+	/** Default configuration value: number of coverage tasks kept in coverage history.
+	 * @since 1.6.0
+	 */
+	public static final int DEF_HISTORY_RETENTION = 50;
+
+	/** User preference: number of test shards run in parallel by "Test with JaCoCoverage" on Java projects (0 or 1 to disable).
+	 * @since 1.6.0
+	 */
+	public static final String PROP_TEST_SHARDS = "JaCoCoverage.Test.Shards";
+
+	/** Default configuration value: number of test shards run in parallel (disabled).
+	 * @since 1.6.0
+	 */
+	public static final int DEF_TEST_SHARDS = 0;
+
+	/** User preference: accumulate the coverage data of every coverage task ("Run" and "Test"), until it is reset.
+	 * @since 1.6.0
+	 */
+	public static final String PROP_ACCUMULATE = "JaCoCoverage.Accumulate";
+
+	/** Default configuration value: accumulate the coverage data of every coverage task.
+	 * @since 1.6.0
+	 */
+	public static final boolean DEF_ACCUMULATE = false;
+
 	private Globals() {
 	}
 }
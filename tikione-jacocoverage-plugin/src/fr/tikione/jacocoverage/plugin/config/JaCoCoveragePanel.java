@@ -19,8 +19,10 @@ import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
+import javax.swing.JSpinner;
 import javax.swing.JTextField;
 import javax.swing.LayoutStyle;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
 import javax.swing.filechooser.FileFilter;
 import org.openide.awt.Mnemonics;
@@ -85,6 +87,16 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
         jButtonSocialJojohome = new JButton();
         jCheckBoxEnableHtmlReport = new JCheckBox();
         jCheckBoxOpenHtmlReport = new JCheckBox();
+        jCheckBoxIncrementalHtmlReport = new JCheckBox();
+        jCheckBoxServeHtmlReport = new JCheckBox();
+        jLabelConsoleReportTop = new JLabel();
+        jSpinnerConsoleReportTop = new JSpinner();
+        jLabelRiskHotspots = new JLabel();
+        jSpinnerRiskHotspots = new JSpinner();
+        jCheckBoxEnableMethodGlyphs = new JCheckBox();
+        jLabelTestShards = new JLabel();
+        jSpinnerTestShards = new JSpinner();
+        jCheckBoxAccumulate = new JCheckBox();
         jLabelColorTheme = new JLabel();
         jComboBoxColorTheme = new JComboBox<>();
         jLabelWorkfiles = new JLabel();
@@ -189,6 +201,26 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
 
         Mnemonics.setLocalizedText(jCheckBoxOpenHtmlReport, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jCheckBoxOpenHtmlReport.text")); // NOI18N
 
+        Mnemonics.setLocalizedText(jCheckBoxIncrementalHtmlReport, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jCheckBoxIncrementalHtmlReport.text")); // NOI18N
+
+        Mnemonics.setLocalizedText(jCheckBoxServeHtmlReport, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jCheckBoxServeHtmlReport.text")); // NOI18N
+
+        Mnemonics.setLocalizedText(jLabelConsoleReportTop, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jLabelConsoleReportTop.text")); // NOI18N
+
+        jSpinnerConsoleReportTop.setModel(new SpinnerNumberModel(500, 0, 1000000, 100));
+
+        Mnemonics.setLocalizedText(jLabelRiskHotspots, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jLabelRiskHotspots.text")); // NOI18N
+
+        jSpinnerRiskHotspots.setModel(new SpinnerNumberModel(30, 0, 10000, 10));
+
+        Mnemonics.setLocalizedText(jCheckBoxEnableMethodGlyphs, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jCheckBoxEnableMethodGlyphs.text")); // NOI18N
+
+        Mnemonics.setLocalizedText(jLabelTestShards, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jLabelTestShards.text")); // NOI18N
+
+        jSpinnerTestShards.setModel(new SpinnerNumberModel(0, 0, 64, 1));
+
+        Mnemonics.setLocalizedText(jCheckBoxAccumulate, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jCheckBoxAccumulate.text")); // NOI18N
+
         Mnemonics.setLocalizedText(jLabelColorTheme, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jLabelColorTheme.text")); // NOI18N
 
         Mnemonics.setLocalizedText(jLabelWorkfiles, NbBundle.getMessage(JaCoCoveragePanel.class, "JaCoCoveragePanel.jLabelWorkfiles.text")); // NOI18N
@@ -265,6 +297,28 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
                         .addPreferredGap(LayoutStyle.ComponentPlacement.UNRELATED)
                         .addComponent(jLabelEclemmaWebsite))
                     .addComponent(jCheckBoxEnableConsoleReport)
+                    .addComponent(jCheckBoxAccumulate)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(jLabelTestShards)
+                        .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(jSpinnerTestShards, GroupLayout.PREFERRED_SIZE, 60, GroupLayout.PREFERRED_SIZE))
+                    .addComponent(jCheckBoxEnableMethodGlyphs)
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(21, 21, 21)
+                        .addComponent(jLabelRiskHotspots)
+                        .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(jSpinnerRiskHotspots, GroupLayout.PREFERRED_SIZE, 60, GroupLayout.PREFERRED_SIZE))
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(21, 21, 21)
+                        .addComponent(jLabelConsoleReportTop)
+                        .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(jSpinnerConsoleReportTop, GroupLayout.PREFERRED_SIZE, 60, GroupLayout.PREFERRED_SIZE))
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(21, 21, 21)
+                        .addComponent(jCheckBoxServeHtmlReport))
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(21, 21, 21)
+                        .addComponent(jCheckBoxIncrementalHtmlReport))
                     .addComponent(jCheckBoxEnableHtmlReport)
                     .addGroup(layout.createSequentialGroup()
                         .addComponent(jCheckBoxEnableHighlighting)
@@ -298,12 +352,32 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
                     .addComponent(jComboBoxColorTheme, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jCheckBoxEnableHighlightingExtended)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxEnableMethodGlyphs)
                 .addPreferredGap(LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jCheckBoxEnableConsoleReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabelConsoleReportTop)
+                    .addComponent(jSpinnerConsoleReportTop, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabelRiskHotspots)
+                    .addComponent(jSpinnerRiskHotspots, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jCheckBoxEnableHtmlReport)
                 .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jCheckBoxOpenHtmlReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxIncrementalHtmlReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxServeHtmlReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabelTestShards)
+                    .addComponent(jSpinnerTestShards, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxAccumulate)
                 .addPreferredGap(LayoutStyle.ComponentPlacement.UNRELATED)
                 .addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
                     .addComponent(jLabelWorkfiles)
@@ -338,13 +412,22 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
     private void jButtonResoreDefaultsActionPerformed(ActionEvent evt) {//GEN-FIRST:event_jButtonResoreDefaultsActionPerformed
 		jCheckBoxEnableHighlighting.setSelected(Globals.DEF_ENABLE_HIGHLIGHT);
 		jCheckBoxEnableConsoleReport.setSelected(Globals.DEF_ENABLE_CONSOLE_REPORT);
+		jSpinnerConsoleReportTop.setValue(Globals.DEF_CONSOLE_REPORT_TOP);
+		jSpinnerRiskHotspots.setValue(Globals.DEF_RISK_HOTSPOTS);
 		jCheckBoxEnableHtmlReport.setSelected(Globals.DEF_ENABLE_HTML_REPORT);
 		jCheckBoxOpenHtmlReport.setSelected(Globals.DEF_AUTOOPEN_HTML_REPORT);
+		jCheckBoxIncrementalHtmlReport.setSelected(Globals.DEF_INCREMENTAL_HTML_REPORT);
+		jCheckBoxServeHtmlReport.setSelected(Globals.DEF_SERVE_HTML_REPORT);
+		jSpinnerTestShards.setValue(Globals.DEF_TEST_SHARDS);
+		jCheckBoxAccumulate.setSelected(Globals.DEF_ACCUMULATE);
 		jCheckBoxOpenHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+		jCheckBoxIncrementalHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+		jCheckBoxServeHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
 		jComboBoxColorTheme.setSelectedIndex(Globals.DEF_THEME);
 		jComboBoxColorTheme.setEnabled(jCheckBoxEnableHighlighting.isSelected());
 		jComboBoxWorkfiles.setSelectedIndex(Globals.DEF_JACOCOWORKFILES_RULE);
 		jCheckBoxEnableHighlightingExtended.setSelected(Globals.DEF_ENABLE_HIGHLIGHTEXTENDED);
+		jCheckBoxEnableMethodGlyphs.setSelected(Globals.DEF_ENBL_METHOD_GLYPHS);
 		jCheckBoxEnableHighlightingExtended.setEnabled(jCheckBoxEnableHighlighting.isSelected());
 		jCheckBoxUseBundledJaCoCoJar.setSelected(!Globals.DEF_USE_CUSTOM_JACOCO_JAR);
 		jTextFieldUseCustomJaCoCoJar.setText(Globals.DEF_CUSTOM_JACOCO_JAR_PATH);
@@ -375,6 +458,8 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
 
     private void jCheckBoxEnableHtmlReportActionPerformed(ActionEvent evt) {//GEN-FIRST:event_jCheckBoxEnableHtmlReportActionPerformed
 		jCheckBoxOpenHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+		jCheckBoxIncrementalHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+		jCheckBoxServeHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
     }//GEN-LAST:event_jCheckBoxEnableHtmlReportActionPerformed
 
     private void jCheckBoxEnableHighlightingActionPerformed(ActionEvent evt) {//GEN-FIRST:event_jCheckBoxEnableHighlightingActionPerformed
@@ -432,13 +517,22 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
 		Config.sync();
 		jCheckBoxEnableHighlighting.setSelected(Config.isEnblHighlighting());
 		jCheckBoxEnableConsoleReport.setSelected(Config.isEnblConsoleReport());
+		jSpinnerConsoleReportTop.setValue(Config.getConsoleReportTop());
+		jSpinnerRiskHotspots.setValue(Config.getRiskHotspots());
 		jCheckBoxEnableHtmlReport.setSelected(Config.isEnblHtmlReport());
 		jCheckBoxOpenHtmlReport.setSelected(Config.isOpenHtmlReport());
+		jCheckBoxIncrementalHtmlReport.setSelected(Config.isIncrementalHtmlReport());
+		jCheckBoxServeHtmlReport.setSelected(Config.isServeHtmlReport());
+		jSpinnerTestShards.setValue(Config.getTestShards());
+		jCheckBoxAccumulate.setSelected(Config.isAccumulate());
 		jCheckBoxOpenHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+		jCheckBoxIncrementalHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+		jCheckBoxServeHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
 		jComboBoxColorTheme.setSelectedIndex(Config.getTheme());
 		jComboBoxColorTheme.setEnabled(jCheckBoxEnableHighlighting.isSelected());
 		jComboBoxWorkfiles.setSelectedIndex(Config.getJaCoCoWorkfilesRule());
 		jCheckBoxEnableHighlightingExtended.setSelected(Config.isEnblHighlightingExtended());
+		jCheckBoxEnableMethodGlyphs.setSelected(Config.isEnblMethodGlyphs());
 		jCheckBoxEnableHighlightingExtended.setEnabled(jCheckBoxEnableHighlighting.isSelected());
 		jCheckBoxUseBundledJaCoCoJar.setSelected(!Config.isUseCustomJacocoJar());
 		jTextFieldUseCustomJaCoCoJar.setVisible(!jCheckBoxUseBundledJaCoCoJar.isSelected());
@@ -450,12 +544,19 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
 	/** Store configuration to user preferences. */
 	void store() {
 		Config.setEnblConsoleReport(jCheckBoxEnableConsoleReport.isSelected());
+		Config.setConsoleReportTop((Integer) jSpinnerConsoleReportTop.getValue());
+		Config.setRiskHotspots((Integer) jSpinnerRiskHotspots.getValue());
 		Config.setEnblHighlighting(jCheckBoxEnableHighlighting.isSelected());
 		Config.setEnblHtmlReport(jCheckBoxEnableHtmlReport.isSelected());
 		Config.setOpenHtmlReport(jCheckBoxOpenHtmlReport.isSelected());
+		Config.setIncrementalHtmlReport(jCheckBoxIncrementalHtmlReport.isSelected());
+		Config.setServeHtmlReport(jCheckBoxServeHtmlReport.isSelected());
+		Config.setTestShards((Integer) jSpinnerTestShards.getValue());
+		Config.setAccumulate(jCheckBoxAccumulate.isSelected());
 		Config.setTheme(jComboBoxColorTheme.getSelectedIndex());
 		Config.setJaCoCoWorkfilesRule(jComboBoxWorkfiles.getSelectedIndex());
 		Config.setEnblHighlightingExtended(jCheckBoxEnableHighlightingExtended.isSelected());
+		Config.setEnblMethodGlyphs(jCheckBoxEnableMethodGlyphs.isSelected());
 		Config.setUseCustomJacocoJar(!jCheckBoxUseBundledJaCoCoJar.isSelected());
 		Config.setCustomJacocoJarPath(jTextFieldUseCustomJaCoCoJar.getText());
 		Config.flush();
@@ -473,20 +574,30 @@ class JaCoCoveragePanel extends javax.swing.JPanel {
     private JButton jButtonSocialGithub;
     private JButton jButtonSocialJojohome;
     private JButton jButtonSocialTwitter;
+    private JCheckBox jCheckBoxAccumulate;
     private JCheckBox jCheckBoxEnableConsoleReport;
     private JCheckBox jCheckBoxEnableHighlighting;
     private JCheckBox jCheckBoxEnableHighlightingExtended;
     private JCheckBox jCheckBoxEnableHtmlReport;
+    private JCheckBox jCheckBoxEnableMethodGlyphs;
+    private JCheckBox jCheckBoxIncrementalHtmlReport;
     private JCheckBox jCheckBoxOpenHtmlReport;
+    private JCheckBox jCheckBoxServeHtmlReport;
     private JCheckBox jCheckBoxUseBundledJaCoCoJar;
     private JComboBox<Object> jComboBoxColorTheme;
     private JComboBox<String> jComboBoxWorkfiles;
     private JLabel jLabelColorTheme;
+    private JLabel jLabelConsoleReportTop;
     private JLabel jLabelEclemmaWebsite;
+    private JLabel jLabelRiskHotspots;
+    private JLabel jLabelTestShards;
     private JLabel jLabelUseBundledJaCoCoJar;
     private JLabel jLabelUseCustomJaCoCoJar;
     private JLabel jLabelWorkfiles;
     private JLabel jLabelWorkfilesTips;
+    private JSpinner jSpinnerConsoleReportTop;
+    private JSpinner jSpinnerRiskHotspots;
+    private JSpinner jSpinnerTestShards;
     private JTextField jTextFieldUseCustomJaCoCoJar;
     // End of variables declaration//GEN-END:variables
 }
@@ -26,9 +26,11 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.LayoutStyle;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
 import javax.swing.table.DefaultTableModel;
 import org.netbeans.api.project.Project;
@@ -145,9 +147,16 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
             jRadioButtonUseProjectSpecificOptions.setSelected(overrideGlobals);
             jCheckBoxEnableHighlighting.setSelected(prjCfg.isEnblHighlighting());
             jCheckBoxEnableHighlightingExtended.setSelected(prjCfg.isEnblHighlightingExtended());
+            jCheckBoxEnableMethodGlyphs.setSelected(prjCfg.isEnblMethodGlyphs());
             jCheckBoxEnableConsoleReport.setSelected(prjCfg.isEnblConsoleReport());
+            jSpinnerConsoleReportTop.setValue(prjCfg.getConsoleReportTop());
+            jSpinnerRiskHotspots.setValue(prjCfg.getRiskHotspots());
             jCheckBoxEnableHtmlReport.setSelected(prjCfg.isEnblHtmlReport());
             jCheckBoxOpenHtmlReport.setSelected(prjCfg.isOpenHtmlReport());
+            jCheckBoxIncrementalHtmlReport.setSelected(prjCfg.isIncrementalHtmlReport());
+            jCheckBoxServeHtmlReport.setSelected(prjCfg.isServeHtmlReport());
+            jSpinnerTestShards.setValue(prjCfg.getTestShards());
+            jCheckBoxAccumulate.setSelected(prjCfg.isAccumulate());
             jComboBoxWorkfiles.setSelectedIndex(prjCfg.getJaCoCoWorkfilesRule());
             enableProjectsideCfgUI(overrideGlobals);
             loadPkgFilter(LoadPkgFilterPolicy.SELECT_FROM_CONFIG);
@@ -171,9 +180,16 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
             prjCfg.setOverrideGlobals(jRadioButtonUseProjectSpecificOptions.isSelected());
             prjCfg.setEnblHighlighting(jCheckBoxEnableHighlighting.isSelected());
             prjCfg.setEnblHighlightingExtended(jCheckBoxEnableHighlightingExtended.isSelected());
+            prjCfg.setEnblMethodGlyphs(jCheckBoxEnableMethodGlyphs.isSelected());
             prjCfg.setEnblConsoleReport(jCheckBoxEnableConsoleReport.isSelected());
+            prjCfg.setConsoleReportTop((Integer) jSpinnerConsoleReportTop.getValue());
+            prjCfg.setRiskHotspots((Integer) jSpinnerRiskHotspots.getValue());
             prjCfg.setEnblHtmlReport(jCheckBoxEnableHtmlReport.isSelected());
             prjCfg.setOpenHtmlReport(jCheckBoxOpenHtmlReport.isSelected());
+            prjCfg.setIncrementalHtmlReport(jCheckBoxIncrementalHtmlReport.isSelected());
+            prjCfg.setServeHtmlReport(jCheckBoxServeHtmlReport.isSelected());
+            prjCfg.setTestShards((Integer) jSpinnerTestShards.getValue());
+            prjCfg.setAccumulate(jCheckBoxAccumulate.isSelected());
             prjCfg.setJaCoCoWorkfilesRule(jComboBoxWorkfiles.getSelectedIndex());
             prjCfg.store();
         } catch (IOException ex) {
@@ -185,13 +201,23 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
         jTabbedPanePrjOpts.setVisible(enable);
         if (enable) {
             jCheckBoxEnableConsoleReport.setEnabled(enable);
+            jLabelConsoleReportTop.setEnabled(enable);
+            jSpinnerConsoleReportTop.setEnabled(enable);
+            jLabelRiskHotspots.setEnabled(enable);
+            jSpinnerRiskHotspots.setEnabled(enable);
             jCheckBoxEnableHighlighting.setEnabled(enable);
+            jCheckBoxEnableMethodGlyphs.setEnabled(enable);
             jCheckBoxEnableHtmlReport.setEnabled(enable);
+            jLabelTestShards.setEnabled(enable);
+            jSpinnerTestShards.setEnabled(enable);
+            jCheckBoxAccumulate.setEnabled(enable);
             jComboBoxWorkfiles.setEnabled(enable);
             jLabelWorkfiles.setEnabled(enable);
             jLabelWorkfilesTips.setEnabled(enable);
             jCheckBoxEnableHighlightingExtended.setEnabled(jCheckBoxEnableHighlighting.isSelected());
             jCheckBoxOpenHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+            jCheckBoxIncrementalHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+            jCheckBoxServeHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
         }
     }
 
@@ -222,6 +248,16 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
         jCheckBoxEnableConsoleReport = new JCheckBox();
         jCheckBoxEnableHtmlReport = new JCheckBox();
         jCheckBoxOpenHtmlReport = new JCheckBox();
+        jCheckBoxIncrementalHtmlReport = new JCheckBox();
+        jCheckBoxServeHtmlReport = new JCheckBox();
+        jLabelConsoleReportTop = new JLabel();
+        jSpinnerConsoleReportTop = new JSpinner();
+        jLabelRiskHotspots = new JLabel();
+        jSpinnerRiskHotspots = new JSpinner();
+        jCheckBoxEnableMethodGlyphs = new JCheckBox();
+        jLabelTestShards = new JLabel();
+        jSpinnerTestShards = new JSpinner();
+        jCheckBoxAccumulate = new JCheckBox();
         jLabelWorkfiles = new JLabel();
         jComboBoxWorkfiles = new JComboBox<>();
         jLabelWorkfilesTips = new JLabel();
@@ -275,6 +311,26 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
 
         Mnemonics.setLocalizedText(jCheckBoxOpenHtmlReport, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jCheckBoxOpenHtmlReport.text")); // NOI18N
 
+        Mnemonics.setLocalizedText(jCheckBoxIncrementalHtmlReport, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jCheckBoxIncrementalHtmlReport.text")); // NOI18N
+
+        Mnemonics.setLocalizedText(jCheckBoxServeHtmlReport, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jCheckBoxServeHtmlReport.text")); // NOI18N
+
+        Mnemonics.setLocalizedText(jLabelConsoleReportTop, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jLabelConsoleReportTop.text")); // NOI18N
+
+        jSpinnerConsoleReportTop.setModel(new SpinnerNumberModel(500, 0, 1000000, 100));
+
+        Mnemonics.setLocalizedText(jLabelRiskHotspots, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jLabelRiskHotspots.text")); // NOI18N
+
+        jSpinnerRiskHotspots.setModel(new SpinnerNumberModel(30, 0, 10000, 10));
+
+        Mnemonics.setLocalizedText(jCheckBoxEnableMethodGlyphs, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jCheckBoxEnableMethodGlyphs.text")); // NOI18N
+
+        Mnemonics.setLocalizedText(jLabelTestShards, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jLabelTestShards.text")); // NOI18N
+
+        jSpinnerTestShards.setModel(new SpinnerNumberModel(0, 0, 64, 1));
+
+        Mnemonics.setLocalizedText(jCheckBoxAccumulate, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jCheckBoxAccumulate.text")); // NOI18N
+
         Mnemonics.setLocalizedText(jLabelWorkfiles, NbBundle.getMessage(PrjcfgAntJavasePanel.class, "PrjcfgAntJavasePanel.jLabelWorkfiles.text")); // NOI18N
 
         jComboBoxWorkfiles.setModel(new DefaultComboBoxModel<>(new String[] { "keep original workfiles", "keep zipped workfiles", "delete workfiles" }));
@@ -380,6 +436,28 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
                             .addGroup(jPanelGeneralOptionsLayout.createSequentialGroup()
                                 .addGroup(jPanelGeneralOptionsLayout.createParallelGroup(GroupLayout.Alignment.LEADING)
                                     .addComponent(jCheckBoxEnableConsoleReport)
+                                    .addComponent(jCheckBoxAccumulate)
+                                    .addGroup(jPanelGeneralOptionsLayout.createSequentialGroup()
+                                        .addComponent(jLabelTestShards)
+                                        .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                                        .addComponent(jSpinnerTestShards, GroupLayout.PREFERRED_SIZE, 60, GroupLayout.PREFERRED_SIZE))
+                                    .addComponent(jCheckBoxEnableMethodGlyphs)
+                                    .addGroup(jPanelGeneralOptionsLayout.createSequentialGroup()
+                                        .addGap(21, 21, 21)
+                                        .addComponent(jLabelRiskHotspots)
+                                        .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                                        .addComponent(jSpinnerRiskHotspots, GroupLayout.PREFERRED_SIZE, 60, GroupLayout.PREFERRED_SIZE))
+                                    .addGroup(jPanelGeneralOptionsLayout.createSequentialGroup()
+                                        .addGap(21, 21, 21)
+                                        .addComponent(jLabelConsoleReportTop)
+                                        .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                                        .addComponent(jSpinnerConsoleReportTop, GroupLayout.PREFERRED_SIZE, 60, GroupLayout.PREFERRED_SIZE))
+                                    .addGroup(jPanelGeneralOptionsLayout.createSequentialGroup()
+                                        .addGap(21, 21, 21)
+                                        .addComponent(jCheckBoxServeHtmlReport))
+                                    .addGroup(jPanelGeneralOptionsLayout.createSequentialGroup()
+                                        .addGap(21, 21, 21)
+                                        .addComponent(jCheckBoxIncrementalHtmlReport))
                                     .addComponent(jCheckBoxEnableHtmlReport)
                                     .addGroup(jPanelGeneralOptionsLayout.createSequentialGroup()
                                         .addGap(21, 21, 21)
@@ -397,11 +475,31 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
                 .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jCheckBoxEnableHighlightingExtended)
                 .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxEnableMethodGlyphs)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jCheckBoxEnableConsoleReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(jPanelGeneralOptionsLayout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabelConsoleReportTop)
+                    .addComponent(jSpinnerConsoleReportTop, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(jPanelGeneralOptionsLayout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabelRiskHotspots)
+                    .addComponent(jSpinnerRiskHotspots, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jCheckBoxEnableHtmlReport)
                 .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jCheckBoxOpenHtmlReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxIncrementalHtmlReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxServeHtmlReport)
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(jPanelGeneralOptionsLayout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabelTestShards)
+                    .addComponent(jSpinnerTestShards, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jCheckBoxAccumulate)
                 .addPreferredGap(LayoutStyle.ComponentPlacement.UNRELATED)
                 .addGroup(jPanelGeneralOptionsLayout.createParallelGroup(GroupLayout.Alignment.BASELINE)
                     .addComponent(jLabelWorkfiles)
@@ -542,6 +640,8 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
 
     private void jCheckBoxEnableHtmlReportActionPerformed(ActionEvent evt) {//GEN-FIRST:event_jCheckBoxEnableHtmlReportActionPerformed
         jCheckBoxOpenHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+        jCheckBoxIncrementalHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
+        jCheckBoxServeHtmlReport.setEnabled(jCheckBoxEnableHtmlReport.isSelected());
     }//GEN-LAST:event_jCheckBoxEnableHtmlReportActionPerformed
 
     private void jButtonSocialTwitterActionPerformed(ActionEvent evt) {//GEN-FIRST:event_jButtonSocialTwitterActionPerformed
@@ -585,14 +685,21 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
     private JButton jButtonSocialJojohome;
     private JButton jButtonSocialTwitter;
     private JButton jButtonUnselectAll;
+    private JCheckBox jCheckBoxAccumulate;
     private JCheckBox jCheckBoxEnableConsoleReport;
     private JCheckBox jCheckBoxEnableHighlighting;
     private JCheckBox jCheckBoxEnableHighlightingExtended;
     private JCheckBox jCheckBoxEnableHtmlReport;
+    private JCheckBox jCheckBoxEnableMethodGlyphs;
+    private JCheckBox jCheckBoxIncrementalHtmlReport;
     private JCheckBox jCheckBoxOpenHtmlReport;
+    private JCheckBox jCheckBoxServeHtmlReport;
     private JComboBox<String> jComboBoxWorkfiles;
     private JLabel jLabel1;
+    private JLabel jLabelConsoleReportTop;
+    private JLabel jLabelRiskHotspots;
     private JLabel jLabelSelectPackages;
+    private JLabel jLabelTestShards;
     private JLabel jLabelWorkfiles;
     private JLabel jLabelWorkfilesTips;
     private JPanel jPanelGeneralOptions;
@@ -600,6 +707,9 @@ public class PrjcfgAntJavasePanel extends javax.swing.JPanel implements IStorabl
     private JRadioButton jRadioButtonUseGlobalOptions;
     private JRadioButton jRadioButtonUseProjectSpecificOptions;
     private JScrollPane jScrollPane1;
+    private JSpinner jSpinnerConsoleReportTop;
+    private JSpinner jSpinnerRiskHotspots;
+    private JSpinner jSpinnerTestShards;
     private JTabbedPane jTabbedPanePrjOpts;
     private JTable jTablePackageFilter;
     // End of variables declaration//GEN-END:variables
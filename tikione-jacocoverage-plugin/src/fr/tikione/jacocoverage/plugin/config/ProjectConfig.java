@@ -223,6 +223,102 @@ public class ProjectConfig {
         return res;
     }
 
+    /**
+     * Get configuration value: rewrite only the HTML report pages whose coverage changed since the previous run.
+     *
+     * @return configuration value.
+     */
+    public boolean isIncrementalHtmlReport() {
+        boolean res;
+        if (isOverrideGlobals()) {
+            res = Boolean.parseBoolean(getInternalPref().getProperty(
+                    Globals.PROP_INCREMENTAL_HTML_REPORT, Boolean.toString(Globals.DEF_INCREMENTAL_HTML_REPORT)));
+        } else {
+            res = Config.isIncrementalHtmlReport();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: serve the HTML report from an embedded HTTP server instead of writing it to disk.
+     *
+     * @return configuration value.
+     */
+    public boolean isServeHtmlReport() {
+        boolean res;
+        if (isOverrideGlobals()) {
+            res = Boolean.parseBoolean(getInternalPref().getProperty(
+                    Globals.PROP_SERVE_HTML_REPORT, Boolean.toString(Globals.DEF_SERVE_HTML_REPORT)));
+        } else {
+            res = Config.isServeHtmlReport();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: maximum number of classes (or packages) listed in the console report. 0 means no limit.
+     *
+     * @return configuration value.
+     */
+    public int getConsoleReportTop() {
+        int res;
+        if (isOverrideGlobals()) {
+            res = Integer.parseInt(getInternalPref().getProperty(
+                    Globals.PROP_CONSOLE_REPORT_TOP, Integer.toString(Globals.DEF_CONSOLE_REPORT_TOP)));
+        } else {
+            res = Config.getConsoleReportTop();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: list packages instead of classes in the console report.
+     *
+     * @return configuration value.
+     */
+    public boolean isConsoleReportPackages() {
+        boolean res;
+        if (isOverrideGlobals()) {
+            res = Boolean.parseBoolean(getInternalPref().getProperty(
+                    Globals.PROP_CONSOLE_REPORT_PACKAGES, Boolean.toString(Globals.DEF_CONSOLE_REPORT_PACKAGES)));
+        } else {
+            res = Config.isConsoleReportPackages();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: number of risk hotspots to list in console. 0 disables the list.
+     *
+     * @return configuration value.
+     */
+    public int getRiskHotspots() {
+        int res;
+        if (isOverrideGlobals()) {
+            res = Integer.parseInt(getInternalPref().getProperty(
+                    Globals.PROP_RISK_HOTSPOTS, Integer.toString(Globals.DEF_RISK_HOTSPOTS)));
+        } else {
+            res = Config.getRiskHotspots();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: show method coverage glyphs on methods declarations.
+     *
+     * @return configuration value.
+     */
+    public boolean isEnblMethodGlyphs() {
+        boolean res;
+        if (isOverrideGlobals()) {
+            res = Boolean.parseBoolean(getInternalPref().getProperty(
+                    Globals.PROP_ENBL_METHOD_GLYPHS, Boolean.toString(Globals.DEF_ENBL_METHOD_GLYPHS)));
+        } else {
+            res = Config.isEnblMethodGlyphs();
+        }
+        return res;
+    }
+
     /**
      * Get configuration value: JaCoCoverage themePrefix.
      *
@@ -255,6 +351,71 @@ public class ProjectConfig {
         return res;
     }
 
+    /**
+     * Get configuration value: accumulate the coverage data of every coverage task, until it is reset.
+     *
+     * @return configuration value.
+     */
+    public boolean isAccumulate() {
+        boolean res;
+        if (isOverrideGlobals()) {
+            res = Boolean.parseBoolean(getInternalPref().getProperty(
+                    Globals.PROP_ACCUMULATE, Boolean.toString(Globals.DEF_ACCUMULATE)));
+        } else {
+            res = Config.isAccumulate();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: number of test shards run in parallel by "Test with JaCoCoverage" on Java projects (0 or 1 if
+     * disabled).
+     *
+     * @return configuration value.
+     */
+    public int getTestShards() {
+        int res;
+        if (isOverrideGlobals()) {
+            res = Integer.parseInt(getInternalPref().getProperty(
+                    Globals.PROP_TEST_SHARDS, Integer.toString(Globals.DEF_TEST_SHARDS)));
+        } else {
+            res = Config.getTestShards();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: number of coverage tasks kept in coverage history (0 if disabled).
+     *
+     * @return configuration value.
+     */
+    public int getHistoryRetention() {
+        int res;
+        if (isOverrideGlobals()) {
+            res = Integer.parseInt(getInternalPref().getProperty(
+                    Globals.PROP_HISTORY_RETENTION, Integer.toString(Globals.DEF_HISTORY_RETENTION)));
+        } else {
+            res = Config.getHistoryRetention();
+        }
+        return res;
+    }
+
+    /**
+     * Get configuration value: restore coverage data of the latest coverage task when a project is opened.
+     *
+     * @return configuration value.
+     */
+    public boolean isRestoreOnOpen() {
+        boolean res;
+        if (isOverrideGlobals()) {
+            res = Boolean.parseBoolean(getInternalPref().getProperty(
+                    Globals.PROP_RESTORE_ON_OPEN, Boolean.toString(Globals.DEF_RESTORE_ON_OPEN)));
+        } else {
+            res = Config.isRestoreOnOpen();
+        }
+        return res;
+    }
+
     /**
      * Set configuration value: show a minimal textual JaCoCo report in a NetBeans console tab.
      *
@@ -320,6 +481,84 @@ public class ProjectConfig {
         }
     }
 
+    /**
+     * Set configuration value: rewrite only the HTML report pages whose coverage changed since the previous run.
+     *
+     * @param enbl configuration value.
+     */
+    public void setIncrementalHtmlReport(boolean enbl) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_INCREMENTAL_HTML_REPORT, Boolean.toString(enbl));
+        } else {
+            Config.setIncrementalHtmlReport(enbl);
+        }
+    }
+
+    /**
+     * Set configuration value: serve the HTML report from an embedded HTTP server instead of writing it to disk.
+     *
+     * @param enbl configuration value.
+     */
+    public void setServeHtmlReport(boolean enbl) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_SERVE_HTML_REPORT, Boolean.toString(enbl));
+        } else {
+            Config.setServeHtmlReport(enbl);
+        }
+    }
+
+    /**
+     * Set configuration value: maximum number of classes (or packages) listed in the console report. 0 means no limit.
+     *
+     * @param top configuration value.
+     */
+    public void setConsoleReportTop(int top) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_CONSOLE_REPORT_TOP, Integer.toString(top));
+        } else {
+            Config.setConsoleReportTop(top);
+        }
+    }
+
+    /**
+     * Set configuration value: list packages instead of classes in the console report.
+     *
+     * @param enbl configuration value.
+     */
+    public void setConsoleReportPackages(boolean enbl) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_CONSOLE_REPORT_PACKAGES, Boolean.toString(enbl));
+        } else {
+            Config.setConsoleReportPackages(enbl);
+        }
+    }
+
+    /**
+     * Set configuration value: number of risk hotspots to list in console. 0 disables the list.
+     *
+     * @param top configuration value.
+     */
+    public void setRiskHotspots(int top) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_RISK_HOTSPOTS, Integer.toString(top));
+        } else {
+            Config.setRiskHotspots(top);
+        }
+    }
+
+    /**
+     * Set configuration value: show method coverage glyphs on methods declarations.
+     *
+     * @param enbl configuration value.
+     */
+    public void setEnblMethodGlyphs(boolean enbl) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_ENBL_METHOD_GLYPHS, Boolean.toString(enbl));
+        } else {
+            Config.setEnblMethodGlyphs(enbl);
+        }
+    }
+
     /**
      * Set configuration value: JaCoCoverage themePrefix.
      *
@@ -345,4 +584,57 @@ public class ProjectConfig {
             Config.setJaCoCoWorkfilesRule(rule);
         }
     }
+
+    /**
+     * Set configuration value: accumulate the coverage data of every coverage task, until it is reset.
+     *
+     * @param accumulate configuration value.
+     */
+    public void setAccumulate(boolean accumulate) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_ACCUMULATE, Boolean.toString(accumulate));
+        } else {
+            Config.setAccumulate(accumulate);
+        }
+    }
+
+    /**
+     * Set configuration value: number of test shards run in parallel by "Test with JaCoCoverage" on Java projects (0 or 1 to
+     * disable).
+     *
+     * @param shards configuration value.
+     */
+    public void setTestShards(int shards) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_TEST_SHARDS, Integer.toString(shards));
+        } else {
+            Config.setTestShards(shards);
+        }
+    }
+
+    /**
+     * Set configuration value: number of coverage tasks kept in coverage history (0 to disable).
+     *
+     * @param retention configuration value.
+     */
+    public void setHistoryRetention(int retention) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_HISTORY_RETENTION, Integer.toString(retention));
+        } else {
+            Config.setHistoryRetention(retention);
+        }
+    }
+
+    /**
+     * Set configuration value: restore coverage data of the latest coverage task when a project is opened.
+     *
+     * @param restore configuration value.
+     */
+    public void setRestoreOnOpen(boolean restore) {
+        if (isOverrideGlobals()) {
+            getInternalPref().setProperty(Globals.PROP_RESTORE_ON_OPEN, Boolean.toString(restore));
+        } else {
+            Config.setRestoreOnOpen(restore);
+        }
+    }
 }
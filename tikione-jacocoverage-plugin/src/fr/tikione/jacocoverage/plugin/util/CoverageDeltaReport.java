@@ -0,0 +1,61 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.ClassCoverageDelta;
+import fr.tikione.jacocoexec.analyzer.CoverageDelta;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.LineDeltaEnum;
+import java.io.IOException;
+import org.openide.windows.IOProvider;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputWriter;
+
+/**
+ * List the changes of coverage since the previous coverage task to a NetBeans console tab. Consecutive lines with the same change
+ * are listed as one block, which is a hyperlink to its first line.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageDeltaReport {
+
+    /**
+     * List the changes of coverage since the previous coverage task to a NetBeans console tab.
+     *
+     * @param delta the changes of coverage.
+     * @param tabName the name of the NetBeans console tab to open.
+     * @throws IOException if a NetBeans console related error occurs.
+     */
+    public static void show(CoverageDelta delta, String tabName)
+            throws IOException {
+        InputOutput io = IOProvider.getDefault().getIO(tabName, false);
+        OutputWriter out = io.getOut();
+        try {
+            out.reset();
+            out.println("=== JaCoCoverage coverage delta: " + delta.getNbGainedLines() + " lines gained, " + delta.getNbLostLines()
+                    + " lines lost, " + delta.getNbNewlyPartialLines() + " lines newly partially covered, in "
+                    + delta.getClassDeltas().size() + " files (" + delta.getNbSkippedClasses() + " unchanged files skipped) ===");
+            out.println();
+            for (ClassCoverageDelta classDelta : delta.getClassDeltas()) {
+                String classResource = classDelta.getClassResource();
+                String className = JavaClass.toResourceKey(classResource).replace('/', '.').replace(".java", "");
+                if (classDelta.isRecompiled()) {
+                    JavaClass jclass = classDelta.getJavaClass();
+                    out.println(className + " (modified since previous run, lines may have moved): covered lines "
+                            + classDelta.getPreviousNbCoveredLines() + " -> " + jclass.getNbCoveredLines() + ", partially covered lines "
+                            + classDelta.getPreviousNbPartiallyCoveredLines() + " -> " + jclass.getNbPartiallyCoveredLines()
+                            + ", not covered lines " + classDelta.getPreviousNbNotCoveredLines() + " -> " + jclass.getNbNotCoveredLines());
+                    continue;
+                }
+                out.println(className);
+                NBUtils.printLineBlocks(out, classResource, classDelta.getLines(LineDeltaEnum.LOST), "coverage lost");
+                NBUtils.printLineBlocks(out, classResource, classDelta.getLines(LineDeltaEnum.NEWLY_PARTIAL), "newly partially covered");
+                NBUtils.printLineBlocks(out, classResource, classDelta.getLines(LineDeltaEnum.GAINED), "coverage gained");
+            }
+        } finally {
+            out.close();
+        }
+        io.select();
+    }
+
+    private CoverageDeltaReport() {
+    }
+}
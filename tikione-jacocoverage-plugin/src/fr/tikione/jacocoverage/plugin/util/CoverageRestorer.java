@@ -0,0 +1,295 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.ClassIds;
+import fr.tikione.jacocoexec.analyzer.CoverageRollup;
+import fr.tikione.jacocoexec.analyzer.CoverageSnapshot;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.config.ProjectConfig;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
+import java.awt.EventQueue;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.openide.awt.StatusDisplayer;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataObject;
+import org.openide.modules.OnStart;
+import org.openide.util.RequestProcessor;
+import org.openide.windows.TopComponent;
+
+/**
+ * Restore the coverage data of the latest coverage task when a project is opened, from the binary snapshot stored in the project's
+ * <code>.jacocoverage</code> folder: results window, uncovered code navigation and coverage queries are available at once.
+ * <br/>Highlighting is lazy: a Java source file is highlighted when its document is opened. Before that, the class id of its
+ * compiled classes is checked: if the file was modified and recompiled since the coverage task, its coverage data is stale and it
+ * is not highlighted.
+ *
+ * @author Jonathan Lermitage
+ */
+@OnStart
+public class CoverageRestorer implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(CoverageRestorer.class.getName());
+
+    private static final RequestProcessor RP = new RequestProcessor("JaCoCoverage Restore Task", 1);
+
+    /** Restored coverage data not highlighted yet, by project identifier. */
+    private static final Map<String, Pending> pending = new HashMap<>(8);
+
+    /** Identifiers of the projects already restored, or covered again, since they were opened. */
+    private static final Set<String> handled = new HashSet<>(8);
+
+    /** Identifiers of the projects being restored. */
+    private static final Set<String> restoring = new HashSet<>(8);
+
+    @Override
+    public void run() {
+        OpenProjects.getDefault().addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (OpenProjects.PROPERTY_OPEN_PROJECTS.equals(evt.getPropertyName())) {
+                    projectsChanged(evt.getOldValue() == null ? new Project[0] : (Project[]) evt.getOldValue(),
+                            evt.getNewValue() == null ? new Project[0] : (Project[]) evt.getNewValue());
+                }
+            }
+        });
+        TopComponent.getRegistry().addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (TopComponent.Registry.PROP_TC_OPENED.equals(evt.getPropertyName())
+                        && evt.getNewValue() instanceof TopComponent) {
+                    DataObject dataObject = ((TopComponent) evt.getNewValue()).getLookup().lookup(DataObject.class);
+                    if (dataObject != null) {
+                        documentOpened(dataObject.getPrimaryFile());
+                    }
+                }
+            }
+        });
+        projectsChanged(new Project[0], OpenProjects.getDefault().getOpenProjects());
+    }
+
+    private static void projectsChanged(Project[] oldProjects, Project[] newProjects) {
+        final List<Project> opened = new ArrayList<>(Arrays.asList(newProjects));
+        opened.removeAll(Arrays.asList(oldProjects));
+        List<Project> closed = new ArrayList<>(Arrays.asList(oldProjects));
+        closed.removeAll(Arrays.asList(newProjects));
+        for (Project project : closed) {
+            CoverageWatch.stop(project);
+            StaleCoverageMonitor.untrack(project);
+            String prjId = NBUtils.getProjectId(project);
+            synchronized (pending) {
+                pending.remove(prjId);
+                handled.remove(prjId);
+                restoring.remove(prjId);
+            }
+        }
+        if (!opened.isEmpty()) {
+            RP.post(new Runnable() {
+                @Override
+                public void run() {
+                    for (Project project : opened) {
+                        restore(project);
+                    }
+                    highlightOpenedDocuments();
+                }
+            });
+        }
+    }
+
+    /**
+     * Load the coverage snapshot of a project, if any and if enabled for the project, and publish its coverage data.
+     *
+     * @param project the opened project.
+     */
+    private static void restore(Project project) {
+        ProjectConfig cfg;
+        try {
+            cfg = ProjectConfig.forFile(new File(NBUtils.getProjectDir(project), Globals.PRJ_CFG));
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot load JaCoCoverage configuration of " + NBUtils.getProjectName(project), ex);
+            return;
+        }
+        if (!cfg.isRestoreOnOpen()) {
+            return;
+        }
+        String prjId = NBUtils.getProjectId(project);
+        CoveringTests.load(project);
+        synchronized (pending) {
+            if (!handled.add(prjId)) {
+                return;
+            }
+            restoring.add(prjId);
+        }
+        File snapshot = new File(NBUtils.getProjectDir(project) + File.separator + Globals.SNAPSHOT_REPORT);
+        if (!snapshot.isFile()) {
+            synchronized (pending) {
+                restoring.remove(prjId);
+            }
+            return;
+        }
+        try {
+            long st = System.currentTimeMillis();
+            Map<String, JavaClass> coverageData = CoverageSnapshot.getCoverageData(snapshot);
+            Properties prjProps = Utils.loadProjectProperties(project);
+            Pending prjPending = new Pending(Utils.getProjectClassesDir(project, prjProps),
+                    new File(NBUtils.getProjectDir(project) + File.separator + Utils.getProperty(prjProps, "src.dir") + File.separator),
+                    cfg.isEnblHighlighting(), cfg.isEnblMethodGlyphs(), cfg.isEnblHighlightingExtended());
+            for (JavaClass jclass : coverageData.values()) {
+                prjPending.classes.put(JavaClass.toResourceKey(jclass.getPackageName() + jclass.getClassName()), jclass);
+            }
+            synchronized (pending) {
+                if (!restoring.remove(prjId)) {
+                    // Project closed or covered again meanwhile.
+                    return;
+                }
+                if (prjPending.highlight || prjPending.methodGlyphs) {
+                    pending.put(prjId, prjPending);
+                }
+            }
+            StaleCoverageMonitor.track(project, prjPending.classesDir, coverageData.values());
+            CoverageResults.publish(project, CoverageRollup.build(NBUtils.getProjectName(project), coverageData.values()));
+            LOGGER.log(Level.INFO, "Coverage data of {0} restored in {1} ms",
+                    new Object[]{NBUtils.getProjectName(project), System.currentTimeMillis() - st});
+        } catch (IOException ex) {
+            synchronized (pending) {
+                restoring.remove(prjId);
+            }
+            LOGGER.log(Level.WARNING, "Cannot restore coverage data of " + NBUtils.getProjectName(project), ex);
+        }
+    }
+
+    /**
+     * Highlight the Java source files opened before their project's coverage data was restored.
+     */
+    private static void highlightOpenedDocuments() {
+        final List<FileObject> files = new ArrayList<>(16);
+        try {
+            EventQueue.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    for (TopComponent tc : TopComponent.getRegistry().getOpened()) {
+                        DataObject dataObject = tc.getLookup().lookup(DataObject.class);
+                        if (dataObject != null) {
+                            files.add(dataObject.getPrimaryFile());
+                        }
+                    }
+                }
+            });
+        } catch (InterruptedException | InvocationTargetException ex) {
+            LOGGER.log(Level.INFO, "Cannot list opened documents", ex);
+        }
+        for (FileObject file : files) {
+            highlight(file);
+        }
+    }
+
+    private static void documentOpened(final FileObject file) {
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+        }
+        RP.post(new Runnable() {
+            @Override
+            public void run() {
+                highlight(file);
+            }
+        });
+    }
+
+    /**
+     * Highlight a Java source file with the restored coverage data of its project, once. Stale coverage data is not highlighted.
+     *
+     * @param file the Java source file.
+     */
+    private static void highlight(FileObject file) {
+        String classResource = NBUtils.getClassResource(file);
+        Project project = classResource == null ? null : FileOwnerQuery.getOwner(file);
+        if (project == null) {
+            return;
+        }
+        String prjId = NBUtils.getProjectId(project);
+        Pending prjPending;
+        JavaClass jclass;
+        synchronized (pending) {
+            prjPending = pending.get(prjId);
+            jclass = prjPending == null ? null : prjPending.classes.remove(JavaClass.toResourceKey(classResource));
+            if (prjPending != null && prjPending.classes.isEmpty()) {
+                pending.remove(prjId);
+            }
+        }
+        if (jclass == null) {
+            return;
+        }
+        try {
+            if (jclass.getClassId() != 0
+                    && jclass.getClassId() != ClassIds.compute(prjPending.classesDir, jclass.getPackageName(), jclass.getClassName())) {
+                StatusDisplayer.getDefault().setStatusText("Coverage data of " + jclass.getClassName()
+                        + " is out of date, run the coverage task again to highlight it");
+                LOGGER.log(Level.INFO, "Stale coverage data not highlighted: {0}", classResource);
+                return;
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Cannot check class id of " + classResource, ex);
+            return;
+        }
+        NBUtils.colorDoc(project, jclass, prjPending.highlight, prjPending.methodGlyphs, prjPending.multiLnInst, prjPending.srcDir);
+    }
+
+    /**
+     * Forget the restored coverage data of a project that is not highlighted yet. Has to be called when the project's coverage data
+     * is replaced or removed.
+     *
+     * @param project the project.
+     */
+    public static void discard(Project project) {
+        synchronized (pending) {
+            pending.remove(NBUtils.getProjectId(project));
+            handled.add(NBUtils.getProjectId(project));
+            restoring.remove(NBUtils.getProjectId(project));
+        }
+    }
+
+    /**
+     * The restored coverage data of a project, and how to highlight it.
+     */
+    private static class Pending {
+
+        private final File classesDir;
+
+        private final File srcDir;
+
+        private final boolean highlight;
+
+        private final boolean methodGlyphs;
+
+        private final boolean multiLnInst;
+
+        /** Coverage data not highlighted yet, by Java source file (e.g. "fr/tikione/Foo.java"). */
+        private final Map<String, JavaClass> classes = new HashMap<>(256);
+
+        Pending(File classesDir, File srcDir, boolean highlight, boolean methodGlyphs, boolean multiLnInst) {
+            this.classesDir = classesDir;
+            this.srcDir = srcDir;
+            this.highlight = highlight;
+            this.methodGlyphs = methodGlyphs;
+            this.multiLnInst = multiLnInst;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.BinaryReportMerger;
+import fr.tikione.jacocoexec.analyzer.ClassCoverageDelta;
+import fr.tikione.jacocoexec.analyzer.ClassIds;
+import fr.tikione.jacocoexec.analyzer.CoverageDelta;
+import fr.tikione.jacocoexec.analyzer.CoverageRollup;
+import fr.tikione.jacocoexec.analyzer.CoverageSnapshot;
+import fr.tikione.jacocoexec.analyzer.JaCoCoReportAnalyzer;
+import fr.tikione.jacocoexec.analyzer.JaCoCoXmlReportParser;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoverage.plugin.anno.AbstractCoverageAnnotation;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.config.ProjectConfig;
+import fr.tikione.jacocoverage.plugin.window.CoverageResults;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.parsers.ParserConfigurationException;
+import org.netbeans.api.project.Project;
+import org.openide.awt.StatusDisplayer;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+import org.xml.sax.SAXException;
+
+/**
+ * Coverage watch mode of a Java project: when compile-on-save updates compiled classes, the test classes executing them (see the
+ * test impact index) are run again in a warm forked JVM (see {@link WarmTestRunner}), their coverage data is merged into the
+ * coverage data of the latest coverage task, and only the Java source files whose coverage changed are highlighted again.
+ * <br/>Requires the test impact index, and the JaCoCo binary report of the latest coverage task (kept by the workfiles retention
+ * policy).
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageWatch {
+
+    private static final Logger LOGGER = Logger.getLogger(CoverageWatch.class.getName());
+
+    /** Delay between the latest compiled class change and the test run, in milliseconds. Compile-on-save writes classes in bursts. */
+    private static final int RUN_DELAY = 1000;
+
+    /** Watched projects, by project identifier. */
+    private static final Map<String, CoverageWatch> watches = new HashMap<>(4);
+
+    private final Project project;
+
+    private final String prjDir;
+
+    private final File classDir;
+
+    private final File testClassDir;
+
+    private final File srcDir;
+
+    private final ProjectConfig cfg;
+
+    private final TestImpactIndex index;
+
+    /** Merged JaCoCo binary report of the latest coverage task and the watch runs. */
+    private final File binreport;
+
+    private final RequestProcessor rp = new RequestProcessor("JaCoCoverage Watch Task", 1, true);
+
+    private final RequestProcessor.Task runTask;
+
+    /** VM names of the top level classes updated since the latest run, and whether they are test classes. */
+    private final Map<String, Boolean> changedClasses = new HashMap<>(32);
+
+    private final FileChangeListener listener = new FileChangeListener() {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            classChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            classChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fre) {
+            classChanged(fre.getFile());
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fae) {
+        }
+    };
+
+    private final WarmTestProcess runner;
+
+    private CoverageWatch(Project project, TestImpactIndex index, File binreport)
+            throws IOException {
+        this.project = project;
+        this.index = index;
+        this.binreport = binreport;
+        prjDir = NBUtils.getProjectDir(project) + File.separator;
+        Properties prjProps = Utils.loadProjectProperties(project);
+        classDir = Utils.getProjectClassesDir(project, prjProps);
+        testClassDir = new File(prjDir + Utils.getProperty(prjProps, "build.test.classes.dir"));
+        srcDir = new File(prjDir + Utils.getProperty(prjProps, "src.dir") + File.separator);
+        cfg = ProjectConfig.forFile(new File(prjDir, Globals.PRJ_CFG));
+        runner = new WarmTestProcess(project);
+        runTask = rp.create(new Runnable() {
+            @Override
+            public void run() {
+                runChangedTests();
+            }
+        });
+    }
+
+    /**
+     * Check if the coverage of a project is watched.
+     *
+     * @param project the project.
+     * @return {@code true} if the project is watched.
+     */
+    public static boolean isWatching(Project project) {
+        synchronized (watches) {
+            return watches.containsKey(NBUtils.getProjectId(project));
+        }
+    }
+
+    /**
+     * Start watching the coverage of a project.
+     *
+     * @param project the project.
+     * @return {@code false} if the project has no test impact index, or no kept coverage data.
+     * @throws IOException if the coverage data can't be copied.
+     */
+    public static boolean start(Project project)
+            throws IOException {
+        String prjDir = NBUtils.getProjectDir(project) + File.separator;
+        TestImpactIndex index = TestImpactIndex.load(new File(prjDir + Globals.TEST_INDEX));
+        File binreport = index == null ? null : Utils.copyLatestBinReport(prjDir);
+        if (binreport == null) {
+            return false;
+        }
+        CoverageWatch watch = new CoverageWatch(project, index, binreport);
+        synchronized (watches) {
+            CoverageWatch previous = watches.put(NBUtils.getProjectId(project), watch);
+            if (previous != null) {
+                previous.dispose();
+            }
+        }
+        FileUtil.addRecursiveListener(watch.listener, watch.classDir);
+        FileUtil.addRecursiveListener(watch.listener, watch.testClassDir);
+        return true;
+    }
+
+    /**
+     * Stop watching the coverage of a project, if watched.
+     *
+     * @param project the project.
+     */
+    public static void stop(Project project) {
+        CoverageWatch watch;
+        synchronized (watches) {
+            watch = watches.remove(NBUtils.getProjectId(project));
+        }
+        if (watch != null) {
+            watch.dispose();
+        }
+    }
+
+    private void dispose() {
+        FileUtil.removeRecursiveListener(listener, classDir);
+        FileUtil.removeRecursiveListener(listener, testClassDir);
+        runTask.cancel();
+        rp.post(new Runnable() {
+            @Override
+            public void run() {
+                runner.stop();
+                binreport.delete();
+            }
+        });
+    }
+
+    private void classChanged(FileObject classFile) {
+        if (!"class".equals(classFile.getExt())) {
+            return;
+        }
+        File file = FileUtil.toFile(classFile);
+        if (file == null) {
+            return;
+        }
+        String path = file.getAbsolutePath();
+        String testClassPrefix = testClassDir.getAbsolutePath() + File.separator;
+        String classPrefix = classDir.getAbsolutePath() + File.separator;
+        boolean test = path.startsWith(testClassPrefix);
+        if (!test && !path.startsWith(classPrefix)) {
+            return;
+        }
+        String className = path.substring((test ? testClassPrefix : classPrefix).length(), path.length() - ".class".length())
+                .replace(File.separatorChar, '/');
+        if (className.contains("$")) {
+            className = className.substring(0, className.indexOf('$'));
+        }
+        synchronized (changedClasses) {
+            changedClasses.put(className, test);
+        }
+        runTask.schedule(RUN_DELAY);
+    }
+
+    /**
+     * Run the test classes affected by the updated classes, merge their coverage data and highlight again the Java source files
+     * whose coverage changed.
+     */
+    private void runChangedTests() {
+        Map<String, Boolean> changed;
+        synchronized (changedClasses) {
+            changed = new HashMap<>(changedClasses);
+            changedClasses.clear();
+        }
+        List<String> mainClasses = new ArrayList<>(changed.size());
+        Set<String> tests = new TreeSet<>();
+        for (Map.Entry<String, Boolean> changedClass : changed.entrySet()) {
+            if (changedClass.getValue()) {
+                if (TestImpactIndex.isTest(changedClass.getKey())) {
+                    tests.add(changedClass.getKey() + ".java");
+                }
+            } else {
+                mainClasses.add(changedClass.getKey());
+            }
+        }
+        tests.addAll(index.getAffectedTests(mainClasses));
+        if (tests.isEmpty()) {
+            return;
+        }
+        // Private work files: the coverage task of the project may run meanwhile, and uses the project's work files.
+        File runreport = null;
+        File xmlreport = null;
+        try {
+            long st = System.currentTimeMillis();
+            runreport = File.createTempFile("jacocoverage-watch", ".exec");
+            xmlreport = File.createTempFile("jacocoverage-watch", ".xml");
+            String result = runner.run(runreport, tests);
+            if (!result.startsWith("OK ")) {
+                runner.stop();
+                StatusDisplayer.getDefault().setStatusText("JaCoCoverage watch: test run failed, " + result);
+                return;
+            }
+            // Execution data of the classes recompiled since it was recorded is evicted, so the merged report doesn't grow.
+            BinaryReportMerger merger = new BinaryReportMerger();
+            merger.add(binreport);
+            merger.add(runreport);
+            merger.retainCompiledClasses(classDir);
+            merger.write(binreport);
+            JaCoCoReportAnalyzer.toXmlReport(binreport, xmlreport, classDir, srcDir);
+            Map<String, JavaClass> coverageData = JaCoCoXmlReportParser.getCoverageData(xmlreport);
+            for (JavaClass jclass : coverageData.values()) {
+                jclass.setClassId(ClassIds.compute(classDir, jclass.getPackageName(), jclass.getClassName()));
+            }
+            File snapshot = new File(prjDir + Globals.SNAPSHOT_REPORT);
+            CoverageDelta delta = snapshot.isFile() ? CoverageDelta.compute(snapshot, coverageData.values()) : null;
+            CoverageSnapshot.write(coverageData.values(), snapshot);
+            // Keep the binary report in step with the snapshot: the next runs merge their coverage data into it.
+            Utils.storeLatestBinReport(prjDir, binreport);
+            CoverageResults.publish(project, CoverageRollup.build(NBUtils.getProjectName(project), coverageData.values()));
+
+            // Highlight again the recompiled Java source files, and the ones whose coverage changed.
+            Set<String> classResources = new HashSet<>(changed.size() * 2);
+            for (String changedClass : mainClasses) {
+                classResources.add('/' + changedClass + ".java");
+            }
+            if (delta != null) {
+                for (ClassCoverageDelta classDelta : delta.getClassDeltas()) {
+                    classResources.add(classDelta.getClassResource());
+                }
+            }
+            String prjId = NBUtils.getProjectId(project);
+            StaleCoverageMonitor.track(project, classDir, coverageData.values());
+            if (cfg.isEnblHighlighting() || cfg.isEnblMethodGlyphs()) {
+                for (String classResource : classResources) {
+                    JavaClass jclass = coverageData.get(classResource);
+                    AbstractCoverageAnnotation.removeFromClass(prjId, classResource);
+                    if (jclass != null) {
+                        NBUtils.colorDoc(project, jclass, cfg.isEnblHighlighting(), cfg.isEnblMethodGlyphs(),
+                                cfg.isEnblHighlightingExtended(), srcDir,
+                                NBUtils.getLineDeltaNotes(delta == null ? null : delta.getClassDelta(classResource)));
+                    }
+                }
+            }
+            String[] counts = result.split(" ");
+            StatusDisplayer.getDefault().setStatusText("JaCoCoverage watch: " + counts[1] + " tests run, " + counts[2]
+                    + " failed, " + classResources.size() + " files highlighted again");
+            LOGGER.log(Level.INFO, "Coverage watch run took: {0} ms", System.currentTimeMillis() - st);
+        } catch (IOException | ParserConfigurationException | SAXException ex) {
+            LOGGER.log(Level.WARNING, "Coverage watch run failed", ex);
+            runner.stop();
+        } finally {
+            if (runreport != null) {
+                runreport.delete();
+            }
+            if (xmlreport != null) {
+                xmlreport.delete();
+            }
+        }
+    }
+}
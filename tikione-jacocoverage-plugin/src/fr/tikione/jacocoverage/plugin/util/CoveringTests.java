@@ -0,0 +1,114 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.TestLineIndex;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.project.Project;
+
+/**
+ * The tests covering each line of the opened projects, from their test line index (built by "Build test impact index"). Used by
+ * editor tooltips: the index is loaded in the background, and a lookup on hover is an array access.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoveringTests {
+
+    private static final Logger LOGGER = Logger.getLogger(CoveringTests.class.getName());
+
+    /** Maximum number of test names shown in a tooltip. */
+    private static final int MAX_NAMES = 5;
+
+    /** Loaded test line indexes, by project identifier. */
+    private static final Map<String, Loaded> indexes = new HashMap<>(8);
+
+    private CoveringTests() {
+    }
+
+    /**
+     * Load the test line index of a project, if it exists and was not loaded yet or was rebuilt since. Should not be called from
+     * the event dispatch thread.
+     *
+     * @param project the project.
+     */
+    public static void load(Project project) {
+        String prjId = NBUtils.getProjectId(project);
+        File indexFile = new File(NBUtils.getProjectDir(project) + File.separator + Globals.TEST_LINES_INDEX);
+        long lastModified = indexFile.lastModified();
+        synchronized (indexes) {
+            Loaded loaded = indexes.get(prjId);
+            if (loaded != null && loaded.lastModified == lastModified) {
+                return;
+            }
+        }
+        if (lastModified == 0) {
+            synchronized (indexes) {
+                indexes.remove(prjId);
+            }
+            return;
+        }
+        try {
+            TestLineIndex index = TestLineIndex.read(indexFile);
+            synchronized (indexes) {
+                indexes.put(prjId, new Loaded(index, lastModified));
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Cannot load test line index of " + NBUtils.getProjectName(project), ex);
+        }
+    }
+
+    /**
+     * Describe the tests covering a line.
+     *
+     * @param prjId the project identifier.
+     * @param classResource the Java source file (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @param line the line (0-based).
+     * @return the number and the first names of the tests covering the line, or {@code null} if unknown.
+     */
+    public static String describe(String prjId, String classResource, int line) {
+        Loaded loaded;
+        synchronized (indexes) {
+            loaded = indexes.get(prjId);
+        }
+        if (loaded == null) {
+            return null;
+        }
+        List<String> tests = loaded.index.getTests(classResource, line);
+        if (tests.isEmpty()) {
+            return null;
+        }
+        StringBuilder desc = new StringBuilder(64 + MAX_NAMES * 32);
+        desc.append("covered by ").append(tests.size()).append(tests.size() == 1 ? " test: " : " tests: ");
+        for (int idx = 0; idx < tests.size() && idx < MAX_NAMES; idx++) {
+            if (idx > 0) {
+                desc.append(", ");
+            }
+            desc.append(tests.get(idx));
+        }
+        if (tests.size() > MAX_NAMES) {
+            desc.append(", ...");
+        }
+        return desc.toString();
+    }
+
+    /**
+     * A loaded test line index.
+     */
+    private static class Loaded {
+
+        private final TestLineIndex index;
+
+        /** Modification time of the index file. */
+        private final long lastModified;
+
+        Loaded(TestLineIndex index, long lastModified) {
+            this.index = index;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.UnifiedDiff;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Java source files changed versus the HEAD commit of the local Git repository of a project: modified files (staged or not) and
+ * new untracked files. In a repository with no commit yet, files are compared to the empty tree, so every staged file is new.
+ * The local <code>git</code> command reads the <code>.git</code> folder, no remote is contacted.
+ *
+ * @author Jonathan Lermitage
+ */
+public class GitChanges {
+
+    /** Git command, expected to be in the PATH. */
+    private static final String GIT = "git";
+
+    /**
+     * Get the changed lines of the Java source files of a folder (and of its subfolders).
+     *
+     * @param dir the folder (e.g. a project folder), in a Git working tree.
+     * @return the changed line ranges (see {@link UnifiedDiff}), by changed Java source file. New files are changed as a whole.
+     * @throws IOException if the folder is not in a Git working tree, or if Git can't be run.
+     */
+    public static Map<File, int[]> getChangedLines(File dir)
+            throws IOException {
+        File workTree = new File(run(dir, "rev-parse", "--show-toplevel").readLine().trim());
+        Map<File, int[]> changedLines = new LinkedHashMap<>(32);
+        String base = hasCommit(dir) ? "HEAD" : run(dir, "hash-object", "-t", "tree", "--stdin").readLine().trim();
+        // Paths of the diff are relative to the working tree.
+        try (BufferedReader diff = run(dir, "-c", "core.quotepath=false", "diff", "--no-color", "--no-ext-diff", "--no-renames",
+                "-U0", base, "--", "*.java")) {
+            for (Map.Entry<String, int[]> changedFile : UnifiedDiff.getChangedLines(diff).entrySet()) {
+                changedLines.put(new File(workTree, changedFile.getKey()), changedFile.getValue());
+            }
+        }
+        try (BufferedReader untracked = run(dir, "-c", "core.quotepath=false", "ls-files", "--others", "--exclude-standard",
+                "--full-name", "--", "*.java")) {
+            String path;
+            while ((path = untracked.readLine()) != null) {
+                if (!path.isEmpty()) {
+                    changedLines.put(new File(workTree, path), UnifiedDiff.WHOLE_FILE);
+                }
+            }
+        }
+        return changedLines;
+    }
+
+    /**
+     * Check if the Git repository of a folder has a HEAD commit.
+     *
+     * @param dir the folder, in a Git working tree.
+     * @return {@code true} if HEAD is a commit, {@code false} if no commit was made yet.
+     * @throws IOException if Git can't be run.
+     */
+    private static boolean hasCommit(File dir)
+            throws IOException {
+        try {
+            run(dir, "rev-parse", "--verify", "--quiet", "HEAD^{commit}");
+            return true;
+        } catch (GitFailedException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Run a Git command and get its output. The output is fully read first, so Git is never blocked on a full pipe. Error messages
+     * are written to a temporary file, to keep them out of the output. The standard input of Git is empty.
+     *
+     * @param dir the working directory.
+     * @param args the Git arguments.
+     * @return the standard output of Git.
+     * @throws IOException if Git can't be run, or {@link GitFailedException} if it fails.
+     */
+    private static BufferedReader run(File dir, String... args)
+            throws IOException {
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add(GIT);
+        command.addAll(Arrays.asList(args));
+        File errors = File.createTempFile("jacocoverage-git", ".log");
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.directory(dir);
+            pb.redirectError(ProcessBuilder.Redirect.to(errors));
+            Process process = pb.start();
+            process.getOutputStream().close();
+            StringBuilder output = new StringBuilder(4096);
+            try (Reader in = new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)) {
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    output.append(buffer, 0, read);
+                }
+            }
+            int exitCode;
+            try {
+                exitCode = process.waitFor();
+            } catch (InterruptedException ex) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running git", ex);
+            }
+            if (exitCode != 0) {
+                throw new GitFailedException("Git failed (exit code " + exitCode + "): "
+                        + new String(Files.readAllBytes(errors.toPath()), StandardCharsets.UTF_8).trim());
+            }
+            return new BufferedReader(new StringReader(output.toString()));
+        } finally {
+            errors.delete();
+        }
+    }
+
+    private GitChanges() {
+    }
+
+    /**
+     * Git was run, but failed (non-zero exit code).
+     */
+    private static class GitFailedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        GitFailedException(String message) {
+            super(message);
+        }
+    }
+}
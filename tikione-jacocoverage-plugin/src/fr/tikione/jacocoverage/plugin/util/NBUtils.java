@@ -1,10 +1,14 @@
 package fr.tikione.jacocoverage.plugin.util;
 
+import fr.tikione.jacocoexec.analyzer.ClassCoverageDelta;
 import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.JavaMethod;
+import fr.tikione.jacocoexec.analyzer.LineDeltaEnum;
 import fr.tikione.jacocoverage.plugin.anno.AbstractCoverageAnnotation;
 import fr.tikione.jacocoverage.plugin.anno.CoverageAnnotation;
 import fr.tikione.jacocoverage.plugin.anno.CoverageGlyphedAnnotation;
 import fr.tikione.jacocoverage.plugin.anno.EditorCoverageStateEnum;
+import fr.tikione.jacocoverage.plugin.anno.MethodCoverageAnnotation;
 import fr.tikione.jacocoverage.plugin.config.Config;
 import java.io.File;
 import java.io.IOException;
@@ -12,16 +16,24 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import javax.swing.text.StyledDocument;
+import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.java.classpath.GlobalPathRegistry;
 import org.netbeans.api.project.Project;
 import org.netbeans.api.project.ProjectUtils;
 import org.openide.awt.HtmlBrowser;
 import org.openide.cookies.EditorCookie;
+import org.openide.cookies.LineCookie;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataObject;
@@ -33,6 +45,9 @@ import org.openide.text.NbDocument;
 import org.openide.util.Exceptions;
 import org.openide.util.Utilities;
 import org.openide.windows.IOProvider;
+import org.openide.windows.OutputEvent;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
 
 /**
  * Some NetBeans related utilities.
@@ -42,6 +57,8 @@ import org.openide.windows.IOProvider;
  */
 public class NBUtils {
 
+    private static final Logger LOGGER = Logger.getLogger(NBUtils.class.getName());
+
     /**
      * Close a NetBeans console tab.
      *
@@ -61,8 +78,39 @@ public class NBUtils {
      * @param multiLnInst enable coloring of multi-lines instructions.
      * @param srcDir the folder containing Java sources. Needed only if {@code multiLnInst} is true, otherwise you can use {@code null}.
      */
-    @SuppressWarnings({"AssignmentToForLoopParameter", "UnnecessaryLabelOnBreakStatement"})
     public static void colorDoc(Project project, JavaClass jclass, boolean multiLnInst, File srcDir) {
+        colorDoc(project, jclass, true, false, multiLnInst, srcDir);
+    }
+
+    /**
+     * Color (in editor) all the document representing the Java class, and/or show method coverage glyphs on methods declarations.
+     *
+     * @param project the project containing the Java class.
+     * @param jclass the Java class informations and coverage data.
+     * @param lines enable coloring of lines.
+     * @param methods enable method coverage glyphs.
+     * @param multiLnInst enable coloring of multi-lines instructions.
+     * @param srcDir the folder containing Java sources. Needed only if {@code multiLnInst} is true, otherwise you can use {@code null}.
+     */
+    public static void colorDoc(Project project, JavaClass jclass, boolean lines, boolean methods, boolean multiLnInst, File srcDir) {
+        colorDoc(project, jclass, lines, methods, multiLnInst, srcDir, null);
+    }
+
+    /**
+     * Color (in editor) all the document representing the Java class, and/or show method coverage glyphs on methods declarations.
+     * Lines can have additional information in their tooltip (e.g. change of coverage since the previous coverage task).
+     *
+     * @param project the project containing the Java class.
+     * @param jclass the Java class informations and coverage data.
+     * @param lines enable coloring of lines.
+     * @param methods enable method coverage glyphs.
+     * @param multiLnInst enable coloring of multi-lines instructions.
+     * @param srcDir the folder containing Java sources. Needed only if {@code multiLnInst} is true, otherwise you can use {@code null}.
+     * @param lineNotes additional information about lines, by line (0-based), {@code null} if none.
+     */
+    @SuppressWarnings({"AssignmentToForLoopParameter", "UnnecessaryLabelOnBreakStatement"})
+    public static void colorDoc(Project project, JavaClass jclass, boolean lines, boolean methods, boolean multiLnInst, File srcDir,
+            Map<Integer, String> lineNotes) {
         String classResource = jclass.getPackageName() + jclass.getClassName();
         String prjId = getProjectId(project);
         int theme = Config.getTheme();
@@ -82,7 +130,7 @@ public class NBUtils {
                             int startLine = 0;
                             int endLine = NbDocument.findLineNumber(doc, doc.getLength());
                             Line.Set lineset = editorCookie.getLineSet();
-                            for (int covIdx : coverage.keySet()) {
+                            for (int covIdx : lines ? coverage.keySet() : Collections.<Integer>emptySet()) {
                                 if (covIdx >= startLine && covIdx <= endLine) {
                                     Line line = lineset.getOriginal(covIdx);
                                     EditorCoverageStateEnum coverageState;
@@ -116,26 +164,51 @@ public class NBUtils {
                                                 covIdx,
                                                 theme);
                                     }
+                                    if (lineNotes != null) {
+                                        ((CoverageAnnotation) annotation).setNote(lineNotes.get(covIdx));
+                                    }
                                     annotation.attach(line);
                                     line.addPropertyChangeListener(annotation);
                                 }
                             }
-                            if (multiLnInst) {
+                            if (methods) {
+                                Map<Integer, fr.tikione.jacocoexec.analyzer.CoverageStateEnum> methodCoverage = jclass.getMethodCoverage();
+                                Set<Integer> annotatedLines = new HashSet<>(methodCoverage.size() * 2);
+                                for (JavaMethod method : jclass.getMethods()) {
+                                    int lineIdx = method.getLineNumber();
+                                    if (methodCoverage.containsKey(lineIdx) && lineIdx >= startLine && lineIdx <= endLine
+                                            && annotatedLines.add(lineIdx)) {
+                                        AbstractCoverageAnnotation annotation = new MethodCoverageAnnotation(
+                                                toEditorCoverageState(methodCoverage.get(lineIdx)),
+                                                prjId,
+                                                jclass.getPackageName() + jclass.getClassName(),
+                                                lineIdx,
+                                                getMethodCoverageDesc(method),
+                                                theme);
+                                        Line line = lineset.getOriginal(lineIdx);
+                                        annotation.attach(line);
+                                        line.addPropertyChangeListener(annotation);
+                                    }
+                                }
+                            }
+                            if (lines && multiLnInst) {
 								// Patch by GWI
                                 //  old: File javafile = new File(srcDir, jclass.getPackageName() + jclass.getClassName());
 								//  new: File javafile = new File(fileObject.getPath());
                                 File javafile =  new File(fileObject.getPath());
                                 List<String> javalines = org.apache.commons.io.FileUtils.readLines(javafile);
                                 int nblines = javalines.size();
+                                // Extended lines are only highlighted, the coverage data of the class is left untouched.
+                                Map<Integer, fr.tikione.jacocoexec.analyzer.CoverageStateEnum> extendedCoverage = new HashMap<>(coverage);
                                 for (int lineIdx = 0; lineIdx < nblines; lineIdx++) {
-                                    boolean isCovered = coverage.containsKey(lineIdx);
+                                    boolean isCovered = extendedCoverage.containsKey(lineIdx);
                                     boolean isCoveredDesc = coverageDesc.containsKey(lineIdx);
                                     if ((isCovered || isCoveredDesc)
                                             && (lineIdx + 1 < nblines)
-                                            && (!coverage.containsKey(lineIdx + 1) && !coverageDesc.containsKey(lineIdx + 1))
+                                            && (!extendedCoverage.containsKey(lineIdx + 1) && !coverageDesc.containsKey(lineIdx + 1))
                                             && (!Utils.isIntructionFinished(javalines.get(lineIdx)))) {
                                         EditorCoverageStateEnum coverageState;
-                                        switch (coverage.get(lineIdx)) {
+                                        switch (extendedCoverage.get(lineIdx)) {
                                             case COVERED:
                                                 coverageState = EditorCoverageStateEnum.COVERED;
                                                 break;
@@ -148,7 +221,7 @@ public class NBUtils {
                                             default:
                                                 coverageState = EditorCoverageStateEnum.COVERED;
                                         }
-                                        coverage.put(lineIdx + 1, coverage.get(lineIdx));
+                                        extendedCoverage.put(lineIdx + 1, extendedCoverage.get(lineIdx));
                                         AbstractCoverageAnnotation annotation = new CoverageAnnotation(
                                                 coverageState,
                                                 prjId,
@@ -173,6 +246,159 @@ public class NBUtils {
         }
     }
 
+    /**
+     * Get the changes of coverage of a Java class since the previous coverage task, for editor tooltips.
+     *
+     * @param delta the changes of coverage of the Java class, can be {@code null}.
+     * @return short descriptions of the changes, by line (0-based), or {@code null} if none.
+     */
+    public static Map<Integer, String> getLineDeltaNotes(ClassCoverageDelta delta) {
+        if (delta == null) {
+            return null;
+        }
+        Map<Integer, String> notes = new HashMap<>(64);
+        for (int line : delta.getLines(LineDeltaEnum.GAINED)) {
+            notes.put(line, "coverage gained since previous run");
+        }
+        for (int line : delta.getLines(LineDeltaEnum.LOST)) {
+            notes.put(line, "coverage lost since previous run");
+        }
+        for (int line : delta.getLines(LineDeltaEnum.NEWLY_PARTIAL)) {
+            notes.put(line, "newly partially covered since previous run");
+        }
+        return notes;
+    }
+
+    /**
+     * Convert an analyzer coverage state to an editor coverage state.
+     *
+     * @param state the analyzer coverage state.
+     * @return the editor coverage state.
+     */
+    private static EditorCoverageStateEnum toEditorCoverageState(fr.tikione.jacocoexec.analyzer.CoverageStateEnum state) {
+        EditorCoverageStateEnum coverageState;
+        switch (state) {
+            case NOT_COVERED:
+                coverageState = EditorCoverageStateEnum.NOT_COVERED;
+                break;
+            case PARTIALLY_COVERED:
+                coverageState = EditorCoverageStateEnum.PARTIALLY_COVERED;
+                break;
+            default:
+                coverageState = EditorCoverageStateEnum.COVERED;
+        }
+        return coverageState;
+    }
+
+    /**
+     * Describe the coverage of a method: instructions, lines and branches ratios.
+     *
+     * @param method the method coverage.
+     * @return the method coverage description.
+     */
+    private static String getMethodCoverageDesc(JavaMethod method) {
+        StringBuilder desc = new StringBuilder(128);
+        desc.append(method.getName()).append("(): ");
+        appendRatio(desc, "instructions", method.getInstructionsCovered(), method.getInstructionsMissed());
+        desc.append(", ");
+        appendRatio(desc, "lines", method.getLinesCovered(), method.getLinesMissed());
+        if (method.getBranchesCovered() + method.getBranchesMissed() > 0) {
+            desc.append(", ");
+            appendRatio(desc, "branches", method.getBranchesCovered(), method.getBranchesMissed());
+        }
+        return desc.append('.').toString();
+    }
+
+    private static void appendRatio(StringBuilder desc, String label, int covered, int missed) {
+        int total = covered + missed;
+        desc.append(covered).append(" of ").append(total).append(' ').append(label).append(" covered");
+        if (total > 0) {
+            desc.append(" (").append(covered * 100 / total).append("%)");
+        }
+    }
+
+    /**
+     * Print blocks of consecutive lines to a NetBeans console tab, one row per block. Each row is a hyperlink to the first line of
+     * its block.
+     *
+     * @param out the console output.
+     * @param classResource the Java source file, relative to a source root (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @param lines the lines (0-based, sorted).
+     * @param desc the description of the lines, shown after each block.
+     * @throws IOException if a NetBeans console related error occurs.
+     */
+    public static void printLineBlocks(OutputWriter out, final String classResource, int[] lines, String desc)
+            throws IOException {
+        int blockStart = 0;
+        while (blockStart < lines.length) {
+            int blockEnd = blockStart;
+            while (blockEnd + 1 < lines.length && lines[blockEnd + 1] == lines[blockEnd] + 1) {
+                blockEnd++;
+            }
+            final int startLine = lines[blockStart];
+            String block = blockStart == blockEnd
+                    ? "line " + (startLine + 1)
+                    : "lines " + (startLine + 1) + '-' + (lines[blockEnd] + 1);
+            out.println("    " + block + " (" + desc + ")", new OutputListener() {
+                @Override
+                public void outputLineSelected(OutputEvent ev) {
+                }
+
+                @Override
+                public void outputLineAction(OutputEvent ev) {
+                    openSource(classResource, startLine);
+                }
+
+                @Override
+                public void outputLineCleared(OutputEvent ev) {
+                }
+            });
+            blockStart = blockEnd + 1;
+        }
+    }
+
+    /**
+     * Open a Java source file in editor and show a given line.
+     *
+     * @param classResource the Java source file, relative to a source root (e.g. <code>/fr/tikione/Foo.java</code>).
+     * @param lineIdx the line to show (0-based).
+     */
+    public static void openSource(String classResource, int lineIdx) {
+        for (FileObject curRoot : GlobalPathRegistry.getDefault().getSourceRoots()) {
+            FileObject fileObject = curRoot.getFileObject(classResource);
+            if (fileObject != null && "java".equalsIgnoreCase(fileObject.getExt())) {
+                try {
+                    LineCookie lineCookie = DataObject.find(fileObject).getLookup().lookup(LineCookie.class);
+                    if (lineCookie != null) {
+                        Line line = lineCookie.getLineSet().getOriginal(Math.max(0, lineIdx));
+                        line.show(Line.ShowOpenType.OPEN, Line.ShowVisibilityType.FOCUS);
+                        return;
+                    }
+                } catch (DataObjectNotFoundException ex) {
+                    Exceptions.printStackTrace(ex);
+                } catch (IndexOutOfBoundsException ex) {
+                    // Source file changed since the coverage task, the line does not exist anymore.
+                    LOGGER.log(Level.INFO, "Cannot show line {0} of {1}", new Object[]{lineIdx, classResource});
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the path of a Java source file, relative to its source root.
+     *
+     * @param sourceFile the Java source file.
+     * @return the Java source file, relative to its source root (e.g. <code>fr/tikione/Foo.java</code>), or {@code null} if the file
+     *         is not a Java source file of a source root.
+     */
+    public static String getClassResource(FileObject sourceFile) {
+        if (sourceFile == null || !"java".equalsIgnoreCase(sourceFile.getExt())) {
+            return null;
+        }
+        ClassPath srcPath = ClassPath.getClassPath(sourceFile, ClassPath.SOURCE);
+        return srcPath == null ? null : srcPath.getResourceName(sourceFile);
+    }
+
     /**
      * launch the default browser to display an URL.
      *
@@ -0,0 +1,56 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.CoverageStateEnum;
+import fr.tikione.jacocoexec.analyzer.FilePatchCoverage;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.PatchCoverage;
+import java.io.IOException;
+import org.openide.windows.IOProvider;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputWriter;
+
+/**
+ * Show the coverage of the lines changed since the latest commit to a NetBeans console tab: ratio of covered changed lines, then
+ * the not covered and partially covered changed lines of each file, with links to the source.
+ *
+ * @author Jonathan Lermitage
+ */
+public class PatchCoverageReport {
+
+    /**
+     * Show the coverage of the lines changed since the latest commit to a NetBeans console tab.
+     *
+     * @param patch the coverage of changed lines.
+     * @param tabName the name of the NetBeans console tab to open.
+     * @throws IOException if a NetBeans console related error occurs.
+     */
+    public static void show(PatchCoverage patch, String tabName)
+            throws IOException {
+        InputOutput io = IOProvider.getDefault().getIO(tabName, false);
+        OutputWriter out = io.getOut();
+        try {
+            out.reset();
+            int nbLines = patch.getNbCoveredLines() + patch.getNbPartiallyCoveredLines() + patch.getNbNotCoveredLines();
+            out.println("=== JaCoCoverage patch coverage (changes since HEAD): " + Math.round(patch.getCoverageRatio() * 100)
+                    + "% of " + nbLines + " changed lines of code, in " + patch.getFiles().size() + " files ===");
+            out.println("    " + patch.getNbCoveredLines() + " covered, " + patch.getNbPartiallyCoveredLines() + " partially covered, "
+                    + patch.getNbNotCoveredLines() + " not covered (" + patch.getNbSkippedFiles()
+                    + " changed files without coverage data or changed code skipped)");
+            out.println();
+            for (FilePatchCoverage file : patch.getFiles()) {
+                String classResource = file.getClassResource();
+                int nbFileLines = file.getNbCoveredLines() + file.getNbPartiallyCoveredLines() + file.getNbNotCoveredLines();
+                out.println(JavaClass.toResourceKey(classResource).replace('/', '.').replace(".java", "") + ": "
+                        + file.getNbCoveredLines() + " of " + nbFileLines + " changed lines covered");
+                NBUtils.printLineBlocks(out, classResource, file.getLines(CoverageStateEnum.NOT_COVERED), "not covered");
+                NBUtils.printLineBlocks(out, classResource, file.getLines(CoverageStateEnum.PARTIALLY_COVERED), "partially covered");
+            }
+        } finally {
+            out.close();
+        }
+        io.select();
+    }
+
+    private PatchCoverageReport() {
+    }
+}
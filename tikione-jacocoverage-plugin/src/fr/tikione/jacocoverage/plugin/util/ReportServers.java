@@ -0,0 +1,51 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.HtmlReportServer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the HTML report servers started for projects. A project has at most one living report server: registering a new
+ * server stops the previous one.
+ *
+ * @author Jonathan Lermitage
+ */
+public class ReportServers {
+
+    /** Living report servers, by project identifier. */
+    private static final Map<String, HtmlReportServer> servers = new HashMap<>(8);
+
+    /**
+     * Register the report server of a project, and stop the previous one.
+     *
+     * @param projectId the project identifier (see {@link NBUtils#getProjectId(org.netbeans.api.project.Project)}).
+     * @param server the report server.
+     */
+    public static void register(String projectId, HtmlReportServer server) {
+        HtmlReportServer previous;
+        synchronized (servers) {
+            previous = servers.put(projectId, server);
+        }
+        if (previous != null) {
+            previous.stop();
+        }
+    }
+
+    /**
+     * Stop the report server of a project, if any.
+     *
+     * @param projectId the project identifier (see {@link NBUtils#getProjectId(org.netbeans.api.project.Project)}).
+     */
+    public static void stop(String projectId) {
+        HtmlReportServer previous;
+        synchronized (servers) {
+            previous = servers.remove(projectId);
+        }
+        if (previous != null) {
+            previous.stop();
+        }
+    }
+
+    private ReportServers() {
+    }
+}
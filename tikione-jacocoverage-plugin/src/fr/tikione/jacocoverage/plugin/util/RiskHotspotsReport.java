@@ -0,0 +1,69 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.JavaMethod;
+import fr.tikione.jacocoexec.analyzer.RiskHotspot;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import org.openide.windows.IOProvider;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputEvent;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+/**
+ * Show risk hotspots to a NetBeans console tab. Each hotspot is a hyperlink to the method's declaration.
+ *
+ * @author Jonathan Lermitage
+ */
+public class RiskHotspotsReport {
+
+    /**
+     * Show risk hotspots to a NetBeans console tab.
+     *
+     * @param hotspots the hotspots to show, highest risk first.
+     * @param nbRankedMethods the number of ranked methods.
+     * @param tabName the name of the NetBeans console tab to open.
+     * @throws IOException if a NetBeans console related error occurs.
+     */
+    public static void show(List<RiskHotspot> hotspots, int nbRankedMethods, String tabName)
+            throws IOException {
+        InputOutput io = IOProvider.getDefault().getIO(tabName, false);
+        OutputWriter out = io.getOut();
+        try {
+            out.reset();
+            out.println("=== JaCoCoverage risk hotspots: " + hotspots.size() + " riskiest of " + nbRankedMethods + " methods ===");
+            out.println("Risk score = complexity^2 * (1 - coverage)^3 + complexity, coverage of lines and branches.");
+            out.println();
+            out.println("   Score  Complexity  Coverage  Method");
+            for (RiskHotspot hotspot : hotspots) {
+                final JavaMethod method = hotspot.getMethod();
+                final String classResource = method.getJavaClass().getPackageName() + method.getJavaClass().getClassName();
+                out.print(String.format(Locale.ENGLISH, "%8.1f  %10d  %7.1f%%  ",
+                        hotspot.getScore(), hotspot.getComplexity(), hotspot.getCoverage() * 100));
+                out.println(JavaClass.toResourceKey(classResource).replace('/', '.').replace(".java", "") + '.' + method.getName()
+                        + " (line " + (method.getLineNumber() + 1) + ')',
+                        new OutputListener() {
+                            @Override
+                            public void outputLineSelected(OutputEvent ev) {
+                            }
+
+                            @Override
+                            public void outputLineAction(OutputEvent ev) {
+                                NBUtils.openSource(classResource, method.getLineNumber());
+                            }
+
+                            @Override
+                            public void outputLineCleared(OutputEvent ev) {
+                            }
+                        });
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private RiskHotspotsReport() {
+    }
+}
@@ -0,0 +1,207 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.ClassIds;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoverage.plugin.anno.AbstractCoverageAnnotation;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.project.Project;
+import org.openide.awt.StatusDisplayer;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Detect stale coverage data without running the coverage task again: the class id of each Java source file is recorded with its
+ * coverage data, and when its classes are recompiled (e.g. by compile-on-save) the class id is computed again from the new class
+ * files (a CRC64 checksum, see {@link ClassIds}). If it differs, the highlighting of the Java source file is dimmed, so it is not
+ * mistaken for up-to-date coverage data. It is restored if the class id is back to the recorded one (e.g. modification undone).
+ *
+ * @author Jonathan Lermitage
+ */
+public class StaleCoverageMonitor {
+
+    private static final Logger LOGGER = Logger.getLogger(StaleCoverageMonitor.class.getName());
+
+    private static final RequestProcessor RP = new RequestProcessor("JaCoCoverage Stale Coverage Task", 1, true);
+
+    /** Delay between the latest compiled class change and the class ids check, in milliseconds. Compilers write classes in bursts. */
+    private static final int CHECK_DELAY = 500;
+
+    /** Monitored projects, by project identifier. */
+    private static final Map<String, StaleCoverageMonitor> monitors = new HashMap<>(8);
+
+    private final String prjId;
+
+    private final File classesDir;
+
+    /** Recorded class ids, by Java source file (e.g. "/fr/tikione/Foo.java"). Class ids of {@code 0} (unknown) are not recorded. */
+    private final Map<String, Long> classIds;
+
+    /** Java source files whose coverage data is currently stale. */
+    private final Set<String> stale = new HashSet<>(16);
+
+    /** Java source files whose classes were updated since the latest check. */
+    private final Set<String> changed = new HashSet<>(16);
+
+    private final RequestProcessor.Task checkTask;
+
+    private final FileChangeListener listener = new FileChangeListener() {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            classChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            classChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            classChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fre) {
+            classChanged(fre.getFile());
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fae) {
+        }
+    };
+
+    private StaleCoverageMonitor(String prjId, File classesDir, Map<String, Long> classIds) {
+        this.prjId = prjId;
+        this.classesDir = classesDir;
+        this.classIds = classIds;
+        checkTask = RP.create(new Runnable() {
+            @Override
+            public void run() {
+                checkChangedClasses();
+            }
+        });
+    }
+
+    /**
+     * Start monitoring the compiled classes of a project, with the class ids of new coverage data. Replaces the previous monitoring of
+     * the project, if any. Has to be called when the coverage data of a project is highlighted.
+     *
+     * @param project the project.
+     * @param classesDir the folder containing the project's compiled classes.
+     * @param classes the coverage data, with the class ids of the Java source files.
+     */
+    public static void track(Project project, File classesDir, Collection<JavaClass> classes) {
+        Map<String, Long> classIds = new HashMap<>(classes.size() * 2);
+        for (JavaClass jclass : classes) {
+            if (jclass.getClassId() != 0) {
+                classIds.put(jclass.getPackageName() + jclass.getClassName(), jclass.getClassId());
+            }
+        }
+        StaleCoverageMonitor monitor = new StaleCoverageMonitor(NBUtils.getProjectId(project), classesDir, classIds);
+        StaleCoverageMonitor previous;
+        synchronized (monitors) {
+            previous = monitors.put(monitor.prjId, monitor);
+        }
+        if (previous != null) {
+            previous.dispose();
+        }
+        if (!classIds.isEmpty()) {
+            FileUtil.addRecursiveListener(monitor.listener, classesDir);
+        }
+    }
+
+    /**
+     * Stop monitoring the compiled classes of a project, if monitored. Has to be called when the project's coverage data is removed.
+     *
+     * @param project the project.
+     */
+    public static void untrack(Project project) {
+        StaleCoverageMonitor monitor;
+        synchronized (monitors) {
+            monitor = monitors.remove(NBUtils.getProjectId(project));
+        }
+        if (monitor != null) {
+            monitor.dispose();
+        }
+    }
+
+    private void dispose() {
+        if (!classIds.isEmpty()) {
+            FileUtil.removeRecursiveListener(listener, classesDir);
+        }
+        checkTask.cancel();
+    }
+
+    private void classChanged(FileObject classFile) {
+        if (!"class".equals(classFile.getExt())) {
+            return;
+        }
+        File file = FileUtil.toFile(classFile);
+        if (file == null) {
+            return;
+        }
+        String path = file.getAbsolutePath();
+        String classPrefix = classesDir.getAbsolutePath() + File.separator;
+        if (!path.startsWith(classPrefix)) {
+            return;
+        }
+        String className = path.substring(classPrefix.length(), path.length() - ".class".length()).replace(File.separatorChar, '/');
+        if (className.contains("$")) {
+            className = className.substring(0, className.indexOf('$'));
+        }
+        int sep = className.lastIndexOf('/');
+        String classResource = '/' + className.substring(0, sep + 1) + (sep < 0 ? "/" : "") + className.substring(sep + 1) + ".java";
+        if (classIds.containsKey(classResource)) {
+            synchronized (changed) {
+                changed.add(classResource);
+            }
+            checkTask.schedule(CHECK_DELAY);
+        }
+    }
+
+    /**
+     * Compute again the class ids of the updated Java source files, and dim or restore their highlighting.
+     */
+    private void checkChangedClasses() {
+        Set<String> toCheck;
+        synchronized (changed) {
+            toCheck = new HashSet<>(changed);
+            changed.clear();
+        }
+        for (String classResource : toCheck) {
+            int sep = classResource.lastIndexOf('/');
+            try {
+                long classId = ClassIds.compute(classesDir, classResource.substring(0, sep + 1), classResource.substring(sep + 1));
+                boolean isStale = classId != classIds.get(classResource);
+                if (isStale ? stale.add(classResource) : stale.remove(classResource)) {
+                    AbstractCoverageAnnotation.setStale(prjId, classResource, isStale);
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.INFO, "Cannot check class id of " + classResource, ex);
+            }
+        }
+        int nbStale = stale.size();
+        if (!toCheck.isEmpty()) {
+            StatusDisplayer.getDefault().setStatusText(nbStale == 0
+                    ? "JaCoCoverage: coverage data is up to date"
+                    : "JaCoCoverage: coverage data of " + nbStale + " files is out of date, run the coverage task again");
+        }
+    }
+}
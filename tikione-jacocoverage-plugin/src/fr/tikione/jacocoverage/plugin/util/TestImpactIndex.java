@@ -0,0 +1,218 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import fr.tikione.jacocoexec.analyzer.ClassIds;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Test impact index of a project: the classes executed by each test class, captured by running every test class in its own
+ * coverage session. Used to run only the tests affected by changed classes.
+ * <br/>Stored as JSON in the project's <code>.jacocoverage</code> folder: test classes (e.g. <code>fr/tikione/FooTest.java</code>,
+ * relative to the test folder), the VM names of the top level classes they execute (e.g. <code>fr/tikione/Foo</code>), and the class
+ * ids of the test classes when indexed (see {@link ClassIds}), to find the test classes changed since.
+ *
+ * @author Jonathan Lermitage
+ */
+public class TestImpactIndex {
+
+    /** Key of the index format version. */
+    private static final String JSON_VERSION = "version";
+
+    /** Key of the executed classes, by test class. */
+    private static final String JSON_TESTS = "tests";
+
+    /** Key of the class ids, by test class. Optional: absent from indexes built by older versions. */
+    private static final String JSON_CLASS_IDS = "classIds";
+
+    /** Current index format version. */
+    private static final int VERSION = 1;
+
+    /** Executed classes, by test class. */
+    private final Map<String, Set<String>> testClasses = new TreeMap<>();
+
+    /** Class ids of the test classes when indexed, by test class. */
+    private final Map<String, Long> testClassIds = new TreeMap<>();
+
+    /** Test classes, by executed class. Built on first query. */
+    private Map<String, List<String>> classTests = null;
+
+    /**
+     * Load a test impact index.
+     *
+     * @param indexFile the index file.
+     * @return the index, or {@code null} if the file doesn't exist.
+     * @throws IOException if the index can't be read.
+     */
+    @SuppressWarnings("unchecked")
+    public static TestImpactIndex load(File indexFile)
+            throws IOException {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        Map<String, Object> json = new ObjectMapper().readValue(indexFile, Map.class);
+        Object version = json.get(JSON_VERSION);
+        if (!(version instanceof Number) || ((Number) version).intValue() != VERSION) {
+            throw new IOException("Unsupported test impact index version: " + version);
+        }
+        TestImpactIndex index = new TestImpactIndex();
+        for (Map.Entry<String, Collection<String>> test : ((Map<String, Collection<String>>) json.get(JSON_TESTS)).entrySet()) {
+            index.put(test.getKey(), test.getValue());
+        }
+        Map<String, Number> classIds = (Map<String, Number>) json.get(JSON_CLASS_IDS);
+        if (classIds != null) {
+            for (Map.Entry<String, Number> classId : classIds.entrySet()) {
+                index.testClassIds.put(classId.getKey(), classId.getValue().longValue());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Store the test impact index.
+     *
+     * @param indexFile the index file (replaced if it exists).
+     * @throws IOException if the index can't be written.
+     */
+    public void store(File indexFile)
+            throws IOException {
+        indexFile.getParentFile().mkdirs();
+        Map<String, Object> json = new TreeMap<>();
+        json.put(JSON_VERSION, VERSION);
+        json.put(JSON_TESTS, testClasses);
+        json.put(JSON_CLASS_IDS, testClassIds);
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(indexFile, json);
+    }
+
+    /**
+     * Set the classes executed by a test class.
+     *
+     * @param test the test class, relative to the test folder (e.g. <code>fr/tikione/FooTest.java</code>).
+     * @param classes the VM names of the executed top level classes (e.g. <code>fr/tikione/Foo</code>).
+     */
+    public void put(String test, Collection<String> classes) {
+        testClasses.put(test, new TreeSet<>(classes));
+        classTests = null;
+    }
+
+    /**
+     * Set the classes executed by a test class, and its class id.
+     *
+     * @param test the test class, relative to the test folder (e.g. <code>fr/tikione/FooTest.java</code>).
+     * @param classes the VM names of the executed top level classes (e.g. <code>fr/tikione/Foo</code>).
+     * @param classId the class id of the test class (see {@link ClassIds}), or {@code 0} if unknown.
+     */
+    public void put(String test, Collection<String> classes, long classId) {
+        put(test, classes);
+        if (classId != 0) {
+            testClassIds.put(test, classId);
+        }
+    }
+
+    /**
+     * Get the class id of a test class when it was indexed.
+     *
+     * @param test the test class, relative to the test folder (e.g. <code>fr/tikione/FooTest.java</code>).
+     * @return the class id (see {@link ClassIds}), or {@code 0} if unknown.
+     */
+    public long getClassId(String test) {
+        Long classId = testClassIds.get(test);
+        return classId == null ? 0 : classId;
+    }
+
+    /**
+     * Check if a test class is indexed.
+     *
+     * @param test the test class, relative to the test folder (e.g. <code>fr/tikione/FooTest.java</code>).
+     * @return {@code true} if the classes executed by the test class are known.
+     */
+    public boolean contains(String test) {
+        return testClasses.containsKey(test);
+    }
+
+    /**
+     * Get the test classes that execute any of the given classes.
+     *
+     * @param classes the VM names of top level classes (e.g. <code>fr/tikione/Foo</code>).
+     * @return the affected test classes, sorted.
+     */
+    public Set<String> getAffectedTests(Collection<String> classes) {
+        if (classTests == null) {
+            classTests = new HashMap<>(testClasses.size() * 8);
+            for (Map.Entry<String, Set<String>> test : testClasses.entrySet()) {
+                for (String executedClass : test.getValue()) {
+                    List<String> tests = classTests.get(executedClass);
+                    if (tests == null) {
+                        tests = new ArrayList<>(4);
+                        classTests.put(executedClass, tests);
+                    }
+                    tests.add(test.getKey());
+                }
+            }
+        }
+        Set<String> affectedTests = new TreeSet<>();
+        for (String changedClass : classes) {
+            List<String> tests = classTests.get(changedClass);
+            if (tests != null) {
+                affectedTests.addAll(tests);
+            }
+        }
+        return affectedTests;
+    }
+
+    public int getNbTests() {
+        return testClasses.size();
+    }
+
+    /**
+     * List the test classes of a test folder: the Java source files whose name ends with <code>Test</code>, as run by the
+     * <code>test</code> Ant task of Java projects.
+     *
+     * @param testDir the test folder.
+     * @return the test classes, relative to the test folder (e.g. <code>fr/tikione/FooTest.java</code>), sorted.
+     */
+    public static List<String> listTests(File testDir) {
+        List<String> tests = new ArrayList<>(64);
+        listTests(testDir, "", tests);
+        Collections.sort(tests);
+        return tests;
+    }
+
+    /**
+     * Check if a Java source file is a test class: it matches the <code>**&#47;*Test.java</code> pattern of the test tasks of
+     * NetBeans Java projects.
+     *
+     * @param source the Java source file, or the VM name of its top level class (e.g. <code>fr/tikione/FooTest.java</code> or
+     *        <code>fr/tikione/FooTest</code>).
+     * @return {@code true} if the file is a test class.
+     */
+    public static boolean isTest(String source) {
+        return source.endsWith("Test.java") || source.endsWith("Test");
+    }
+
+    private static void listTests(File dir, String relPath, List<String> tests) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                listTests(file, relPath + file.getName() + '/', tests);
+            } else if (isTest(file.getName())) {
+                tests.add(relPath + file.getName());
+            }
+        }
+    }
+}
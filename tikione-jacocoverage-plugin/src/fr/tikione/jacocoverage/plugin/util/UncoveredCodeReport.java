@@ -0,0 +1,72 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import fr.tikione.jacocoexec.analyzer.CoverageStateEnum;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.UncoveredRange;
+import fr.tikione.jacocoexec.analyzer.UncoveredRangeIndex;
+import java.io.IOException;
+import org.openide.windows.IOProvider;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputEvent;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+/**
+ * List the not covered and partially covered blocks of a project to a NetBeans console tab. Each block is a hyperlink to its first
+ * line.
+ *
+ * @author Jonathan Lermitage
+ */
+public class UncoveredCodeReport {
+
+    /**
+     * List the not covered and partially covered blocks of a project to a NetBeans console tab.
+     *
+     * @param index the blocks of the project.
+     * @param tabName the name of the NetBeans console tab to open.
+     * @throws IOException if a NetBeans console related error occurs.
+     */
+    public static void show(UncoveredRangeIndex index, String tabName)
+            throws IOException {
+        InputOutput io = IOProvider.getDefault().getIO(tabName, false);
+        OutputWriter out = io.getOut();
+        try {
+            out.reset();
+            out.println("=== JaCoCoverage uncovered code: " + index.getNbRanges() + " blocks in " + index.getNbClasses() + " files ===");
+            out.println();
+            String previousResource = null;
+            for (final UncoveredRange range : index.getRanges()) {
+                final String classResource = range.getClassResource();
+                if (!classResource.equals(previousResource)) {
+                    out.println(JavaClass.toResourceKey(classResource).replace('/', '.').replace(".java", ""));
+                    previousResource = classResource;
+                }
+                String lines = range.getStartLine() == range.getEndLine()
+                        ? "line " + (range.getStartLine() + 1)
+                        : "lines " + (range.getStartLine() + 1) + '-' + (range.getEndLine() + 1);
+                out.println("    " + lines + (range.getCoverageState() == CoverageStateEnum.PARTIALLY_COVERED
+                        ? " (partially covered)" : " (not covered)"),
+                        new OutputListener() {
+                            @Override
+                            public void outputLineSelected(OutputEvent ev) {
+                            }
+
+                            @Override
+                            public void outputLineAction(OutputEvent ev) {
+                                NBUtils.openSource(classResource, range.getStartLine());
+                            }
+
+                            @Override
+                            public void outputLineCleared(OutputEvent ev) {
+                            }
+                        });
+            }
+        } finally {
+            out.close();
+        }
+        io.select();
+    }
+
+    private UncoveredCodeReport() {
+    }
+}
@@ -1,5 +1,6 @@
 package fr.tikione.jacocoverage.plugin.util;
 
+import fr.tikione.jacocoverage.plugin.config.Globals;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -14,9 +15,11 @@ import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
 import org.openide.util.Exceptions;
 
 /**
@@ -111,6 +114,42 @@ public class Utils {
         return new File(jacocoXmlReportPath);
     }
 
+    /**
+     * Load the properties of an Ant based project (<code>nbproject/project.properties</code>).
+     *
+     * @param project the project.
+     * @return the project properties (empty if the project has no properties file).
+     * @throws IOException if the properties file can't be read.
+     */
+    public static Properties loadProjectProperties(Project project)
+            throws IOException {
+        Properties prjProps = new Properties();
+        FileObject prjPropsFo = project.getProjectDirectory().getFileObject("nbproject/project.properties");
+        if (prjPropsFo != null) {
+            try (InputStream insPrjProps = prjPropsFo.getInputStream()) {
+                prjProps.load(insPrjProps);
+            }
+        }
+        return prjProps;
+    }
+
+    /**
+     * Get the folder containing the compiled classes of an Ant based project. Special case for Java Web projects.
+     *
+     * @param project the project.
+     * @param prjProps the project properties.
+     * @return the folder of compiled classes.
+     */
+    public static File getProjectClassesDir(Project project, Properties prjProps) {
+        String prjDir = NBUtils.getProjectDir(project) + File.separator;
+        if (isProjectSupported(project,
+                NBProjectTypeEnum.J2EE, NBProjectTypeEnum.J2EE_EAR, NBProjectTypeEnum.J2EE_EJB, NBProjectTypeEnum.J2EE_WEB)) {
+            return new File(prjDir + File.separator + "build" + File.separator + "web"
+                    + File.separator + "WEB-INF" + File.separator + "classes" + File.separator);
+        }
+        return new File(prjDir + getProperty(prjProps, "build.classes.dir") + File.separator);
+    }
+
     /**
      * Get a key value from a Properties object, with support of NetBeans key references (aka "${key}").
 	 * TODO: fix crash with javaee 'build.classes.dir' property
@@ -284,6 +323,56 @@ public class Utils {
         }
     }
 
+    /**
+     * Get a copy of the JaCoCo binary report of the latest coverage task, kept by the workfiles retention policy.
+     *
+     * @param prjDir project directory.
+     * @return a temporary copy of the report, or {@code null} if it wasn't kept.
+     * @throws IOException if the report can't be copied.
+     */
+    public static File copyLatestBinReport(String prjDir)
+            throws IOException {
+        File binreportCpy = new File(prjDir + Globals.BIN_BACKUP_REPORT);
+        File binreportZip = new File(prjDir + Globals.BINZIP_BACKUP_REPORT);
+        File base = File.createTempFile("jacocoverage", ".exec");
+        if (binreportCpy.isFile()) {
+            org.apache.commons.io.FileUtils.copyFile(binreportCpy, base);
+            return base;
+        }
+        if (binreportZip.isFile()) {
+            try (ZipFile zip = new ZipFile(binreportZip)) {
+                ZipEntry entry = zip.getEntry(Globals.BINZIP_BACKUP_REPORT_ENTRY);
+                if (entry != null) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        org.apache.commons.io.FileUtils.copyInputStreamToFile(in, base);
+                    }
+                    return base;
+                }
+            }
+        }
+        base.delete();
+        return null;
+    }
+
+    /**
+     * Replace the JaCoCo binary report of the latest coverage task, kept by the workfiles retention policy, in the form it was kept
+     * (plain or zipped). Does nothing if it wasn't kept.
+     *
+     * @param prjDir project directory.
+     * @param binreport the new JaCoCo binary report.
+     * @throws IOException if the report can't be copied.
+     */
+    public static void storeLatestBinReport(String prjDir, File binreport)
+            throws IOException {
+        File binreportCpy = new File(prjDir + Globals.BIN_BACKUP_REPORT);
+        File binreportZip = new File(prjDir + Globals.BINZIP_BACKUP_REPORT);
+        if (binreportCpy.isFile()) {
+            org.apache.commons.io.FileUtils.copyFile(binreport, binreportCpy);
+        } else if (binreportZip.isFile()) {
+            zip(binreport, binreportZip, Globals.BINZIP_BACKUP_REPORT_ENTRY, false);
+        }
+    }
+
     private Utils() {
     }
 }
@@ -0,0 +1,154 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Properties;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.platform.JavaPlatform;
+import org.netbeans.api.java.platform.JavaPlatformManager;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * A warm forked JVM running the test classes of a Java project with the JaCoCo JavaAgent (see {@link WarmTestRunner}). Each run is a
+ * coverage session of its own: the agent's execution data is reset before the test classes are run, and written to the given JaCoCo
+ * binary report after. The JVM is started on the first run, with the Java platform of the project (as the project's own test runs).
+ * Not thread-safe.
+ *
+ * @author Jonathan Lermitage
+ */
+public class WarmTestProcess {
+
+    private final Project project;
+
+    private Process runner = null;
+
+    private Writer runnerIn = null;
+
+    private BufferedReader runnerOut = null;
+
+    /**
+     * @param project the Java project whose test classes are run.
+     */
+    public WarmTestProcess(Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Run test classes in the warm JVM, started if needed.
+     *
+     * @param runreport the JaCoCo binary report to write.
+     * @param tests the test classes, relative to the test folder (e.g. <code>fr/tikione/FooTest.java</code>).
+     * @return the answer of the test runner: <code>OK runCount failureCount</code> or <code>ERROR message</code>.
+     * @throws IOException if the warm JVM can't be started, or died.
+     */
+    public String run(File runreport, Collection<String> tests)
+            throws IOException {
+        if (runner == null) {
+            start();
+        }
+        StringBuilder request = new StringBuilder(tests.size() * 48);
+        request.append(runreport.getAbsolutePath());
+        for (String test : tests) {
+            request.append('\t').append(test.substring(0, test.length() - ".java".length()).replace('/', '.'));
+        }
+        runnerIn.write(request.append('\n').toString());
+        runnerIn.flush();
+        String result = runnerOut.readLine();
+        if (result == null) {
+            throw new IOException("The warm test JVM died");
+        }
+        return result;
+    }
+
+    private void start()
+            throws IOException {
+        Properties prjProps = Utils.loadProjectProperties(project);
+        FileObject testRoot = project.getProjectDirectory().getFileObject(Utils.getProperty(prjProps, "test.src.dir"));
+        ClassPath testClasspath = testRoot == null ? null : ClassPath.getClassPath(testRoot, ClassPath.EXECUTE);
+        if (testClasspath == null) {
+            throw new IOException("Cannot get the test classpath of " + NBUtils.getProjectName(project));
+        }
+        StringBuilder classpath = new StringBuilder(1024);
+        for (ClassPath.Entry entry : testClasspath.entries()) {
+            File cpEntry = FileUtil.archiveOrDirForURL(entry.getURL());
+            if (cpEntry != null) {
+                if (classpath.length() > 0) {
+                    classpath.append(File.pathSeparatorChar);
+                }
+                classpath.append(cpEntry.getAbsolutePath());
+            }
+        }
+        File pluginJar;
+        try {
+            pluginJar = new File(WarmTestRunner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException ex) {
+            throw new IOException(ex);
+        }
+        String packages = NBUtils.getProjectJavaPackagesAsStr(project, prjProps, ":", ".*");
+        if (packages.length() > 1000) { // GitHub#26: JaCoCo seems to fail if the includes list is too long
+            packages = "*";
+        }
+        ProcessBuilder pb = new ProcessBuilder(
+                getJavaLauncher(prjProps).getAbsolutePath(),
+                "-javaagent:" + NBUtils.getJacocoAgentJar().getAbsolutePath() + "=output=none,includes=" + packages,
+                "-cp", pluginJar.getAbsolutePath(),
+                WarmTestRunner.class.getName(),
+                classpath.toString());
+        pb.directory(new File(NBUtils.getProjectDir(project)));
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        runner = pb.start();
+        runnerIn = new OutputStreamWriter(runner.getOutputStream(), StandardCharsets.UTF_8);
+        runnerOut = new BufferedReader(new InputStreamReader(runner.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the <code>java</code> launcher of the Java platform of the project (<code>platform.active</code> property), or of the
+     * IDE's default Java platform if the project uses it.
+     *
+     * @param prjProps the project's properties.
+     * @return the <code>java</code> launcher.
+     * @throws IOException if the Java platform of the project is not installed in the IDE, or has no <code>java</code> launcher.
+     */
+    private static File getJavaLauncher(Properties prjProps)
+            throws IOException {
+        String platformName = Utils.getProperty(prjProps, "platform.active");
+        JavaPlatform platform = null;
+        if (platformName.isEmpty() || platformName.equals("default_platform")) {
+            platform = JavaPlatformManager.getDefault().getDefaultPlatform();
+        } else {
+            for (JavaPlatform installed : JavaPlatformManager.getDefault().getInstalledPlatforms()) {
+                if (platformName.equals(installed.getProperties().get("platform.ant.name"))) {
+                    platform = installed;
+                    break;
+                }
+            }
+        }
+        FileObject java = platform == null ? null : platform.findTool("java");
+        File launcher = java == null ? null : FileUtil.toFile(java);
+        if (launcher == null) {
+            throw new IOException("Cannot find the java launcher of the Java platform " + platformName);
+        }
+        return launcher;
+    }
+
+    /**
+     * Stop the warm JVM, if started. The next run starts a new one.
+     */
+    public void stop() {
+        if (runner != null) {
+            runner.destroy();
+            runner = null;
+            runnerIn = null;
+            runnerOut = null;
+        }
+    }
+}
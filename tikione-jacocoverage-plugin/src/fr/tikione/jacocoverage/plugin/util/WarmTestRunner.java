@@ -0,0 +1,85 @@
+package fr.tikione.jacocoverage.plugin.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test runner of the coverage watch mode, run in a forked JVM started with the JaCoCo JavaAgent (<code>output=none</code>). The JVM
+ * stays warm between runs: each run loads the project's classes and JUnit in a new class loader (so recompiled classes are used),
+ * resets the agent's execution data, runs the test classes and writes the execution data to a JaCoCo binary report.
+ * <br/>Protocol, one line per run: the runner reads <code>destfile TAB testclass [TAB testclass...]</code> from its standard input,
+ * and answers <code>OK runCount failureCount</code> or <code>ERROR message</code> on its standard output. Output of the tests goes to
+ * the standard error.
+ * <br/>Must not depend on NetBeans classes: it is run from the plugin JAR, outside of the IDE.
+ *
+ * @author Jonathan Lermitage
+ */
+public class WarmTestRunner {
+
+    private WarmTestRunner() {
+    }
+
+    /**
+     * Run the test runner.
+     *
+     * @param args the test execution classpath (folders and JARs, separated by the path separator).
+     * @throws Exception if the JaCoCo JavaAgent is not available.
+     */
+    public static void main(String[] args)
+            throws Exception {
+        String[] cpEntries = args[0].split(File.pathSeparator);
+        URL[] classpath = new URL[cpEntries.length];
+        for (int idx = 0; idx < cpEntries.length; idx++) {
+            classpath[idx] = new File(cpEntries[idx]).toURI().toURL();
+        }
+        Class<?> agentItf = Class.forName("org.jacoco.agent.rt.IAgent");
+        Object agent = Class.forName("org.jacoco.agent.rt.RT").getMethod("getAgent").invoke(null);
+        Method reset = agentItf.getMethod("reset");
+        Method getExecutionData = agentItf.getMethod("getExecutionData", boolean.class);
+
+        PrintStream protocol = new PrintStream(new FileOutputStream(java.io.FileDescriptor.out), true, "UTF-8");
+        System.setOut(System.err);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String request;
+        while ((request = in.readLine()) != null) {
+            String[] params = request.split("\t");
+            try (URLClassLoader loader = new URLClassLoader(classpath, ClassLoader.getSystemClassLoader().getParent())) {
+                Thread.currentThread().setContextClassLoader(loader);
+                // Test classes deleted since the test impact index was built are skipped.
+                List<Class<?>> tests = new ArrayList<>(params.length);
+                for (int idx = 1; idx < params.length; idx++) {
+                    try {
+                        tests.add(Class.forName(params[idx], false, loader));
+                    } catch (ClassNotFoundException ex) {
+                        System.err.println("Test class not found: " + params[idx]);
+                    }
+                }
+                reset.invoke(agent);
+                Class<?> junitCore = Class.forName("org.junit.runner.JUnitCore", true, loader);
+                Object result = junitCore.getMethod("runClasses", Class[].class).invoke(null, (Object) tests.toArray(new Class<?>[tests.size()]));
+                byte[] executionData = (byte[]) getExecutionData.invoke(agent, false);
+                try (OutputStream out = new FileOutputStream(params[0])) {
+                    out.write(executionData);
+                }
+                protocol.println("OK " + result.getClass().getMethod("getRunCount").invoke(result)
+                        + ' ' + result.getClass().getMethod("getFailureCount").invoke(result));
+            } catch (ReflectiveOperationException | IOException | RuntimeException | LinkageError ex) {
+                Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                protocol.println("ERROR " + String.valueOf(cause).replace('\n', ' '));
+            } finally {
+                Thread.currentThread().setContextClassLoader(null);
+            }
+        }
+    }
+}
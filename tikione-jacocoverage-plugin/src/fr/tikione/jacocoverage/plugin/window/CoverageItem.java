@@ -0,0 +1,205 @@
+package fr.tikione.jacocoverage.plugin.window;
+
+import fr.tikione.jacocoexec.analyzer.CoverageCounters;
+import fr.tikione.jacocoexec.analyzer.CoverageRollup;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.JavaMethod;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.netbeans.api.project.Project;
+
+/**
+ * An element of the coverage results tree: a project, a module, a package, a class or a method.
+ * <br/>Items are immutable views over the coverage rollup of a project. Children are computed on request, so a tree node is built
+ * only when its parent is expanded.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageItem {
+
+    /** The kind of element. */
+    public enum Kind {
+
+        PROJECT, MODULE, PACKAGE, CLASS, METHOD
+    }
+
+    private final Kind kind;
+
+    /** Displayed name. */
+    private final String name;
+
+    /** The project that contains the element. */
+    private final Project project;
+
+    /** The rollup node of a project, module, package or class, {@code null} for methods. */
+    private final CoverageRollup rollup;
+
+    /** The class, or the class that contains the method, {@code null} for projects, modules and packages. */
+    private final JavaClass jclass;
+
+    /** Line of the element in the Java source file (0-based), or {@code -1} if the element has no source line. */
+    private final int line;
+
+    private final int nbCoveredLines;
+
+    private final int nbPartiallyCoveredLines;
+
+    private final int nbNotCoveredLines;
+
+    private CoverageItem(Kind kind, String name, Project project, CoverageRollup rollup, JavaClass jclass, int line,
+            int nbCoveredLines, int nbPartiallyCoveredLines, int nbNotCoveredLines) {
+        this.kind = kind;
+        this.name = name;
+        this.project = project;
+        this.rollup = rollup;
+        this.jclass = jclass;
+        this.line = line;
+        this.nbCoveredLines = nbCoveredLines;
+        this.nbPartiallyCoveredLines = nbPartiallyCoveredLines;
+        this.nbNotCoveredLines = nbNotCoveredLines;
+    }
+
+    /**
+     * Create the root item of a project.
+     *
+     * @param project the project.
+     * @param rollup the coverage rollup of the project.
+     * @return the project item.
+     */
+    static CoverageItem forProject(Project project, CoverageRollup rollup) {
+        return forRollup(Kind.PROJECT, NBUtils.getProjectName(project), project, rollup);
+    }
+
+    private static CoverageItem forRollup(Kind kind, String name, Project project, CoverageRollup rollup) {
+        CoverageCounters counters = rollup.getCounters();
+        return new CoverageItem(kind, name, project, rollup, rollup.getJavaClass(), kind == Kind.CLASS ? 0 : -1,
+                counters.getNbCoveredLines(), counters.getNbPartiallyCoveredLines(), counters.getNbNotCoveredLines());
+    }
+
+    private static CoverageItem forMethod(Project project, JavaClass jclass, JavaMethod method) {
+        String methodName = method.getName().equals("<init>") ? jclass.getClassName().replace(".java", "") : method.getName();
+        return new CoverageItem(Kind.METHOD, methodName, project, null, jclass, method.getLineNumber(),
+                method.getLinesCovered(), 0, method.getLinesMissed());
+    }
+
+    /**
+     * Compute the children of this item, in the given sort order. Projects made of a single module show packages directly.
+     *
+     * @param sort the sort order.
+     * @return the children of this item (empty for methods).
+     */
+    public List<CoverageItem> getChildren(CoverageSortEnum sort) {
+        List<CoverageItem> children;
+        switch (kind) {
+            case PROJECT:
+                if (rollup.getChildren().size() == 1) {
+                    children = packageItems(rollup.getChildren().get(0));
+                } else {
+                    children = new ArrayList<>(rollup.getChildren().size());
+                    for (CoverageRollup module : rollup.getChildren()) {
+                        children.add(forRollup(Kind.MODULE, module.getName(), project, module));
+                    }
+                }
+                break;
+            case MODULE:
+                children = packageItems(rollup);
+                break;
+            case PACKAGE:
+                children = new ArrayList<>(rollup.getChildren().size());
+                for (CoverageRollup cls : rollup.getChildren()) {
+                    children.add(forRollup(Kind.CLASS, cls.getName(), project, cls));
+                }
+                break;
+            case CLASS:
+                children = new ArrayList<>(jclass.getMethods().size());
+                for (JavaMethod method : jclass.getMethods()) {
+                    children.add(forMethod(project, jclass, method));
+                }
+                break;
+            default:
+                children = Collections.emptyList();
+        }
+        if (children.size() > 1) {
+            Collections.sort(children, sort.comparator());
+        }
+        return children;
+    }
+
+    private List<CoverageItem> packageItems(CoverageRollup module) {
+        List<CoverageItem> packages = new ArrayList<>(module.getChildren().size());
+        for (CoverageRollup pkg : module.getChildren()) {
+            packages.add(forRollup(Kind.PACKAGE, toPackageName(pkg.getName()), project, pkg));
+        }
+        return packages;
+    }
+
+    /**
+     * Convert a package path as found in coverage data (e.g. {@code /fr/tikione/}) to a package name ({@code fr.tikione}).
+     *
+     * @param packagePath the package path.
+     * @return the package name.
+     */
+    private static String toPackageName(String packagePath) {
+        String pkg = packagePath.replace('/', '.');
+        while (pkg.startsWith(".")) {
+            pkg = pkg.substring(1);
+        }
+        while (pkg.endsWith(".")) {
+            pkg = pkg.substring(0, pkg.length() - 1);
+        }
+        return pkg.isEmpty() ? "<default package>" : pkg;
+    }
+
+    public boolean isLeaf() {
+        return kind == Kind.METHOD || (kind == Kind.CLASS && jclass.getMethods().isEmpty());
+    }
+
+    /**
+     * Get the line coverage ratio of this item.
+     *
+     * @return the ratio of covered lines (partially covered lines count as half covered), from 0 to 1, or 1 if there is no line.
+     */
+    public double getCoverageRatio() {
+        int nbLines = nbCoveredLines + nbPartiallyCoveredLines + nbNotCoveredLines;
+        return nbLines == 0 ? 1 : (nbCoveredLines + nbPartiallyCoveredLines / 2.0) / nbLines;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    /**
+     * Get the Java source file of this item, relative to a source root (e.g. {@code /fr/tikione/Foo.java}).
+     *
+     * @return the Java source file, or {@code null} for projects and packages.
+     */
+    public String getClassResource() {
+        return jclass == null ? null : jclass.getPackageName() + jclass.getClassName();
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getNbCoveredLines() {
+        return nbCoveredLines;
+    }
+
+    public int getNbPartiallyCoveredLines() {
+        return nbPartiallyCoveredLines;
+    }
+
+    public int getNbNotCoveredLines() {
+        return nbNotCoveredLines;
+    }
+}
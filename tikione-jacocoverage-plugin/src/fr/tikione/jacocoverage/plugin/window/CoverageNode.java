@@ -0,0 +1,201 @@
+package fr.tikione.jacocoverage.plugin.window;
+
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import org.openide.nodes.AbstractNode;
+import org.openide.nodes.ChildFactory;
+import org.openide.nodes.Children;
+import org.openide.nodes.Node;
+import org.openide.nodes.PropertySupport;
+import org.openide.nodes.Sheet;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * A node of the coverage results tree table. Children nodes are created asynchronously when the node is expanded.
+ *
+ * @author Jonathan Lermitage
+ */
+@NbBundle.Messages({
+    "LBL_Coverage=Coverage",
+    "HINT_Coverage=Line coverage ratio",
+    "LBL_Covered=Covered",
+    "HINT_Covered=Number of covered lines",
+    "LBL_PartiallyCovered=Partially covered",
+    "HINT_PartiallyCovered=Number of partially covered lines",
+    "LBL_NotCovered=Not covered",
+    "HINT_NotCovered=Number of not covered lines",
+    "CTL_GoToSource=Go to Source"
+})
+public class CoverageNode extends AbstractNode {
+
+    /** Property name: line coverage ratio. */
+    public static final String PROP_COVERAGE = "coverage";
+
+    /** Property name: number of covered lines. */
+    public static final String PROP_COVERED = "covered";
+
+    /** Property name: number of partially covered lines. */
+    public static final String PROP_PARTIALLY_COVERED = "partiallyCovered";
+
+    /** Property name: number of not covered lines. */
+    public static final String PROP_NOT_COVERED = "notCovered";
+
+    private final CoverageItem item;
+
+    /** The factory of children nodes, {@code null} for leaves. */
+    private final CoverageChildFactory childFactory;
+
+    /**
+     * Create a node.
+     *
+     * @param item the coverage item to display.
+     * @param sort the sort order of children nodes.
+     */
+    public CoverageNode(CoverageItem item, CoverageSortEnum sort) {
+        this(item, item.isLeaf() ? null : new CoverageChildFactory(item, sort));
+    }
+
+    private CoverageNode(CoverageItem item, CoverageChildFactory childFactory) {
+        super(childFactory == null ? Children.LEAF : Children.create(childFactory, true), Lookups.singleton(item));
+        this.item = item;
+        this.childFactory = childFactory;
+        setName(item.getName());
+        switch (item.getKind()) {
+            case PACKAGE:
+                setIconBaseWithExtension("fr/tikione/jacocoverage/plugin/resources/icon/netbeans_java_package.png");
+                break;
+            case CLASS:
+                setIconBaseWithExtension("fr/tikione/jacocoverage/plugin/resources/icon/netbeans_java_class.png");
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Sort the children nodes again, in place: nodes are kept, so expanded nodes stay expanded. Children not computed yet are
+     * sorted when they are.
+     *
+     * @param sort the new sort order of children nodes.
+     */
+    public void sort(CoverageSortEnum sort) {
+        if (childFactory != null && childFactory.sort(sort)) {
+            for (Node child : getChildren().getNodes()) {
+                ((CoverageNode) child).sort(sort);
+            }
+        }
+    }
+
+    @Override
+    protected Sheet createSheet() {
+        Sheet sheet = Sheet.createDefault();
+        Sheet.Set set = Sheet.createPropertiesSet();
+        set.put(new PropertySupport.ReadOnly<String>(PROP_COVERAGE, String.class, Bundle.LBL_Coverage(), Bundle.HINT_Coverage()) {
+            @Override
+            public String getValue() {
+                return String.format(Locale.ENGLISH, "%.1f %%", item.getCoverageRatio() * 100);
+            }
+        });
+        set.put(new PropertySupport.ReadOnly<Integer>(PROP_COVERED, Integer.class, Bundle.LBL_Covered(), Bundle.HINT_Covered()) {
+            @Override
+            public Integer getValue() {
+                return item.getNbCoveredLines();
+            }
+        });
+        set.put(new PropertySupport.ReadOnly<Integer>(PROP_PARTIALLY_COVERED, Integer.class, Bundle.LBL_PartiallyCovered(),
+                Bundle.HINT_PartiallyCovered()) {
+            @Override
+            public Integer getValue() {
+                return item.getNbPartiallyCoveredLines();
+            }
+        });
+        set.put(new PropertySupport.ReadOnly<Integer>(PROP_NOT_COVERED, Integer.class, Bundle.LBL_NotCovered(), Bundle.HINT_NotCovered()) {
+            @Override
+            public Integer getValue() {
+                return item.getNbNotCoveredLines();
+            }
+        });
+        sheet.put(set);
+        return sheet;
+    }
+
+    @Override
+    public Action getPreferredAction() {
+        if (item.getClassResource() == null) {
+            return null;
+        }
+        return new AbstractAction(Bundle.CTL_GoToSource()) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                NBUtils.openSource(item.getClassResource(), item.getLine());
+            }
+        };
+    }
+
+    @Override
+    public Action[] getActions(boolean context) {
+        Action open = getPreferredAction();
+        return open == null ? new Action[0] : new Action[]{open};
+    }
+
+    /**
+     * Create the children nodes of a coverage item. Children are computed and sorted in the model, out of the event dispatch thread.
+     * They are computed once: sorting them again reorders the same items, so their nodes are kept.
+     */
+    private static class CoverageChildFactory extends ChildFactory<CoverageItem> {
+
+        private final CoverageItem parent;
+
+        private volatile CoverageSortEnum sort;
+
+        /** The children items, in the latest sort order; {@code null} until computed. */
+        private volatile List<CoverageItem> children = null;
+
+        CoverageChildFactory(CoverageItem parent, CoverageSortEnum sort) {
+            this.parent = parent;
+            this.sort = sort;
+        }
+
+        /**
+         * Change the sort order of the children.
+         *
+         * @param sort the new sort order.
+         * @return {@code true} if the children were computed and are sorted again, {@code false} if they are not computed yet.
+         */
+        boolean sort(CoverageSortEnum sort) {
+            this.sort = sort;
+            if (children == null) {
+                return false;
+            }
+            refresh(false);
+            return true;
+        }
+
+        @Override
+        protected boolean createKeys(List<CoverageItem> toPopulate) {
+            List<CoverageItem> items;
+            if (children == null) {
+                items = parent.getChildren(sort);
+            } else {
+                items = new ArrayList<>(children);
+                Collections.sort(items, sort.comparator());
+            }
+            children = items;
+            toPopulate.addAll(items);
+            return true;
+        }
+
+        @Override
+        protected Node createNodeForKey(CoverageItem key) {
+            return new CoverageNode(key, sort);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package fr.tikione.jacocoverage.plugin.window;
+
+import fr.tikione.jacocoexec.analyzer.CoverageHistory;
+import fr.tikione.jacocoexec.analyzer.CoverageStateEnum;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.JavaMethod;
+import fr.tikione.jacocoexec.analyzer.TrendPoint;
+import fr.tikione.jacocoverage.plugin.api.CoverageChangeEvent;
+import fr.tikione.jacocoverage.plugin.api.CoverageChangeListener;
+import fr.tikione.jacocoverage.plugin.api.CoverageQueryService;
+import fr.tikione.jacocoverage.plugin.config.Globals;
+import fr.tikione.jacocoverage.plugin.config.ProjectConfig;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Coverage query service, backed by the coverage data published to the coverage results registry.
+ *
+ * @author Jonathan Lermitage
+ */
+@ServiceProvider(service = CoverageQueryService.class)
+public class CoverageQueryServiceImpl implements CoverageQueryService {
+
+    private static final Logger LOGGER = Logger.getLogger(CoverageQueryServiceImpl.class.getName());
+
+    /** Listeners of every instance of the service (there is one instance per lookup). */
+    private static final List<CoverageChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Source of coverage change events. */
+    private static final Object EVENT_SOURCE = CoverageQueryService.class;
+
+    @Override
+    public boolean hasCoverage(FileObject sourceFile) {
+        return getClassCoverage(sourceFile) != null;
+    }
+
+    @Override
+    public CoverageStateEnum getLineCoverage(FileObject sourceFile, int line) {
+        JavaClass jclass = getClassCoverage(sourceFile);
+        return jclass == null ? null : jclass.getCoverage().get(line);
+    }
+
+    @Override
+    public SortedMap<Integer, CoverageStateEnum> getRangeCoverage(FileObject sourceFile, int fromLine, int toLine) {
+        JavaClass jclass = getClassCoverage(sourceFile);
+        if (jclass == null || toLine < fromLine) {
+            return new TreeMap<>();
+        }
+        Map<Integer, CoverageStateEnum> coverage = jclass.getCoverage();
+        SortedMap<Integer, CoverageStateEnum> rangeCoverage = new TreeMap<>();
+        for (int line = fromLine; line <= toLine; line++) {
+            CoverageStateEnum state = coverage.get(line);
+            if (state != null) {
+                rangeCoverage.put(line, state);
+            }
+        }
+        return rangeCoverage;
+    }
+
+    @Override
+    public JavaMethod getMethodCoverage(FileObject sourceFile, int line) {
+        JavaClass jclass = getClassCoverage(sourceFile);
+        return jclass == null ? null : jclass.getMethodAt(line);
+    }
+
+    @Override
+    public JavaClass getClassCoverage(FileObject sourceFile) {
+        String classResource = NBUtils.getClassResource(sourceFile);
+        if (classResource == null) {
+            return null;
+        }
+        Project project = FileOwnerQuery.getOwner(sourceFile);
+        return project == null ? null : CoverageResults.getJavaClass(project, classResource);
+    }
+
+    @Override
+    public List<TrendPoint> getCoverageTrend(Project project, String name)
+            throws IOException {
+        String prjDir = NBUtils.getProjectDir(project) + File.separator;
+        int retention = ProjectConfig.forFile(new File(prjDir + Globals.PRJ_CFG)).getHistoryRetention();
+        if (retention <= 0) {
+            // Coverage history disabled: the recorded runs, if any, are not kept up to date.
+            return Collections.emptyList();
+        }
+        return new CoverageHistory(new File(prjDir + Globals.HISTORY_DIR), retention).getTrend(name);
+    }
+
+    @Override
+    public void addCoverageChangeListener(CoverageChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeCoverageChangeListener(CoverageChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notify listeners of the Java source files whose coverage data changed: one event per added, replaced or removed file.
+     *
+     * @param project the project.
+     * @param previous the previous coverage data of the project, by Java source file (can be {@code null}).
+     * @param current the new coverage data of the project, by Java source file ({@code null} if removed).
+     */
+    static void fireCoverageChanged(Project project, Map<String, JavaClass> previous, Map<String, JavaClass> current) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Set<String> classResources = new HashSet<>(64);
+        if (previous != null) {
+            classResources.addAll(previous.keySet());
+        }
+        if (current != null) {
+            classResources.addAll(current.keySet());
+        }
+        for (String classResource : classResources) {
+            CoverageChangeEvent event = new CoverageChangeEvent(EVENT_SOURCE, project, classResource,
+                    current == null ? null : current.get(classResource));
+            for (CoverageChangeListener listener : listeners) {
+                try {
+                    listener.coverageChanged(event);
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Coverage change listener failed", ex);
+                }
+            }
+        }
+    }
+}
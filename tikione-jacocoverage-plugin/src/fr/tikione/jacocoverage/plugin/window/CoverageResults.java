@@ -0,0 +1,127 @@
+package fr.tikione.jacocoverage.plugin.window;
+
+import fr.tikione.jacocoexec.analyzer.CoverageRollup;
+import fr.tikione.jacocoexec.analyzer.JavaClass;
+import fr.tikione.jacocoexec.analyzer.UncoveredRangeIndex;
+import fr.tikione.jacocoverage.plugin.util.NBUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.event.ChangeListener;
+import org.netbeans.api.project.Project;
+import org.openide.util.ChangeSupport;
+
+/**
+ * Registry of the latest coverage data of each project, displayed by the coverage results window.
+ *
+ * @author Jonathan Lermitage
+ */
+public class CoverageResults {
+
+    /** Latest coverage data, by project identifier. */
+    private static final Map<String, CoverageItem> results = new LinkedHashMap<>(8);
+
+    /** Latest coverage data of Java source files, by project identifier then by Java source file (e.g. "fr/tikione/Foo.java"). */
+    private static final Map<String, Map<String, JavaClass>> classes = new HashMap<>(8);
+
+    /** Not covered and partially covered blocks of the latest coverage data, by project identifier. */
+    private static final Map<String, UncoveredRangeIndex> uncoveredRanges = new HashMap<>(8);
+
+    /** Listeners notified when coverage data is published or removed. */
+    private static final ChangeSupport changeSupport = new ChangeSupport(CoverageResults.class);
+
+    /**
+     * Publish the coverage data of a project. Replace the previous coverage data of this project.
+     *
+     * @param project the project.
+     * @param rollup the coverage rollup of the project.
+     */
+    public static void publish(Project project, CoverageRollup rollup) {
+        String prjId = NBUtils.getProjectId(project);
+        List<CoverageRollup> classNodes = rollup.getNodes(CoverageRollup.Level.CLASS);
+        Map<String, JavaClass> prjClasses = new HashMap<>(classNodes.size() * 2);
+        for (CoverageRollup classNode : classNodes) {
+            JavaClass jclass = classNode.getJavaClass();
+            prjClasses.put(JavaClass.toResourceKey(jclass.getPackageName() + jclass.getClassName()), jclass);
+        }
+        UncoveredRangeIndex prjUncoveredRanges = UncoveredRangeIndex.build(prjClasses.values());
+        Map<String, JavaClass> previous;
+        synchronized (results) {
+            results.put(prjId, CoverageItem.forProject(project, rollup));
+            previous = classes.put(prjId, prjClasses);
+            uncoveredRanges.put(prjId, prjUncoveredRanges);
+        }
+        changeSupport.fireChange();
+        CoverageQueryServiceImpl.fireCoverageChanged(project, previous, prjClasses);
+    }
+
+    /**
+     * Remove the coverage data of a project, if any.
+     *
+     * @param project the project.
+     */
+    public static void remove(Project project) {
+        CoverageItem previous;
+        Map<String, JavaClass> previousClasses;
+        synchronized (results) {
+            previous = results.remove(NBUtils.getProjectId(project));
+            previousClasses = classes.remove(NBUtils.getProjectId(project));
+            uncoveredRanges.remove(NBUtils.getProjectId(project));
+        }
+        if (previous != null) {
+            changeSupport.fireChange();
+        }
+        CoverageQueryServiceImpl.fireCoverageChanged(project, previousClasses, null);
+    }
+
+    /**
+     * Get the latest coverage data of a Java source file.
+     *
+     * @param project the project that contains the Java source file.
+     * @param classResource the Java source file, relative to a source root (e.g. <code>fr/tikione/Foo.java</code>).
+     * @return the coverage data of the Java source file, or {@code null} if none.
+     */
+    static JavaClass getJavaClass(Project project, String classResource) {
+        synchronized (results) {
+            Map<String, JavaClass> prjClasses = classes.get(NBUtils.getProjectId(project));
+            return prjClasses == null ? null : prjClasses.get(JavaClass.toResourceKey(classResource));
+        }
+    }
+
+    /**
+     * Get the not covered and partially covered blocks of the latest coverage data of a project.
+     *
+     * @param project the project.
+     * @return the index of blocks, or {@code null} if the project has no coverage data.
+     */
+    public static UncoveredRangeIndex getUncoveredRanges(Project project) {
+        synchronized (results) {
+            return uncoveredRanges.get(NBUtils.getProjectId(project));
+        }
+    }
+
+    /**
+     * Get the latest coverage data of every project.
+     *
+     * @return the coverage data of projects, in publication order.
+     */
+    public static List<CoverageItem> getAll() {
+        synchronized (results) {
+            return Collections.unmodifiableList(new ArrayList<>(results.values()));
+        }
+    }
+
+    public static void addChangeListener(ChangeListener listener) {
+        changeSupport.addChangeListener(listener);
+    }
+
+    public static void removeChangeListener(ChangeListener listener) {
+        changeSupport.removeChangeListener(listener);
+    }
+
+    private CoverageResults() {
+    }
+}
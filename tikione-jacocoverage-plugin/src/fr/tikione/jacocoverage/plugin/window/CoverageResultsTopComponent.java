@@ -0,0 +1,190 @@
+package fr.tikione.jacocoverage.plugin.window;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JToolBar;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.explorer.ExplorerManager;
+import org.openide.explorer.ExplorerUtils;
+import org.openide.explorer.view.OutlineView;
+import org.openide.nodes.AbstractNode;
+import org.openide.nodes.ChildFactory;
+import org.openide.nodes.Children;
+import org.openide.nodes.Node;
+import org.openide.util.NbBundle;
+import org.openide.windows.TopComponent;
+
+/**
+ * The coverage results window: a tree table of project, package, class and method coverage.
+ * <br/>The tree table is virtualized: only visible rows are rendered, and nodes are created when their parent is expanded.
+ * Sorting is applied to the model when children are computed. Changing the sort order reorders the nodes in place, so expanded nodes
+ * stay expanded. Double-clicking a class or a method opens its Java source file.
+ *
+ * @author Jonathan Lermitage
+ */
+@TopComponent.Description(preferredID = "CoverageResultsTopComponent",
+        iconBase = "fr/tikione/jacocoverage/plugin/resources/icon/famfamfam_lightning.png",
+        persistenceType = TopComponent.PERSISTENCE_NEVER)
+@TopComponent.Registration(mode = "output", openAtStartup = false)
+@ActionID(category = "Window", id = "fr.tikione.jacocoverage.plugin.window.CoverageResultsTopComponent")
+@ActionReference(path = "Menu/Window", position = 2080)
+@TopComponent.OpenActionRegistration(displayName = "#CTL_CoverageResultsAction",
+        preferredID = "CoverageResultsTopComponent")
+@NbBundle.Messages({
+    "CTL_CoverageResultsAction=JaCoCoverage Results",
+    "CTL_CoverageResultsTopComponent=JaCoCoverage Results",
+    "HINT_CoverageResultsTopComponent=Coverage of the latest JaCoCoverage tasks",
+    "LBL_Element=Element",
+    "LBL_SortBy=Sort by:"
+})
+public final class CoverageResultsTopComponent
+        extends TopComponent
+        implements ExplorerManager.Provider {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ExplorerManager explorerManager = new ExplorerManager();
+
+    private final JComboBox<CoverageSortEnum> sortCombo = new JComboBox<>(CoverageSortEnum.values());
+
+    /** The factory of the project nodes of the current tree. */
+    private transient ProjectChildFactory projectFactory;
+
+    /** Rebuild the tree when coverage data is published. */
+    private final transient ChangeListener resultsListener = new ChangeListener() {
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    refresh();
+                }
+            });
+        }
+    };
+
+    public CoverageResultsTopComponent() {
+        setName(Bundle.CTL_CoverageResultsTopComponent());
+        setToolTipText(Bundle.HINT_CoverageResultsTopComponent());
+        setLayout(new BorderLayout());
+
+        OutlineView outlineView = new OutlineView(Bundle.LBL_Element());
+        outlineView.setPropertyColumns(
+                CoverageNode.PROP_COVERAGE, Bundle.LBL_Coverage(),
+                CoverageNode.PROP_COVERED, Bundle.LBL_Covered(),
+                CoverageNode.PROP_PARTIALLY_COVERED, Bundle.LBL_PartiallyCovered(),
+                CoverageNode.PROP_NOT_COVERED, Bundle.LBL_NotCovered());
+        outlineView.getOutline().setRootVisible(false);
+
+        sortCombo.setSelectedItem(CoverageSortEnum.WORST_COVERAGE);
+        sortCombo.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                sort();
+            }
+        });
+        JToolBar toolbar = new JToolBar();
+        toolbar.setFloatable(false);
+        toolbar.add(new JLabel(Bundle.LBL_SortBy()));
+        toolbar.addSeparator(new Dimension(4, 0));
+        toolbar.add(sortCombo);
+
+        add(toolbar, BorderLayout.NORTH);
+        add(outlineView, BorderLayout.CENTER);
+        associateLookup(ExplorerUtils.createLookup(explorerManager, getActionMap()));
+    }
+
+    @Override
+    public ExplorerManager getExplorerManager() {
+        return explorerManager;
+    }
+
+    @Override
+    public void componentOpened() {
+        CoverageResults.addChangeListener(resultsListener);
+        refresh();
+    }
+
+    @Override
+    public void componentClosed() {
+        CoverageResults.removeChangeListener(resultsListener);
+        explorerManager.setRootContext(Node.EMPTY);
+        projectFactory = null;
+    }
+
+    /**
+     * Rebuild the tree from the latest coverage data, with the selected sort order.
+     */
+    private void refresh() {
+        projectFactory = new ProjectChildFactory((CoverageSortEnum) sortCombo.getSelectedItem());
+        explorerManager.setRootContext(new AbstractNode(Children.create(projectFactory, false)));
+    }
+
+    /**
+     * Sort the tree again with the selected sort order, keeping its nodes and their expansion state.
+     */
+    private void sort() {
+        CoverageSortEnum sort = (CoverageSortEnum) sortCombo.getSelectedItem();
+        if (projectFactory != null && projectFactory.sort(sort)) {
+            for (Node project : explorerManager.getRootContext().getChildren().getNodes()) {
+                ((CoverageNode) project).sort(sort);
+            }
+        }
+    }
+
+    /**
+     * Create a node for each project that has coverage data. Projects are listed once: sorting them again reorders the same items,
+     * so their nodes are kept.
+     */
+    private static class ProjectChildFactory extends ChildFactory<CoverageItem> {
+
+        private CoverageSortEnum sort;
+
+        /** The project items, in the latest sort order; {@code null} until listed. */
+        private List<CoverageItem> projects = null;
+
+        ProjectChildFactory(CoverageSortEnum sort) {
+            this.sort = sort;
+        }
+
+        /**
+         * Change the sort order of the projects.
+         *
+         * @param sort the new sort order.
+         * @return {@code true} if the projects were listed and are sorted again, {@code false} if they are not listed yet.
+         */
+        boolean sort(CoverageSortEnum sort) {
+            this.sort = sort;
+            if (projects == null) {
+                return false;
+            }
+            refresh(true);
+            return true;
+        }
+
+        @Override
+        protected boolean createKeys(List<CoverageItem> toPopulate) {
+            List<CoverageItem> items = projects == null ? new ArrayList<>(CoverageResults.getAll()) : new ArrayList<>(projects);
+            Collections.sort(items, sort.comparator());
+            projects = items;
+            toPopulate.addAll(items);
+            return true;
+        }
+
+        @Override
+        protected Node createNodeForKey(CoverageItem key) {
+            return new CoverageNode(key, sort);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package fr.tikione.jacocoverage.plugin.window;
+
+import java.util.Comparator;
+import org.openide.util.NbBundle;
+
+/**
+ * Sort orders of the coverage results window. Items are sorted in the model, before nodes are created.
+ *
+ * @author Jonathan Lermitage
+ */
+@NbBundle.Messages({
+    "LBL_SortName=Name",
+    "LBL_SortWorstCoverage=Worst coverage first",
+    "LBL_SortMostMissedLines=Most missed lines first"
+})
+public enum CoverageSortEnum {
+
+    /** Alphabetical order. */
+    NAME(Bundle.LBL_SortName()) {
+        @Override
+        public int compare(CoverageItem o1, CoverageItem o2) {
+            return o1.getName().compareToIgnoreCase(o2.getName());
+        }
+    },
+    /** Lowest line coverage ratio first. */
+    WORST_COVERAGE(Bundle.LBL_SortWorstCoverage()) {
+        @Override
+        public int compare(CoverageItem o1, CoverageItem o2) {
+            int cmp = Double.compare(o1.getCoverageRatio(), o2.getCoverageRatio());
+            return cmp == 0 ? NAME.compare(o1, o2) : cmp;
+        }
+    },
+    /** Highest number of not covered lines first. */
+    MOST_MISSED_LINES(Bundle.LBL_SortMostMissedLines()) {
+        @Override
+        public int compare(CoverageItem o1, CoverageItem o2) {
+            int cmp = Integer.compare(o2.getNbNotCoveredLines(), o1.getNbNotCoveredLines());
+            return cmp == 0 ? NAME.compare(o1, o2) : cmp;
+        }
+    };
+
+    private final String label;
+
+    private CoverageSortEnum(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Compare two coverage items.
+     *
+     * @param o1 the first item.
+     * @param o2 the second item.
+     * @return a negative integer, zero, or a positive integer as the first item is to be displayed before, with, or after the second.
+     */
+    public abstract int compare(CoverageItem o1, CoverageItem o2);
+
+    /**
+     * Get a comparator that applies this sort order.
+     *
+     * @return a comparator.
+     */
+    public Comparator<CoverageItem> comparator() {
+        return new Comparator<CoverageItem>() {
+            @Override
+            public int compare(CoverageItem o1, CoverageItem o2) {
+                return CoverageSortEnum.this.compare(o1, o2);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}